@@ -0,0 +1,49 @@
+package com.gaming.enhancedagar.engine;
+
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.gaming.enhancedagar.game.GameViewRenderScene;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Presupuestos de las escenas que dibujan desde Bitmaps (sprites de efectos y atlas de
+ * glifos): en la JVM los Bitmaps de android.jar son null y esas rutas no dibujan nada.
+ * Los techos salen del recuento exacto de llamadas de cada ruta, comprobado en la JVM con
+ * Bitmaps simulados; el resto de escenas está en RenderBenchmarkTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class RenderBenchmarkDeviceTest {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+
+    @Test
+    public void effectsFightWithinBudget() {
+        // 24 combatientes x (1 sombra + 3 ondas de aura) = 96 sprites; sin objetos nuevos
+        assertWithinBudget(new RenderBenchmark.EffectsFightScene(WIDTH, HEIGHT),
+                           new RenderBenchmark.Budget(96, 0f, 1));
+    }
+
+    @Test
+    public void gameViewContentWithinBudget() {
+        // Rejilla 26 + 15 líneas, jugador y nombre, hasta 20 de comida y ~35 glifos del HUD;
+        // todos los Paints del contenido se reutilizan entre frames
+        GameViewRenderScene scene = new GameViewRenderScene(WIDTH, HEIGHT);
+        try {
+            assertWithinBudget(scene, new RenderBenchmark.Budget(120, 0f, 1));
+        } finally {
+            scene.tearDown();
+        }
+    }
+
+    private static void assertWithinBudget(RenderBenchmark.Scene scene, RenderBenchmark.Budget budget) {
+        RenderBenchmark benchmark = new RenderBenchmark(WIDTH, HEIGHT);
+        RenderBenchmark.Result result = benchmark.run(scene, budget);
+        System.out.println(result);
+        assertTrue(result.toString(), result.passed());
+    }
+}
@@ -0,0 +1,55 @@
+package com.gaming.enhancedagar.game;
+
+import android.content.Context;
+import android.graphics.Canvas;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.gaming.enhancedagar.engine.RenderBenchmark;
+
+/**
+ * Escena del banco de render sobre la ruta real de GameView: fondo en rejilla, jugador,
+ * comida y HUD desde el atlas de glifos (renderGameContent), con el motor inicializado
+ */
+public class GameViewRenderScene implements RenderBenchmark.Scene {
+
+    private final int width;
+    private final int height;
+    private GameView gameView;
+
+    public GameViewRenderScene(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public String getName() {
+        return "gameview-contenido";
+    }
+
+    @Override
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        // Las vistas se crean en el hilo principal; el dibujo sobre el canvas no lo necesita
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            gameView = new GameView(context);
+            gameView.surfaceChanged(null, 0, width, height);
+            gameView.getGameEngine().initialize();
+        });
+    }
+
+    @Override
+    public void renderFrame(Canvas canvas, int frameIndex) {
+        gameView.renderGameContent(canvas);
+    }
+
+    /**
+     * Libera el atlas de texto y el resto de recursos de la vista
+     */
+    public void tearDown() {
+        if (gameView != null) {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(gameView::cleanup);
+            gameView = null;
+        }
+    }
+}
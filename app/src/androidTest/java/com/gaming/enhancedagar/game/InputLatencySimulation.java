@@ -0,0 +1,132 @@
+package com.gaming.enhancedagar.game;
+
+import android.graphics.PointF;
+import android.view.MotionEvent;
+
+import com.gaming.enhancedagar.engine.GameEngine;
+import com.gaming.enhancedagar.engine.RecordingCanvas;
+import com.gaming.enhancedagar.entities.Player;
+
+/**
+ * Simulación sin dispositivo de la latencia entrada -> fotón
+ * Inyecta toques sintéticos en la cola del InputHandler con un reloj simulado, ejecuta el
+ * mismo recorrido que GameView (procesar entrada, GameEngine.onTouchEvent con la secuencia,
+ * actualizar jugador, dibujar) sobre un
+ * RecordingCanvas y presenta cada frame en el siguiente vsync más la latencia del compositor.
+ * El coste real de actualizar y dibujar se mide y se suma al reloj simulado
+ */
+public class InputLatencySimulation {
+
+    private long frameIntervalNanos = 16_666_667L;   // 60 Hz
+    private long inputIntervalNanos = 8_333_333L;    // Muestreo táctil a 120 Hz
+    private long compositorLatencyNanos = 16_666_667L;
+    private int width = 1080;
+    private int height = 1920;
+
+    private long now = 0;
+
+    public void setFrameInterval(long nanos) { this.frameIntervalNanos = Math.max(1, nanos); }
+    public void setInputInterval(long nanos) { this.inputIntervalNanos = Math.max(1, nanos); }
+    public void setCompositorLatency(long nanos) { this.compositorLatencyNanos = Math.max(0, nanos); }
+
+    public void setSurfaceSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Ejecuta la simulación y devuelve el trazador con los histogramas resultantes
+     */
+    public InputLatencyTracer run(int frames) {
+        now = 0;
+        InputLatencyTracer tracer = new InputLatencyTracer();
+        tracer.setClock(() -> now);
+
+        GameEngine engine = new GameEngine();
+        engine.initialize();
+        Player player = engine.getPlayer();
+        InputHandler handler = new InputHandler(null);
+        handler.setLatencyTracer(tracer);
+        handler.setListener(new EngineListener(engine, handler));
+
+        TouchEventQueue queue = handler.getEventQueue();
+        RecordingCanvas surface = new RecordingCanvas(width, height);
+        float deltaTime = frameIntervalNanos / 1_000_000_000f;
+
+        long nextInputTime = 0;
+        int inputIndex = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            long frameStart = frame * frameIntervalNanos;
+
+            // Toques producidos desde el frame anterior (cada uno es un MotionEvent)
+            while (nextInputTime <= frameStart) {
+                writeSyntheticTouch(queue, inputIndex++, nextInputTime);
+                nextInputTime += inputIntervalNanos;
+            }
+
+            // Mismo orden que el bucle de GameView
+            now = frameStart;
+            handler.processPendingInput(frameStart + frameIntervalNanos + compositorLatencyNanos);
+            tracer.onTargetObserved(player.getTargetInputSequence());
+
+            long workStart = System.nanoTime();
+            player.update(deltaTime);
+            surface.beginFrame();
+            player.render(surface);
+            surface.endFrame();
+            now += System.nanoTime() - workStart;
+
+            // Publicado en el siguiente vsync y mostrado tras el compositor
+            long vsync = ((now + frameIntervalNanos - 1) / frameIntervalNanos) * frameIntervalNanos;
+            now = vsync + compositorLatencyNanos;
+            tracer.onFramePresented();
+        }
+        return tracer;
+    }
+
+    /**
+     * Trayectoria circular: el primer toque es ACTION_DOWN y el resto ACTION_MOVE
+     */
+    private void writeSyntheticTouch(TouchEventQueue queue, int index, long eventTimeNanos) {
+        double angle = index * 0.05;
+        float x = (float) (width / 2f + Math.cos(angle) * width * 0.3f);
+        float y = (float) (height / 2f + Math.sin(angle) * width * 0.3f);
+        int action = index == 0 ? MotionEvent.ACTION_DOWN : MotionEvent.ACTION_MOVE;
+
+        queue.beginBatch();
+        queue.write(action, 0, x, y, eventTimeNanos, 0);
+        queue.publishBatch();
+    }
+
+    /**
+     * Listener mínimo que entra al motor como el de GameView, con la secuencia del evento
+     */
+    private static class EngineListener implements InputHandler.InputListener {
+        private final GameEngine engine;
+        private final InputHandler handler;
+
+        EngineListener(GameEngine engine, InputHandler handler) {
+            this.engine = engine;
+            this.handler = handler;
+        }
+
+        @Override
+        public void onTouchDown(PointF position) {
+            engine.onTouchEvent(position.x, position.y, handler.getLastProcessedSequence());
+        }
+
+        @Override
+        public void onTouchMove(PointF position) {
+            engine.onTouchEvent(position.x, position.y, handler.getLastProcessedSequence());
+        }
+
+        @Override
+        public void onTouchUp(PointF position) {
+            engine.onTouchRelease();
+        }
+
+        @Override public void onGestureDetected(InputHandler.GestureType gesture, PointF origin, PointF end) {}
+        @Override public void onVirtualInput(int virtualButtonId, boolean pressed) {}
+        @Override public void onCalibrationComplete(float scaleFactor, float offsetX, float offsetY) {}
+    }
+}
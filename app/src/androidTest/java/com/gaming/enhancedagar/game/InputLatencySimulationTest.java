@@ -0,0 +1,40 @@
+package com.gaming.enhancedagar.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Recorrido completo entrada -> objetivo del jugador -> frame presentado
+ */
+@RunWith(AndroidJUnit4.class)
+public class InputLatencySimulationTest {
+
+    private static final int FRAMES = 240;
+
+    @Test
+    public void everyFrameClosesLatencySamples() {
+        InputLatencySimulation simulation = new InputLatencySimulation();
+        InputLatencyTracer tracer = simulation.run(FRAMES);
+
+        // Cada frame consume toques nuevos, el motor fija el objetivo con su secuencia y se presenta
+        assertTrue(tracer.getConsumeHistogram().getCount() > 0);
+        assertTrue(tracer.getTargetHistogram().getCount() > 0);
+        assertTrue(tracer.getPresentHistogram().getCount() > 0);
+        assertEquals(0, tracer.getDroppedEvents());
+    }
+
+    @Test
+    public void presentLatencyIncludesCompositor() {
+        InputLatencySimulation simulation = new InputLatencySimulation();
+        simulation.setCompositorLatency(16_666_667L);
+        InputLatencyTracer tracer = simulation.run(FRAMES);
+
+        // Como mínimo un vsync de compositor entre la entrada y el fotón
+        assertTrue(tracer.getPresentHistogram().getPercentileMs(0.5f) >= 16f);
+    }
+}
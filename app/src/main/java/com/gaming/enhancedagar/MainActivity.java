@@ -1,5 +1,6 @@
 package com.gaming.enhancedagar;
 
+import android.graphics.PointF;
 import android.os.Bundle;
 import android.view.MotionEvent;
 import android.view.SurfaceHolder;
@@ -9,6 +10,7 @@ import android.view.WindowManager;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.AppCompatImageView;
 import com.gaming.enhancedagar.engine.GameEngine;
+import com.gaming.enhancedagar.game.InputHandler;
 
 /**
  * MainActivity principal del juego Enhanced Agar
@@ -26,6 +28,28 @@ public class MainActivity extends AppCompatActivity {
     private float lastTouchX = 0f;
     private float lastTouchY = 0f;
     private boolean isTouchActive = false;
+    
+    // Cola de entrada: numera cada toque para que el motor conserve su secuencia
+    private final InputHandler inputHandler = new InputHandler(new InputHandler.InputListener() {
+        @Override
+        public void onTouchDown(PointF position) {
+            gameEngine.onTouchEvent(position.x, position.y, inputHandler.getLastProcessedSequence());
+        }
+        
+        @Override
+        public void onTouchMove(PointF position) {
+            gameEngine.onTouchEvent(position.x, position.y, inputHandler.getLastProcessedSequence());
+        }
+        
+        @Override
+        public void onTouchUp(PointF position) {
+            gameEngine.onTouchRelease();
+        }
+        
+        @Override public void onGestureDetected(InputHandler.GestureType gesture, PointF origin, PointF end) {}
+        @Override public void onVirtualInput(int virtualButtonId, boolean pressed) {}
+        @Override public void onCalibrationComplete(float scaleFactor, float offsetX, float offsetY) {}
+    });
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -124,6 +148,7 @@ public class MainActivity extends AppCompatActivity {
     private void initializeGameEngine() {
         try {
             gameEngine = new GameEngine(this);
+            gameEngine.setInputHandler(inputHandler);
             android.util.Log.i(TAG, "GameEngine inicializado correctamente");
         } catch (Exception e) {
             android.util.Log.e(TAG, "Error inicializando GameEngine", e);
@@ -136,19 +161,20 @@ public class MainActivity extends AppCompatActivity {
     private boolean handleTouchEvent(MotionEvent event) {
         if (gameEngine == null) return false;
         
+        // Solo se encola: el bucle del motor procesa la cola antes de cada update
+        inputHandler.enqueueMotionEvent(event);
+        
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
             case MotionEvent.ACTION_MOVE:
                 isTouchActive = true;
                 lastTouchX = event.getX();
                 lastTouchY = event.getY();
-                gameEngine.onTouchEvent(lastTouchX, lastTouchY);
                 return true;
                 
             case MotionEvent.ACTION_UP:
             case MotionEvent.ACTION_CANCEL:
                 isTouchActive = false;
-                gameEngine.onTouchRelease();
                 return true;
         }
         
@@ -306,29 +306,30 @@ public class BackgroundRenderer {
         }
     }
     
+    // Tema visual (lo usan el sistema de temas y las rutas de render)
+    private static class Theme {
+        int primaryColor;
+        int secondaryColor;
+        int accentColor;
+        PatternType pattern;
+        boolean hasStars;
+        boolean hasNebulas;
+        
+        Theme(int primary, int secondary, int accent, PatternType pattern, boolean stars, boolean nebulas) {
+            this.primaryColor = primary;
+            this.secondaryColor = secondary;
+            this.accentColor = accent;
+            this.pattern = pattern;
+            this.hasStars = stars;
+            this.hasNebulas = nebulas;
+        }
+    }
+    
     // Sistema de temas
     private class ThemeSystem {
         private Map<String, Theme> themes;
         private String currentTheme;
         
-        private static class Theme {
-            int primaryColor;
-            int secondaryColor;
-            int accentColor;
-            PatternType pattern;
-            boolean hasStars;
-            boolean hasNebulas;
-            
-            Theme(int primary, int secondary, int accent, PatternType pattern, boolean stars, boolean nebulas) {
-                this.primaryColor = primary;
-                this.secondaryColor = secondary;
-                this.accentColor = accent;
-                this.pattern = pattern;
-                this.hasStars = stars;
-                this.hasNebulas = nebulas;
-            }
-        }
-        
         public ThemeSystem() {
             initializeThemes();
         }
@@ -877,6 +878,13 @@ public class BackgroundRenderer {
         }
     }
     
+    /**
+     * Número de capas de parallax disponibles
+     */
+    public int getParallaxLayerCount() {
+        return (int) PARALLAX_LAYERS;
+    }
+    
     /**
      * Fuerza la regeneración de elementos ambientales
      */
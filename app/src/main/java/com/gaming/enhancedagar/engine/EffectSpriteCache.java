@@ -0,0 +1,265 @@
+package com.gaming.enhancedagar.engine;
+
+import android.graphics.*;
+import android.util.LruCache;
+
+/**
+ * Cache de sprites de efectos (glow, aura, sombra, partícula suave)
+ * Cada sprite se rasteriza una sola vez por (tipo, color, tamaño redondeado) con el
+ * desenfoque o el gradiente ya aplicados; al dibujar solo se escala y se modula el alpha.
+ * Los sprites se expulsan por LRU cuando se supera el presupuesto de memoria
+ */
+public class EffectSpriteCache {
+
+    // Tipos de sprite
+    public enum SpriteKind {
+        GLOW,   // Halo exterior (equivale a BlurMaskFilter OUTER)
+        AURA,   // Anillo con gradiente radial
+        SOFT,   // Disco difuminado (equivale a BlurMaskFilter NORMAL)
+        SHADOW  // Disco con desenfoque ligero para sombras
+    }
+
+    public static final int DEFAULT_BUDGET_BYTES = 4 * 1024 * 1024;
+
+    // Los tamaños se agrupan en medias octavas: 4, 5.7, 8, 11, 16 ... 64 px
+    private static final int MIN_BUCKET = 4;   // 2^(4/2) = 4 px
+    private static final int MAX_BUCKET = 12;  // 2^(12/2) = 64 px; más grande se escala
+
+    // Desenfoque relativo al radio del sprite
+    private static final float GLOW_BLUR_RATIO = 0.75f;
+    private static final float SOFT_BLUR_RATIO = 0.5f;
+    private static final float SHADOW_BLUR_RATIO = 0.2f;
+
+    private final LruCache<Long, Bitmap> sprites;
+
+    // Objetos reutilizados al rasterizar y al dibujar
+    private final Paint bakePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint spritePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final RectF dstRect = new RectF();
+
+    // Estadísticas
+    private int hits = 0;
+    private int misses = 0;
+    private int evictions = 0;
+    private int spriteCount = 0;
+
+    public EffectSpriteCache() {
+        this(DEFAULT_BUDGET_BYTES);
+    }
+
+    public EffectSpriteCache(int budgetBytes) {
+        this.sprites = new LruCache<Long, Bitmap>(budgetBytes) {
+            @Override
+            protected int sizeOf(Long key, Bitmap value) {
+                return value.getByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, Long key, Bitmap oldValue, Bitmap newValue) {
+                if (evicted) {
+                    evictions++;
+                }
+                spriteCount--;
+                if (oldValue != null && !oldValue.isRecycled()) {
+                    oldValue.recycle();
+                }
+            }
+        };
+    }
+
+    /**
+     * Dibuja un halo centrado cuyo borde interior coincide con el radio dado
+     */
+    public void drawGlow(Canvas canvas, float cx, float cy, float radius, int color, int alpha) {
+        drawCentered(canvas, SpriteKind.GLOW, cx, cy, radius, radius, color, alpha);
+    }
+
+    /**
+     * Dibuja un anillo de aura con el radio exterior dado
+     */
+    public void drawAura(Canvas canvas, float cx, float cy, float radius, int color, int alpha) {
+        drawCentered(canvas, SpriteKind.AURA, cx, cy, radius, radius, color, alpha);
+    }
+
+    /**
+     * Dibuja un disco difuminado (partículas, brillo)
+     */
+    public void drawSoft(Canvas canvas, float cx, float cy, float radius, int color, int alpha) {
+        drawCentered(canvas, SpriteKind.SOFT, cx, cy, radius, radius, color, alpha);
+    }
+
+    /**
+     * Dibuja una sombra ovalada ocupando el rectángulo dado
+     */
+    public void drawShadow(Canvas canvas, float left, float top, float right, float bottom,
+                           int color, int alpha) {
+        float radiusX = (right - left) * 0.5f;
+        float radiusY = (bottom - top) * 0.5f;
+        drawCentered(canvas, SpriteKind.SHADOW, left + radiusX, top + radiusY,
+                     radiusX, radiusY, color, alpha);
+    }
+
+    /**
+     * Dibuja un sprite escalado para que su radio base coincida con radiusX/radiusY
+     */
+    private void drawCentered(Canvas canvas, SpriteKind kind, float cx, float cy,
+                              float radiusX, float radiusY, int color, int alpha) {
+        float radius = Math.max(radiusX, radiusY);
+        if (radius <= 0 || alpha <= 0) {
+            return;
+        }
+
+        int bucket = bucketFor(radius);
+        Bitmap sprite = getSprite(kind, color | 0xFF000000, bucket);
+        if (sprite == null) {
+            return;
+        }
+
+        // El bitmap incluye el margen del desenfoque alrededor del radio base
+        float baseRadius = bucketRadius(bucket);
+        float halfExtent = sprite.getWidth() * 0.5f;
+        float scaleX = radiusX / baseRadius;
+        float scaleY = radiusY / baseRadius;
+        dstRect.set(cx - halfExtent * scaleX, cy - halfExtent * scaleY,
+                    cx + halfExtent * scaleX, cy + halfExtent * scaleY);
+
+        spritePaint.setAlpha(Math.min(255, alpha * Color.alpha(color) / 255));
+        canvas.drawBitmap(sprite, null, dstRect, spritePaint);
+    }
+
+    /**
+     * Busca un sprite en la cache o lo rasteriza si no existe
+     */
+    private Bitmap getSprite(SpriteKind kind, int opaqueColor, int bucket) {
+        long key = ((long) kind.ordinal() << 40) | ((long) bucket << 32) | (opaqueColor & 0xFFFFFFFFL);
+        Bitmap sprite = sprites.get(key);
+        if (sprite != null && !sprite.isRecycled()) {
+            hits++;
+            return sprite;
+        }
+
+        misses++;
+        sprite = bakeSprite(kind, opaqueColor, bucketRadius(bucket));
+        if (sprite != null) {
+            spriteCount++;
+            sprites.put(key, sprite);
+        }
+        return sprite;
+    }
+
+    /**
+     * Rasteriza un sprite; es el único sitio donde se usa BlurMaskFilter
+     */
+    private Bitmap bakeSprite(SpriteKind kind, int color, float radius) {
+        float padding;
+        switch (kind) {
+            case GLOW:
+                padding = radius * GLOW_BLUR_RATIO;
+                break;
+            case SOFT:
+                padding = radius * SOFT_BLUR_RATIO;
+                break;
+            case SHADOW:
+                padding = radius * SHADOW_BLUR_RATIO;
+                break;
+            default:
+                padding = 0;
+                break;
+        }
+
+        int size = (int) Math.ceil((radius + padding) * 2) + 2;
+        Bitmap bitmap;
+        try {
+            bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        } catch (OutOfMemoryError e) {
+            sprites.evictAll();
+            return null;
+        }
+        Canvas canvas = new Canvas(bitmap);
+        float center = size * 0.5f;
+
+        bakePaint.reset();
+        bakePaint.setAntiAlias(true);
+        bakePaint.setStyle(Paint.Style.FILL);
+        bakePaint.setColor(color);
+
+        switch (kind) {
+            case GLOW:
+                bakePaint.setMaskFilter(new BlurMaskFilter(padding, BlurMaskFilter.Blur.OUTER));
+                canvas.drawCircle(center, center, radius, bakePaint);
+                break;
+            case SOFT:
+                bakePaint.setMaskFilter(new BlurMaskFilter(padding, BlurMaskFilter.Blur.NORMAL));
+                canvas.drawCircle(center, center, radius, bakePaint);
+                break;
+            case SHADOW:
+                bakePaint.setMaskFilter(new BlurMaskFilter(padding, BlurMaskFilter.Blur.NORMAL));
+                canvas.drawCircle(center, center, radius, bakePaint);
+                break;
+            case AURA:
+                int transparent = color & 0x00FFFFFF;
+                bakePaint.setShader(new RadialGradient(center, center, radius,
+                    new int[]{transparent, color, transparent},
+                    new float[]{0.6f, 0.85f, 1f}, Shader.TileMode.CLAMP));
+                canvas.drawCircle(center, center, radius, bakePaint);
+                break;
+        }
+
+        bakePaint.setMaskFilter(null);
+        bakePaint.setShader(null);
+        return bitmap;
+    }
+
+    /**
+     * Índice de media octava para un radio
+     */
+    private static int bucketFor(float radius) {
+        int bucket = Math.round((float) (Math.log(radius) / Math.log(2)) * 2);
+        return Math.max(MIN_BUCKET, Math.min(MAX_BUCKET, bucket));
+    }
+
+    /**
+     * Radio base de un índice de media octava
+     */
+    private static float bucketRadius(int bucket) {
+        return (float) Math.pow(2, bucket * 0.5);
+    }
+
+    /**
+     * Cambia el presupuesto de memoria, expulsando lo que sobre
+     */
+    public void setBudgetBytes(int budgetBytes) {
+        sprites.resize(budgetBytes);
+    }
+
+    /**
+     * Libera todos los sprites
+     */
+    public void clear() {
+        sprites.evictAll();
+    }
+
+    public int getSpriteCount() {
+        return spriteCount;
+    }
+
+    public int getByteCount() {
+        return sprites.size();
+    }
+
+    public int getBudgetBytes() {
+        return sprites.maxSize();
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    public int getEvictions() {
+        return evictions;
+    }
+}
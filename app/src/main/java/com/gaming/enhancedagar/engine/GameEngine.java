@@ -1,14 +1,31 @@
 package com.gaming.enhancedagar.engine;
 
+import android.graphics.RectF;
+
+import com.gaming.enhancedagar.entities.EnemyBot;
 import com.gaming.enhancedagar.entities.Entity;
 import com.gaming.enhancedagar.entities.Player;
 import com.gaming.enhancedagar.entities.Food;
+import com.gaming.enhancedagar.game.CameraManager;
+import com.gaming.enhancedagar.game.CollisionSystem;
+import com.gaming.enhancedagar.game.DensityGrid;
+import com.gaming.enhancedagar.game.DivisionSystem;
+import com.gaming.enhancedagar.game.GameModeManager;
 import com.gaming.enhancedagar.game.GameState;
+import com.gaming.enhancedagar.game.InputHandler;
+import com.gaming.enhancedagar.game.Leaderboard;
+import com.gaming.enhancedagar.game.SpatialGrid;
+import com.gaming.enhancedagar.game.SpawnSampler;
+import com.gaming.enhancedagar.game.SpecialAbilitySystem;
+import com.gaming.enhancedagar.game.TeamSystem;
 import com.gaming.enhancedagar.utils.Vector2D;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Motor principal del juego Enhanced Agar
@@ -50,6 +67,54 @@ public class GameEngine {
     private int maxFoodEntities;
     private Vector2D worldBounds;
     
+    // Límites pedidos desde otro hilo; el hilo de juego los aplica al empezar el tick
+    private final AtomicReference<Vector2D> pendingWorldBounds = new AtomicReference<>();
+    
+    // Rejilla de densidad para mini-mapa y cámara
+    private final DensityGrid densityGrid;
+    
+    // Cámara de la vista: sigue al jugador y ajusta el zoom con la rejilla de densidad
+    private volatile CameraManager cameraManager;
+    
+    // Fase ancha espacial compartida con los sistemas de juego
+    private final SpatialGrid spatialGrid = new SpatialGrid();
+    
+    // Sistemas de juego conectados a la fase ancha compartida (opcionales)
+    private volatile CollisionSystem collisionSystem;
+    private volatile DivisionSystem divisionSystem;
+    private volatile TeamSystem teamSystem;
+    private volatile SpecialAbilitySystem specialAbilitySystem;
+    private volatile GameModeManager gameModeManager;
+    
+    // Cola de toques; se drena en el hilo de juego al inicio de cada tick
+    private volatile InputHandler inputHandler;
+    
+    // Miembro del sistema de equipos de cada jugador y bot (solo hilo de juego)
+    private final Map<Entity, TeamSystem.TeamPlayer> teamMembers = new HashMap<>();
+    private TeamSystem registeredTeams;
+    
+    // Clasificación por masa de jugadores y bots; el hilo de juego escribe y el HUD lee
+    private final Leaderboard<Entity> massLeaderboard = new Leaderboard<>();
+    private final List<Entity> rankedEntities = new ArrayList<>();
+    
+    // Dueño de las entradas de cada entidad en los sistemas; una entidad reutilizada las suelta aquí
+    private final Entity.Registry entityRegistry = this::releaseEntity;
+    private final RectF collisionBounds = new RectF();
+    
+    // Colocación de comida con separación mínima (disco de Poisson)
+    private static final float FOOD_SPACING = 24f;
+    private static final float FOOD_MARGIN = 20f;
+    private static final int FOOD_REGIONS = 4; // Regiones por eje para el reparto de densidad
+    private static final float FOOD_EXCLUSION_MIN_RADIUS = 40f; // Células que apartan la comida
+    private static final float FOOD_EXCLUSION_MARGIN = 30f;
+    private SpawnSampler foodSampler;
+    private final float[] spawnPoint = new float[2];
+    
+    // LOD de IA: los bots fuera de este radio alrededor del jugador se actualizan con menos frecuencia
+    private static final int AI_LOD_FRAME_INTERVAL = 3;
+    private volatile float aiLodRadius = 0; // 0 = sin LOD
+    private int aiLodFrame;
+    
     // Performance
     private int frameCount;
     private double updateTime;
@@ -85,6 +150,33 @@ public class GameEngine {
         
         // World bounds (default size)
         this.worldBounds = new Vector2D(1920, 1080);
+        this.densityGrid = new DensityGrid(0, 0, (float) worldBounds.x, (float) worldBounds.y);
+        this.foodSampler = createFoodSampler();
+    }
+    
+    /**
+     * Muestreador de comida para los límites actuales del mundo
+     */
+    private SpawnSampler createFoodSampler() {
+        SpawnSampler sampler = new SpawnSampler(FOOD_MARGIN, FOOD_MARGIN,
+                                                (float) worldBounds.x - 2 * FOOD_MARGIN,
+                                                (float) worldBounds.y - 2 * FOOD_MARGIN,
+                                                FOOD_SPACING, FOOD_REGIONS, FOOD_REGIONS, random);
+        sampler.setExclusionGrid(spatialGrid,
+                                 (1 << SpatialGrid.CATEGORY_PLAYER) | (1 << SpatialGrid.CATEGORY_BOT),
+                                 FOOD_EXCLUSION_MIN_RADIUS, FOOD_EXCLUSION_MARGIN);
+        applyFoodDensityTargets(sampler);
+        return sampler;
+    }
+    
+    /**
+     * Reparto uniforme del máximo de comida entre regiones
+     */
+    private void applyFoodDensityTargets(SpawnSampler sampler) {
+        int regions = sampler.getRegionCount();
+        for (int r = 0; r < regions; r++) {
+            sampler.setRegionTarget(r, (maxFoodEntities + regions - 1) / regions);
+        }
     }
     
     /**
@@ -93,6 +185,9 @@ public class GameEngine {
     public void initialize() {
         System.out.println(TAG + ": Inicializando GameEngine...");
         
+        // El bucle aún no corre: los límites pedidos antes se aplican ya
+        applyPendingWorldBounds();
+        
         // Crear el jugador
         createPlayer();
         
@@ -151,6 +246,16 @@ public class GameEngine {
             deltaTime = (currentTime - lastFrameTime) / 1000.0 * timeScale;
             lastFrameTime = currentTime;
             
+            applyPendingWorldBounds();
+            
+            // La entrada se aplica aquí, antes de simular, para que el jugador solo se
+            // modifique desde el hilo de juego
+            InputHandler input = inputHandler;
+            if (input != null) {
+                // Se predice hasta que el frame de este tick llegue a pantalla
+                input.processPendingInput(System.nanoTime() + 2 * minFrameTime * 1_000_000L);
+            }
+            
             if (!isPaused) {
                 update(deltaTime);
             }
@@ -187,12 +292,61 @@ public class GameEngine {
         // Procesar cambios de entidades
         processEntityChanges();
         
+        // Sistemas de juego sobre la fase ancha ya actualizada
+        updateGameSystems(deltaTime);
+        
+        // Masas finales del tick (tras colisiones y habilidades)
+        updateMassLeaderboard();
+        
+        // La cámara lee la rejilla ya actualizada
+        CameraManager camera = cameraManager;
+        if (camera != null) {
+            camera.update();
+        }
+        
         // Actualizar estadísticas
         updateGameStats(deltaTime);
         
+        // El mini-mapa lee la rejilla desde el hilo de UI: solo a través de la instantánea
+        densityGrid.publishSnapshot(currentTime);
+        
         updateTime = System.currentTimeMillis() - startTime;
     }
     
+    /**
+     * Actualiza los sistemas de juego conectados
+     */
+    private void updateGameSystems(double deltaTime) {
+        float seconds = (float) deltaTime;
+        
+        DivisionSystem division = divisionSystem;
+        if (division != null) {
+            division.update(seconds);
+        }
+        
+        CollisionSystem collision = collisionSystem;
+        if (collision != null) {
+            collisionBounds.set(0, 0, (float) worldBounds.x, (float) worldBounds.y);
+            collision.update(seconds * 1000f, collisionBounds);
+        }
+        
+        SpecialAbilitySystem abilities = specialAbilitySystem;
+        if (abilities != null) {
+            abilities.update(seconds);
+        }
+        
+        TeamSystem teams = teamSystem;
+        if (teams != null) {
+            syncTeamMembers(teams);
+            teams.updateTeamAnalytics();
+        }
+        
+        GameModeManager modes = gameModeManager;
+        if (modes != null) {
+            modes.updateGameModeLogic();
+        }
+    }
+    
     /**
      * Renderiza el juego
      */
@@ -215,13 +369,97 @@ public class GameEngine {
      * Actualiza todas las entidades
      */
     private void updateEntities(double deltaTime) {
+        aiLodFrame++;
+        float lodRadius = aiLodRadius;
+        float lodRadiusSq = lodRadius * lodRadius;
+        
         for (Entity entity : entities) {
+            // Las muertas salen del mundo en este tick (los pools solo reutilizan entidades retiradas)
+            if (!entity.isAlive()) {
+                removeEntity(entity);
+                continue;
+            }
+            
             if (entity.isActive()) {
-                entity.update(deltaTime);
+                double entityDelta = deltaTime;
+                if (lodRadius > 0 && player != null && entity instanceof EnemyBot) {
+                    float dx = entity.getX() - player.getX();
+                    float dy = entity.getY() - player.getY();
+                    if (dx * dx + dy * dy > lodRadiusSq) {
+                        // Bots lejanos: un frame de cada N, escalonados por id, con el delta acumulado
+                        if ((aiLodFrame + entity.getId()) % AI_LOD_FRAME_INTERVAL != 0) {
+                            continue;
+                        }
+                        entityDelta = deltaTime * AI_LOD_FRAME_INTERVAL;
+                    }
+                }
+                
+                entity.update(entityDelta);
+                
+                // Solo cambia la rejilla si la entidad cruza a otra celda
+                int category = getDensityCategory(entity);
+                entity.setDensityCell(densityGrid.move(category, entity.getDensityCell(),
+                                                       entity.getX(), entity.getY()));
+                if (entity.getSpatialHandle() != SpatialGrid.NO_HANDLE) {
+                    spatialGrid.move(entity.getSpatialHandle(), entity.getX(), entity.getY(),
+                                     entity.getWidth() * 0.5f);
+                }
             }
         }
     }
     
+    /**
+     * Establece el radio de LOD de IA (0 desactiva el LOD)
+     */
+    public void setAiLodRadius(float radius) {
+        this.aiLodRadius = Math.max(0, radius);
+    }
+    
+    public float getAiLodRadius() {
+        return aiLodRadius;
+    }
+    
+    /**
+     * Categoría de la rejilla de densidad para una entidad
+     */
+    private static int getDensityCategory(Entity entity) {
+        if (entity instanceof Food) {
+            return DensityGrid.CATEGORY_FOOD;
+        }
+        if (entity instanceof EnemyBot) {
+            return DensityGrid.CATEGORY_BOT;
+        }
+        return DensityGrid.CATEGORY_PLAYER;
+    }
+    
+    /**
+     * Registra una entidad en la rejilla de densidad
+     */
+    private void registerInDensityGrid(Entity entity) {
+        entity.setDensityCell(densityGrid.add(getDensityCategory(entity), entity.getX(), entity.getY()));
+    }
+    
+    /**
+     * Categoría de la fase ancha espacial para una entidad
+     */
+    private static int getSpatialCategory(Entity entity) {
+        if (entity instanceof Food) {
+            return SpatialGrid.CATEGORY_FOOD;
+        }
+        if (entity instanceof EnemyBot) {
+            return SpatialGrid.CATEGORY_BOT;
+        }
+        return SpatialGrid.CATEGORY_PLAYER;
+    }
+    
+    /**
+     * Da de baja una entidad de la rejilla de densidad
+     */
+    private void unregisterFromDensityGrid(Entity entity) {
+        densityGrid.remove(getDensityCategory(entity), entity.getDensityCell());
+        entity.setDensityCell(-1);
+    }
+    
     /**
      * Renderiza todas las entidades
      */
@@ -252,6 +490,11 @@ public class GameEngine {
         Vector2D playerPos = new Vector2D(worldBounds.x / 2, worldBounds.y / 2);
         player = new Player("Player1", playerPos, 20.0);
         addEntity(player);
+        
+        CameraManager camera = cameraManager;
+        if (camera != null) {
+            camera.setCurrentPlayer(player);
+        }
     }
     
     /**
@@ -267,15 +510,19 @@ public class GameEngine {
      * Spawnea una entidad de comida aleatoria
      */
     private void spawnFood() {
-        if (getFoodCount() >= maxFoodEntities) {
+        // Cada comida viva ocupa un hueco del muestreador: su tamaño es el recuento
+        if (foodSampler.size() >= maxFoodEntities) {
             return;
         }
         
-        double x = random.nextDouble() * (worldBounds.x - 40) + 20;
-        double y = random.nextDouble() * (worldBounds.y - 40) + 20;
-        Vector2D position = new Vector2D(x, y);
+        int sample = foodSampler.sample(spawnPoint);
+        if (sample == SpawnSampler.NO_SAMPLE) {
+            return; // Sin hueco válido (mapa lleno o todo excluido)
+        }
+        Vector2D position = new Vector2D(spawnPoint[0], spawnPoint[1]);
         
         Food food = new Food(position, 5.0, generateRandomFoodType());
+        food.setSpawnSample(sample);
         addEntity(food);
     }
     
@@ -291,17 +538,153 @@ public class GameEngine {
      * Procesa cambios en las entidades (agregar/remover)
      */
     private void processEntityChanges() {
+        CollisionSystem collision = collisionSystem;
+        
         if (!entitiesToAdd.isEmpty()) {
+            for (Entity entity : entitiesToAdd) {
+                registerInDensityGrid(entity);
+                entity.setSpatialHandle(spatialGrid.insert(entity, 0, getSpatialCategory(entity),
+                                                           entity.getX(), entity.getY(),
+                                                           entity.getWidth() * 0.5f));
+                if (collision != null) {
+                    collision.addEntity(entity, entity instanceof Food);
+                }
+                entity.setRegistry(entityRegistry);
+                joinTeam(entity);
+                if (entity instanceof Player || entity instanceof EnemyBot) {
+                    rankedEntities.add(entity);
+                }
+            }
             entities.addAll(entitiesToAdd);
             entitiesToAdd.clear();
         }
         
         if (!entitiesToRemove.isEmpty()) {
+            for (Entity entity : entitiesToRemove) {
+                // Una entidad pedida dos veces (o ya soltada al reutilizarse) se retira una sola vez
+                if (entity.getRegistry() == entityRegistry) {
+                    entity.setRegistry(null);
+                    detachFromSystems(entity, collision);
+                }
+            }
             entities.removeAll(entitiesToRemove);
             entitiesToRemove.clear();
         }
     }
     
+    /**
+     * Quita la entidad de la rejilla de densidad, la fase ancha, las colisiones, el
+     * muestreador y su equipo
+     */
+    private void detachFromSystems(Entity entity, CollisionSystem collision) {
+        unregisterFromDensityGrid(entity);
+        spatialGrid.remove(entity.getSpatialHandle());
+        entity.setSpatialHandle(SpatialGrid.NO_HANDLE);
+        if (collision != null) {
+            collision.removeEntity(entity);
+        }
+        leaveTeam(entity);
+        if (!(entity instanceof Food) && rankedEntities.remove(entity)) {
+            massLeaderboard.remove(entity);
+        }
+        if (entity.getSpawnSample() != SpawnSampler.NO_SAMPLE) {
+            foodSampler.remove(entity.getSpawnSample());
+            entity.setSpawnSample(SpawnSampler.NO_SAMPLE);
+        }
+    }
+    
+    /**
+     * Lleva la masa de cada jugador y bot a la clasificación; O(log n) por masa que cambia
+     */
+    private void updateMassLeaderboard() {
+        for (int i = 0; i < rankedEntities.size(); i++) {
+            Entity entity = rankedEntities.get(i);
+            if (entity.isActive() && entity.isAlive()) {
+                massLeaderboard.setScore(entity, entity.getMass());
+            } else {
+                massLeaderboard.remove(entity);
+            }
+        }
+    }
+    
+    // === EQUIPOS ===
+    
+    /**
+     * Da de alta a un jugador o bot en el sistema de equipos, en su equipo de territorio
+     */
+    private void joinTeam(Entity entity) {
+        TeamSystem teams = registeredTeams;
+        GameModeManager modes = gameModeManager;
+        if (teams == null || modes == null || teamMembers.containsKey(entity)
+                || !(entity instanceof Player || entity instanceof EnemyBot)) {
+            return;
+        }
+        
+        TeamSystem.Team team = modes.getTerritoryTeam(entity.getId());
+        if (team == null) {
+            return;
+        }
+        TeamSystem.TeamPlayer member = teams.addPlayer(entity.getClass().getSimpleName() + "_" + entity.getId());
+        if (!teams.assignPlayerToTeam(member, team)) {
+            teams.removePlayer(member);
+            return;
+        }
+        member.setPosition(entity.getX(), entity.getY());
+        member.setMass(entity.getMass());
+        teamMembers.put(entity, member);
+    }
+    
+    /**
+     * Aliados según el sistema de equipos; SpecialAbilitySystem lo consulta en su update(),
+     * en el hilo de juego, igual que el resto de accesos a teamMembers
+     */
+    private boolean areTeammates(Entity source, Entity target) {
+        return TeamSystem.areTeammates(teamMembers.get(source), teamMembers.get(target));
+    }
+    
+    private void leaveTeam(Entity entity) {
+        TeamSystem.TeamPlayer member = teamMembers.remove(entity);
+        if (member != null && registeredTeams != null) {
+            registeredTeams.removePlayer(member);
+        }
+    }
+    
+    /**
+     * Copia posición, masa y estado de cada jugador y bot a su miembro de equipo antes del
+     * análisis; si el sistema de equipos cambió, vuelve a dar de alta a todos en el nuevo
+     */
+    private void syncTeamMembers(TeamSystem teams) {
+        if (teams != registeredTeams) {
+            for (TeamSystem.TeamPlayer member : teamMembers.values()) {
+                if (registeredTeams != null) {
+                    registeredTeams.removePlayer(member);
+                }
+            }
+            teamMembers.clear();
+            registeredTeams = teams;
+            for (int i = 0; i < entities.size(); i++) {
+                joinTeam(entities.get(i));
+            }
+        }
+        
+        for (Map.Entry<Entity, TeamSystem.TeamPlayer> entry : teamMembers.entrySet()) {
+            Entity entity = entry.getKey();
+            TeamSystem.TeamPlayer member = entry.getValue();
+            member.setPosition(entity.getX(), entity.getY());
+            member.setMass(entity.getMass());
+            member.setActive(entity.isActive() && entity.isAlive());
+        }
+    }
+    
+    /**
+     * La entidad se reinicia para reutilizarse sin haber pasado por removeEntity: se retira
+     * ya del mundo y de los sistemas para que sus handles no queden huérfanos
+     */
+    private void releaseEntity(Entity entity) {
+        detachFromSystems(entity, collisionSystem);
+        entities.remove(entity);
+    }
+    
     /**
      * Actualiza estadísticas del juego
      */
@@ -362,6 +745,19 @@ public class GameEngine {
         return activeEntities;
     }
     
+    /**
+     * Número de entidades activas, sin copiar la lista
+     */
+    public int getActiveEntityCount() {
+        int count = 0;
+        for (int i = 0; i < entities.size(); i++) {
+            if (entities.get(i).isActive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
     /**
      * Obtiene el jugador
      */
@@ -369,6 +765,29 @@ public class GameEngine {
         return player;
     }
     
+    /**
+     * Dirige al jugador hacia el punto tocado
+     */
+    public void onTouchEvent(float x, float y) {
+        onTouchEvent(x, y, -1);
+    }
+    
+    /**
+     * Dirige al jugador hacia el punto tocado conservando la secuencia del evento de entrada,
+     * para que el trazador de latencia pueda cerrar el recorrido entrada -> frame
+     */
+    public void onTouchEvent(float x, float y, long inputSequence) {
+        if (player != null) {
+            player.setTarget(x, y, inputSequence);
+        }
+    }
+    
+    /**
+     * Fin del toque: el jugador sigue hacia el último objetivo fijado
+     */
+    public void onTouchRelease() {
+    }
+    
     /**
      * Obtiene el número de entidades de comida
      */
@@ -412,10 +831,188 @@ public class GameEngine {
     }
     
     /**
-     * Establece los límites del mundo
+     * Establece los límites del mundo; las entidades se vuelven a registrar en el hilo de
+     * juego al empezar el siguiente tick (o en initialize() si el bucle aún no corre)
      */
     public void setWorldBounds(Vector2D bounds) {
+        pendingWorldBounds.set(bounds);
+    }
+    
+    private void applyPendingWorldBounds() {
+        Vector2D bounds = pendingWorldBounds.getAndSet(null);
+        if (bounds == null) {
+            return;
+        }
         this.worldBounds = bounds;
+        
+        // Volver a registrar las entidades con las nuevas dimensiones
+        densityGrid.setWorldBounds(0, 0, (float) bounds.x, (float) bounds.y);
+        foodSampler = createFoodSampler();
+        for (Entity entity : entities) {
+            registerInDensityGrid(entity);
+            if (entity instanceof Food) {
+                resampleFood(entity);
+            }
+        }
+        
+        // La comida pendiente de alta traía un id del muestreador anterior
+        for (Entity entity : entitiesToAdd) {
+            if (entity instanceof Food) {
+                resampleFood(entity);
+            }
+        }
+    }
+    
+    /**
+     * Registra comida existente en el muestreador nuevo; la que no cabe (fuera de los
+     * límites o pegada a otra) se retira para que su tamaño siga contando la comida viva
+     */
+    private void resampleFood(Entity food) {
+        int sample = foodSampler.insert(food.getX(), food.getY());
+        food.setSpawnSample(sample);
+        if (sample == SpawnSampler.NO_SAMPLE) {
+            removeEntity(food);
+        }
+    }
+    
+    /**
+     * Conecta la cámara de la vista: recibe la rejilla de densidad para el zoom y sigue al jugador
+     */
+    public void setCameraManager(CameraManager cameraManager) {
+        if (cameraManager != null) {
+            cameraManager.setDensityGrid(densityGrid);
+            if (player != null) {
+                cameraManager.setCurrentPlayer(player);
+            }
+        }
+        this.cameraManager = cameraManager;
+    }
+    
+    public CameraManager getCameraManager() {
+        return cameraManager;
+    }
+    
+    /**
+     * Clasificación por masa de jugadores y bots, actualizada al final de cada tick
+     */
+    public Leaderboard<Entity> getMassLeaderboard() {
+        return massLeaderboard;
+    }
+    
+    /**
+     * Obtiene la rejilla de densidad de la simulación
+     */
+    public DensityGrid getDensityGrid() {
+        return densityGrid;
+    }
+    
+    /**
+     * Obtiene la fase ancha espacial compartida (entidades del motor; otros sistemas
+     * pueden registrar sus propios elementos con otra categoría)
+     */
+    public SpatialGrid getSpatialGrid() {
+        return spatialGrid;
+    }
+    
+    /**
+     * Conecta el sistema de colisiones a la fase ancha del motor; la comida entra como estática
+     * y las entidades ya presentes se registran al conectarlo
+     */
+    public void setCollisionSystem(CollisionSystem collisionSystem) {
+        CollisionSystem previous = this.collisionSystem;
+        if (previous != null) {
+            for (Entity entity : entities) {
+                previous.removeEntity(entity);
+            }
+            previous.setSpatialGrid(null);
+        }
+        if (collisionSystem != null) {
+            collisionSystem.setSpatialGrid(spatialGrid);
+            for (Entity entity : entities) {
+                collisionSystem.addEntity(entity, entity instanceof Food);
+            }
+        }
+        this.collisionSystem = collisionSystem;
+    }
+    
+    /**
+     * Conecta el sistema de división; sus fragmentos pasan a la fase ancha del motor
+     */
+    public void setDivisionSystem(DivisionSystem divisionSystem) {
+        if (divisionSystem != null) {
+            divisionSystem.setSpatialGrid(spatialGrid);
+        }
+        this.divisionSystem = divisionSystem;
+    }
+    
+    /**
+     * Conecta el sistema de equipos; su análisis consulta la fase ancha del motor
+     */
+    public void setTeamSystem(TeamSystem teamSystem) {
+        if (teamSystem != null) {
+            teamSystem.setSpatialGrid(spatialGrid);
+        }
+        this.teamSystem = teamSystem;
+        
+        GameModeManager modes = gameModeManager;
+        if (modes != null) {
+            modes.setTeamSystem(teamSystem);
+        }
+    }
+    
+    /**
+     * Conecta el sistema de habilidades; las habilidades de área resuelven sus objetivos
+     * sobre la fase ancha del motor y las curaciones solo alcanzan a compañeros de equipo
+     */
+    public void setSpecialAbilitySystem(SpecialAbilitySystem specialAbilitySystem) {
+        if (specialAbilitySystem != null) {
+            specialAbilitySystem.setSpatialGrid(spatialGrid);
+            specialAbilitySystem.setAllyFilter(this::areTeammates);
+        }
+        this.specialAbilitySystem = specialAbilitySystem;
+    }
+    
+    /**
+     * Conecta la cola de entrada que el bucle de juego procesa antes de cada update
+     */
+    public void setInputHandler(InputHandler inputHandler) {
+        this.inputHandler = inputHandler;
+    }
+    
+    /**
+     * Conecta el gestor de modos; su territorio se puntúa con el mapa del sistema de equipos
+     */
+    public void setGameModeManager(GameModeManager gameModeManager) {
+        GameModeManager previous = this.gameModeManager;
+        if (previous != null) {
+            previous.setBotSpawnListener(null);
+        }
+        if (gameModeManager != null) {
+            gameModeManager.setTeamSystem(teamSystem);
+            // Los bots de oleada entran al mundo como cualquier otra entidad
+            gameModeManager.setBotSpawnListener((bot, waveNumber) -> addEntity(bot));
+        }
+        this.gameModeManager = gameModeManager;
+    }
+    
+    public GameModeManager getGameModeManager() {
+        return gameModeManager;
+    }
+    
+    public CollisionSystem getCollisionSystem() {
+        return collisionSystem;
+    }
+    
+    public DivisionSystem getDivisionSystem() {
+        return divisionSystem;
+    }
+    
+    public TeamSystem getTeamSystem() {
+        return teamSystem;
+    }
+    
+    public SpecialAbilitySystem getSpecialAbilitySystem() {
+        return specialAbilitySystem;
     }
     
     /**
@@ -437,6 +1034,7 @@ public class GameEngine {
      */
     public void setMaxFoodEntities(int max) {
         this.maxFoodEntities = Math.max(1, max);
+        applyFoodDensityTargets(foodSampler);
     }
     
     // === GETTERS ===
@@ -482,6 +1080,18 @@ public class GameEngine {
         entities.clear();
         entitiesToAdd.clear();
         entitiesToRemove.clear();
+        densityGrid.clear();
+        spatialGrid.clear();
+        foodSampler.clear();
+        if (registeredTeams != null) {
+            for (TeamSystem.TeamPlayer member : teamMembers.values()) {
+                registeredTeams.removePlayer(member);
+            }
+        }
+        teamMembers.clear();
+        registeredTeams = null;
+        rankedEntities.clear();
+        massLeaderboard.clear();
         player = null;
         
         isRunning = false;
@@ -0,0 +1,347 @@
+package com.gaming.enhancedagar.engine;
+
+import android.graphics.*;
+import android.text.TextPaint;
+import java.util.Arrays;
+
+/**
+ * Atlas de glifos para texto dinámico (puntuación, masa, FPS, nombres)
+ * Cada combinación de tipografía, tamaño, efecto y colores se rasteriza una sola vez
+ * con el contorno, la sombra o el brillo ya aplicados; los textos se componen
+ * glifo a glifo desde el atlas sin crear bitmaps ni entradas de cache nuevas
+ */
+public class GlyphAtlas {
+
+    // Rango ASCII imprimible que se rasteriza al crear el atlas
+    private static final char FIRST_PRELOADED_CHAR = 32;
+    private static final char LAST_PRELOADED_CHAR = 126;
+
+    // Huecos libres para glifos que aparecen más tarde (acentos, símbolos)
+    private static final int EXTRA_GLYPH_SLOTS = 64;
+    private static final int ATLAS_COLUMNS = 16;
+
+    // Mismos multiplicadores que TextRenderer para que ambos caminos coincidan
+    private static final float OUTLINE_WIDTH_MULTIPLIER = 0.1f;
+    private static final float SHADOW_OFFSET_MULTIPLIER = 0.05f;
+    private static final float GLOW_RADIUS_MULTIPLIER = 0.1f;
+
+    // Identidad del atlas
+    private final Typeface typeface;
+    private final float size;
+    private final TextRenderer.TextEffect effect;
+    private final int color;
+    private final int effectColor;
+
+    // Superficie del atlas
+    private final Bitmap atlasBitmap;
+    private final Canvas atlasCanvas;
+    private final TextPaint fillPaint;
+    private final TextPaint effectPaint;
+    private final Paint blitPaint;
+
+    // Geometría de celdas
+    private final int cellWidth;
+    private final int cellHeight;
+    private final float effectPadding;
+    private final float baselineInCell;
+    private final float ascent;
+    private final float lineHeight;
+
+    // Tabla de glifos
+    private final int capacity;
+    private final char[] slotChars;
+    private final float[] advances;
+    private final int[] asciiSlots = new int[128];
+    private int usedSlots;
+
+    // Buffers reutilizables para no asignar memoria al dibujar
+    private final Rect srcRect = new Rect();
+    private final RectF dstRect = new RectF();
+    private final char[] singleChar = new char[1];
+    private final char[] numberBuffer = new char[20];
+
+    // Uso para la política LRU de TextRenderer
+    long lastUsedTick;
+
+    public GlyphAtlas(Typeface typeface, float size, TextRenderer.TextEffect effect,
+                      int color, int effectColor) {
+        this.typeface = typeface;
+        this.size = size;
+        this.effect = effect;
+        this.color = color;
+        this.effectColor = effectColor;
+
+        this.fillPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        fillPaint.setTextSize(size);
+        fillPaint.setTypeface(typeface);
+        fillPaint.setColor(color);
+        fillPaint.setStyle(Paint.Style.FILL);
+
+        this.effectPaint = new TextPaint(fillPaint);
+        configureEffectPaint();
+
+        this.blitPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+        // Margen suficiente para que el efecto horneado no se recorte
+        this.effectPadding = (float) Math.ceil(size * (OUTLINE_WIDTH_MULTIPLIER
+                                              + SHADOW_OFFSET_MULTIPLIER * 2
+                                              + GLOW_RADIUS_MULTIPLIER));
+
+        Paint.FontMetrics fm = fillPaint.getFontMetrics();
+        this.ascent = fm.ascent;
+        this.lineHeight = fm.bottom - fm.top;
+        this.baselineInCell = effectPadding - fm.top;
+
+        float maxAdvance = 0;
+        for (char c = FIRST_PRELOADED_CHAR; c <= LAST_PRELOADED_CHAR; c++) {
+            singleChar[0] = c;
+            maxAdvance = Math.max(maxAdvance, fillPaint.measureText(singleChar, 0, 1));
+        }
+
+        this.cellWidth = (int) Math.ceil(maxAdvance + effectPadding * 2);
+        this.cellHeight = (int) Math.ceil(fm.bottom - fm.top + effectPadding * 2);
+
+        this.capacity = (LAST_PRELOADED_CHAR - FIRST_PRELOADED_CHAR + 1) + EXTRA_GLYPH_SLOTS;
+        this.slotChars = new char[capacity];
+        this.advances = new float[capacity];
+
+        int rows = (capacity + ATLAS_COLUMNS - 1) / ATLAS_COLUMNS;
+        this.atlasBitmap = Bitmap.createBitmap(Math.max(1, cellWidth * ATLAS_COLUMNS),
+                                               Math.max(1, cellHeight * rows),
+                                               Bitmap.Config.ARGB_8888);
+        this.atlasCanvas = new Canvas(atlasBitmap);
+
+        Arrays.fill(asciiSlots, -1);
+        for (char c = FIRST_PRELOADED_CHAR; c <= LAST_PRELOADED_CHAR; c++) {
+            rasterizeGlyph(c);
+        }
+    }
+
+    /**
+     * Configura el paint del efecto horneado en cada glifo
+     */
+    private void configureEffectPaint() {
+        effectPaint.setColor(effectColor);
+        switch (effect) {
+            case OUTLINE:
+                effectPaint.setStyle(Paint.Style.STROKE);
+                effectPaint.setStrokeWidth(size * OUTLINE_WIDTH_MULTIPLIER);
+                break;
+            case SHADOW:
+                effectPaint.setStyle(Paint.Style.FILL);
+                effectPaint.setShadowLayer(size * SHADOW_OFFSET_MULTIPLIER,
+                                           size * SHADOW_OFFSET_MULTIPLIER,
+                                           size * SHADOW_OFFSET_MULTIPLIER,
+                                           effectColor);
+                break;
+            case GLOW:
+                effectPaint.setStyle(Paint.Style.FILL);
+                effectPaint.setColor(color);
+                effectPaint.setShadowLayer(size * GLOW_RADIUS_MULTIPLIER, 0, 0, effectColor);
+                break;
+            case OUTLINE_AND_SHADOW:
+                effectPaint.setStyle(Paint.Style.STROKE);
+                effectPaint.setStrokeWidth(size * OUTLINE_WIDTH_MULTIPLIER);
+                effectPaint.setShadowLayer(size * SHADOW_OFFSET_MULTIPLIER,
+                                           size * SHADOW_OFFSET_MULTIPLIER,
+                                           size * SHADOW_OFFSET_MULTIPLIER,
+                                           effectColor);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Rasteriza un glifo en el siguiente hueco libre del atlas
+     * @return índice del hueco o -1 si no cabe
+     */
+    private int rasterizeGlyph(char c) {
+        if (usedSlots >= capacity) {
+            return -1;
+        }
+
+        singleChar[0] = c;
+        float advance = fillPaint.measureText(singleChar, 0, 1);
+        if (advance > cellWidth - effectPadding * 2) {
+            return -1; // Glifos anchos (emojis) se dibujan directamente
+        }
+
+        int slot = usedSlots++;
+        slotChars[slot] = c;
+        advances[slot] = advance;
+        if (c < asciiSlots.length) {
+            asciiSlots[c] = slot;
+        }
+
+        float x = (slot % ATLAS_COLUMNS) * cellWidth + effectPadding;
+        float y = (slot / ATLAS_COLUMNS) * cellHeight + baselineInCell;
+
+        if (effect != TextRenderer.TextEffect.NONE) {
+            atlasCanvas.drawText(singleChar, 0, 1, x, y, effectPaint);
+        }
+        atlasCanvas.drawText(singleChar, 0, 1, x, y, fillPaint);
+        return slot;
+    }
+
+    /**
+     * Busca el hueco de un glifo, rasterizándolo si todavía no existe
+     */
+    private int findSlot(char c) {
+        if (c < asciiSlots.length && asciiSlots[c] >= 0) {
+            return asciiSlots[c];
+        }
+        for (int i = LAST_PRELOADED_CHAR - FIRST_PRELOADED_CHAR + 1; i < usedSlots; i++) {
+            if (slotChars[i] == c) {
+                return i;
+            }
+        }
+        return rasterizeGlyph(c);
+    }
+
+    /**
+     * Indica si el atlas corresponde a la configuración dada
+     */
+    public boolean matches(TextRenderer.TextConfig config) {
+        return typeface == config.typeface
+            && size == config.size
+            && effect == config.effect
+            && color == config.color
+            && (effect == TextRenderer.TextEffect.NONE || effectColor == config.effectColor);
+    }
+
+    /**
+     * Dibuja un rango de caracteres con la línea base en baselineY
+     * @return ancho avanzado
+     */
+    public float drawChars(Canvas canvas, char[] chars, int start, int end, float x, float baselineY) {
+        float penX = x;
+        for (int i = start; i < end; i++) {
+            penX += drawGlyph(canvas, chars[i], penX, baselineY);
+        }
+        return penX - x;
+    }
+
+    /**
+     * Dibuja un texto con la línea base en baselineY
+     * @return ancho avanzado
+     */
+    public float drawText(Canvas canvas, CharSequence text, float x, float baselineY) {
+        float penX = x;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            penX += drawGlyph(canvas, text.charAt(i), penX, baselineY);
+        }
+        return penX - x;
+    }
+
+    /**
+     * Dibuja un número entero sin crear un String intermedio
+     * @return ancho avanzado
+     */
+    public float drawNumber(Canvas canvas, long value, float x, float baselineY) {
+        int pos = formatNumber(value);
+        return drawChars(canvas, numberBuffer, pos, numberBuffer.length, x, baselineY);
+    }
+
+    /**
+     * Mide un número entero sin crear un String intermedio
+     */
+    public float measureNumber(long value) {
+        int pos = formatNumber(value);
+        float width = 0;
+        for (int i = pos; i < numberBuffer.length; i++) {
+            width += measureChar(numberBuffer[i]);
+        }
+        return width;
+    }
+
+    /**
+     * Escribe los dígitos al final de numberBuffer
+     * @return posición del primer carácter
+     */
+    private int formatNumber(long value) {
+        int pos = numberBuffer.length;
+        boolean negative = value < 0;
+        do {
+            int digit = (int) (value % 10);
+            numberBuffer[--pos] = (char) ('0' + Math.abs(digit));
+            value /= 10;
+        } while (value != 0);
+        if (negative) {
+            numberBuffer[--pos] = '-';
+        }
+        return pos;
+    }
+
+    /**
+     * Dibuja un glifo individual y devuelve su avance
+     */
+    private float drawGlyph(Canvas canvas, char c, float penX, float baselineY) {
+        int slot = findSlot(c);
+        if (slot < 0) {
+            // Respaldo: dibujar directamente sin pasar por el atlas
+            singleChar[0] = c;
+            if (effect != TextRenderer.TextEffect.NONE) {
+                canvas.drawText(singleChar, 0, 1, penX, baselineY, effectPaint);
+            }
+            canvas.drawText(singleChar, 0, 1, penX, baselineY, fillPaint);
+            return fillPaint.measureText(singleChar, 0, 1);
+        }
+
+        int left = (slot % ATLAS_COLUMNS) * cellWidth;
+        int top = (slot / ATLAS_COLUMNS) * cellHeight;
+        srcRect.set(left, top, left + cellWidth, top + cellHeight);
+
+        float dstLeft = penX - effectPadding;
+        float dstTop = baselineY - baselineInCell;
+        dstRect.set(dstLeft, dstTop, dstLeft + cellWidth, dstTop + cellHeight);
+
+        canvas.drawBitmap(atlasBitmap, srcRect, dstRect, blitPaint);
+        return advances[slot];
+    }
+
+    /**
+     * Mide un texto usando los avances del atlas
+     */
+    public float measureText(CharSequence text) {
+        float width = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            width += measureChar(text.charAt(i));
+        }
+        return width;
+    }
+
+    private float measureChar(char c) {
+        int slot = findSlot(c);
+        if (slot >= 0) {
+            return advances[slot];
+        }
+        singleChar[0] = c;
+        return fillPaint.measureText(singleChar, 0, 1);
+    }
+
+    public float getAscent() {
+        return ascent;
+    }
+
+    public float getLineHeight() {
+        return lineHeight;
+    }
+
+    public int getGlyphCount() {
+        return usedSlots;
+    }
+
+    public int getByteCount() {
+        return atlasBitmap.isRecycled() ? 0 : atlasBitmap.getByteCount();
+    }
+
+    /**
+     * Libera el bitmap del atlas
+     */
+    public void recycle() {
+        if (!atlasBitmap.isRecycled()) {
+            atlasBitmap.recycle();
+        }
+    }
+}
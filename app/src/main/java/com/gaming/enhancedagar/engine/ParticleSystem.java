@@ -130,6 +130,9 @@ public class ParticleSystem {
             new ParticleConfig(4f, 2.5f, 60f, Color.GREEN, 4, false, true));
     }
     
+    // Modo de mezcla de las partículas luminosas; se crea una sola vez
+    private static final Xfermode SRC_OVER_XFERMODE = new PorterDuffXfermode(PorterDuff.Mode.SRC_OVER);
+    
     // Estado del sistema
     private final List<Particle> particles = new ArrayList<>();
     private final ParticlePool pool;
@@ -540,7 +543,7 @@ public class ParticleSystem {
             if (shouldUseAdditiveBlending(particle.type)) {
                 if (!hasAdditive) {
                     currentPaint.setAlpha((int)(finalAlpha * 255));
-                    currentPaint.setXfermode(PorterDuff.Mode.SRC_OVER);
+                    currentPaint.setXfermode(SRC_OVER_XFERMODE);
                     hasAdditive = true;
                 }
             } else {
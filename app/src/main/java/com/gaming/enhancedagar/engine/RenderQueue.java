@@ -0,0 +1,340 @@
+package com.gaming.enhancedagar.engine;
+
+import android.graphics.*;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Cola de renderizado por capas con claves de ordenación de 64 bits
+ * Los comandos se guardan en arrays primitivos reutilizables, se ordenan una vez
+ * por frame por (capa, z, paint) y los comandos consecutivos con la misma z que
+ * comparten paint se fusionan en una sola llamada de dibujo.
+ * La z va antes que el paint: agrupar por paint nunca altera el orden de atrás hacia delante
+ */
+public class RenderQueue {
+
+    // Tipos de comando
+    private static final byte CMD_PATH = 0;
+    private static final byte CMD_CIRCLE = 1;
+    private static final byte CMD_RECT = 2;
+
+    // Distribución de bits de la clave: capa(3) | z(32) | paint(13) | índice(16)
+    private static final int LAYER_SHIFT = 61;
+    private static final int Z_SHIFT = 29;
+    private static final int PAINT_SHIFT = 16;
+    private static final int PAINT_MASK = 0x1FFF;
+    private static final int INDEX_MASK = 0xFFFF;
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_COMMANDS = INDEX_MASK + 1;
+    private static final int MAX_PAINTS = PAINT_MASK + 1;
+    private static final int FLOATS_PER_COMMAND = 4;
+
+    /**
+     * Notificación de cambio de capa durante el volcado
+     */
+    public interface LayerListener {
+        void onLayerChanged(Renderer.Layer layer);
+    }
+
+    // Buffer de comandos
+    private long[] sortKeys = new long[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private float[] geometry = new float[INITIAL_CAPACITY * FLOATS_PER_COMMAND];
+    private Path[] paths = new Path[INITIAL_CAPACITY];
+    private int commandCount = 0;
+    private int droppedCommands = 0;
+
+    // Paints registrados en el frame actual (id = orden de aparición)
+    private final IdentityHashMap<Paint, Integer> paintIds = new IdentityHashMap<>();
+    private final Paint[] paints = new Paint[MAX_PAINTS];
+    private int paintCount = 0;
+
+    // Capas indexadas por prioridad y alpha forzado por capa (-1 = sin cambio)
+    private final Renderer.Layer[] layersByPriority;
+    private final int[] layerAlpha;
+
+    // Path reutilizable para fusionar comandos con el mismo paint
+    private final Path mergedPath = new Path();
+
+    // Estadísticas del último volcado
+    private int drawCalls = 0;
+    private int stateChanges = 0;
+    private int mergedCommands = 0;
+    private int flushedCommands = 0;
+
+    public RenderQueue() {
+        Renderer.Layer[] layers = Renderer.Layer.values();
+        layersByPriority = new Renderer.Layer[layers.length];
+        for (Renderer.Layer layer : layers) {
+            layersByPriority[layer.priority] = layer;
+        }
+        layerAlpha = new int[layers.length];
+        Arrays.fill(layerAlpha, -1);
+    }
+
+    /**
+     * Fuerza un alpha para todos los comandos de una capa
+     */
+    public void setLayerAlpha(Renderer.Layer layer, int alpha) {
+        layerAlpha[layer.priority] = alpha;
+    }
+
+    /**
+     * Añade un path a la cola
+     */
+    public void addPath(Renderer.Layer layer, Paint paint, Path path, float zOrder) {
+        int index = reserve(layer, paint, zOrder, CMD_PATH);
+        if (index >= 0) {
+            paths[index] = path;
+        }
+    }
+
+    /**
+     * Añade un círculo a la cola sin crear objetos
+     */
+    public void addCircle(Renderer.Layer layer, Paint paint, float cx, float cy, float radius, float zOrder) {
+        int index = reserve(layer, paint, zOrder, CMD_CIRCLE);
+        if (index >= 0) {
+            int base = index * FLOATS_PER_COMMAND;
+            geometry[base] = cx;
+            geometry[base + 1] = cy;
+            geometry[base + 2] = radius;
+        }
+    }
+
+    /**
+     * Añade un rectángulo a la cola sin crear objetos
+     */
+    public void addRect(Renderer.Layer layer, Paint paint, float left, float top,
+                        float right, float bottom, float zOrder) {
+        int index = reserve(layer, paint, zOrder, CMD_RECT);
+        if (index >= 0) {
+            int base = index * FLOATS_PER_COMMAND;
+            geometry[base] = left;
+            geometry[base + 1] = top;
+            geometry[base + 2] = right;
+            geometry[base + 3] = bottom;
+        }
+    }
+
+    /**
+     * Reserva un hueco en el buffer y calcula su clave de ordenación
+     * @return índice del comando o -1 si la cola está llena
+     */
+    private int reserve(Renderer.Layer layer, Paint paint, float zOrder, byte type) {
+        int paintId = getPaintId(paint);
+        if (paintId < 0 || commandCount >= MAX_COMMANDS) {
+            droppedCommands++;
+            return -1;
+        }
+        if (commandCount == sortKeys.length) {
+            grow();
+        }
+
+        int index = commandCount++;
+        types[index] = type;
+        paths[index] = null;
+        sortKeys[index] = sortKey(layer.priority, paintId, zOrder, index);
+        return index;
+    }
+
+    /**
+     * Clave de ordenación de un comando: capa, después z y, con la misma z, paint
+     */
+    static long sortKey(int layerPriority, int paintId, float zOrder, int index) {
+        return ((long) layerPriority << LAYER_SHIFT)
+             | (sortableFloatBits(zOrder) << Z_SHIFT)
+             | ((long) paintId << PAINT_SHIFT)
+             | index;
+    }
+
+    static int paintIdOf(long key) {
+        return (int) (key >>> PAINT_SHIFT) & PAINT_MASK;
+    }
+
+    static int indexOf(long key) {
+        return (int) key & INDEX_MASK;
+    }
+
+    /**
+     * Obtiene el id del paint para este frame, registrándolo si es nuevo
+     */
+    private int getPaintId(Paint paint) {
+        Integer id = paintIds.get(paint);
+        if (id != null) {
+            return id;
+        }
+        if (paintCount >= MAX_PAINTS) {
+            return -1;
+        }
+        int newId = paintCount++;
+        paints[newId] = paint;
+        paintIds.put(paint, newId);
+        return newId;
+    }
+
+    /**
+     * Convierte un float en 32 bits sin signo que conservan el orden
+     */
+    private static long sortableFloatBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        bits ^= (bits >> 31) & 0x7FFFFFFF;
+        return (bits ^ 0x80000000) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Duplica la capacidad del buffer de comandos
+     */
+    private void grow() {
+        int newCapacity = Math.min(sortKeys.length * 2, MAX_COMMANDS);
+        sortKeys = Arrays.copyOf(sortKeys, newCapacity);
+        types = Arrays.copyOf(types, newCapacity);
+        geometry = Arrays.copyOf(geometry, newCapacity * FLOATS_PER_COMMAND);
+        paths = Arrays.copyOf(paths, newCapacity);
+    }
+
+    /**
+     * Ordena y dibuja todos los comandos, vaciando la cola
+     */
+    public void flush(Canvas canvas, LayerListener listener) {
+        drawCalls = 0;
+        stateChanges = 0;
+        mergedCommands = 0;
+        flushedCommands = commandCount;
+
+        Arrays.sort(sortKeys, 0, commandCount);
+
+        int currentLayer = -1;
+        int i = 0;
+        while (i < commandCount) {
+            long key = sortKeys[i];
+            int layer = (int) (key >>> LAYER_SHIFT);
+            Paint paint = paints[paintIdOf(key)];
+
+            if (layer != currentLayer) {
+                currentLayer = layer;
+                if (listener != null) {
+                    listener.onLayerChanged(layersByPriority[layer]);
+                }
+            }
+
+            // Buscar el final del tramo con la misma capa, z y paint
+            long stateBits = key >>> PAINT_SHIFT;
+            int end = i + 1;
+            while (end < commandCount && (sortKeys[end] >>> PAINT_SHIFT) == stateBits) {
+                end++;
+            }
+
+            stateChanges++;
+            drawRun(canvas, paint, layerAlpha[layer], i, end);
+            i = end;
+        }
+
+        clear();
+    }
+
+    /**
+     * Dibuja un tramo de comandos que comparten z y paint
+     */
+    private void drawRun(Canvas canvas, Paint paint, int alphaOverride, int start, int end) {
+        int originalAlpha = paint.getAlpha();
+        if (alphaOverride >= 0) {
+            paint.setAlpha(alphaOverride);
+        }
+
+        // Con transparencia la fusión cambiaría el resultado en zonas solapadas
+        if (end - start > 1 && paint.getAlpha() == 255) {
+            mergedPath.reset();
+            for (int i = start; i < end; i++) {
+                appendCommand(mergedPath, indexOf(sortKeys[i]));
+            }
+            canvas.drawPath(mergedPath, paint);
+            drawCalls++;
+            mergedCommands += end - start;
+        } else {
+            for (int i = start; i < end; i++) {
+                drawCommand(canvas, paint, indexOf(sortKeys[i]));
+                drawCalls++;
+            }
+        }
+
+        if (alphaOverride >= 0) {
+            paint.setAlpha(originalAlpha);
+        }
+    }
+
+    /**
+     * Dibuja un comando individual
+     */
+    private void drawCommand(Canvas canvas, Paint paint, int index) {
+        int base = index * FLOATS_PER_COMMAND;
+        switch (types[index]) {
+            case CMD_CIRCLE:
+                canvas.drawCircle(geometry[base], geometry[base + 1], geometry[base + 2], paint);
+                break;
+            case CMD_RECT:
+                canvas.drawRect(geometry[base], geometry[base + 1],
+                                geometry[base + 2], geometry[base + 3], paint);
+                break;
+            default:
+                canvas.drawPath(paths[index], paint);
+                break;
+        }
+    }
+
+    /**
+     * Añade la geometría de un comando al path fusionado
+     */
+    private void appendCommand(Path target, int index) {
+        int base = index * FLOATS_PER_COMMAND;
+        switch (types[index]) {
+            case CMD_CIRCLE:
+                target.addCircle(geometry[base], geometry[base + 1], geometry[base + 2], Path.Direction.CW);
+                break;
+            case CMD_RECT:
+                target.addRect(geometry[base], geometry[base + 1],
+                               geometry[base + 2], geometry[base + 3], Path.Direction.CW);
+                break;
+            default:
+                target.addPath(paths[index]);
+                break;
+        }
+    }
+
+    /**
+     * Vacía la cola y los paints registrados sin liberar los buffers
+     */
+    public void clear() {
+        Arrays.fill(paths, 0, commandCount, null);
+        Arrays.fill(paints, 0, paintCount, null);
+        paintIds.clear();
+        commandCount = 0;
+        paintCount = 0;
+    }
+
+    public int getCommandCount() {
+        return commandCount;
+    }
+
+    public int getFlushedCommands() {
+        return flushedCommands;
+    }
+
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    public int getStateChanges() {
+        return stateChanges;
+    }
+
+    public int getMergedCommands() {
+        return mergedCommands;
+    }
+
+    public int getDroppedCommands() {
+        return droppedCommands;
+    }
+}
@@ -23,6 +23,7 @@ public class Renderer {
     
     // Canvas principal y contexto
     private Canvas canvas;
+    private int baseSaveCount;
     private SurfaceHolder surfaceHolder;
     private Context context;
     private Paint paint;
@@ -42,35 +43,22 @@ public class Renderer {
         }
     }
     
-    // Estructuras para renderizado por lotes
-    private static class RenderBatch {
-        Paint paint;
-        Path path;
-        RectF bounds;
-        Layer layer;
-        float zOrder;
-        
-        RenderBatch(Paint paint, Path path, RectF bounds, Layer layer, float zOrder) {
-            this.paint = paint;
-            this.path = path;
-            this.bounds = bounds;
-            this.layer = layer;
-            this.zOrder = zOrder;
-        }
-    }
-    
     // Cache de bitmaps para optimización
     private final Map<String, Bitmap> bitmapCache = new ConcurrentHashMap<>();
     private final LruCache<String, Bitmap> dynamicCache;
     
-    // Colas de renderizado por capa
-    private final Map<Layer, List<RenderBatch>> layerQueues = new ConcurrentHashMap<>();
+    // Cola de renderizado ordenada por (capa, paint, z)
+    private final RenderQueue renderQueue = new RenderQueue();
     private final ReentrantReadWriteLock queueLock = new ReentrantReadWriteLock();
+    private final RenderQueue.LayerListener layerListener = this::onLayerChanged;
     
     // Sistema de transformaciones
     private CameraManager cameraManager;
     private CoordinateSystem coordinateSystem;
     private float worldScale = 1.0f;
+    private final Matrix worldMatrix = new Matrix();
+    private int worldMatrixVersion = -1;
+    private boolean worldMatrixDirty = true;
     private float deviceScale = 1.0f;
     private float density;
     
@@ -101,7 +89,7 @@ public class Renderer {
         };
         
         initializeDebugTools();
-        initializeLayerQueues();
+        initializeRenderQueue();
         setupHardwareAcceleration();
         
         // Obtener densidad de pantalla
@@ -124,12 +112,11 @@ public class Renderer {
     }
     
     /**
-     * Inicializa las colas de capas
+     * Inicializa la cola de renderizado
      */
-    private void initializeLayerQueues() {
-        for (Layer layer : Layer.values()) {
-            layerQueues.put(layer, new ArrayList<>());
-        }
+    private void initializeRenderQueue() {
+        // Efectos con 70% de opacidad
+        renderQueue.setLayerAlpha(Layer.EFFECTS, (int)(255 * 0.7f));
     }
     
     /**
@@ -172,21 +159,16 @@ public class Renderer {
         long frameStart = System.nanoTime();
         
         try {
-            // Limpiar canvas
+            // Limpiar canvas y guardar el estado de la vista para las transformaciones
             canvas.drawColor(Color.BLACK);
+            baseSaveCount = canvas.save();
             
             // Aplicar transformaciones de cámara
             applyCameraTransformations();
             
-            // Renderizar por lotes organizados por capas
+            // Renderizar por lotes organizados por capas (UI y efectos incluidos)
             renderByLayers();
             
-            // Renderizar UI si está habilitada
-            renderUI();
-            
-            // Renderizar efectos
-            renderEffects();
-            
             // Renderizar debug si está habilitado
             if (debugMode) {
                 renderDebug();
@@ -197,6 +179,20 @@ public class Renderer {
             
         } catch (Exception e) {
             Log.e(TAG, "Error durante renderizado: " + e.getMessage(), e);
+        } finally {
+            canvas.restoreToCount(baseSaveCount);
+        }
+    }
+    
+    /**
+     * Sustituye la transformación de mundo partiendo del estado del inicio del frame,
+     * sin perder la matriz propia de la vista (null = sin cámara)
+     */
+    private void setWorldTransform(Matrix matrix) {
+        canvas.restoreToCount(baseSaveCount);
+        baseSaveCount = canvas.save();
+        if (matrix != null) {
+            canvas.concat(matrix);
         }
     }
     
@@ -205,15 +201,15 @@ public class Renderer {
      */
     private void applyCameraTransformations() {
         if (cameraManager != null) {
-            // Obtener transformaciones de la cámara
-            float[] cameraMatrix = cameraManager.getCameraMatrix();
-            
-            // Aplicar escalado mundial
-            Matrix worldMatrix = new Matrix();
-            worldMatrix.postScale(worldScale, worldScale);
-            
-            // Combinar matrices
-            canvas.concat(worldMatrix);
+            // La matriz combinada solo se recalcula si la cámara o la escala cambiaron
+            int cameraVersion = cameraManager.getTransformVersion();
+            if (worldMatrixDirty || cameraVersion != worldMatrixVersion) {
+                worldMatrix.set(cameraManager.getCameraMatrix());
+                worldMatrix.preScale(worldScale, worldScale);
+                worldMatrixVersion = cameraVersion;
+                worldMatrixDirty = false;
+            }
+            setWorldTransform(worldMatrix);
         }
     }
     
@@ -221,90 +217,64 @@ public class Renderer {
      * Renderiza las capas por lotes
      */
     private void renderByLayers() {
-        queueLock.readLock().lock();
+        queueLock.writeLock().lock();
         try {
-            // Ordenar capas por prioridad
-            Arrays.stream(Layer.values())
-                  .sorted(Comparator.comparingInt(layer -> layer.priority))
-                  .forEach(this::renderLayer);
+            // Una sola ordenación por frame y fusión de comandos con el mismo paint
+            renderQueue.flush(canvas, layerListener);
+            
+            debugStats.setBatchCount(renderQueue.getFlushedCommands());
+            debugStats.setDrawCalls(renderQueue.getDrawCalls());
+            debugStats.setStateChanges(renderQueue.getStateChanges());
         } finally {
-            queueLock.readLock().unlock();
+            queueLock.writeLock().unlock();
         }
     }
     
     /**
-     * Renderiza una capa específica
+     * Prepara el canvas al empezar cada capa
      */
-    private void renderLayer(Layer layer) {
-        List<RenderBatch> batchList = layerQueues.get(layer);
-        if (batchList.isEmpty()) {
-            return;
-        }
-        
-        // Ordenar por z-order dentro de la capa
-        batchList.sort(Comparator.comparingDouble(batch -> batch.zOrder));
-        
-        for (RenderBatch batch : batchList) {
-            canvas.drawPath(batch.path, batch.paint);
+    private void onLayerChanged(Layer layer) {
+        if (layer == Layer.UI) {
+            // Restaurar matriz identidad para UI
+            setWorldTransform(null);
+        } else {
+            // EFFECTS va después de UI y dibuja en coordenadas del mundo: volver a la cámara
+            applyCameraTransformations();
         }
-        
-        // Limpiar la cola después del renderizado
-        batchList.clear();
     }
     
     /**
-     * Renderiza la UI
+     * Añade un elemento al lote de renderizado
      */
-    private void renderUI() {
-        queueLock.readLock().lock();
+    public void addToBatch(Path path, Paint paint, RectF bounds, Layer layer, float zOrder) {
+        queueLock.writeLock().lock();
         try {
-            List<RenderBatch> uiBatch = layerQueues.get(Layer.UI);
-            if (!uiBatch.isEmpty()) {
-                // Restaurar matriz identidad para UI
-                canvas.setMatrix(identityMatrix);
-                
-                for (RenderBatch batch : uiBatch) {
-                    canvas.drawPath(batch.path, batch.paint);
-                }
-                
-                uiBatch.clear();
-            }
+            renderQueue.addPath(layer, paint, path, zOrder);
         } finally {
-            queueLock.readLock().unlock();
+            queueLock.writeLock().unlock();
         }
     }
     
     /**
-     * Renderiza efectos
+     * Añade un círculo al lote de renderizado sin crear objetos
      */
-    private void renderEffects() {
+    public void addCircleToBatch(float cx, float cy, float radius, Paint paint, Layer layer, float zOrder) {
         queueLock.writeLock().lock();
         try {
-            List<RenderBatch> effectsBatch = layerQueues.get(Layer.EFFECTS);
-            
-            // Renderizar efectos con alpha blending
-            Paint effectPaint = new Paint(paint);
-            effectPaint.setAlpha((int)(255 * 0.7f)); // 70% de opacidad
-            
-            for (RenderBatch batch : effectsBatch) {
-                batch.paint.setAlpha(effectPaint.getAlpha());
-                canvas.drawPath(batch.path, batch.paint);
-            }
-            
-            effectsBatch.clear();
+            renderQueue.addCircle(layer, paint, cx, cy, radius, zOrder);
         } finally {
             queueLock.writeLock().unlock();
         }
     }
     
     /**
-     * Añade un elemento al lote de renderizado
+     * Añade un rectángulo al lote de renderizado sin crear objetos
      */
-    public void addToBatch(Path path, Paint paint, RectF bounds, Layer layer, float zOrder) {
+    public void addRectToBatch(float left, float top, float right, float bottom,
+                               Paint paint, Layer layer, float zOrder) {
         queueLock.writeLock().lock();
         try {
-            RenderBatch batch = new RenderBatch(paint, path, bounds, layer, zOrder);
-            layerQueues.get(layer).add(batch);
+            renderQueue.addRect(layer, paint, left, top, right, bottom, zOrder);
         } finally {
             queueLock.writeLock().unlock();
         }
@@ -345,6 +315,7 @@ public class Renderer {
      */
     public void setWorldScale(float scale) {
         this.worldScale = scale;
+        this.worldMatrixDirty = true;
     }
     
     /**
@@ -352,6 +323,7 @@ public class Renderer {
      */
     public void setCameraManager(CameraManager cameraManager) {
         this.cameraManager = cameraManager;
+        this.worldMatrixDirty = true;
     }
     
     /**
@@ -372,11 +344,13 @@ public class Renderer {
      * Renderiza información de debug
      */
     private void renderDebug() {
-        canvas.setMatrix(identityMatrix);
+        setWorldTransform(null);
         
         String[] debugInfo = {
             "FPS: " + debugStats.getFPS(),
             "Batches: " + debugStats.getBatchCount(),
+            "Draw calls: " + debugStats.getDrawCalls(),
+            "Cambios de estado: " + debugStats.getStateChanges(),
             "Memoria: " + (Runtime.getRuntime().totalMemory() / 1024 / 1024) + "MB",
             "Cache: " + dynamicCache.size() + " bitmaps"
         };
@@ -441,10 +415,8 @@ public class Renderer {
         }
         bitmapCache.clear();
         
-        // Limpiar colas de renderizado
-        for (List<RenderBatch> queue : layerQueues.values()) {
-            queue.clear();
-        }
+        // Limpiar cola de renderizado
+        renderQueue.clear();
         
         // Liberar pintura de debug
         if (debugPaint != null) {
@@ -461,6 +433,8 @@ public class Renderer {
         private final Queue<Long> frameTimes = new ArrayDeque<>();
         private final int maxSamples = 60;
         private int batchCount = 0;
+        private int drawCalls = 0;
+        private int stateChanges = 0;
         
         public void recordFrame(long frameTime) {
             frameTimes.offer(frameTime);
@@ -488,6 +462,22 @@ public class Renderer {
         public int getBatchCount() {
             return batchCount;
         }
+        
+        public void setDrawCalls(int count) {
+            this.drawCalls = count;
+        }
+        
+        public int getDrawCalls() {
+            return drawCalls;
+        }
+        
+        public void setStateChanges(int count) {
+            this.stateChanges = count;
+        }
+        
+        public int getStateChanges() {
+            return stateChanges;
+        }
     }
     
     // Constantes
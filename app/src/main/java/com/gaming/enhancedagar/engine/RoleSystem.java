@@ -61,12 +61,42 @@ public class RoleSystem {
      */
     private static final Map<RoleType, SpecialAbility> SPECIAL_ABILITIES = new HashMap<>();
     
+    /**
+     * Tablas densas por ordinal [atacante][defensor], precalculadas desde los mapas:
+     * son las que se consultan en cada interacción de combate
+     */
+    private static final int ROLE_COUNT = RoleType.values().length;
+    private static final double[][] DAMAGE_MATRIX = new double[ROLE_COUNT][ROLE_COUNT];
+    private static final int[][] ADVANTAGE_MATRIX = new int[ROLE_COUNT][ROLE_COUNT]; // 1 ventaja, -1 desventaja
+    
     static {
         initializeAdvantages();
         initializeDisadvantages();
         initializeDamageModifiers();
         initializeRoleStats();
         initializeSpecialAbilities();
+        buildMatchupMatrices();
+    }
+    
+    /**
+     * Vuelca ventajas, desventajas y modificadores de daño en las tablas densas
+     */
+    private static void buildMatchupMatrices() {
+        for (RoleType attacker : RoleType.values()) {
+            for (RoleType defender : RoleType.values()) {
+                int a = attacker.ordinal();
+                int d = defender.ordinal();
+                DAMAGE_MATRIX[a][d] = lookupDamageModifier(attacker, defender);
+                
+                Set<RoleType> advantages = ADVANTAGES.get(attacker);
+                Set<RoleType> disadvantages = DISADVANTAGES.get(attacker);
+                if (advantages != null && advantages.contains(defender)) {
+                    ADVANTAGE_MATRIX[a][d] = 1;
+                } else if (disadvantages != null && disadvantages.contains(defender)) {
+                    ADVANTAGE_MATRIX[a][d] = -1;
+                }
+            }
+        }
     }
     
     /**
@@ -214,32 +244,67 @@ public class RoleSystem {
      * Verifica si un rol tiene ventaja contra otro
      */
     public static boolean hasAdvantage(RoleType attacker, RoleType defender) {
-        Set<RoleType> advantages = ADVANTAGES.get(attacker);
-        return advantages != null && advantages.contains(defender);
+        return ADVANTAGE_MATRIX[attacker.ordinal()][defender.ordinal()] > 0;
     }
     
     /**
      * Verifica si un rol tiene desventaja contra otro
      */
     public static boolean hasDisadvantage(RoleType attacker, RoleType defender) {
-        Set<RoleType> disadvantages = DISADVANTAGES.get(attacker);
-        return disadvantages != null && disadvantages.contains(defender);
+        return ADVANTAGE_MATRIX[attacker.ordinal()][defender.ordinal()] < 0;
+    }
+    
+    /**
+     * Relación del atacante con el defensor: 1 ventaja, -1 desventaja, 0 neutral
+     */
+    public static int getMatchup(RoleType attacker, RoleType defender) {
+        return ADVANTAGE_MATRIX[attacker.ordinal()][defender.ordinal()];
     }
     
     /**
      * Calcula el modificador de daño basado en los roles del atacante y defensor
      */
     public static double getDamageModifier(RoleType attacker, RoleType defender) {
+        return DAMAGE_MATRIX[attacker.ordinal()][defender.ordinal()];
+    }
+    
+    /**
+     * Consulta original sobre el mapa con clave de texto; solo para construir las tablas
+     * y como referencia en los tests
+     */
+    static double lookupDamageModifier(RoleType attacker, RoleType defender) {
         String key = attacker.name() + "_" + defender.name();
         return DAMAGE_MODIFIERS.getOrDefault(key, 1.0);
     }
     
+    /**
+     * Consulta original de ventaja sobre el mapa de conjuntos (referencia en los tests)
+     */
+    static boolean lookupAdvantage(RoleType attacker, RoleType defender) {
+        Set<RoleType> advantages = ADVANTAGES.get(attacker);
+        return advantages != null && advantages.contains(defender);
+    }
+    
+    /**
+     * Consulta original de desventaja sobre el mapa de conjuntos (referencia en los tests)
+     */
+    static boolean lookupDisadvantage(RoleType attacker, RoleType defender) {
+        Set<RoleType> disadvantages = DISADVANTAGES.get(attacker);
+        return disadvantages != null && disadvantages.contains(defender);
+    }
+    
     /**
      * Calcula el daño final aplicando modificadores de rol
      */
     public static double calculateFinalDamage(RoleType attacker, RoleType defender, double baseDamage) {
-        double modifier = getDamageModifier(attacker, defender);
-        return baseDamage * modifier;
+        return baseDamage * DAMAGE_MATRIX[attacker.ordinal()][defender.ordinal()];
+    }
+    
+    /**
+     * Daño final con los roles ya como ordinales (bucles de combate que guardan el rol como int)
+     */
+    public static double calculateFinalDamage(int attackerOrdinal, int defenderOrdinal, double baseDamage) {
+        return baseDamage * DAMAGE_MATRIX[attackerOrdinal][defenderOrdinal];
     }
     
     /**
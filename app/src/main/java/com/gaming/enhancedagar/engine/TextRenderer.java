@@ -31,6 +31,11 @@ public class TextRenderer {
     // Cache para configuraciones de texto
     private final ConcurrentHashMap<String, TextPaint> paintCache;
     
+    // Atlas de glifos para texto dinámico (puntuación, masa, FPS)
+    private final List<GlyphAtlas> glyphAtlases;
+    private final Paint glyphBackgroundPaint;
+    private long glyphAtlasTick;
+    
     // Sistema de auto-scaling basado en densidad
     private float density;
     private float scaleFactor;
@@ -38,6 +43,7 @@ public class TextRenderer {
     // Configuración de rendimiento
     private static final int MAX_CACHE_SIZE = 50 * 1024 * 1024; // 50MB
     private static final int MAX_TEXT_CACHE_SIZE = 1000;
+    private static final int MAX_GLYPH_ATLASES = 8;
     private static final float OUTLINE_WIDTH_MULTIPLIER = 0.1f;
     private static final float SHADOW_OFFSET_MULTIPLIER = 0.05f;
     
@@ -233,6 +239,9 @@ public class TextRenderer {
         
         this.metricsCache = new LruCache<String, TextMetrics>(2000);
         this.paintCache = new ConcurrentHashMap<>();
+        this.glyphAtlases = new ArrayList<>();
+        this.glyphBackgroundPaint = new Paint();
+        this.glyphBackgroundPaint.setStyle(Paint.Style.FILL);
         this.activeTooltips = new ArrayList<>();
         this.activeLabels = new ArrayList<>();
         
@@ -370,6 +379,88 @@ public class TextRenderer {
         return result;
     }
     
+    /**
+     * Obtiene el atlas de glifos para una configuración, creándolo si no existe
+     */
+    private GlyphAtlas getGlyphAtlas(TextConfig config) {
+        glyphAtlasTick++;
+        
+        GlyphAtlas leastRecent = null;
+        for (int i = 0; i < glyphAtlases.size(); i++) {
+            GlyphAtlas atlas = glyphAtlases.get(i);
+            if (atlas.matches(config)) {
+                atlas.lastUsedTick = glyphAtlasTick;
+                return atlas;
+            }
+            if (leastRecent == null || atlas.lastUsedTick < leastRecent.lastUsedTick) {
+                leastRecent = atlas;
+            }
+        }
+        
+        // Expulsar el atlas menos usado si se alcanza el límite
+        if (glyphAtlases.size() >= MAX_GLYPH_ATLASES && leastRecent != null) {
+            glyphAtlases.remove(leastRecent);
+            leastRecent.recycle();
+        }
+        
+        GlyphAtlas atlas = new GlyphAtlas(config.typeface, config.size, config.effect,
+                                          config.color, config.effectColor);
+        atlas.lastUsedTick = glyphAtlasTick;
+        glyphAtlases.add(atlas);
+        return atlas;
+    }
+    
+    /**
+     * Dibuja texto dinámico glifo a glifo desde el atlas, sin crear bitmaps
+     * La posición (x, y) es la esquina superior izquierda, igual que renderText()
+     * @return ancho dibujado
+     */
+    public float drawText(Canvas canvas, CharSequence text, float x, float y, TextConfig config) {
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+        
+        // El texto multilínea sigue usando el camino con bitmap cacheado
+        if (config.maxLines > 1) {
+            Bitmap bitmap = renderText(text.toString(), config);
+            if (bitmap == null) return 0;
+            canvas.drawBitmap(bitmap, x, y, null);
+            return bitmap.getWidth();
+        }
+        
+        GlyphAtlas atlas = getGlyphAtlas(config);
+        if (config.backgroundColor != Color.TRANSPARENT) {
+            drawGlyphBackground(canvas, atlas, atlas.measureText(text), x, y, config);
+        }
+        
+        float baselineY = y + config.padding + Math.abs(atlas.getAscent());
+        return atlas.drawText(canvas, text, x + config.padding, baselineY);
+    }
+    
+    /**
+     * Dibuja un valor numérico (puntuación, masa, FPS) sin asignar Strings
+     * @return ancho dibujado
+     */
+    public float drawNumber(Canvas canvas, long value, float x, float y, TextConfig config) {
+        GlyphAtlas atlas = getGlyphAtlas(config);
+        if (config.backgroundColor != Color.TRANSPARENT) {
+            drawGlyphBackground(canvas, atlas, atlas.measureNumber(value), x, y, config);
+        }
+        
+        float baselineY = y + config.padding + Math.abs(atlas.getAscent());
+        return atlas.drawNumber(canvas, value, x + config.padding, baselineY);
+    }
+    
+    /**
+     * Fondo de una línea de texto del atlas, con el mismo relleno que renderText()
+     */
+    private void drawGlyphBackground(Canvas canvas, GlyphAtlas atlas, float textWidth,
+                                     float x, float y, TextConfig config) {
+        glyphBackgroundPaint.setColor(config.backgroundColor);
+        canvas.drawRect(x, y, x + textWidth + config.padding * 2,
+                        y + atlas.getLineHeight() + config.padding * 2, glyphBackgroundPaint);
+    }
+    
     /**
      * Renderiza texto con efectos especiales
      */
@@ -653,10 +744,8 @@ public class TextRenderer {
      * Renderiza un label individual
      */
     private void renderLabel(Canvas canvas, Label label) {
-        Bitmap textBitmap = renderText(label.text, label.config);
-        if (textBitmap != null) {
-            canvas.drawBitmap(textBitmap, label.x, label.y, null);
-        }
+        // Los labels cambian a menudo: se dibujan desde el atlas de glifos
+        drawText(canvas, label.text, label.x, label.y, label.config);
     }
     
     /**
@@ -671,10 +760,11 @@ public class TextRenderer {
      * Actualiza el texto de un label
      */
     public void updateLabelText(Label label, String newText) {
+        // Invalidar cache relacionado con el texto anterior
+        if (label.text != null && label.config.maxLines > 1) {
+            textCache.remove(generateCacheKey(label.text, label.config));
+        }
         label.text = newText;
-        // Invalidar cache relacionado
-        String oldCacheKey = generateCacheKey(label.text, label.config);
-        textCache.remove(oldCacheKey);
     }
     
     /**
@@ -703,6 +793,10 @@ public class TextRenderer {
         textCache.evictAll();
         metricsCache.evictAll();
         paintCache.clear();
+        for (GlyphAtlas atlas : glyphAtlases) {
+            atlas.recycle();
+        }
+        glyphAtlases.clear();
         preloadCommonFonts();
     }
     
@@ -716,6 +810,16 @@ public class TextRenderer {
         stats.put("metricsCacheSize", metricsCache.size());
         stats.put("metricsCacheMaxSize", metricsCache.maxSize());
         stats.put("paintCacheSize", paintCache.size());
+        
+        int atlasBytes = 0;
+        int atlasGlyphs = 0;
+        for (GlyphAtlas atlas : glyphAtlases) {
+            atlasBytes += atlas.getByteCount();
+            atlasGlyphs += atlas.getGlyphCount();
+        }
+        stats.put("glyphAtlasCount", glyphAtlases.size());
+        stats.put("glyphAtlasGlyphs", atlasGlyphs);
+        stats.put("glyphAtlasBytes", atlasBytes);
         stats.put("activeTooltips", activeTooltips.size());
         stats.put("activeLabels", activeLabels.size());
         return stats;
@@ -28,6 +28,17 @@ public class VisualEffects {
     private float screenShakeIntensity = 0f;
     private float screenFlashIntensity = 0f;
     
+    // Los filtros de desenfoque son lo más caro del pipeline; el gobernador de calidad los apaga
+    private volatile boolean blurEnabled = true;
+    
+    // Glow, aura y sombras pre-rasterizados; evita BlurMaskFilter y gradientes por frame
+    private final EffectSpriteCache spriteCache = new EffectSpriteCache();
+    private final Paint shadowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint effectPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    // Reutilizados por frame: los shaders y el flash reconfiguran el mismo Paint en cada llamada
+    private final Paint shaderPaint = new Paint();
+    private final Paint flashPaint = new Paint();
+    
     // Efectos de partículas predefinidos
     public enum EffectType {
         GLOW, PULSE, SHIMMER, FLASH, SHAKE, AURA, FORCE_FIELD,
@@ -58,7 +69,9 @@ public class VisualEffects {
         shaderPrograms.put("glow", new ShaderProgram() {
             @Override
             public void applyShader(Canvas canvas, Paint paint, float x, float y, float radius) {
-                paint.setMaskFilter(new BlurMaskFilter(radius, BlurMaskFilter.Blur.OUTER));
+                if (blurEnabled) {
+                    spriteCache.drawGlow(canvas, x, y, radius, paint.getColor(), paint.getAlpha());
+                }
             }
             
             @Override
@@ -81,10 +94,10 @@ public class VisualEffects {
         shaderPrograms.put("shimmer", new ShaderProgram() {
             @Override
             public void applyShader(Canvas canvas, Paint paint, float x, float y, float radius) {
-                float shimmerOffset = (globalTime * 0.05f) % 100;
-                paint.setShadowLayer(radius * 0.3f, 0, 0, 
-                    Color.argb(100, 255, 255, 255));
-                paint.setMaskFilter(new BlurMaskFilter(radius * 0.5f, BlurMaskFilter.Blur.NORMAL));
+                if (blurEnabled) {
+                    spriteCache.drawSoft(canvas, x, y, radius, paint.getColor(), paint.getAlpha());
+                    spriteCache.drawGlow(canvas, x, y, radius, Color.WHITE, 100);
+                }
             }
             
             @Override
@@ -235,8 +248,8 @@ public class VisualEffects {
             }
             
             @Override
-            public Matrix getLocalMatrix() {
-                return gradient.getLocalMatrix();
+            public boolean getLocalMatrix(Matrix localMatrix) {
+                return gradient.getLocalMatrix(localMatrix);
             }
         };
     }
@@ -246,24 +259,12 @@ public class VisualEffects {
      */
     public void renderAura(Canvas canvas, float x, float y, float radius, int baseColor,
                           float rotationSpeed, float waveIntensity) {
-        Paint auraPaint = new Paint();
-        auraPaint.setStyle(Paint.Style.STROKE);
-        auraPaint.setStrokeWidth(radius * 0.1f);
-        
-        // Crear gradiente radial para la aura
-        RadialGradient auraGradient = new RadialGradient(
-            x, y, radius, new int[]{baseColor, Color.TRANSPARENT},
-            new float[]{0f, 0.7f, 1f}, Shader.TileMode.CLAMP
-        );
-        auraPaint.setShader(auraGradient);
-        
-        // Efecto de ondas
+        // Efecto de ondas: el anillo con gradiente se rasteriza una vez y se escala por onda
         float time = globalTime * 0.003f;
         for (int i = 0; i < 3; i++) {
-            float waveRadius = radius * (0.8f + 0.1f * Math.sin(time * rotationSpeed + i));
-            auraPaint.setColor(baseColor);
-            auraPaint.setAlpha((int)(50 * waveIntensity * (1.0f - i * 0.3f)));
-            canvas.drawCircle(x, y, waveRadius, auraPaint);
+            float waveRadius = radius * (0.8f + 0.1f * (float) Math.sin(time * rotationSpeed + i));
+            int alpha = (int)(50 * waveIntensity * (1.0f - i * 0.3f));
+            spriteCache.drawAura(canvas, x, y, waveRadius, baseColor, alpha);
         }
     }
     
@@ -281,7 +282,6 @@ public class VisualEffects {
     
     public void applyScreenFlash(Canvas canvas, float intensity, int flashColor) {
         if (intensity > 0) {
-            Paint flashPaint = new Paint();
             flashPaint.setColor(flashColor);
             flashPaint.setAlpha((int)(intensity * 255));
             canvas.drawRect(0, 0, screenWidth, screenHeight, flashPaint);
@@ -297,14 +297,17 @@ public class VisualEffects {
         float shadowX = x + (float)Math.cos(Math.toRadians(lightAngle)) * shadowLength;
         float shadowY = y + (float)Math.sin(Math.toRadians(lightAngle)) * shadowLength;
         
-        Paint shadowPaint = new Paint();
-        shadowPaint.setColor(Color.BLACK);
-        shadowPaint.setAlpha((int)(intensity * 100));
-        shadowPaint.setMaskFilter(new BlurMaskFilter(width * 0.1f, BlurMaskFilter.Blur.NORMAL));
+        int alpha = (int)(intensity * 100);
         
         canvas.save();
         canvas.skew(0.3f, 0);
-        canvas.drawOval(shadowX, shadowY, shadowX + width * 1.2f, shadowY + height * 1.2f, shadowPaint);
+        if (blurEnabled) {
+            spriteCache.drawShadow(canvas, shadowX, shadowY, shadowX + width * 1.2f,
+                                   shadowY + height * 1.2f, Color.BLACK, alpha);
+        } else {
+            shadowPaint.setAlpha(alpha);
+            canvas.drawOval(shadowX, shadowY, shadowX + width * 1.2f, shadowY + height * 1.2f, shadowPaint);
+        }
         canvas.restore();
     }
     
@@ -367,7 +370,7 @@ public class VisualEffects {
             VisualEffect effect = entry.getValue();
             
             if (effect.update(globalTime)) {
-                effect.render(canvas);
+                effect.render(canvas, shaderPaint);
             } else {
                 iterator.remove();
             }
@@ -442,11 +445,15 @@ public class VisualEffects {
             neonPaint.setAlpha(alpha);
             
             // Outer glow
-            neonPaint.setMaskFilter(new BlurMaskFilter(strokeWidth * 2, BlurMaskFilter.Blur.OUTER));
+            if (blurEnabled) {
+                neonPaint.setMaskFilter(new BlurMaskFilter(strokeWidth * 2, BlurMaskFilter.Blur.OUTER));
+            }
             canvas.drawCircle(x, y, radius, neonPaint);
             
             // Inner glow
-            neonPaint.setMaskFilter(new BlurMaskFilter(strokeWidth * 0.5f, BlurMaskFilter.Blur.NORMAL));
+            if (blurEnabled) {
+                neonPaint.setMaskFilter(new BlurMaskFilter(strokeWidth * 0.5f, BlurMaskFilter.Blur.NORMAL));
+            }
             canvas.drawCircle(x, y, radius - strokeWidth, neonPaint);
         }
     }
@@ -468,6 +475,35 @@ public class VisualEffects {
         return activeEffects.size();
     }
     
+    /**
+     * Activa o desactiva los filtros de desenfoque (glow, shimmer, sombras, neón)
+     */
+    public void setBlurEnabled(boolean enabled) {
+        this.blurEnabled = enabled;
+    }
+    
+    public boolean isBlurEnabled() {
+        return blurEnabled;
+    }
+    
+    /**
+     * Ajusta el presupuesto de memoria de los sprites de efectos
+     */
+    public void setSpriteCacheBudget(int budgetBytes) {
+        spriteCache.setBudgetBytes(budgetBytes);
+    }
+    
+    /**
+     * Libera los sprites de efectos (p.ej. ante poca memoria); se vuelven a generar bajo demanda
+     */
+    public void releaseSpriteCache() {
+        spriteCache.clear();
+    }
+    
+    public EffectSpriteCache getSpriteCache() {
+        return spriteCache;
+    }
+    
     /**
      * Generar ID único para efectos
      */
@@ -543,8 +579,11 @@ public class VisualEffects {
             return (currentTime - startTime) < duration;
         }
         
-        public void render(Canvas canvas) {
-            Paint paint = new Paint();
+        /**
+         * @param paint Paint compartido; se reinicia antes de configurarlo
+         */
+        public void render(Canvas canvas, Paint paint) {
+            paint.reset();
             paint.setColor(baseColor);
             paint.setStyle(Paint.Style.FILL);
             
@@ -574,6 +613,7 @@ public class VisualEffects {
             public Builder radius(float radius) { this.radius = radius; return this; }
             public Builder baseColor(int color) { this.baseColor = color; return this; }
             public Builder duration(float duration) { this.duration = duration; return this; }
+            public Builder intensity(float intensity) { return customProperty("intensity", intensity); }
             public Builder customProperty(String key, Object value) { 
                 customProperties.put(key, value); return this; 
             }
@@ -594,7 +634,7 @@ public class VisualEffects {
     /**
      * Capa de resplandor
      */
-    private static class GlowLayer implements EffectLayer {
+    private class GlowLayer implements EffectLayer {
         private final float glowRadius;
         private final float intensity;
         
@@ -605,19 +645,16 @@ public class VisualEffects {
         
         @Override
         public void render(Canvas canvas, float x, float y, float radius, int baseColor) {
-            Paint glowPaint = new Paint();
-            glowPaint.setColor(baseColor);
-            glowPaint.setAlpha((int)(intensity * 100));
-            glowPaint.setMaskFilter(new BlurMaskFilter(glowRadius, BlurMaskFilter.Blur.OUTER));
-            
-            canvas.drawCircle(x, y, radius + glowRadius, glowPaint);
+            if (blurEnabled) {
+                spriteCache.drawGlow(canvas, x, y, radius + glowRadius, baseColor, (int)(intensity * 100));
+            }
         }
     }
     
     /**
      * Partícula individual
      */
-    private static class Particle {
+    private class Particle {
         private float x, y;
         private float vx, vy;
         private float size;
@@ -647,12 +684,14 @@ public class VisualEffects {
         }
         
         public void render(Canvas canvas) {
-            Paint paint = new Paint();
-            paint.setColor(color);
-            paint.setAlpha((int)(alpha * 255));
-            paint.setMaskFilter(new BlurMaskFilter(size * 0.5f, BlurMaskFilter.Blur.NORMAL));
-            
-            canvas.drawCircle(x, y, size, paint);
+            int particleAlpha = (int)(alpha * 255);
+            if (blurEnabled) {
+                spriteCache.drawSoft(canvas, x, y, size, color, particleAlpha);
+            } else {
+                effectPaint.setColor(color);
+                effectPaint.setAlpha(particleAlpha);
+                canvas.drawCircle(x, y, size, effectPaint);
+            }
         }
     }
 }
\ No newline at end of file
@@ -5,6 +5,9 @@ import android.graphics.Paint;
 import android.graphics.RectF;
 import android.util.Log;
 
+import com.gaming.enhancedagar.game.TeamInfluenceMap;
+import com.gaming.enhancedagar.game.TeamSystem;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -128,6 +131,11 @@ public class EnemyBot extends Entity {
     private Random random;
     private float lastUpdateTime;
     
+    // Territorio del equipo del bot (opcional): id de equipo, el índice se resuelve al usarlo
+    private TeamSystem territoryTeams;
+    private int territoryTeamId;
+    private static final int PATROL_CANDIDATES = 4;
+    
     // Memoria de entidades para IA avanzada
     private static class EntityMemory {
         public Entity entity;
@@ -152,13 +160,45 @@ public class EnemyBot extends Entity {
     public EnemyBot(BotRole role, float startX, float startY) {
         super(startX, startY, 30 * role.sizeMultiplier, 30 * role.sizeMultiplier);
         
+        this.detectedEntities = new ArrayList<>();
+        this.threats = new ArrayList<>();
+        this.opportunities = new ArrayList<>();
+        this.entityMemories = new HashMap<>();
+        this.random = new Random();
+        
+        initializeState(role);
+        
+        if (isDebugMode()) {
+            Log.d(TAG, "EnemyBot " + role.displayName + " creado en (" + startX + ", " + startY + ")");
+        }
+    }
+    
+    /**
+     * Reutiliza el bot (pool de oleadas): nuevo rol y posición, con memoria,
+     * estadísticas y efectos a cero, sin volver a crear listas ni mapas
+     */
+    public void reset(BotRole role, float startX, float startY) {
+        float size = 30 * role.sizeMultiplier;
+        resetEntity(startX, startY, size, size);
+        
+        detectedEntities.clear();
+        threats.clear();
+        opportunities.clear();
+        entityMemories.clear();
+        territoryTeams = null;
+        creationTime = System.currentTimeMillis();
+        
+        initializeState(role);
+    }
+    
+    /**
+     * Estado de IA, estadísticas y efectos iniciales para el rol dado
+     */
+    private void initializeState(BotRole role) {
         this.role = role;
         this.currentBehavior = BehaviorState.WANDERING;
         this.alertLevel = AlertLevel.CALM;
         
-        this.detectedEntities = new ArrayList<>();
-        this.threats = new ArrayList<>();
-        this.opportunities = new ArrayList<>();
         this.primaryTarget = null;
         this.currentThreat = null;
         
@@ -167,8 +207,8 @@ public class EnemyBot extends Entity {
         this.behaviorTimer = 0;
         this.hasWanderTarget = false;
         
-        this.entityMemories = new HashMap<>();
         this.memoryDecayRate = 30000; // 30 segundos para olvidar
+        this.lastSeenPlayerTime = 0;
         
         this.decisionsMade = 0;
         this.successfulActions = 0;
@@ -179,7 +219,6 @@ public class EnemyBot extends Entity {
         this.confusionTimeRemaining = 0;
         this.fearTimeRemaining = 0;
         
-        this.random = new Random();
         this.lastUpdateTime = System.currentTimeMillis();
         
         // Configurar detección según el rol
@@ -187,8 +226,13 @@ public class EnemyBot extends Entity {
         
         // Aplicar propiedades del rol
         applyRoleProperties();
-        
-        Log.d(TAG, "EnemyBot " + role.displayName + " creado en (" + startX + ", " + startY + ")");
+    }
+    
+    /**
+     * Los mensajes de depuración concatenan cadenas: solo se construyen si el nivel está activo
+     */
+    private static boolean isDebugMode() {
+        return Log.isLoggable(TAG, Log.DEBUG);
     }
     
     /**
@@ -246,8 +290,10 @@ public class EnemyBot extends Entity {
         // Ajustar sensibilidad de alerta
         float alertSensitivity = 0.5f + (role.intelligenceMultiplier * 0.5f);
         
-        Log.d(TAG, "Propiedades aplicadas para " + role.displayName + 
-                    ": velocidad=" + maxSpeed + ", color=" + Integer.toHexString(color));
+        if (isDebugMode()) {
+            Log.d(TAG, "Propiedades aplicadas para " + role.displayName + 
+                        ": velocidad=" + maxSpeed + ", color=" + Integer.toHexString(color));
+        }
     }
     
     /**
@@ -504,8 +550,10 @@ public class EnemyBot extends Entity {
             behaviorTimer = 0;
         }
         
-        Log.d(TAG, role.displayName + " decisió: " + currentBehavior.displayName + 
-                    " (objetivo: " + (primaryTarget != null ? primaryTarget.getClass().getSimpleName() : "none") + ")");
+        if (isDebugMode()) {
+            Log.d(TAG, role.displayName + " decisió: " + currentBehavior.displayName + 
+                        " (objetivo: " + (primaryTarget != null ? primaryTarget.getClass().getSimpleName() : "none") + ")");
+        }
     }
     
     /**
@@ -549,9 +597,21 @@ public class EnemyBot extends Entity {
      * Verifica si el bot tiene territorio que vigilar
      */
     private boolean hasTerritory() {
-        // Por simplicidad, siempre tiene territorio
-        // En una implementación más compleja, sería configurable
-        return true;
+        // Sin mapa de influencia, siempre tiene territorio
+        int territoryTeam = getTerritoryIndex();
+        if (territoryTeam == TeamInfluenceMap.NO_TEAM) {
+            return true;
+        }
+        TeamInfluenceMap territoryMap = territoryTeams.getInfluenceMap();
+        return territoryMap.getOwner(x, y) == territoryTeam || territoryMap.isContested(x, y);
+    }
+    
+    /**
+     * Índice actual del equipo del bot en el mapa de influencia, o TeamInfluenceMap.NO_TEAM
+     */
+    private int getTerritoryIndex() {
+        return territoryTeams != null ? territoryTeams.getTerritoryIndex(territoryTeamId)
+                                      : TeamInfluenceMap.NO_TEAM;
     }
     
     /**
@@ -579,8 +639,10 @@ public class EnemyBot extends Entity {
             this.behaviorTimer = 0;
             
             notifyListeners("behaviorChanged", new Object[]{oldBehavior, newBehavior});
-            Log.d(TAG, role.displayName + " cambió de " + oldBehavior.displayName + 
-                        " a " + newBehavior.displayName);
+            if (isDebugMode()) {
+                Log.d(TAG, role.displayName + " cambió de " + oldBehavior.displayName + 
+                            " a " + newBehavior.displayName);
+            }
         }
     }
     
@@ -793,6 +855,29 @@ public class EnemyBot extends Entity {
         wanderTargetX = x + (float) Math.cos(angle) * patrolRadius;
         wanderTargetY = y + (float) Math.sin(angle) * patrolRadius;
         
+        // Con mapa de influencia: preferir zonas disputadas y, si no, el territorio propio
+        int territoryTeam = getTerritoryIndex();
+        if (territoryTeam != TeamInfluenceMap.NO_TEAM) {
+            TeamInfluenceMap territoryMap = territoryTeams.getInfluenceMap();
+            boolean foundOwned = false;
+            for (int i = 0; i < PATROL_CANDIDATES; i++) {
+                float candidateAngle = angle + i * 2 * (float) Math.PI / PATROL_CANDIDATES;
+                float candidateX = x + (float) Math.cos(candidateAngle) * patrolRadius;
+                float candidateY = y + (float) Math.sin(candidateAngle) * patrolRadius;
+                
+                if (territoryMap.isContested(candidateX, candidateY)) {
+                    wanderTargetX = candidateX;
+                    wanderTargetY = candidateY;
+                    break;
+                }
+                if (!foundOwned && territoryMap.getOwner(candidateX, candidateY) == territoryTeam) {
+                    wanderTargetX = candidateX;
+                    wanderTargetY = candidateY;
+                    foundOwned = true;
+                }
+            }
+        }
+        
         hasWanderTarget = true;
     }
     
@@ -1029,8 +1114,10 @@ public class EnemyBot extends Entity {
         // Estadísticas finales
         notifyListeners("death", new BotStatistics(this));
         
-        Log.d(TAG, "EnemyBot " + role.displayName + " murió. Decisiones: " + decisionsMade + 
-                    ", Éxito: " + (decisionsMade > 0 ? (successfulActions * 100 / decisionsMade) : 0) + "%");
+        if (isDebugMode()) {
+            Log.d(TAG, "EnemyBot " + role.displayName + " murió. Decisiones: " + decisionsMade + 
+                        ", Éxito: " + (decisionsMade > 0 ? (successfulActions * 100 / decisionsMade) : 0) + "%");
+        }
     }
     
     /**
@@ -1039,7 +1126,9 @@ public class EnemyBot extends Entity {
     public void applyStun(float duration) {
         this.stunTimeRemaining = duration;
         setBehavior(BehaviorState.STUNNED);
-        Log.d(TAG, role.displayName + " aturdido por " + duration + "ms");
+        if (isDebugMode()) {
+            Log.d(TAG, role.displayName + " aturdido por " + duration + "ms");
+        }
     }
     
     /**
@@ -1048,7 +1137,9 @@ public class EnemyBot extends Entity {
     public void applyConfusion(float duration) {
         this.confusionTimeRemaining = duration;
         // La confusión afecta las decisiones pero no el movimiento
-        Log.d(TAG, role.displayName + " confundido por " + duration + "ms");
+        if (isDebugMode()) {
+            Log.d(TAG, role.displayName + " confundido por " + duration + "ms");
+        }
     }
     
     /**
@@ -1057,7 +1148,9 @@ public class EnemyBot extends Entity {
     public void applyFear(float duration) {
         this.fearTimeRemaining = duration;
         alertLevel = AlertLevel.PANIC;
-        Log.d(TAG, role.displayName + " tiene miedo por " + duration + "ms");
+        if (isDebugMode()) {
+            Log.d(TAG, role.displayName + " tiene miedo por " + duration + "ms");
+        }
     }
     
     /**
@@ -1074,6 +1167,16 @@ public class EnemyBot extends Entity {
         super.updateBasicPosition(deltaTime);
     }
     
+    /**
+     * Asocia el bot al territorio de un equipo para patrullar
+     * @param teams sistema de equipos dueño del mapa de influencia (null para desactivar)
+     * @param teamId id del equipo en ese sistema
+     */
+    public void setTerritory(TeamSystem teams, int teamId) {
+        this.territoryTeams = teams;
+        this.territoryTeamId = teamId;
+    }
+    
     /**
      * Obtiene la efectividad del bot
      */
@@ -43,6 +43,19 @@ public abstract class Entity {
     private static List<Entity> activeEntities = new ArrayList<>();
     private static long nextId = 1;
     protected long id;
+    private boolean registered;
+    
+    // Celda asignada en la rejilla de densidad de la simulación (-1 = sin registrar)
+    protected int densityCell = -1;
+    
+    // Handle en la fase ancha espacial compartida (-1 = sin registrar)
+    protected int spatialHandle = -1;
+    
+    // Hueco reservado en el muestreador de spawns (-1 = ninguno)
+    protected int spawnSample = -1;
+    
+    // Dueño de los handles anteriores (normalmente el motor); null si no está en el mundo
+    private Registry registry;
     
     /**
      * Constructor básico para entidades
@@ -70,6 +83,42 @@ public abstract class Entity {
         
         // Registrar en lista de entidades activas
         activeEntities.add(this);
+        registered = true;
+    }
+    
+    /**
+     * Devuelve la entidad a su estado inicial para reutilizarla desde un pool
+     * Recibe un id nuevo (las memorias de otras entidades no la confunden con la anterior),
+     * suelta y olvida los handles de los sistemas y vuelve a la lista de entidades activas
+     */
+    protected void resetEntity(float x, float y, float width, float height) {
+        // Las entradas se quitan de sus sistemas antes de perder los handles
+        Registry owner = registry;
+        if (owner != null) {
+            registry = null;
+            owner.release(this);
+        }
+        
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.velocityX = 0;
+        this.velocityY = 0;
+        this.isAlive = true;
+        this.isActive = true;
+        this.isVisible = true;
+        this.mass = width * height;
+        this.id = nextId++;
+        this.densityCell = -1;
+        this.spatialHandle = -1;
+        this.spawnSample = -1;
+        updateBounds();
+        
+        if (!registered) {
+            activeEntities.add(this);
+            registered = true;
+        }
     }
     
     /**
@@ -319,6 +368,16 @@ public abstract class Entity {
         setSize(width + amountToAdd, height + amountToAdd);
     }
     
+    /**
+     * Suma o resta masa conservando la proporción (daño y curación de habilidades)
+     * @param amount masa a añadir; negativa para quitar
+     */
+    public void changeMass(float amount) {
+        float newMass = Math.max(mass + amount, 1.0f);
+        float scale = mass > 0 ? (float) Math.sqrt(newMass / mass) : 1.0f;
+        setSize(width * scale, height * scale);
+    }
+    
     /**
      * Obtiene el factor de crecimiento basado en la masa
      * @return factor de crecimiento
@@ -443,14 +502,21 @@ public abstract class Entity {
      * Remueve de la lista de entidades activas
      */
     private void removeFromActiveList() {
-        activeEntities.remove(this);
+        if (registered) {
+            activeEntities.remove(this);
+            registered = false;
+        }
     }
     
     /**
      * Limpia todas las entidades inactivas
      */
     public static void cleanupInactiveEntities() {
-        activeEntities.removeIf(entity -> !entity.isActive);
+        activeEntities.removeIf(entity -> {
+            if (entity.isActive) return false;
+            entity.registered = false;
+            return true;
+        });
     }
     
     /**
@@ -488,6 +554,14 @@ public abstract class Entity {
     public Paint getPaint() { return paint; }
     public RectF getBounds() { return bounds; }
     public long getId() { return id; }
+    public int getDensityCell() { return densityCell; }
+    public void setDensityCell(int densityCell) { this.densityCell = densityCell; }
+    public int getSpatialHandle() { return spatialHandle; }
+    public void setSpatialHandle(int spatialHandle) { this.spatialHandle = spatialHandle; }
+    public int getSpawnSample() { return spawnSample; }
+    public void setSpawnSample(int spawnSample) { this.spawnSample = spawnSample; }
+    public Registry getRegistry() { return registry; }
+    public void setRegistry(Registry registry) { this.registry = registry; }
     
     public void setX(float x) { this.x = x; updateBounds(); }
     public void setY(float y) { this.y = y; updateBounds(); }
@@ -516,6 +590,14 @@ public abstract class Entity {
         canvas.drawCircle(x, y, radius, paint);
     }
     
+    /**
+     * Dueño de las entradas de la entidad en la rejilla de densidad, la fase ancha y el
+     * muestreador; release() las quita cuando la entidad se reutiliza sin retirarse antes
+     */
+    public interface Registry {
+        void release(Entity entity);
+    }
+    
     /**
      * Interface para listeners de eventos de entidad
      */
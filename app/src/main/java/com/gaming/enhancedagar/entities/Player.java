@@ -95,6 +95,7 @@ public class Player extends Entity {
     
     // Controles y movimiento
     private float targetX, targetY;
+    private long targetInputSequence = -1; // Secuencia de la entrada que fijó el objetivo (trazado de latencia)
     private boolean isMoving;
     private Random random;
     
@@ -463,6 +464,17 @@ public class Player extends Entity {
                     " +" + expGained + " exp, +" + scoreGained + " puntos");
     }
     
+    /**
+     * Daño y curación de habilidades; la masa no baja de la inicial
+     */
+    @Override
+    public void changeMass(float amount) {
+        if (state != PlayerState.ALIVE) return;
+        
+        mass = Math.max(mass + amount, baseMass);
+        updateAppearance();
+    }
+    
     /**
      * Gana experiencia
      */
@@ -492,6 +504,17 @@ public class Player extends Entity {
         resetMovementPath();
     }
     
+    /**
+     * Establece el objetivo a partir de un evento de entrada, conservando su secuencia
+     * para medir la latencia hasta el frame que lo muestra
+     */
+    public void setTarget(float targetX, float targetY, long inputSequence) {
+        setTarget(targetX, targetY);
+        if (inputSequence > targetInputSequence) {
+            targetInputSequence = inputSequence;
+        }
+    }
+    
     /**
      * Activa una habilidad especial
      */
@@ -712,6 +735,7 @@ public class Player extends Entity {
     public SpecialAbility getActiveAbility() { return activeAbility; }
     public boolean isMoving() { return isMoving; }
     public float getTargetX() { return targetX; }
+    public long getTargetInputSequence() { return targetInputSequence; }
     public float getTargetY() { return targetY; }
     
     // Setters
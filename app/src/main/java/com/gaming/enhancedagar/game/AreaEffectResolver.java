@@ -0,0 +1,209 @@
+package com.gaming.enhancedagar.game;
+
+import com.gaming.enhancedagar.entities.Entity;
+
+import java.util.Arrays;
+
+/**
+ * Resolución de objetivos de efectos de área sobre la fase ancha (SpatialGrid)
+ * Un círculo o un cono consulta solo las celdas de su alcance y deja los objetivos, su
+ * distancia y su peso (1 en el centro, decae linealmente hasta minWeight en el borde) en
+ * buffers reutilizados; el coste es O(objetivos) y no depende del tamaño del mundo.
+ * Los resultados valen hasta la siguiente resolución. No es seguro entre hilos
+ */
+public class AreaEffectResolver {
+
+    public static final int NO_TARGET = -1;
+    public static final int MASK_COMBATANTS = (1 << SpatialGrid.CATEGORY_PLAYER) | (1 << SpatialGrid.CATEGORY_BOT);
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private SpatialGrid grid;
+    private int[] queryBuffer = new int[INITIAL_CAPACITY];
+
+    // Resultado de la última resolución
+    private Entity[] targets = new Entity[INITIAL_CAPACITY];
+    private float[] distances = new float[INITIAL_CAPACITY];
+    private float[] weights = new float[INITIAL_CAPACITY];
+    private int targetCount = 0;
+    private int nearest = NO_TARGET;
+
+    private float minWeight = 0.3f;
+
+    /**
+     * Decide si un objetivo entra en el resultado según quien lanza el efecto
+     */
+    public interface TargetFilter {
+        boolean accept(Entity source, Entity target);
+    }
+
+    public AreaEffectResolver() {
+        this(new SpatialGrid());
+    }
+
+    public AreaEffectResolver(SpatialGrid grid) {
+        this.grid = grid;
+    }
+
+    // === RESOLUCIÓN ===
+
+    /**
+     * Objetivos cuyo círculo toca el círculo dado
+     * @param categoryMask categorías de SpatialGrid aceptadas
+     * @param exclude entidad a ignorar (normalmente quien lanza), o null
+     * @return número de objetivos
+     */
+    public int resolveCircle(float x, float y, float radius, int categoryMask, Entity exclude) {
+        return resolveCircle(x, y, radius, categoryMask, exclude, null);
+    }
+
+    /**
+     * Como resolveCircle, pero solo con los objetivos que acepta el filtro (p. ej. aliados)
+     * @param source quien lanza: se ignora como objetivo y se pasa al filtro
+     * @param filter null acepta todos
+     */
+    public int resolveCircle(float x, float y, float radius, int categoryMask, Entity source,
+                             TargetFilter filter) {
+        int found = query(x, y, radius, categoryMask);
+        clearTargets();
+        for (int i = 0; i < found; i++) {
+            int handle = queryBuffer[i];
+            Entity target = candidateAt(handle, source);
+            if (target == null || (filter != null && !filter.accept(source, target))) continue;
+
+            float dx = grid.getX(handle) - x;
+            float dy = grid.getY(handle) - y;
+            addTarget(target, (float) Math.sqrt(dx * dx + dy * dy), radius);
+        }
+        return targetCount;
+    }
+
+    /**
+     * Objetivos cuyo círculo toca el cono con vértice en (x, y)
+     * @param directionX dirección del cono (no hace falta normalizarla)
+     * @param halfAngle semiapertura en radianes; desde PI equivale a un círculo
+     */
+    public int resolveCone(float x, float y, float directionX, float directionY,
+                           float halfAngle, float range, int categoryMask, Entity exclude) {
+        float length = (float) Math.sqrt(directionX * directionX + directionY * directionY);
+        if (length == 0f || halfAngle >= Math.PI) {
+            return resolveCircle(x, y, range, categoryMask, exclude);
+        }
+        float axisX = directionX / length;
+        float axisY = directionY / length;
+        float cosHalf = (float) Math.cos(halfAngle);
+        float sinHalf = (float) Math.sin(halfAngle);
+
+        int found = query(x, y, range, categoryMask);
+        clearTargets();
+        for (int i = 0; i < found; i++) {
+            int handle = queryBuffer[i];
+            Entity target = candidateAt(handle, exclude);
+            if (target == null) continue;
+
+            float dx = grid.getX(handle) - x;
+            float dy = grid.getY(handle) - y;
+            float distance = (float) Math.sqrt(dx * dx + dy * dy);
+            float targetRadius = grid.getRadius(handle);
+            if (distance > targetRadius && !touchesCone(dx, dy, distance, targetRadius,
+                                                        axisX, axisY, cosHalf, sinHalf, halfAngle)) {
+                continue;
+            }
+            addTarget(target, distance, range);
+        }
+        return targetCount;
+    }
+
+    /**
+     * El círculo del objetivo entra en el cono si su centro cae dentro de la semiapertura
+     * ampliada con el ángulo que subtiende su radio: cos(ángulo) >= cos(semiapertura + beta)
+     */
+    static boolean touchesCone(float dx, float dy, float distance, float targetRadius,
+                               float axisX, float axisY, float cosHalf, float sinHalf,
+                               float halfAngle) {
+        float sinBeta = targetRadius / distance;
+        if (halfAngle + Math.asin(sinBeta) >= Math.PI) {
+            return true;
+        }
+        float cosBeta = (float) Math.sqrt(1f - sinBeta * sinBeta);
+        float cosLimit = cosHalf * cosBeta - sinHalf * sinBeta;
+        return (dx * axisX + dy * axisY) >= cosLimit * distance;
+    }
+
+    /**
+     * Consulta la rejilla ampliando el buffer hasta que quepan todos los candidatos
+     * @return candidatos, en los primeros huecos de getQueryBuffer()
+     */
+    int query(float x, float y, float radius, int categoryMask) {
+        int found = grid.queryCircle(x, y, radius, categoryMask, queryBuffer);
+        while (found == queryBuffer.length) {
+            queryBuffer = new int[queryBuffer.length * 2];
+            found = grid.queryCircle(x, y, radius, categoryMask, queryBuffer);
+        }
+        return found;
+    }
+
+    private Entity candidateAt(int handle, Entity exclude) {
+        // La rejilla compartida también guarda elementos de otros sistemas
+        Object item = grid.getItem(handle);
+        if (!(item instanceof Entity) || item == exclude) {
+            return null;
+        }
+        Entity entity = (Entity) item;
+        return entity.isAlive() && entity.isActive() ? entity : null;
+    }
+
+    private void clearTargets() {
+        // Soltar referencias de la resolución anterior
+        Arrays.fill(targets, 0, targetCount, null);
+        targetCount = 0;
+        nearest = NO_TARGET;
+    }
+
+    private void addTarget(Entity target, float distance, float range) {
+        if (targetCount == targets.length) {
+            int capacity = targets.length * 2;
+            targets = Arrays.copyOf(targets, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+        float falloff = range > 0f ? 1f - Math.min(1f, distance / range) : 1f;
+        targets[targetCount] = target;
+        distances[targetCount] = distance;
+        weights[targetCount] = minWeight + (1f - minWeight) * falloff;
+        if (nearest == NO_TARGET || distance < distances[nearest]) {
+            nearest = targetCount;
+        }
+        targetCount++;
+    }
+
+    // === RESULTADOS ===
+
+    public int getTargetCount() { return targetCount; }
+    public Entity getTarget(int index) { return targets[index]; }
+    public float getDistance(int index) { return distances[index]; }
+    public float getWeight(int index) { return weights[index]; }
+
+    /**
+     * Índice del objetivo más cercano al centro o vértice, o NO_TARGET
+     */
+    public int getNearestIndex() { return nearest; }
+
+    // === CONFIGURACIÓN ===
+
+    /**
+     * Usa la fase ancha compartida del motor en lugar de una propia
+     */
+    public void setSpatialGrid(SpatialGrid grid) {
+        this.grid = grid != null ? grid : new SpatialGrid();
+    }
+
+    public SpatialGrid getSpatialGrid() { return grid; }
+
+    int[] getQueryBuffer() { return queryBuffer; }
+
+    /**
+     * Peso en el borde del área (1 = sin caída con la distancia)
+     */
+    public void setMinWeight(float minWeight) { this.minWeight = Math.max(0f, Math.min(1f, minWeight)); }
+}
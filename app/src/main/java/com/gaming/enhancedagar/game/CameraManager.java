@@ -1,6 +1,7 @@
 package com.gaming.enhancedagar.game;
 
 import android.graphics.Canvas;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PointF;
@@ -71,6 +72,13 @@ public class CameraManager {
     private float cullMargin = 100f;
     private boolean enableOptimization = true;
     
+    // Transformación mundo -> pantalla cacheada: screen = world * zoom + offset
+    private final Matrix cameraMatrix = new Matrix();
+    private final Matrix inverseCameraMatrix = new Matrix();
+    private float cachedCameraX = Float.NaN, cachedCameraY = Float.NaN, cachedZoom = Float.NaN;
+    private float transformScale = 1f, transformOffsetX = 0f, transformOffsetY = 0f;
+    private int transformVersion = 0;
+    
     // Interpolación suave
     private float smoothingFactor = 0.1f;
     private boolean useBezierInterpolation = false;
@@ -86,6 +94,21 @@ public class CameraManager {
     private float basePlayerSize = 30f;
     private boolean adaptiveZoom = true;
     
+    // Zoom por densidad: lee los contadores por celda de la rejilla de la simulación
+    private DensityGrid densityGrid;
+    private float densityReference = 12f;      // Entidades ponderadas por millón de unidades² consideradas normales
+    private float densityZoomStrength = 0.25f; // Cuánto se aleja la cámara por cada vez la densidad de referencia
+    private float minDensityMultiplier = 0.6f;
+    private float densitySmoothingTime = 0.6f; // Constante de tiempo del suavizado (segundos)
+    private float smoothedDensityMultiplier = 1.0f;
+    private float lastDensityTarget = 1.0f;
+    private int lastDensityVersion = -1;
+    private int lastDensityFirstColumn = -1, lastDensityFirstRow = -1;
+    private int lastDensityLastColumn = -1, lastDensityLastRow = -1;
+    private static final float FOOD_DENSITY_WEIGHT = 0.1f;
+    private static final float BOT_DENSITY_WEIGHT = 1.0f;
+    private static final float PLAYER_DENSITY_WEIGHT = 1.5f;
+    
     // Tipos de transición
     public enum TransitionType {
         LINEAR("Lineal"),
@@ -357,7 +380,7 @@ public class CameraManager {
         }
         
         // Considerar densidad de entidades cercanas
-        float densityMultiplier = calculateDensityMultiplier();
+        float densityMultiplier = calculateDensityMultiplier(deltaTime);
         zoomMultiplier *= densityMultiplier;
         
         // Ajustar zoom objetivo
@@ -370,13 +393,80 @@ public class CameraManager {
     
     /**
      * Calcula multiplicador de zoom basado en densidad de entidades
+     * Suma los contadores de las celdas visibles de la rejilla de densidad (coste por celda,
+     * no por entidad) y aleja la cámara cuando la zona está más poblada que la referencia
+     */
+    private float calculateDensityMultiplier(float deltaTime) {
+        if (densityGrid == null) {
+            return 1.0f;
+        }
+        
+        // Rango de celdas que cubre la vista actual
+        float halfWidth = screenWidth / (2 * zoom);
+        float halfHeight = screenHeight / (2 * zoom);
+        int firstColumn = densityGrid.columnOf(cameraX - halfWidth);
+        int lastColumn = densityGrid.columnOf(cameraX + halfWidth);
+        int firstRow = densityGrid.rowOf(cameraY - halfHeight);
+        int lastRow = densityGrid.rowOf(cameraY + halfHeight);
+        
+        // Solo se vuelve a sumar si la rejilla cambió o la vista cruzó un borde de celda
+        int version = densityGrid.getVersion();
+        if (version != lastDensityVersion
+                || firstColumn != lastDensityFirstColumn || lastColumn != lastDensityLastColumn
+                || firstRow != lastDensityFirstRow || lastRow != lastDensityLastRow) {
+            lastDensityVersion = version;
+            lastDensityFirstColumn = firstColumn;
+            lastDensityLastColumn = lastColumn;
+            lastDensityFirstRow = firstRow;
+            lastDensityLastRow = lastRow;
+            
+            float weighted =
+                FOOD_DENSITY_WEIGHT * densityGrid.sumCells(DensityGrid.CATEGORY_FOOD, firstColumn, firstRow, lastColumn, lastRow)
+                + BOT_DENSITY_WEIGHT * densityGrid.sumCells(DensityGrid.CATEGORY_BOT, firstColumn, firstRow, lastColumn, lastRow)
+                + PLAYER_DENSITY_WEIGHT * densityGrid.sumCells(DensityGrid.CATEGORY_PLAYER, firstColumn, firstRow, lastColumn, lastRow);
+            
+            // Área de las celdas sumadas, para que la densidad no dependa del zoom ni de los bordes del mundo
+            float area = (lastColumn - firstColumn + 1) * densityGrid.getCellWidth()
+                       * (lastRow - firstRow + 1) * densityGrid.getCellHeight();
+            float density = area > 0 ? weighted / area * 1_000_000f : 0f;
+            
+            float excess = Math.max(0f, density / densityReference - 1f);
+            lastDensityTarget = Math.max(minDensityMultiplier, 1.0f / (1.0f + excess * densityZoomStrength));
+        }
+        
+        // Suavizado exponencial independiente de la tasa de frames
+        float smoothing = densitySmoothingTime > 0
+            ? 1 - (float) Math.exp(-deltaTime / densitySmoothingTime)
+            : 1f;
+        smoothedDensityMultiplier = lerp(smoothedDensityMultiplier, lastDensityTarget, smoothing);
+        return smoothedDensityMultiplier;
+    }
+    
+    /**
+     * Conecta la rejilla de densidad de la simulación para el zoom por densidad
+     */
+    public void setDensityGrid(DensityGrid densityGrid) {
+        this.densityGrid = densityGrid;
+        this.lastDensityVersion = -1;
+    }
+    
+    /**
+     * Configura el zoom por densidad
+     * @param reference entidades ponderadas por millón de unidades² a partir de las que se aleja la cámara
+     * @param strength alejamiento por cada múltiplo de la referencia
+     * @param minMultiplier multiplicador mínimo de zoom
+     * @param smoothingTime constante de tiempo del suavizado en segundos
      */
-    private float calculateDensityMultiplier() {
-        // TODO: Implementar detección de densidad de entidades
-        // Por ahora, retorno 1.0f (sin modificación)
-        return 1.0f;
+    public void setDensityZoom(float reference, float strength, float minMultiplier, float smoothingTime) {
+        this.densityReference = Math.max(0.001f, reference);
+        this.densityZoomStrength = Math.max(0f, strength);
+        this.minDensityMultiplier = Math.max(0.1f, Math.min(1f, minMultiplier));
+        this.densitySmoothingTime = Math.max(0f, smoothingTime);
+        this.lastDensityVersion = -1;
     }
     
+    public float getDensityMultiplier() { return smoothedDensityMultiplier; }
+    
     /**
      * Aplica límites del mundo con efecto de rebote
      */
@@ -550,13 +640,9 @@ public class CameraManager {
             totalShakeY += value;
         }
         
-        // Calcular centro de la pantalla
-        float centerX = screenWidth / 2;
-        float centerY = screenHeight / 2;
-        
-        // Transformar coordinate system
-        canvas.scale(zoom, zoom, centerX, centerY);
-        canvas.translate(centerX - cameraX + totalShakeX, centerY - cameraY + totalShakeY);
+        // Transformación cacheada de la cámara; el shake se aplica en unidades del mundo
+        canvas.concat(getCameraMatrix());
+        canvas.translate(totalShakeX, totalShakeY);
     }
     
     /**
@@ -841,39 +927,134 @@ public class CameraManager {
     public boolean isInView(Entity entity) {
         if (!enableOptimization) return true;
         
-        float entityLeft = entity.getX() - entity.getWidth() / 2;
-        float entityTop = entity.getY() - entity.getHeight() / 2;
-        float entityRight = entity.getX() + entity.getWidth() / 2;
-        float entityBottom = entity.getY() + entity.getHeight() / 2;
+        float halfWidth = entity.getWidth() / 2;
+        float halfHeight = entity.getHeight() / 2;
         
-        return RectF.intersects(viewBounds, 
-                new RectF(entityLeft, entityTop, entityRight, entityBottom));
+        // Misma prueba que RectF.intersects sin crear un rectángulo por entidad
+        return entity.getX() - halfWidth < viewBounds.right && viewBounds.left < entity.getX() + halfWidth
+            && entity.getY() - halfHeight < viewBounds.bottom && viewBounds.top < entity.getY() + halfHeight;
+    }
+    
+    // === TRANSFORMACIÓN DE CÁMARA ===
+    
+    /**
+     * Recalcula la transformación solo si la posición o el zoom cambiaron desde la última vez
+     */
+    private void ensureTransform() {
+        if (cameraX == cachedCameraX && cameraY == cachedCameraY && zoom == cachedZoom) {
+            return;
+        }
+        cachedCameraX = cameraX;
+        cachedCameraY = cameraY;
+        cachedZoom = zoom;
+        
+        transformScale = zoom;
+        transformOffsetX = screenWidth / 2 - cameraX * zoom;
+        transformOffsetY = screenHeight / 2 - cameraY * zoom;
+        
+        cameraMatrix.setScale(transformScale, transformScale);
+        cameraMatrix.postTranslate(transformOffsetX, transformOffsetY);
+        cameraMatrix.invert(inverseCameraMatrix);
+        transformVersion++;
+    }
+    
+    /**
+     * Matriz mundo -> pantalla de la cámara (sin shake). Es compartida: no modificarla
+     */
+    public Matrix getCameraMatrix() {
+        ensureTransform();
+        return cameraMatrix;
+    }
+    
+    /**
+     * Matriz pantalla -> mundo de la cámara. Es compartida: no modificarla
+     */
+    public Matrix getInverseCameraMatrix() {
+        ensureTransform();
+        return inverseCameraMatrix;
+    }
+    
+    /**
+     * Cambia cada vez que se recalcula la transformación; permite a los consumidores
+     * reutilizar resultados derivados mientras la cámara no se mueva
+     */
+    public int getTransformVersion() {
+        ensureTransform();
+        return transformVersion;
     }
     
     /**
      * Convierte coordenadas de pantalla a coordenadas del mundo
      */
     public PointF screenToWorld(float screenX, float screenY) {
-        float centerX = screenWidth / 2;
-        float centerY = screenHeight / 2;
-        
-        float worldX = cameraX + (screenX - centerX) / zoom;
-        float worldY = cameraY + (screenY - centerY) / zoom;
-        
-        return new PointF(worldX, worldY);
+        return screenToWorld(screenX, screenY, new PointF());
+    }
+    
+    /**
+     * Convierte coordenadas de pantalla a mundo escribiendo en out
+     */
+    public PointF screenToWorld(float screenX, float screenY, PointF out) {
+        ensureTransform();
+        out.x = (screenX - transformOffsetX) / transformScale;
+        out.y = (screenY - transformOffsetY) / transformScale;
+        return out;
     }
     
     /**
      * Convierte coordenadas del mundo a coordenadas de pantalla
      */
     public PointF worldToScreen(float worldX, float worldY) {
-        float centerX = screenWidth / 2;
-        float centerY = screenHeight / 2;
-        
-        float screenX = centerX + (worldX - cameraX) * zoom;
-        float screenY = centerY + (worldY - cameraY) * zoom;
-        
-        return new PointF(screenX, screenY);
+        return worldToScreen(worldX, worldY, new PointF());
+    }
+    
+    /**
+     * Convierte coordenadas del mundo a pantalla escribiendo en out
+     */
+    public PointF worldToScreen(float worldX, float worldY, PointF out) {
+        ensureTransform();
+        out.x = worldX * transformScale + transformOffsetX;
+        out.y = worldY * transformScale + transformOffsetY;
+        return out;
+    }
+    
+    /**
+     * Transforma en el sitio pares (x, y) del mundo a pantalla
+     * @param points array intercalado x0, y0, x1, y1...
+     * @param offset índice del primer valor x
+     * @param count número de puntos
+     */
+    public void worldToScreen(float[] points, int offset, int count) {
+        ensureTransform();
+        float scale = transformScale, dx = transformOffsetX, dy = transformOffsetY;
+        int end = offset + count * 2;
+        for (int i = offset; i < end; i += 2) {
+            points[i] = points[i] * scale + dx;
+            points[i + 1] = points[i + 1] * scale + dy;
+        }
+    }
+    
+    /**
+     * Transforma en el sitio pares (x, y) de pantalla a mundo
+     */
+    public void screenToWorld(float[] points, int offset, int count) {
+        ensureTransform();
+        float inverseScale = 1f / transformScale, dx = transformOffsetX, dy = transformOffsetY;
+        int end = offset + count * 2;
+        for (int i = offset; i < end; i += 2) {
+            points[i] = (points[i] - dx) * inverseScale;
+            points[i + 1] = (points[i + 1] - dy) * inverseScale;
+        }
+    }
+    
+    /**
+     * Escala en el sitio tamaños del mundo (radios, anchos) a píxeles de pantalla
+     */
+    public void worldSizesToScreen(float[] sizes, int offset, int count) {
+        ensureTransform();
+        float scale = transformScale;
+        for (int i = offset, end = offset + count; i < end; i++) {
+            sizes[i] *= scale;
+        }
     }
     
     /**
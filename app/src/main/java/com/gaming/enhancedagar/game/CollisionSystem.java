@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -16,7 +17,7 @@ import java.util.Set;
 /**
  * Sistema avanzado de colisiones para Enhanced Agar
  * Implementa:
- * - Broad phase collision detection usando Quadtree
+ * - Broad phase collision detection usando la fase ancha espacial (SpatialGrid)
  * - Narrow phase collision (círculos y rectángulos)
  * - Sistema de respuesta a colisiones
  * - Resolución de overlaps
@@ -26,17 +27,18 @@ import java.util.Set;
 public class CollisionSystem {
     private static final String TAG = "CollisionSystem";
     
-    // Configuración del quadtree
-    private static final int MAX_OBJECTS_PER_NODE = 10;
-    private static final int MAX_LEVELS = 5;
-    
     // Listas para optimización
     private List<Entity> dynamicEntities;
     private List<Entity> staticEntities;
     private List<Entity> allEntities;
     
-    // Quadtree para optimización espacial
-    private Quadtree quadtree;
+    // Fase ancha: propia (reconstruida cada frame) o la compartida del motor con setSpatialGrid()
+    private SpatialGrid spatialGrid = new SpatialGrid();
+    private boolean sharedGrid = false;
+    private int[] queryBuffer = new int[64];
+    
+    // Pertenencia O(1) (valor: es estática); la rejilla compartida también guarda otras entidades
+    private final Map<Entity, Boolean> registeredEntities = new IdentityHashMap<>();
     
     // Mapeo de colisiones para evitar duplicados
     private Set<String> activeCollisions;
@@ -57,7 +59,6 @@ public class CollisionSystem {
         this.dynamicEntities = new ArrayList<>();
         this.staticEntities = new ArrayList<>();
         this.allEntities = new ArrayList<>();
-        this.quadtree = new Quadtree(0, new RectF(0, 0, 10000, 10000));
         this.activeCollisions = new HashSet<>();
         this.collisionListeners = new ArrayList<>();
         this.stats = new CollisionStats();
@@ -73,12 +74,10 @@ public class CollisionSystem {
         stats.startFrame();
         
         try {
-            // Actualizar quadtree con nuevos límites
-            quadtree.setBounds(worldBounds);
-            quadtree.clear();
-            
-            // Reconstruir quadtree con todas las entidades activas
-            rebuildQuadtree();
+            // La rejilla compartida ya la mantiene el motor; la propia se reconstruye
+            if (!sharedGrid) {
+                rebuildSpatialGrid();
+            }
             
             // Detectar colisiones
             detectCollisions();
@@ -97,45 +96,74 @@ public class CollisionSystem {
     }
     
     /**
-     * Reconstruye el quadtree con todas las entidades activas
+     * Reconstruye la rejilla propia con todas las entidades activas
      */
-    private void rebuildQuadtree() {
+    private void rebuildSpatialGrid() {
+        spatialGrid.clear();
         for (Entity entity : allEntities) {
             if (entity.isActive() && entity.isAlive()) {
-                quadtree.insert(entity);
+                spatialGrid.insert(entity, 0, SpatialGrid.CATEGORY_PLAYER,
+                                   entity.getX(), entity.getY(), getBroadPhaseRadius(entity));
             }
         }
     }
     
+    /**
+     * Radio que cubre la caja de la entidad (media diagonal), para no perder colisiones
+     * rectangulares en la fase ancha
+     */
+    private static float getBroadPhaseRadius(Entity entity) {
+        float width = entity.getWidth();
+        float height = entity.getHeight();
+        return (float) Math.sqrt(width * width + height * height) * 0.5f;
+    }
+    
+    /**
+     * Consulta la rejilla alrededor de la entidad ampliando el buffer hasta que quepan todos
+     */
+    private int queryNearby(Entity entity) {
+        float radius = getBroadPhaseRadius(entity);
+        int found = spatialGrid.queryCircle(entity.getX(), entity.getY(), radius,
+                                            SpatialGrid.MASK_ALL, queryBuffer);
+        while (found == queryBuffer.length) {
+            queryBuffer = new int[queryBuffer.length * 2];
+            found = spatialGrid.queryCircle(entity.getX(), entity.getY(), radius,
+                                            SpatialGrid.MASK_ALL, queryBuffer);
+        }
+        return found;
+    }
+    
     /**
      * Detecta todas las colisiones en el mundo
+     * Cada entidad dinámica solo se compara con las que la fase ancha devuelve a su
+     * alrededor; dos estáticas nunca se comparan entre sí
      */
     private void detectCollisions() {
-        List<Entity> entitiesToCheck = new ArrayList<>();
-        
-        // Broad phase: obtener entidades potencialmente colisionables
-        for (Entity entity : allEntities) {
-            if (entity.isActive() && entity.isAlive()) {
-                List<Entity> nearbyEntities = quadtree.retrieve(entity);
-                entitiesToCheck.addAll(nearbyEntities);
-            }
-        }
-        
-        // Narrow phase: verificar colisiones específicas
         Set<String> currentFrameCollisions = new HashSet<>();
         
-        for (int i = 0; i < allEntities.size(); i++) {
-            Entity entityA = allEntities.get(i);
+        for (int i = 0; i < dynamicEntities.size(); i++) {
+            Entity entityA = dynamicEntities.get(i);
             if (!entityA.isActive() || !entityA.isAlive()) continue;
             
-            for (int j = i + 1; j < allEntities.size(); j++) {
-                Entity entityB = allEntities.get(j);
+            int found = queryNearby(entityA);
+            for (int k = 0; k < found; k++) {
+                Object item = spatialGrid.getItem(queryBuffer[k]);
+                if (!(item instanceof Entity)) continue;
+                Entity entityB = (Entity) item;
+                
+                // Solo entidades de este sistema; cada par dinámico una vez
+                Boolean isStaticB = registeredEntities.get(entityB);
+                if (isStaticB == null || entityB == entityA) continue;
+                if (!isStaticB && entityB.getId() <= entityA.getId()) continue;
                 if (!entityB.isActive() || !entityB.isAlive()) continue;
                 
                 // Verificar si estas entidades pueden colisionar
                 if (!collisionFilter.canCollide(entityA, entityB)) continue;
                 
                 String collisionKey = getCollisionKey(entityA, entityB);
+                if (currentFrameCollisions.contains(collisionKey)) {
+                    continue; // La misma entidad puede figurar en varias categorías de la rejilla
+                }
                 if (activeCollisions.contains(collisionKey)) {
                     currentFrameCollisions.add(collisionKey);
                     continue; // Ya procesada en frame anterior
@@ -174,7 +202,7 @@ public class CollisionSystem {
             Entity entityA = findEntityById(Long.parseLong(entityIds[0]));
             Entity entityB = findEntityById(Long.parseLong(entityIds[1]));
             
-            if (entityA != null && entityB && isColliding(entityA, entityB)) {
+            if (entityA != null && entityB != null && isColliding(entityA, entityB)) {
                 resolveCollision(entityA, entityB);
             }
         }
@@ -488,6 +516,7 @@ public class CollisionSystem {
             dynamicEntities.add(entity);
         }
         allEntities.add(entity);
+        registeredEntities.put(entity, isStatic);
     }
     
     /**
@@ -499,6 +528,7 @@ public class CollisionSystem {
         staticEntities.remove(entity);
         dynamicEntities.remove(entity);
         allEntities.remove(entity);
+        registeredEntities.remove(entity);
         
         // Limpiar colisiones relacionadas
         activeCollisions.removeIf(key -> 
@@ -536,12 +566,29 @@ public class CollisionSystem {
         dynamicEntities.clear();
         staticEntities.clear();
         allEntities.clear();
-        quadtree.clear();
+        registeredEntities.clear();
+        if (!sharedGrid) {
+            spatialGrid.clear();
+        }
         activeCollisions.clear();
         collisionListeners.clear();
         stats.reset();
     }
     
+    /**
+     * Usa la fase ancha compartida del motor, que ya registra y mueve sus entidades, en lugar
+     * de reconstruir una propia cada frame. Solo colisionan las entidades añadidas con
+     * addEntity que además estén en esa rejilla (con null se vuelve a la rejilla propia)
+     */
+    public void setSpatialGrid(SpatialGrid grid) {
+        sharedGrid = grid != null;
+        spatialGrid = grid != null ? grid : new SpatialGrid();
+    }
+    
+    public SpatialGrid getSpatialGrid() {
+        return spatialGrid;
+    }
+    
     // Getters
     public List<Entity> getDynamicEntities() { return new ArrayList<>(dynamicEntities); }
     public List<Entity> getStaticEntities() { return new ArrayList<>(staticEntities); }
@@ -678,122 +725,4 @@ public class CollisionSystem {
             allowedCollisions.clear();
         }
     }
-    
-    /**
-     * Quadtree para optimización espacial
-     */
-    private static class Quadtree {
-        private int level;
-        private RectF bounds;
-        private List<Entity> objects;
-        private Quadtree[] nodes;
-        
-        public Quadtree(int level, RectF bounds) {
-            this.level = level;
-            this.bounds = bounds;
-            this.objects = new ArrayList<>();
-            this.nodes = new Quadtree[4];
-        }
-        
-        public void clear() {
-            objects.clear();
-            for (int i = 0; i < nodes.length; i++) {
-                if (nodes[i] != null) {
-                    nodes[i].clear();
-                    nodes[i] = null;
-                }
-            }
-        }
-        
-        public void setBounds(RectF newBounds) {
-            this.bounds = newBounds;
-        }
-        
-        public void split() {
-            float subWidth = bounds.width() / 2;
-            float subHeight = bounds.height() / 2;
-            float x = bounds.left;
-            float y = bounds.top;
-            
-            nodes[0] = new Quadtree(level + 1, new RectF(x + subWidth, y, x + subWidth + subWidth, y + subHeight)); // NE
-            nodes[1] = new Quadtree(level + 1, new RectF(x, y, x + subWidth, y + subHeight)); // NW
-            nodes[2] = new Quadtree(level + 1, new RectF(x, y + subHeight, x + subWidth, y + subHeight + subHeight)); // SW
-            nodes[3] = new Quadtree(level + 1, new RectF(x + subWidth, y + subHeight, x + subWidth + subWidth, y + subHeight + subHeight)); // SE
-        }
-        
-        public int getIndex(Entity entity) {
-            int index = -1;
-            double verticalMidpoint = bounds.left + (bounds.width() / 2);
-            double horizontalMidpoint = bounds.top + (bounds.height() / 2);
-            
-            boolean topQuadrant = entity.getY() < horizontalMidpoint && entity.getY() + entity.getHeight() < horizontalMidpoint;
-            boolean bottomQuadrant = entity.getY() > horizontalMidpoint;
-            
-            if (entity.getX() < verticalMidpoint && entity.getX() + entity.getWidth() < verticalMidpoint) {
-                if (topQuadrant) {
-                    index = 1; // NW
-                } else if (bottomQuadrant) {
-                    index = 2; // SW
-                }
-            } else if (entity.getX() > verticalMidpoint) {
-                if (topQuadrant) {
-                    index = 0; // NE
-                } else if (bottomQuadrant) {
-                    index = 3; // SE
-                }
-            }
-            
-            return index;
-        }
-        
-        public void insert(Entity entity) {
-            if (nodes[0] != null) {
-                int index = getIndex(entity);
-                if (index != -1) {
-                    nodes[index].insert(entity);
-                    return;
-                }
-            }
-            
-            objects.add(entity);
-            
-            if (objects.size() > MAX_OBJECTS_PER_NODE && level < MAX_LEVELS) {
-                if (nodes[0] == null) {
-                    split();
-                }
-                
-                int i = 0;
-                while (i < objects.size()) {
-                    int index = getIndex(objects.get(i));
-                    if (index != -1) {
-                        nodes[index].insert(objects.remove(i));
-                    } else {
-                        i++;
-                    }
-                }
-            }
-        }
-        
-        public List<Entity> retrieve(Entity entity) {
-            List<Entity> returnObjects = objects;
-            
-            if (nodes[0] != null) {
-                int index = getIndex(entity);
-                if (index != -1) {
-                    returnObjects = nodes[index].retrieve(entity);
-                } else {
-                    // La entidad se extiende por múltiples cuadrantes
-                    returnObjects = new ArrayList<>();
-                    for (int i = 0; i < nodes.length; i++) {
-                        if (nodes[i] != null) {
-                            returnObjects.addAll(nodes[i].retrieve(entity));
-                        }
-                    }
-                    returnObjects.addAll(objects);
-                }
-            }
-            
-            return returnObjects;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.gaming.enhancedagar.game;
 
+import android.graphics.Matrix;
 import android.graphics.PointF;
 import android.graphics.RectF;
 import java.util.List;
@@ -46,6 +47,21 @@ public class CoordinateSystem {
     // === CONFIGURACIÓN DE OPTIMIZACIÓN ===
     private RectF viewBounds; // Límites visibles actuales
     private double cullingMargin = 100.0; // Margen para culling
+    private int detailLevelBias = 0; // Niveles de detalle restados por el gobernador de calidad
+    
+    // === TRANSFORMACIÓN CACHEADA ===
+    // screen = world * transformScale + transformOffset; se recalcula al mover la cámara o cambiar el zoom
+    private double transformScale = 1.0;
+    private double transformOffsetX = 0.0;
+    private double transformOffsetY = 0.0;
+    private double cachedCameraX = Double.NaN;
+    private double cachedCameraY = Double.NaN;
+    private double cachedZoom = Double.NaN;
+    private double cachedCenterX = Double.NaN;
+    private double cachedCenterY = Double.NaN;
+    private final Matrix transformMatrix = new Matrix();
+    private final Matrix inverseTransformMatrix = new Matrix();
+    private int transformVersion = 0;
     
     /**
      * Constructor del sistema de coordenadas
@@ -69,18 +85,91 @@ public class CoordinateSystem {
      * Convierte coordenadas del mundo a coordenadas de pantalla
      */
     public PointF worldToScreen(double worldX, double worldY) {
-        double screenX = (worldX - cameraX) * zoom + screenCenterX;
-        double screenY = (worldY - cameraY) * zoom + screenCenterY;
-        return new PointF((float)screenX, (float)screenY);
+        return worldToScreen(worldX, worldY, new PointF());
+    }
+    
+    /**
+     * Convierte coordenadas del mundo a pantalla reutilizando el punto de salida
+     */
+    public PointF worldToScreen(double worldX, double worldY, PointF out) {
+        out.x = (float)(worldX * transformScale + transformOffsetX);
+        out.y = (float)(worldY * transformScale + transformOffsetY);
+        return out;
     }
     
     /**
      * Convierte coordenadas de pantalla a coordenadas del mundo
      */
     public PointF screenToWorld(double screenX, double screenY) {
-        double worldX = (screenX - screenCenterX) / zoom + cameraX;
-        double worldY = (screenY - screenCenterY) / zoom + cameraY;
-        return new PointF((float)worldX, (float)worldY);
+        return screenToWorld(screenX, screenY, new PointF());
+    }
+    
+    /**
+     * Convierte coordenadas de pantalla a mundo reutilizando el punto de salida
+     */
+    public PointF screenToWorld(double screenX, double screenY, PointF out) {
+        out.x = (float)((screenX - transformOffsetX) / transformScale);
+        out.y = (float)((screenY - transformOffsetY) / transformScale);
+        return out;
+    }
+    
+    /**
+     * Transforma en el sitio un array intercalado x0, y0, x1, y1... del mundo a pantalla
+     */
+    public void worldToScreen(float[] points, int offset, int count) {
+        float scale = (float) transformScale;
+        float dx = (float) transformOffsetX;
+        float dy = (float) transformOffsetY;
+        int end = offset + count * 2;
+        for (int i = offset; i < end; i += 2) {
+            points[i] = points[i] * scale + dx;
+            points[i + 1] = points[i + 1] * scale + dy;
+        }
+    }
+    
+    /**
+     * Transforma en el sitio un array intercalado de pantalla a mundo
+     */
+    public void screenToWorld(float[] points, int offset, int count) {
+        float inverseScale = (float)(1.0 / transformScale);
+        float dx = (float) transformOffsetX;
+        float dy = (float) transformOffsetY;
+        int end = offset + count * 2;
+        for (int i = offset; i < end; i += 2) {
+            points[i] = (points[i] - dx) * inverseScale;
+            points[i + 1] = (points[i + 1] - dy) * inverseScale;
+        }
+    }
+    
+    /**
+     * Escala en el sitio tamaños del mundo (radios) a tamaños de pantalla
+     */
+    public void worldSizesToScreen(float[] sizes, int offset, int count) {
+        float scale = (float) transformScale;
+        for (int i = offset, end = offset + count; i < end; i++) {
+            sizes[i] *= scale;
+        }
+    }
+    
+    /**
+     * Matriz mundo -> pantalla para Canvas.concat(). Es compartida: no modificarla
+     */
+    public Matrix getTransformMatrix() {
+        return transformMatrix;
+    }
+    
+    /**
+     * Matriz pantalla -> mundo. Es compartida: no modificarla
+     */
+    public Matrix getInverseTransformMatrix() {
+        return inverseTransformMatrix;
+    }
+    
+    /**
+     * Se incrementa cada vez que la transformación cambia
+     */
+    public int getTransformVersion() {
+        return transformVersion;
     }
     
     /**
@@ -203,6 +292,14 @@ public class CoordinateSystem {
                         viewBounds.top + (viewBounds.bottom - viewBounds.top));
     }
     
+    /**
+     * Copia los límites visibles en out sin crear un rectángulo nuevo
+     */
+    public RectF getViewBounds(RectF out) {
+        out.set(viewBounds);
+        return out;
+    }
+    
     /**
      * Actualiza los límites de la vista
      */
@@ -214,6 +311,32 @@ public class CoordinateSystem {
         viewBounds.top = (float)(cameraY - halfHeight);
         viewBounds.right = (float)(cameraX + halfWidth);
         viewBounds.bottom = (float)(cameraY + halfHeight);
+        
+        updateTransform();
+    }
+    
+    /**
+     * Recalcula la transformación solo si cambió la cámara, el zoom o la pantalla
+     */
+    private void updateTransform() {
+        if (cameraX == cachedCameraX && cameraY == cachedCameraY && zoom == cachedZoom
+                && screenCenterX == cachedCenterX && screenCenterY == cachedCenterY) {
+            return;
+        }
+        cachedCameraX = cameraX;
+        cachedCameraY = cameraY;
+        cachedZoom = zoom;
+        cachedCenterX = screenCenterX;
+        cachedCenterY = screenCenterY;
+        
+        transformScale = zoom;
+        transformOffsetX = screenCenterX - cameraX * zoom;
+        transformOffsetY = screenCenterY - cameraY * zoom;
+        
+        transformMatrix.setScale((float) transformScale, (float) transformScale);
+        transformMatrix.postTranslate((float) transformOffsetX, (float) transformOffsetY);
+        transformMatrix.invert(inverseTransformMatrix);
+        transformVersion++;
     }
     
     // === DETECCIÓN VISUAL ===
@@ -222,12 +345,9 @@ public class CoordinateSystem {
      * Verifica si un objeto es visible en la pantalla
      */
     public boolean isVisible(double worldX, double worldY, double radius) {
-        RectF expandedBounds = new RectF(
-            (float)(viewBounds.left - radius), (float)(viewBounds.top - radius),
-            (float)(viewBounds.left + (viewBounds.right - viewBounds.left) + 2 * radius), 
-            (float)(viewBounds.top + (viewBounds.bottom - viewBounds.top) + 2 * radius)
-        );
-        return expandedBounds.contains((float)worldX, (float)worldY);
+        // Límites expandidos por el radio, comparados sin crear un RectF
+        return worldX >= viewBounds.left - radius && worldX < viewBounds.right + radius
+            && worldY >= viewBounds.top - radius && worldY < viewBounds.bottom + radius;
     }
     
     /**
@@ -247,8 +367,8 @@ public class CoordinateSystem {
      * Verifica si un rectángulo interseca con la vista visible
      */
     public boolean intersectsView(double x, double y, double width, double height) {
-        RectF rect = new RectF((float)x, (float)y, (float)(x + width), (float)(y + height));
-        return RectF.intersects(rect, viewBounds);
+        return x < viewBounds.right && viewBounds.left < x + width
+            && y < viewBounds.bottom && viewBounds.top < y + height;
     }
     
     /**
@@ -291,10 +411,23 @@ public class CoordinateSystem {
      * Obtiene el nivel de detalle apropiado para la distancia
      */
     public int getDetailLevel(double distance) {
-        if (distance < 200) return 3; // Alto detalle
-        if (distance < 500) return 2; // Detalle medio
-        if (distance < 1000) return 1; // Bajo detalle
-        return 0; // Solo representación básica
+        int level;
+        if (distance < 200) level = 3; // Alto detalle
+        else if (distance < 500) level = 2; // Detalle medio
+        else if (distance < 1000) level = 1; // Bajo detalle
+        else level = 0; // Solo representación básica
+        return Math.max(0, level - detailLevelBias);
+    }
+    
+    /**
+     * Reduce el nivel de detalle global en el número de niveles indicado
+     */
+    public void setDetailLevelBias(int bias) {
+        this.detailLevelBias = Math.max(0, bias);
+    }
+    
+    public int getDetailLevelBias() {
+        return detailLevelBias;
     }
     
     // === GETTERS Y SETTERS ===
@@ -0,0 +1,278 @@
+package com.gaming.enhancedagar.game;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rejilla gruesa de ocupación y densidad del mundo
+ * La simulación la actualiza de forma incremental (alta, baja y cambio de celda)
+ * y la consumen el mini-mapa y la cámara sin recorrer entidades.
+ * Los contadores solo se leen en el hilo de juego; otros hilos (el mini-mapa en el de UI)
+ * leen la última instantánea publicada con publishSnapshot()
+ */
+public class DensityGrid {
+
+    // Categorías de entidades contadas
+    public static final int CATEGORY_FOOD = 0;
+    public static final int CATEGORY_BOT = 1;
+    public static final int CATEGORY_PLAYER = 2;
+    public static final int CATEGORY_COUNT = 3;
+
+    public static final int DEFAULT_RESOLUTION = 128;
+
+    // Geometría de la rejilla
+    private float worldLeft;
+    private float worldTop;
+    private float worldWidth;
+    private float worldHeight;
+    private final int resolution;
+    private float inverseCellWidth;
+    private float inverseCellHeight;
+
+    // Contadores por categoría, indexados por celda (fila * resolución + columna)
+    private final int[][] counts;
+    private final int[] totals = new int[CATEGORY_COUNT];
+
+    // Se incrementa con cada cambio para que los consumidores detecten si hay algo nuevo
+    private volatile int version = 0;
+
+    // Doble buffer de instantáneas: se escribe el que no está publicado
+    private final Snapshot[] snapshots = new Snapshot[2];
+    private volatile Snapshot publishedSnapshot;
+    private volatile long snapshotIntervalMs = 100;
+    private long lastSnapshotTime = Long.MIN_VALUE;
+
+    /**
+     * Copia de los contadores y la geometría en un instante
+     * Quien la lee la toma con acquire() y la suelta con release(); mientras está tomada el
+     * hilo de juego no la sobrescribe
+     */
+    public static final class Snapshot {
+        private final int[][] counts;
+        private final int resolution;
+        private final AtomicBoolean busy = new AtomicBoolean();
+        private float worldLeft;
+        private float worldTop;
+        private float worldWidth;
+        private float worldHeight;
+        private int version;
+
+        Snapshot(int resolution) {
+            this.resolution = resolution;
+            this.counts = new int[CATEGORY_COUNT][resolution * resolution];
+        }
+
+        /**
+         * @return false si el hilo de juego la está escribiendo; reintentar en el próximo refresco
+         */
+        public boolean acquire() {
+            return busy.compareAndSet(false, true);
+        }
+
+        public void release() {
+            busy.set(false);
+        }
+
+        public int[] getCounts(int category) { return counts[category]; }
+        public int getResolution() { return resolution; }
+        public float getWorldLeft() { return worldLeft; }
+        public float getWorldTop() { return worldTop; }
+        public float getWorldWidth() { return worldWidth; }
+        public float getWorldHeight() { return worldHeight; }
+        public int getVersion() { return version; }
+    }
+
+    public DensityGrid(float worldLeft, float worldTop, float worldWidth, float worldHeight) {
+        this(worldLeft, worldTop, worldWidth, worldHeight, DEFAULT_RESOLUTION);
+    }
+
+    public DensityGrid(float worldLeft, float worldTop, float worldWidth, float worldHeight, int resolution) {
+        this.resolution = resolution;
+        this.counts = new int[CATEGORY_COUNT][resolution * resolution];
+        setWorldBounds(worldLeft, worldTop, worldWidth, worldHeight);
+    }
+
+    /**
+     * Cambia el área del mundo cubierta; los contadores se vacían y deben volver a registrarse
+     */
+    public void setWorldBounds(float worldLeft, float worldTop, float worldWidth, float worldHeight) {
+        this.worldLeft = worldLeft;
+        this.worldTop = worldTop;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        this.inverseCellWidth = resolution / worldWidth;
+        this.inverseCellHeight = resolution / worldHeight;
+        clear();
+    }
+
+    /**
+     * Obtiene el índice de celda de una posición del mundo (limitado a los bordes)
+     */
+    public int cellIndex(float x, float y) {
+        return rowOf(y) * resolution + columnOf(x);
+    }
+
+    /**
+     * Columna de la rejilla para una coordenada X del mundo (limitada a los bordes)
+     */
+    public int columnOf(float x) {
+        return Math.max(0, Math.min(resolution - 1, (int) ((x - worldLeft) * inverseCellWidth)));
+    }
+
+    /**
+     * Fila de la rejilla para una coordenada Y del mundo (limitada a los bordes)
+     */
+    public int rowOf(float y) {
+        return Math.max(0, Math.min(resolution - 1, (int) ((y - worldTop) * inverseCellHeight)));
+    }
+
+    /**
+     * Registra una entidad en la posición dada
+     * @return celda asignada, para pasarla después a move() o remove()
+     */
+    public int add(int category, float x, float y) {
+        int cell = cellIndex(x, y);
+        counts[category][cell]++;
+        totals[category]++;
+        version++;
+        return cell;
+    }
+
+    /**
+     * Da de baja una entidad de la celda donde estaba registrada
+     */
+    public void remove(int category, int cell) {
+        if (cell < 0 || counts[category][cell] == 0) {
+            return;
+        }
+        counts[category][cell]--;
+        totals[category]--;
+        version++;
+    }
+
+    /**
+     * Actualiza la celda de una entidad que se ha movido
+     * @return nueva celda (igual a la anterior si no ha cruzado ningún borde)
+     */
+    public int move(int category, int oldCell, float x, float y) {
+        int cell = cellIndex(x, y);
+        if (cell == oldCell) {
+            return cell;
+        }
+        if (oldCell >= 0 && counts[category][oldCell] > 0) {
+            counts[category][oldCell]--;
+        } else {
+            totals[category]++;
+        }
+        counts[category][cell]++;
+        version++;
+        return cell;
+    }
+
+    /**
+     * Número de entidades de una categoría en una celda
+     */
+    public int getCount(int category, int cell) {
+        return counts[category][cell];
+    }
+
+    /**
+     * Array de contadores de una categoría (solo lectura)
+     */
+    public int[] getCounts(int category) {
+        return counts[category];
+    }
+
+    /**
+     * Suma los contadores de una categoría en el rango de celdas [firstColumn, lastColumn] x [firstRow, lastRow]
+     * Coste proporcional al número de celdas del rango, no al de entidades
+     */
+    public int sumCells(int category, int firstColumn, int firstRow, int lastColumn, int lastRow) {
+        int[] categoryCounts = counts[category];
+        int sum = 0;
+        for (int row = firstRow; row <= lastRow; row++) {
+            int base = row * resolution;
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                sum += categoryCounts[base + column];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Número de entidades de una categoría en toda la rejilla
+     */
+    public int getTotal(int category) {
+        return totals[category];
+    }
+
+    /**
+     * Copia los contadores en el buffer no publicado y lo publica
+     * Se llama desde el hilo de juego al final de cada tick; solo copia si ha pasado el
+     * intervalo configurado y hay cambios desde la última instantánea
+     * @return true si se publicó una instantánea nueva
+     */
+    public boolean publishSnapshot(long nowMs) {
+        Snapshot published = publishedSnapshot;
+        if (published != null && (published.version == version || nowMs - lastSnapshotTime < snapshotIntervalMs)) {
+            return false;
+        }
+
+        int slot = published == snapshots[0] ? 1 : 0;
+        if (snapshots[slot] == null) {
+            snapshots[slot] = new Snapshot(resolution);
+        }
+        Snapshot target = snapshots[slot];
+        // Un lector lento todavía tiene la anterior: se publica en el siguiente tick
+        if (!target.acquire()) {
+            return false;
+        }
+        for (int category = 0; category < CATEGORY_COUNT; category++) {
+            System.arraycopy(counts[category], 0, target.counts[category], 0, counts[category].length);
+        }
+        target.worldLeft = worldLeft;
+        target.worldTop = worldTop;
+        target.worldWidth = worldWidth;
+        target.worldHeight = worldHeight;
+        target.version = version;
+        target.release();
+
+        publishedSnapshot = target;
+        lastSnapshotTime = nowMs;
+        return true;
+    }
+
+    /**
+     * Última instantánea publicada, o null si todavía no hay ninguna
+     */
+    public Snapshot getPublishedSnapshot() {
+        return publishedSnapshot;
+    }
+
+    /**
+     * Intervalo mínimo entre instantáneas (la frecuencia de refresco del mini-mapa)
+     */
+    public void setSnapshotInterval(long intervalMs) {
+        this.snapshotIntervalMs = Math.max(0, intervalMs);
+    }
+
+    /**
+     * Vacía todos los contadores
+     */
+    public void clear() {
+        for (int[] categoryCounts : counts) {
+            Arrays.fill(categoryCounts, 0);
+        }
+        Arrays.fill(totals, 0);
+        version++;
+    }
+
+    public int getResolution() { return resolution; }
+    public float getWorldLeft() { return worldLeft; }
+    public float getWorldTop() { return worldTop; }
+    public float getWorldWidth() { return worldWidth; }
+    public float getWorldHeight() { return worldHeight; }
+    public float getCellWidth() { return worldWidth / resolution; }
+    public float getCellHeight() { return worldHeight / resolution; }
+    public int getVersion() { return version; }
+}
@@ -7,13 +7,19 @@ import com.gaming.enhancedagar.entities.Entity;
 import android.graphics.PointF;
 import android.graphics.RectF;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Sistema de división inteligente que maneja la fragmentación y fusión de entidades
  * Implementa división basada en masa, roles divididos, fusión automática/manual,
  * efectos visuales y balanceo de fragmentos.
+ *
+ * Los fragmentos viven en un registro denso: cada uno recibe un id entero (ranura) en
+ * arrays paralelos y cada jugador guarda sus ids en un int[] con borrado por intercambio,
+ * así dividir y fusionar cuestan O(1) amortizado. Se usa desde el hilo del bucle de juego.
+ *
+ * La fusión automática busca candidatos en la fase ancha espacial (SpatialGrid) solo para
+ * fragmentos con el cooldown cumplido, y guarda el resultado hasta que el fragmento se
+ * desplaza más de FUSION_RECHECK_DISTANCE o cambian los fragmentos del jugador.
  */
 public class DivisionSystem {
     
@@ -25,19 +31,69 @@ public class DivisionSystem {
     private static final float MASS_TRANSFER_RATE = 5.0f; // Tasa de transferencia de masa
     private static final long FUSION_COOLDOWN = 2000; // 2 segundos cooldown de fusión
     private static final float DIVISION_EFFECT_DURATION = 1500; // Duración efecto división (ms)
+    private static final int MAX_SPLIT_PIECES = 5; // Piezas máximas por división
+    private static final int INITIAL_SLOT_CAPACITY = 64;
+    private static final int NO_SLOT = -1;
+    private static final float FUSION_RECHECK_DISTANCE = 8.0f; // Desplazamiento que invalida la búsqueda
     
     // Componentes del sistema
     private final VisualEffects visualEffects;
     private final RoleSystem roleSystem;
     private final Physics physics;
     
-    // Mapas para gestionar fragmentos
-    private final Map<String, PlayerFragments> playerFragments = new ConcurrentHashMap<>();
-    private final Map<String, FragmentData> fragmentMap = new ConcurrentHashMap<>();
-    private final List<MassTransfer> activeTransfers = new CopyOnWriteArrayList<>();
+    // Jugadores registrados
+    private final Map<String, PlayerFragments> playerFragments = new HashMap<>();
+    private final List<PlayerFragments> playerList = new ArrayList<>();
     
-    // Temporizadores y efectos
-    private final Queue<Long> divisionCooldowns = new LinkedList<>();
+    // === REGISTRO DE FRAGMENTOS (arrays paralelos indexados por id) ===
+    private Entity[] slotEntities = new Entity[INITIAL_SLOT_CAPACITY];
+    private PlayerFragments[] slotOwners = new PlayerFragments[INITIAL_SLOT_CAPACITY];
+    private int[] slotOwnerIndex = new int[INITIAL_SLOT_CAPACITY]; // Posición en PlayerFragments.fragments
+    private float[] slotOriginalMass = new float[INITIAL_SLOT_CAPACITY];
+    private long[] slotDivisionTime = new long[INITIAL_SLOT_CAPACITY];
+    private long[] slotLastFusionTime = new long[INITIAL_SLOT_CAPACITY];
+    private float[] slotVelocityX = new float[INITIAL_SLOT_CAPACITY];
+    private float[] slotVelocityY = new float[INITIAL_SLOT_CAPACITY];
+    private boolean[] slotHasVelocity = new boolean[INITIAL_SLOT_CAPACITY];
+    private boolean[] slotDying = new boolean[INITIAL_SLOT_CAPACITY];
+    private int[] slotMark = new int[INITIAL_SLOT_CAPACITY];
+    private int[] slotGridHandle = new int[INITIAL_SLOT_CAPACITY];
+    private float[] slotCheckX = new float[INITIAL_SLOT_CAPACITY]; // Posición de la última búsqueda
+    private float[] slotCheckY = new float[INITIAL_SLOT_CAPACITY];
+    private int[] slotCheckVersion = new int[INITIAL_SLOT_CAPACITY]; // -1 = sin búsqueda válida
+    private int[] slotFusionPartner = new int[INITIAL_SLOT_CAPACITY];
+    private int slotHighWater = 0;
+    private int[] freeSlots = new int[INITIAL_SLOT_CAPACITY];
+    private int freeSlotCount = 0;
+    private int liveFragmentCount = 0;
+    private int markStamp = 0;
+    
+    // Búsqueda entidad -> id solo en los métodos públicos
+    private final Map<Entity, Integer> slotByEntity = new IdentityHashMap<>();
+    
+    // Fragmentos marcados para muerte; la entidad guardada detecta ids liberados y reutilizados antes de la limpieza
+    private int[] dyingSlots = new int[16];
+    private Entity[] dyingEntities = new Entity[16];
+    private int dyingCount = 0;
+    
+    // Transferencias de masa activas y pool de registros reutilizables
+    private final List<MassTransfer> activeTransfers = new ArrayList<>();
+    private final ArrayDeque<MassTransfer> transferPool = new ArrayDeque<>();
+    
+    // Buffers reutilizados en divisiones y fusiones
+    private final float[] massDistribution = new float[MAX_SPLIT_PIECES];
+    private int[] fusionSlots = new int[16];
+    private final List<Entity> fusionGroup = new ArrayList<>();
+    private final List<Entity> fusionSources = new ArrayList<>();
+    private final PointF scratchVector = new PointF();
+    private final int[] queryBuffer = new int[64];
+    private final List<String> roleScratch = new ArrayList<>();
+    private final StringBuilder hybridBuilder = new StringBuilder();
+    
+    // Fase ancha: propia por defecto, o la compartida del motor con setSpatialGrid()
+    private SpatialGrid spatialGrid = new SpatialGrid();
+    
+    private int maxFragmentsPerPlayer = MAX_FRAGMENTS_PER_PLAYER;
     
     public DivisionSystem(VisualEffects visualEffects, RoleSystem roleSystem, Physics physics) {
         this.visualEffects = visualEffects;
@@ -50,66 +106,59 @@ public class DivisionSystem {
      */
     private static class PlayerFragments {
         final Player mainPlayer;
-        final List<Entity> fragments;
-        final Map<Entity, Long> lastFusionTime;
-        final Map<Entity, PointF> fragmentVelocities;
-        final Set<Entity> dyingFragments;
+        final String playerId;
+        int[] fragments = new int[8]; // Ids de fragmento, sin huecos
+        int count = 0;
+        long lastDivisionTime = Long.MIN_VALUE / 2; // Cooldown de división propio del jugador
+        int activeTransfers = 0;
+        int membershipVersion = 0; // Cambia con cada alta o baja de fragmento
         
-        PlayerFragments(Player mainPlayer) {
+        PlayerFragments(Player mainPlayer, String playerId) {
             this.mainPlayer = mainPlayer;
-            this.fragments = new CopyOnWriteArrayList<>();
-            this.lastFusionTime = new ConcurrentHashMap<>();
-            this.fragmentVelocities = new ConcurrentHashMap<>();
-            this.dyingFragments = new HashSet<>();
-            fragments.add(mainPlayer);
+            this.playerId = playerId;
         }
-    }
-    
-    /**
-     * Clase para datos específicos de fragmentos
-     */
-    private static class FragmentData {
-        final String playerId;
-        final Entity fragment;
-        final float originalMass;
-        final long divisionTime;
-        final Set<String> originalRoles;
         
-        FragmentData(String playerId, Entity fragment, float originalMass) {
-            this.playerId = playerId;
-            this.fragment = fragment;
-            this.originalMass = originalMass;
-            this.divisionTime = System.currentTimeMillis();
-            this.originalRoles = new HashSet<>();
+        void add(int slot) {
+            if (count == fragments.length) {
+                fragments = Arrays.copyOf(fragments, count * 2);
+            }
+            fragments[count++] = slot;
         }
     }
     
     /**
-     * Clase para transferencia de masa entre fragmentos
+     * Registro reutilizable de transferencia de masa entre fragmentos
      */
     private static class MassTransfer {
-        final Entity fromFragment;
-        final Entity toFragment;
+        Entity fromFragment;
+        Entity toFragment;
+        PlayerFragments owner;
         float remainingMass;
-        final float rate;
-        final long startTime;
+        float rate;
+        long startTime;
         long lastUpdate;
         
-        MassTransfer(Entity from, Entity to, float mass, float rate) {
+        void set(PlayerFragments owner, Entity from, Entity to, float mass, float rate, long now) {
+            this.owner = owner;
             this.fromFragment = from;
             this.toFragment = to;
             this.remainingMass = mass;
             this.rate = rate;
-            this.startTime = System.currentTimeMillis();
-            this.lastUpdate = startTime;
+            this.startTime = now;
+            this.lastUpdate = now;
+        }
+        
+        void clear() {
+            owner = null;
+            fromFragment = null;
+            toFragment = null;
         }
         
         boolean isComplete() {
             return remainingMass <= 0;
         }
         
-        void update() {
-            long currentTime = System.currentTimeMillis();
+        void update(long currentTime) {
             float deltaTime = (currentTime - lastUpdate) / 1000.0f;
             float transferAmount = Math.min(remainingMass, rate * deltaTime);
             
@@ -117,6 +166,11 @@ public class DivisionSystem {
                 fromFragment.reduceMass(transferAmount);
                 toFragment.addMass(transferAmount);
                 remainingMass -= transferAmount;
+            } else {
+                // El origen se ha quedado sin masa: se entrega lo que queda y se termina
+                toFragment.addMass(fromFragment.getMass());
+                fromFragment.reduceMass(fromFragment.getMass());
+                remainingMass = 0;
             }
             
             lastUpdate = currentTime;
@@ -127,25 +181,29 @@ public class DivisionSystem {
      * Método principal de división inteligente
      */
     public List<Entity> dividePlayer(Player player, PointF direction) {
-        if (!canDivide(player)) {
+        PlayerFragments pf = getOrCreatePlayerFragments(player);
+        long now = System.currentTimeMillis();
+        if (!canDivide(pf, now)) {
             return Collections.emptyList();
         }
         
         // Aplicar cooldown
-        divisionCooldowns.offer(System.currentTimeMillis());
-        pruneCooldowns();
-        
-        PlayerFragments pf = getOrCreatePlayerFragments(player);
+        pf.lastDivisionTime = now;
         
         // Determinar fragmento a dividir (el más grande)
-        Entity fragmentToSplit = findLargestFragment(pf.fragments);
+        int slotToSplit = findLargestSlot(pf.fragments, pf.count);
+        Entity fragmentToSplit = slotToSplit != NO_SLOT ? slotEntities[slotToSplit] : null;
         
         if (fragmentToSplit == null || fragmentToSplit.getMass() < MIN_DIVISION_MASS) {
             return Collections.emptyList();
         }
         
+        // El fragmento dividido también reinicia su cooldown de fusión
+        slotLastFusionTime[slotToSplit] = now;
+        slotCheckVersion[slotToSplit] = -1;
+        
         // Crear nuevos fragmentos
-        List<Entity> newFragments = createFragments(player, fragmentToSplit, direction);
+        List<Entity> newFragments = createFragments(pf, fragmentToSplit, direction, now);
         
         if (newFragments.isEmpty()) {
             return Collections.emptyList();
@@ -166,23 +224,20 @@ public class DivisionSystem {
     /**
      * Verifica si un jugador puede dividirse
      */
-    private boolean canDivide(Player player) {
-        PlayerFragments pf = getOrCreatePlayerFragments(player);
-        
+    private boolean canDivide(PlayerFragments pf, long now) {
         // Verificar límite de fragmentos
-        if (pf.fragments.size() >= MAX_FRAGMENTS_PER_PLAYER) {
+        if (pf.count >= maxFragmentsPerPlayer) {
             return false;
         }
         
         // Verificar cooldown
-        if (!divisionCooldowns.isEmpty() && 
-            System.currentTimeMillis() - divisionCooldowns.peek() < FUSION_COOLDOWN) {
+        if (now - pf.lastDivisionTime < FUSION_COOLDOWN) {
             return false;
         }
         
         // Verificar masa suficiente en al menos un fragmento
-        for (Entity fragment : pf.fragments) {
-            if (fragment.getMass() >= MIN_DIVISION_MASS) {
+        for (int i = 0; i < pf.count; i++) {
+            if (slotEntities[pf.fragments[i]].getMass() >= MIN_DIVISION_MASS) {
                 return true;
             }
         }
@@ -193,37 +248,39 @@ public class DivisionSystem {
     /**
      * Crea fragmentos inteligentes basados en masa y roles
      */
-    private List<Entity> createFragments(Player player, Entity toSplit, PointF direction) {
+    private List<Entity> createFragments(PlayerFragments pf, Entity toSplit, PointF direction, long now) {
         List<Entity> fragments = new ArrayList<>();
         float totalMass = toSplit.getMass();
         
-        // Determinar número óptimo de fragmentos basado en masa
-        int optimalFragments = calculateOptimalFragments(totalMass);
+        // Determinar número óptimo de fragmentos basado en masa, sin pasar del límite
+        int optimalFragments = Math.min(calculateOptimalFragments(totalMass),
+                                        maxFragmentsPerPlayer - pf.count);
+        if (optimalFragments <= 0) {
+            return fragments;
+        }
         
         // Distribuir masa inteligentemente
-        float[] massDistribution = calculateMassDistribution(totalMass, optimalFragments);
+        calculateMassDistribution(totalMass, optimalFragments, massDistribution);
         
         // Crear fragmentos con distribución balanceada
+        float totalMassToRemove = 0;
         for (int i = 0; i < optimalFragments; i++) {
             float fragmentMass = massDistribution[i];
+            totalMassToRemove += fragmentMass;
             
             if (fragmentMass < MIN_DIVISION_MASS) {
                 continue;
             }
             
             // Crear nuevo fragmento
-            Entity fragment = createFragment(player, toSplit, fragmentMass, i, direction);
+            Entity fragment = createFragment(toSplit, fragmentMass, i, direction);
             if (fragment != null) {
                 fragments.add(fragment);
-                registerFragment(player.getId(), fragment, fragmentMass);
+                registerFragment(pf, fragment, fragmentMass, now);
             }
         }
         
         // Reducir masa del fragmento original
-        float totalMassToRemove = 0;
-        for (float mass : massDistribution) {
-            totalMassToRemove += mass;
-        }
         toSplit.reduceMass(totalMassToRemove);
         
         return fragments;
@@ -237,18 +294,16 @@ public class DivisionSystem {
         if (totalMass < 200) return 2;
         if (totalMass < 400) return 3;
         if (totalMass < 800) return 4;
-        return Math.min(5, MAX_FRAGMENTS_PER_PLAYER);
+        return Math.min(MAX_SPLIT_PIECES, maxFragmentsPerPlayer);
     }
     
     /**
      * Calcula distribución inteligente de masa entre fragmentos
      */
-    private float[] calculateMassDistribution(float totalMass, int fragmentCount) {
-        float[] distribution = new float[fragmentCount];
-        
+    private void calculateMassDistribution(float totalMass, int fragmentCount, float[] distribution) {
         if (fragmentCount == 1) {
             distribution[0] = totalMass * DIVISION_RATIO;
-            return distribution;
+            return;
         }
         
         // Distribución no uniforme para mantener fairness
@@ -269,14 +324,12 @@ public class DivisionSystem {
         
         // Último fragmento obtiene el resto
         distribution[fragmentCount - 1] = remainingMass;
-        
-        return distribution;
     }
     
     /**
      * Crea un fragmento individual con sus propiedades específicas
      */
-    private Entity createFragment(Player player, Entity original, float mass, int index, PointF direction) {
+    private Entity createFragment(Entity original, float mass, int index, PointF direction) {
         // Crear nueva entidad fragmento
         Entity fragment = new Entity(original.getX(), original.getY(), mass);
         
@@ -285,7 +338,7 @@ public class DivisionSystem {
         fragment.setName(original.getName() + "_" + index);
         
         // Posicionar fragmento con separación inteligente
-        PointF offset = calculateFragmentOffset(direction, index, fragment.getRadius());
+        PointF offset = calculateFragmentOffset(direction, index, fragment.getRadius(), scratchVector);
         fragment.setPosition(original.getX() + offset.x, original.getY() + offset.y);
         
         return fragment;
@@ -294,7 +347,7 @@ public class DivisionSystem {
     /**
      * Calcula offset de posicionamiento para fragmentos
      */
-    private PointF calculateFragmentOffset(PointF direction, int fragmentIndex, float radius) {
+    private PointF calculateFragmentOffset(PointF direction, int fragmentIndex, float radius, PointF out) {
         float angle = fragmentIndex * (2 * (float) Math.PI / 3); // Distribución triangular
         
         // Aplicar dirección del jugador
@@ -307,26 +360,102 @@ public class DivisionSystem {
             float cos = (float) Math.cos(dirAngle);
             float sin = (float) Math.sin(dirAngle);
             
-            float adjX = baseX * cos - baseY * sin;
-            float adjY = baseX * sin + baseY * cos;
-            
-            return new PointF(adjX, adjY);
+            out.set(baseX * cos - baseY * sin, baseX * sin + baseY * cos);
+            return out;
         }
         
-        return new PointF(baseX, baseY);
+        out.set(baseX, baseY);
+        return out;
     }
     
+    // === REGISTRO DENSO ===
+    
     /**
      * Registra un fragmento en el sistema
      */
-    private void registerFragment(String playerId, Entity fragment, float originalMass) {
-        fragmentMap.put(fragment.getId(), new FragmentData(playerId, fragment, originalMass));
-        
-        PlayerFragments pf = playerFragments.get(playerId);
-        if (pf != null) {
-            pf.fragments.add(fragment);
-            pf.lastFusionTime.put(fragment, 0L);
+    private int registerFragment(PlayerFragments pf, Entity fragment, float originalMass, long now) {
+        int slot = allocateSlot();
+        slotEntities[slot] = fragment;
+        slotOwners[slot] = pf;
+        slotOwnerIndex[slot] = pf.count;
+        slotOriginalMass[slot] = originalMass;
+        slotDivisionTime[slot] = now;
+        slotLastFusionTime[slot] = now; // El cooldown de fusión empieza al nacer
+        slotHasVelocity[slot] = false;
+        slotDying[slot] = false;
+        slotCheckVersion[slot] = -1;
+        slotFusionPartner[slot] = NO_SLOT;
+        slotGridHandle[slot] = spatialGrid.insert(fragment, slot, SpatialGrid.CATEGORY_FRAGMENT,
+                                                  fragment.getX(), fragment.getY(),
+                                                  fragment.getWidth() * 0.5f);
+        pf.add(slot);
+        pf.membershipVersion++;
+        slotByEntity.put(fragment, slot);
+        liveFragmentCount++;
+        return slot;
+    }
+    
+    /**
+     * Elimina un fragmento del registro: intercambio con el último del jugador y id a la lista libre
+     */
+    private void unregisterSlot(int slot) {
+        PlayerFragments pf = slotOwners[slot];
+        if (pf == null) {
+            return; // Ya liberado
         }
+        int index = slotOwnerIndex[slot];
+        int lastSlot = pf.fragments[--pf.count];
+        pf.fragments[index] = lastSlot;
+        slotOwnerIndex[lastSlot] = index;
+        pf.membershipVersion++;
+        
+        spatialGrid.remove(slotGridHandle[slot]);
+        slotGridHandle[slot] = SpatialGrid.NO_HANDLE;
+        slotByEntity.remove(slotEntities[slot]);
+        slotEntities[slot] = null;
+        slotOwners[slot] = null;
+        slotHasVelocity[slot] = false;
+        slotDying[slot] = false;
+        freeSlots[freeSlotCount++] = slot;
+        liveFragmentCount--;
+    }
+    
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (slotHighWater == slotEntities.length) {
+            growSlots(slotEntities.length * 2);
+        }
+        return slotHighWater++;
+    }
+    
+    private void growSlots(int capacity) {
+        slotEntities = Arrays.copyOf(slotEntities, capacity);
+        slotOwners = Arrays.copyOf(slotOwners, capacity);
+        slotOwnerIndex = Arrays.copyOf(slotOwnerIndex, capacity);
+        slotOriginalMass = Arrays.copyOf(slotOriginalMass, capacity);
+        slotDivisionTime = Arrays.copyOf(slotDivisionTime, capacity);
+        slotLastFusionTime = Arrays.copyOf(slotLastFusionTime, capacity);
+        slotVelocityX = Arrays.copyOf(slotVelocityX, capacity);
+        slotVelocityY = Arrays.copyOf(slotVelocityY, capacity);
+        slotHasVelocity = Arrays.copyOf(slotHasVelocity, capacity);
+        slotDying = Arrays.copyOf(slotDying, capacity);
+        slotMark = Arrays.copyOf(slotMark, capacity);
+        slotGridHandle = Arrays.copyOf(slotGridHandle, capacity);
+        slotCheckX = Arrays.copyOf(slotCheckX, capacity);
+        slotCheckY = Arrays.copyOf(slotCheckY, capacity);
+        slotCheckVersion = Arrays.copyOf(slotCheckVersion, capacity);
+        slotFusionPartner = Arrays.copyOf(slotFusionPartner, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+    
+    private int slotOf(Entity fragment) {
+        if (fragment == null) {
+            return NO_SLOT;
+        }
+        Integer slot = slotByEntity.get(fragment);
+        return slot != null ? slot : NO_SLOT;
     }
     
     /**
@@ -368,18 +497,18 @@ public class DivisionSystem {
                 float speedMass = Math.max(fragment.getMass() * 0.8f, MIN_DIVISION_MASS);
                 fragment.setMass(speedMass);
                 break;
-                
+            
             case "defense":
                 // Fragmentos defensivos mantienen más masa
                 float defenseMass = Math.max(fragment.getMass() * 1.2f, MIN_DIVISION_MASS);
                 fragment.setMass(defenseMass);
                 break;
-                
+            
             case "hunter":
                 // Fragmentos cazadores tienen forma optimizada para cazar
                 // Mantienen masa moderada con ventajas de velocidad
                 break;
-                
+            
             case "collector":
                 // Fragmentos colectores priorizan eficiencia de masa
                 // Obtienen bonus de recolección de comida
@@ -392,7 +521,7 @@ public class DivisionSystem {
      */
     private void applyDivisionEffects(List<Entity> newFragments, Entity original) {
         // Efecto de explosión en el punto de división
-        visualEffects.createExplosionEffect(original.getX(), original.getY(), 
+        visualEffects.createExplosionEffect(original.getX(), original.getY(),
                                           original.getRadius() * 1.5f);
         
         // Efectos individuales para cada fragmento
@@ -417,16 +546,21 @@ public class DivisionSystem {
             Entity fragment = fragments.get(i);
             
             // Calcular velocidad de separación
-            PointF velocity = calculateSeparationVelocity(direction, i, baseVelocity);
+            PointF velocity = calculateSeparationVelocity(direction, i, baseVelocity, scratchVector);
             fragment.setVelocity(velocity.x, velocity.y);
             
             // Almacenar velocidad para decay gradual
-            pf.fragmentVelocities.put(fragment, new PointF(velocity.x, velocity.y));
+            int slot = slotOf(fragment);
+            if (slot != NO_SLOT) {
+                slotVelocityX[slot] = velocity.x;
+                slotVelocityY[slot] = velocity.y;
+                slotHasVelocity[slot] = true;
+            }
         }
         
         // Aplicar velocidad de recoil al fragmento original si existe
-        if (pf.fragments.contains(pf.mainPlayer) && !pf.fragments.isEmpty()) {
-            PointF recoilVelocity = calculateRecoilVelocity(direction, baseVelocity * 0.5f);
+        if (slotOf(pf.mainPlayer) != NO_SLOT) {
+            PointF recoilVelocity = calculateRecoilVelocity(direction, baseVelocity * 0.5f, scratchVector);
             pf.mainPlayer.setVelocity(recoilVelocity.x, recoilVelocity.y);
         }
     }
@@ -434,12 +568,13 @@ public class DivisionSystem {
     /**
      * Calcula velocidad de separación inteligente
      */
-    private PointF calculateSeparationVelocity(PointF direction, int fragmentIndex, float baseVelocity) {
+    private PointF calculateSeparationVelocity(PointF direction, int fragmentIndex, float baseVelocity, PointF out) {
         if (direction == null) {
             // Velocidad radial si no hay dirección específica
             float angle = fragmentIndex * (2 * (float) Math.PI / 3);
-            return new PointF((float) Math.cos(angle) * baseVelocity,
-                            (float) Math.sin(angle) * baseVelocity);
+            out.set((float) Math.cos(angle) * baseVelocity,
+                    (float) Math.sin(angle) * baseVelocity);
+            return out;
         }
         
         // Velocidad en dirección de división con dispersión
@@ -447,33 +582,37 @@ public class DivisionSystem {
         float angle = (float) Math.atan2(direction.y, direction.x);
         angle += (fragmentIndex - 1) * dispersion; // Dispersión angular
         
-        return new PointF((float) Math.cos(angle) * baseVelocity,
-                        (float) Math.sin(angle) * baseVelocity);
+        out.set((float) Math.cos(angle) * baseVelocity,
+                (float) Math.sin(angle) * baseVelocity);
+        return out;
     }
     
     /**
      * Calcula velocidad de recoil para el fragmento principal
      */
-    private PointF calculateRecoilVelocity(PointF direction, float magnitude) {
+    private PointF calculateRecoilVelocity(PointF direction, float magnitude, PointF out) {
         if (direction == null) {
-            return new PointF(0, 0);
+            out.set(0, 0);
+            return out;
         }
         
         // Velocidad opuesta a la dirección de división
-        return new PointF(-direction.x * magnitude, -direction.y * magnitude);
+        out.set(-direction.x * magnitude, -direction.y * magnitude);
+        return out;
     }
     
     /**
-     * Encuentra el fragmento más grande de un jugador
+     * Encuentra el id del fragmento más grande entre los dados
      */
-    private Entity findLargestFragment(List<Entity> fragments) {
-        Entity largest = null;
+    private int findLargestSlot(int[] slots, int count) {
+        int largest = NO_SLOT;
         float maxMass = 0;
         
-        for (Entity fragment : fragments) {
-            if (fragment.getMass() > maxMass) {
-                maxMass = fragment.getMass();
-                largest = fragment;
+        for (int i = 0; i < count; i++) {
+            float mass = slotEntities[slots[i]].getMass();
+            if (mass > maxMass) {
+                maxMass = mass;
+                largest = slots[i];
             }
         }
         
@@ -489,121 +628,260 @@ public class DivisionSystem {
             return false;
         }
         
-        // Verificar cooldown de fusión
-        for (Entity fragment : fragmentsToMerge) {
-            Long lastFusion = pf.lastFusionTime.get(fragment);
-            if (lastFusion != null && 
-                System.currentTimeMillis() - lastFusion < FUSION_COOLDOWN) {
+        // Traducir a ids, descartando duplicados y fragmentos de otros jugadores
+        long now = System.currentTimeMillis();
+        int stamp = nextMarkStamp();
+        int count = 0;
+        for (int i = 0; i < fragmentsToMerge.size(); i++) {
+            int slot = slotOf(fragmentsToMerge.get(i));
+            if (slot == NO_SLOT || slotOwners[slot] != pf || slotMark[slot] == stamp) {
+                continue;
+            }
+            
+            // Verificar cooldown de fusión
+            if (now - slotLastFusionTime[slot] < FUSION_COOLDOWN) {
                 return false;
             }
+            slotMark[slot] = stamp;
+            count = appendFusionSlot(count, slot);
         }
         
         // Realizar fusión
-        return performFusion(pf, fragmentsToMerge);
+        return performFusion(pf, fusionSlots, count, now);
     }
     
     /**
      * Fusiona fragmentos automáticamente cercanos
      */
     public void performAutomaticFusions() {
-        for (PlayerFragments pf : playerFragments.values()) {
-            if (pf.fragments.size() <= 1) continue;
+        long now = System.currentTimeMillis();
+        for (int p = 0; p < playerList.size(); p++) {
+            PlayerFragments pf = playerList.get(p);
+            if (pf.count <= 1) continue;
             
-            List<Entity> closeFragments = findCloseFragments(pf.fragments);
-            if (closeFragments.size() >= 2) {
-                performFusion(pf, closeFragments);
+            int closeCount = findCloseFragments(pf, now);
+            if (closeCount >= 2) {
+                performFusion(pf, fusionSlots, closeCount, now);
             }
         }
     }
     
     /**
      * Encuentra fragmentos cercanos para fusión automática
+     * @return número de ids escritos en fusionSlots (sin repetidos)
      */
-    private List<Entity> findCloseFragments(List<Entity> fragments) {
-        List<Entity> closeFragments = new ArrayList<>();
+    private int findCloseFragments(PlayerFragments pf, long now) {
+        int stamp = nextMarkStamp();
+        int count = 0;
         
-        for (int i = 0; i < fragments.size(); i++) {
-            for (int j = i + 1; j < fragments.size(); j++) {
-                Entity frag1 = fragments.get(i);
-                Entity frag2 = fragments.get(j);
-                
-                float distance = physics.calculateDistance(frag1, frag2);
-                
-                if (distance <= FUSION_DISTANCE) {
-                    closeFragments.add(frag1);
-                    closeFragments.add(frag2);
-                    break; // Solo agregar un par por fragmento
+        for (int i = 0; i < pf.count; i++) {
+            int slot = pf.fragments[i];
+            if (!isFusionReady(slot, now)) continue;
+            
+            int partner = findFusionPartner(pf, slot, now);
+            if (partner == NO_SLOT) continue;
+            
+            if (slotMark[slot] != stamp) {
+                slotMark[slot] = stamp;
+                count = appendFusionSlot(count, slot);
+            }
+            if (slotMark[partner] != stamp) {
+                slotMark[partner] = stamp;
+                count = appendFusionSlot(count, partner);
+            }
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Fragmento vivo y con el cooldown de fusión cumplido
+     */
+    private boolean isFusionReady(int slot, long now) {
+        return !slotDying[slot] && now - slotLastFusionTime[slot] >= FUSION_COOLDOWN;
+    }
+    
+    /**
+     * Compañero de fusión de un fragmento; reutiliza la última búsqueda mientras el
+     * fragmento no se haya desplazado ni hayan cambiado los fragmentos del jugador
+     */
+    private int findFusionPartner(PlayerFragments pf, int slot, long now) {
+        Entity fragment = slotEntities[slot];
+        float x = fragment.getX();
+        float y = fragment.getY();
+        
+        if (slotCheckVersion[slot] == pf.membershipVersion) {
+            float dx = x - slotCheckX[slot];
+            float dy = y - slotCheckY[slot];
+            if (dx * dx + dy * dy <= FUSION_RECHECK_DISTANCE * FUSION_RECHECK_DISTANCE) {
+                int cached = slotFusionPartner[slot];
+                if (cached == NO_SLOT) {
+                    return NO_SLOT;
+                }
+                // El compañero puede haberse alejado: basta con comprobar ese par
+                if (isFusionReady(cached, now) &&
+                    physics.calculateDistance(fragment, slotEntities[cached]) <= FUSION_DISTANCE) {
+                    return cached;
                 }
             }
         }
         
-        return closeFragments;
+        // Búsqueda en la fase ancha y comprobación exacta de los candidatos
+        int partner = NO_SLOT;
+        int found = spatialGrid.queryCircle(x, y, FUSION_DISTANCE,
+                                            1 << SpatialGrid.CATEGORY_FRAGMENT, queryBuffer);
+        for (int i = 0; i < found; i++) {
+            int handle = queryBuffer[i];
+            if (spatialGrid.getItem(handle) == fragment) continue;
+            int candidate = spatialGrid.getTag(handle);
+            if (candidate < 0 || candidate >= slotHighWater ||
+                slotOwners[candidate] != pf || slotGridHandle[candidate] != handle ||
+                !isFusionReady(candidate, now)) {
+                continue; // Otro jugador, otro sistema o aún en cooldown
+            }
+            if (physics.calculateDistance(fragment, slotEntities[candidate]) <= FUSION_DISTANCE) {
+                partner = candidate;
+                break; // Solo agregar un par por fragmento
+            }
+        }
+        
+        slotCheckX[slot] = x;
+        slotCheckY[slot] = y;
+        slotCheckVersion[slot] = pf.membershipVersion;
+        slotFusionPartner[slot] = partner;
+        return partner;
+    }
+    
+    /**
+     * Lleva la posición de cada fragmento a la fase ancha (solo cambia listas al cruzar de celda)
+     */
+    private void syncFragmentPositions() {
+        for (int p = 0; p < playerList.size(); p++) {
+            PlayerFragments pf = playerList.get(p);
+            for (int i = 0; i < pf.count; i++) {
+                int slot = pf.fragments[i];
+                Entity fragment = slotEntities[slot];
+                spatialGrid.move(slotGridHandle[slot], fragment.getX(), fragment.getY(),
+                                 fragment.getWidth() * 0.5f);
+            }
+        }
+    }
+    
+    /**
+     * Usa la fase ancha compartida del motor en lugar de la propia
+     */
+    public void setSpatialGrid(SpatialGrid grid) {
+        SpatialGrid target = grid != null ? grid : new SpatialGrid();
+        if (target == spatialGrid) {
+            return;
+        }
+        for (int slot = 0; slot < slotHighWater; slot++) {
+            Entity fragment = slotEntities[slot];
+            if (fragment == null) continue;
+            spatialGrid.remove(slotGridHandle[slot]);
+            slotGridHandle[slot] = target.insert(fragment, slot, SpatialGrid.CATEGORY_FRAGMENT,
+                                                 fragment.getX(), fragment.getY(),
+                                                 fragment.getWidth() * 0.5f);
+            slotCheckVersion[slot] = -1;
+        }
+        spatialGrid = target;
+    }
+    
+    public SpatialGrid getSpatialGrid() {
+        return spatialGrid;
+    }
+    
+    private int appendFusionSlot(int count, int slot) {
+        if (count == fusionSlots.length) {
+            fusionSlots = Arrays.copyOf(fusionSlots, count * 2);
+        }
+        fusionSlots[count] = slot;
+        return count + 1;
+    }
+    
+    private int nextMarkStamp() {
+        if (++markStamp == Integer.MAX_VALUE) {
+            Arrays.fill(slotMark, 0);
+            markStamp = 1;
+        }
+        return markStamp;
     }
     
     /**
      * Realiza la fusión de fragmentos
      */
-    private boolean performFusion(PlayerFragments pf, List<Entity> fragmentsToMerge) {
-        if (fragmentsToMerge.size() < 2) return false;
+    private boolean performFusion(PlayerFragments pf, int[] slots, int count, long now) {
+        if (count < 2) return false;
         
         // Seleccionar fragmento de destino (el más grande)
-        Entity targetFragment = findLargestFragment(fragmentsToMerge);
+        int targetSlot = findLargestSlot(slots, count);
+        if (targetSlot == NO_SLOT) return false;
+        Entity targetFragment = slotEntities[targetSlot];
         
         // Calcular masa total a fusionar
         float totalMass = 0;
-        List<Entity> sourceFragments = new ArrayList<>();
+        fusionGroup.clear();
+        fusionSources.clear();
         
-        for (Entity fragment : fragmentsToMerge) {
-            if (fragment != targetFragment) {
+        for (int i = 0; i < count; i++) {
+            Entity fragment = slotEntities[slots[i]];
+            fusionGroup.add(fragment);
+            if (slots[i] != targetSlot) {
                 totalMass += fragment.getMass();
-                sourceFragments.add(fragment);
+                fusionSources.add(fragment);
             }
         }
         
         // Transferir masa con animación
         if (totalMass > 0) {
-            startMassTransfer(targetFragment, sourceFragments, totalMass);
+            startMassTransfer(pf, targetFragment, fusionSources, now);
         }
         
         // Aplicar efectos visuales de fusión
-        applyFusionEffects(fragmentsToMerge);
+        applyFusionEffects(fusionGroup, targetFragment);
         
         // Actualizar roles
-        mergeFragmentRoles(pf, targetFragment, sourceFragments);
+        mergeFragmentRoles(pf, targetFragment, fusionSources);
         
         // Remover fragmentos fusionados
-        for (Entity sourceFragment : sourceFragments) {
-            pf.fragments.remove(sourceFragment);
-            fragmentMap.remove(sourceFragment.getId());
-            pf.lastFusionTime.remove(sourceFragment);
-            pf.fragmentVelocities.remove(sourceFragment);
+        for (int i = 0; i < count; i++) {
+            if (slots[i] != targetSlot) {
+                unregisterSlot(slots[i]);
+            }
         }
         
         // Registrar tiempo de fusión
-        pf.lastFusionTime.put(targetFragment, System.currentTimeMillis());
+        slotLastFusionTime[targetSlot] = now;
+        slotCheckVersion[targetSlot] = -1;
         
+        fusionGroup.clear();
+        fusionSources.clear();
         return true;
     }
     
     /**
      * Inicia transferencia de masa con animación
      */
-    private void startMassTransfer(Entity target, List<Entity> sources, float totalMass) {
-        for (Entity source : sources) {
+    private void startMassTransfer(PlayerFragments pf, Entity target, List<Entity> sources, long now) {
+        for (int i = 0; i < sources.size(); i++) {
+            Entity source = sources.get(i);
             if (source.getMass() <= 0) continue;
             
-            float transferMass = source.getMass();
-            MassTransfer transfer = new MassTransfer(source, target, transferMass, MASS_TRANSFER_RATE);
+            MassTransfer transfer = transferPool.pollLast();
+            if (transfer == null) {
+                transfer = new MassTransfer();
+            }
+            transfer.set(pf, source, target, source.getMass(), MASS_TRANSFER_RATE, now);
             activeTransfers.add(transfer);
+            pf.activeTransfers++;
         }
     }
     
     /**
      * Aplica efectos visuales de fusión
      */
-    private void applyFusionEffects(List<Entity> fragments) {
+    private void applyFusionEffects(List<Entity> fragments, Entity center) {
         // Efecto de implosión en el punto de fusión
-        Entity center = findLargestFragment(fragments);
         if (center != null) {
             visualEffects.createFusionEffect(center.getX(), center.getY(), center.getRadius() * 2.0f);
         }
@@ -620,44 +898,49 @@ public class DivisionSystem {
      * Fusiona roles de fragmentos al fusionarse
      */
     private void mergeFragmentRoles(PlayerFragments pf, Entity target, List<Entity> sources) {
-        // Recopilar todos los roles únicos
-        Set<String> allRoles = new HashSet<>();
+        // Recopilar todos los roles únicos (pocos: búsqueda lineal sobre una lista reutilizada)
+        List<String> allRoles = roleScratch;
+        allRoles.clear();
         
         String targetRole = roleSystem.getRole(target);
         if (targetRole != null) {
             allRoles.add(targetRole);
         }
         
-        for (Entity source : sources) {
-            String sourceRole = roleSystem.getRole(source);
-            if (sourceRole != null) {
+        for (int i = 0; i < sources.size(); i++) {
+            String sourceRole = roleSystem.getRole(sources.get(i));
+            if (sourceRole != null && !allRoles.contains(sourceRole)) {
                 allRoles.add(sourceRole);
             }
         }
         
         // Asignar rol combinado al fragmento objetivo
         if (allRoles.size() == 1) {
-            // Solo un rol, mantenerlo
-            roleSystem.assignRole(target, allRoles.iterator().next());
+            // Solo un rol: si ya era el del objetivo no hay nada que cambiar
+            if (targetRole == null) {
+                roleSystem.assignRole(target, allRoles.get(0));
+            }
         } else if (allRoles.size() > 1) {
             // Múltiples roles, crear rol híbrido
             String hybridRole = createHybridRole(allRoles);
             roleSystem.assignRole(target, hybridRole);
         }
+        allRoles.clear();
     }
     
     /**
-     * Crea un rol híbrido basado en múltiples roles
+     * Crea un rol híbrido basado en múltiples roles (orden estable: el mismo conjunto da el mismo nombre)
      */
-    private String createHybridRole(Set<String> roles) {
-        List<String> roleList = new ArrayList<>(roles);
-        if (roleList.isEmpty()) return "neutral";
+    private String createHybridRole(List<String> roles) {
+        if (roles.isEmpty()) return "neutral";
+        Collections.sort(roles);
         
         // Combinar características de roles
-        StringBuilder hybrid = new StringBuilder();
-        for (String role : roleList) {
+        StringBuilder hybrid = hybridBuilder;
+        hybrid.setLength(0);
+        for (int i = 0; i < roles.size(); i++) {
             if (hybrid.length() > 0) hybrid.append("_");
-            hybrid.append(role);
+            hybrid.append(roles.get(i));
         }
         
         return hybrid.toString().toLowerCase();
@@ -673,6 +956,9 @@ public class DivisionSystem {
         // Decay de velocidades de fragmentos
         updateFragmentVelocities(deltaTime);
         
+        // Posiciones a la fase ancha antes de buscar fusiones
+        syncFragmentPositions();
+        
         // Realizar fusiones automáticas
         performAutomaticFusions();
         
@@ -681,13 +967,23 @@ public class DivisionSystem {
     }
     
     /**
-     * Actualiza transferencias de masa activas
+     * Actualiza transferencias de masa activas; las completadas vuelven al pool
      */
     private void updateMassTransfers() {
-        activeTransfers.removeIf(transfer -> {
-            transfer.update();
-            return transfer.isComplete();
-        });
+        long now = System.currentTimeMillis();
+        for (int i = activeTransfers.size() - 1; i >= 0; i--) {
+            MassTransfer transfer = activeTransfers.get(i);
+            transfer.update(now);
+            if (transfer.isComplete()) {
+                // Borrado por intercambio con el último
+                int last = activeTransfers.size() - 1;
+                activeTransfers.set(i, activeTransfers.get(last));
+                activeTransfers.remove(last);
+                transfer.owner.activeTransfers--;
+                transfer.clear();
+                transferPool.addLast(transfer);
+            }
+        }
     }
     
     /**
@@ -695,24 +991,25 @@ public class DivisionSystem {
      */
     private void updateFragmentVelocities(float deltaTime) {
         float decayRate = 0.8f; // Factor de decay por segundo
+        float decay = (float) Math.pow(decayRate, deltaTime);
         
-        for (PlayerFragments pf : playerFragments.values()) {
-            for (Map.Entry<Entity, PointF> entry : pf.fragmentVelocities.entrySet()) {
-                Entity fragment = entry.getKey();
-                PointF velocity = entry.getValue();
-                
-                // Aplicar decay
-                velocity.x *= Math.pow(decayRate, deltaTime);
-                velocity.y *= Math.pow(decayRate, deltaTime);
-                
-                // Aplicar velocidad al fragmento
-                if (Math.abs(velocity.x) > 0.1f || Math.abs(velocity.y) > 0.1f) {
-                    fragment.setVelocity(velocity.x, velocity.y);
-                } else {
-                    // Velocidad muy baja, detener
-                    fragment.setVelocity(0, 0);
-                    pf.fragmentVelocities.remove(fragment);
-                }
+        for (int slot = 0; slot < slotHighWater; slot++) {
+            if (!slotHasVelocity[slot]) continue;
+            Entity fragment = slotEntities[slot];
+            
+            // Aplicar decay
+            float velocityX = slotVelocityX[slot] * decay;
+            float velocityY = slotVelocityY[slot] * decay;
+            slotVelocityX[slot] = velocityX;
+            slotVelocityY[slot] = velocityY;
+            
+            // Aplicar velocidad al fragmento
+            if (Math.abs(velocityX) > 0.1f || Math.abs(velocityY) > 0.1f) {
+                fragment.setVelocity(velocityX, velocityY);
+            } else {
+                // Velocidad muy baja, detener
+                fragment.setVelocity(0, 0);
+                slotHasVelocity[slot] = false;
             }
         }
     }
@@ -721,34 +1018,30 @@ public class DivisionSystem {
      * Limpia fragmentos marcados para muerte
      */
     private void cleanupDyingFragments() {
-        for (PlayerFragments pf : playerFragments.values()) {
-            pf.fragments.removeAll(pf.dyingFragments);
-            for (Entity dyingFragment : pf.dyingFragments) {
-                fragmentMap.remove(dyingFragment.getId());
-                pf.lastFusionTime.remove(dyingFragment);
-                pf.fragmentVelocities.remove(dyingFragment);
+        for (int i = 0; i < dyingCount; i++) {
+            int slot = dyingSlots[i];
+            // Si una fusión liberó el id y otra división lo reutilizó, el fragmento nuevo sigue vivo
+            if (slotEntities[slot] == dyingEntities[i]) {
+                unregisterSlot(slot);
             }
-            pf.dyingFragments.clear();
+            dyingEntities[i] = null;
         }
+        dyingCount = 0;
     }
     
     /**
-     * Obtiene o crea datos de fragmentos para un jugador
+     * Obtiene o crea datos de fragmentos para un jugador; el propio jugador es su primer fragmento
      */
     private PlayerFragments getOrCreatePlayerFragments(Player player) {
-        return playerFragments.computeIfAbsent(player.getId(), 
-                                             k -> new PlayerFragments(player));
-    }
-    
-    /**
-     * Limpia cooldowns expirados
-     */
-    private void pruneCooldowns() {
-        long currentTime = System.currentTimeMillis();
-        while (!divisionCooldowns.isEmpty() && 
-               currentTime - divisionCooldowns.peek() > FUSION_COOLDOWN) {
-            divisionCooldowns.poll();
+        String playerId = String.valueOf(player.getId());
+        PlayerFragments pf = playerFragments.get(playerId);
+        if (pf == null) {
+            pf = new PlayerFragments(player, playerId);
+            playerFragments.put(playerId, pf);
+            playerList.add(pf);
+            registerFragment(pf, player, player.getMass(), System.currentTimeMillis());
         }
+        return pf;
     }
     
     /**
@@ -756,15 +1049,22 @@ public class DivisionSystem {
      */
     public List<Entity> getPlayerFragments(String playerId) {
         PlayerFragments pf = playerFragments.get(playerId);
-        return pf != null ? new ArrayList<>(pf.fragments) : Collections.emptyList();
+        if (pf == null) {
+            return Collections.emptyList();
+        }
+        List<Entity> fragments = new ArrayList<>(pf.count);
+        for (int i = 0; i < pf.count; i++) {
+            fragments.add(slotEntities[pf.fragments[i]]);
+        }
+        return fragments;
     }
     
     /**
      * Verifica si un fragmento pertenece a un jugador específico
      */
     public boolean isFragmentOfPlayer(Entity fragment, String playerId) {
-        FragmentData data = fragmentMap.get(fragment.getId());
-        return data != null && data.playerId.equals(playerId);
+        int slot = slotOf(fragment);
+        return slot != NO_SLOT && slotOwners[slot].playerId.equals(playerId);
     }
     
     /**
@@ -779,21 +1079,63 @@ public class DivisionSystem {
      * Marca un fragmento para eliminación
      */
     public void markFragmentForDeath(Entity fragment) {
-        String playerId = getPlayerIdForFragment(fragment);
-        if (playerId != null) {
-            PlayerFragments pf = playerFragments.get(playerId);
-            if (pf != null) {
-                pf.dyingFragments.add(fragment);
-            }
+        int slot = slotOf(fragment);
+        if (slot == NO_SLOT || slotDying[slot]) {
+            return;
         }
+        slotDying[slot] = true;
+        if (dyingCount == dyingSlots.length) {
+            dyingSlots = Arrays.copyOf(dyingSlots, dyingCount * 2);
+            dyingEntities = Arrays.copyOf(dyingEntities, dyingCount * 2);
+        }
+        dyingSlots[dyingCount] = slot;
+        dyingEntities[dyingCount++] = fragment;
+    }
+    
+    /**
+     * Id entero del fragmento en el registro (-1 si no está registrado)
+     */
+    public int getFragmentId(Entity fragment) {
+        return slotOf(fragment);
+    }
+    
+    /**
+     * Fragmento registrado con ese id, o null si el id está libre
+     */
+    public Entity getFragment(int fragmentId) {
+        return fragmentId >= 0 && fragmentId < slotHighWater ? slotEntities[fragmentId] : null;
     }
     
     /**
-     * Obtiene el ID del jugador que posee un fragmento
+     * Masa con la que se creó el fragmento
      */
-    private String getPlayerIdForFragment(Entity fragment) {
-        FragmentData data = fragmentMap.get(fragment.getId());
-        return data != null ? data.playerId : null;
+    public float getFragmentOriginalMass(int fragmentId) {
+        return getFragment(fragmentId) != null ? slotOriginalMass[fragmentId] : 0f;
+    }
+    
+    /**
+     * Momento de creación del fragmento (ms)
+     */
+    public long getFragmentDivisionTime(int fragmentId) {
+        return getFragment(fragmentId) != null ? slotDivisionTime[fragmentId] : 0L;
+    }
+    
+    /**
+     * Límite de fragmentos por jugador (por defecto 6)
+     */
+    public void setMaxFragmentsPerPlayer(int maxFragmentsPerPlayer) {
+        this.maxFragmentsPerPlayer = Math.max(1, maxFragmentsPerPlayer);
+    }
+    
+    public int getMaxFragmentsPerPlayer() {
+        return maxFragmentsPerPlayer;
+    }
+    
+    /**
+     * Fragmentos vivos entre todos los jugadores
+     */
+    public int getTotalFragmentCount() {
+        return liveFragmentCount;
     }
     
     /**
@@ -805,23 +1147,12 @@ public class DivisionSystem {
             return new DivisionStats(0, 0, 0, 0);
         }
         
-        int fragmentCount = pf.fragments.size();
-        int maxFragments = MAX_FRAGMENTS_PER_PLAYER;
         float totalMass = 0;
-        int activeTransfers = 0;
-        
-        for (Entity fragment : pf.fragments) {
-            totalMass += fragment.getMass();
+        for (int i = 0; i < pf.count; i++) {
+            totalMass += slotEntities[pf.fragments[i]].getMass();
         }
         
-        for (MassTransfer transfer : activeTransfers) {
-            if (transfer.fromFragment.getId().equals(pf.mainPlayer.getId()) ||
-                transfer.toFragment.getId().equals(pf.mainPlayer.getId())) {
-                activeTransfers++;
-            }
-        }
-        
-        return new DivisionStats(fragmentCount, maxFragments, totalMass, activeTransfers);
+        return new DivisionStats(pf.count, maxFragmentsPerPlayer, totalMass, pf.activeTransfers);
     }
     
     /**
@@ -857,10 +1188,30 @@ public class DivisionSystem {
      * Limpia recursos del sistema
      */
     public void cleanup() {
+        // La fase ancha puede ser compartida: solo se dan de baja los fragmentos propios
+        for (int slot = 0; slot < slotHighWater; slot++) {
+            if (slotEntities[slot] != null) {
+                spatialGrid.remove(slotGridHandle[slot]);
+            }
+        }
         playerFragments.clear();
-        fragmentMap.clear();
+        playerList.clear();
+        slotByEntity.clear();
+        Arrays.fill(slotEntities, 0, slotHighWater, null);
+        Arrays.fill(slotOwners, 0, slotHighWater, null);
+        Arrays.fill(slotHasVelocity, 0, slotHighWater, false);
+        Arrays.fill(slotDying, 0, slotHighWater, false);
+        slotHighWater = 0;
+        freeSlotCount = 0;
+        liveFragmentCount = 0;
+        Arrays.fill(dyingEntities, 0, dyingCount, null);
+        dyingCount = 0;
+        for (int i = 0; i < activeTransfers.size(); i++) {
+            MassTransfer transfer = activeTransfers.get(i);
+            transfer.clear();
+            transferPool.addLast(transfer);
+        }
         activeTransfers.clear();
-        divisionCooldowns.clear();
     }
     
     /**
@@ -869,4 +1220,4 @@ public class DivisionSystem {
     public void reset() {
         cleanup();
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.gaming.enhancedagar.game;
 
+import com.gaming.enhancedagar.entities.EnemyBot;
 import com.gaming.enhancedagar.entities.Player;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -43,12 +44,30 @@ public class GameModeManager {
     private Map<Player, TeamRole> playerRoles;
     private Map<String, Integer> teamScores;
     private Map<Player, Integer> individualScores;
+    // Clasificaciones incrementales: rango y top-K en O(log n) sin recorrer los mapas
+    private final Leaderboard<Player> individualLeaderboard = new Leaderboard<>();
+    private final Leaderboard<String> teamLeaderboard = new Leaderboard<>();
     private int currentWave = 0;
     private Player kingPlayer = null;
     private long waveStartTime = 0;
     private boolean waveInProgress = false;
     private Random random;
     
+    // Puntuación territorial del modo Teams: cada equipo del modo se busca por nombre en el
+    // TeamSystem y su celda del mapa de influencia se resuelve por id de equipo
+    private static final long TERRITORY_SCORE_INTERVAL_MS = 5000;
+    private static final int TERRITORY_CELLS_PER_POINT = 10;
+    private static final int TEAM_A_COLOR = 0xFF2196F3;
+    private static final int TEAM_B_COLOR = 0xFFF44336;
+    private TeamSystem teamSystem;
+    private int[] territoryCells;
+    private long lastTerritoryScore = 0;
+    
+    // Oleadas del modo Survival: bots reutilizados y repartidos entre ticks
+    private static final int SURVIVAL_PREWARM_WAVES = 5;
+    private final WaveSpawner waveSpawner;
+    private WaveSpawner.SpawnListener botSpawnListener;
+    
     // Configuraciones específicas por modo
     private final Map<GameMode, ModeConfig> modeConfigs;
     
@@ -59,6 +78,8 @@ public class GameModeManager {
         this.individualScores = new ConcurrentHashMap<>();
         this.random = new Random();
         this.modeConfigs = initializeModeConfigs();
+        this.waveSpawner = new WaveSpawner();
+        this.waveSpawner.setSpawnListener(this::onWaveBotSpawned);
     }
     
     /**
@@ -141,6 +162,7 @@ public class GameModeManager {
                 initializeTeams();
                 break;
             case SURVIVAL:
+                prewarmSurvivalBots();
                 startSurvivalWave(1);
                 break;
             case KING:
@@ -156,8 +178,10 @@ public class GameModeManager {
      */
     private void initializeTeams() {
         teamScores.clear();
-        teamScores.put("Equipo_A", 0);
-        teamScores.put("Equipo_B", 0);
+        teamLeaderboard.clear();
+        addTeamScore("Equipo_A", 0);
+        addTeamScore("Equipo_B", 0);
+        ensureTerritoryTeams();
         
         // Reiniciar roles de jugadores
         for (Map.Entry<Player, TeamRole> entry : playerRoles.entrySet()) {
@@ -225,7 +249,11 @@ public class GameModeManager {
      */
     private String determineTeam(Player player) {
         if (player == null) return "Equipo_A";
-        return (player.getId() % 2 == 0) ? "Equipo_A" : "Equipo_B";
+        return teamNameFor(player.getId());
+    }
+    
+    private static String teamNameFor(long entityId) {
+        return (entityId % 2 == 0) ? "Equipo_A" : "Equipo_B";
     }
     
     /**
@@ -238,22 +266,20 @@ public class GameModeManager {
         this.waveStartTime = System.currentTimeMillis();
         this.waveInProgress = true;
         
+        // Los enemigos aparecen en los siguientes ticks (updateSurvivalLogic)
+        waveSpawner.startWave(waveNumber, getSurvivalEnemyCount(waveNumber));
+    }
+    
+    private int getSurvivalEnemyCount(int waveNumber) {
         ModeConfig config = modeConfigs.get(GameMode.SURVIVAL);
-        int enemiesThisWave = config.enemyCount + (waveNumber * 2);
-        
-        // Generar enemigos según la dificultad
-        for (int i = 0; i < enemiesThisWave; i++) {
-            generateEnemyForWave(waveNumber);
-        }
+        return config.enemyCount + (waveNumber * 2);
     }
     
     /**
-     * Genera un enemigo específico para la ola actual
+     * Crea por adelantado los bots de las primeras oleadas (al cambiar de modo, no en mitad de una)
      */
-    private void generateEnemyForWave(int waveNumber) {
-        // Lógica de generación de enemigos con dificultad escalable
-        double difficultyMultiplier = 1.0 + (waveNumber * 0.2);
-        // Aquí se integraría con el sistema de entidades para crear enemigos
+    private void prewarmSurvivalBots() {
+        waveSpawner.prewarm(getSurvivalEnemyCount(SURVIVAL_PREWARM_WAVES));
     }
     
     /**
@@ -275,17 +301,7 @@ public class GameModeManager {
      * Selecciona el mejor candidato para ser rey
      */
     private Player getBestPlayerForKing() {
-        Player bestPlayer = null;
-        int bestScore = -1;
-        
-        for (Map.Entry<Player, Integer> entry : individualScores.entrySet()) {
-            if (entry.getValue() > bestScore) {
-                bestScore = entry.getValue();
-                bestPlayer = entry.getKey();
-            }
-        }
-        
-        return bestPlayer;
+        return individualLeaderboard.getKeyAt(1);
     }
     
     /**
@@ -325,11 +341,29 @@ public class GameModeManager {
         }
     }
     
+    /**
+     * Suma puntos a un jugador en el mapa y en la clasificación
+     */
+    private void addIndividualScore(Player player, int points) {
+        int score = individualScores.getOrDefault(player, 0) + points;
+        individualScores.put(player, score);
+        individualLeaderboard.setScore(player, score);
+    }
+    
+    /**
+     * Suma puntos a un equipo en el mapa y en la clasificación
+     */
+    private void addTeamScore(String team, int points) {
+        int score = teamScores.getOrDefault(team, 0) + points;
+        teamScores.put(team, score);
+        teamLeaderboard.setScore(team, score);
+    }
+    
     /**
      * Sistema de puntuación para modo Classic
      */
     private void updateClassicScore(Player player, String event, int value) {
-        individualScores.put(player, individualScores.getOrDefault(player, 0) + value);
+        addIndividualScore(player, value);
     }
     
     /**
@@ -337,13 +371,13 @@ public class GameModeManager {
      */
     private void updateTeamsScore(Player player, String event, int value) {
         String team = determineTeam(player);
-        teamScores.put(team, teamScores.getOrDefault(team, 0) + value);
+        addTeamScore(team, value);
         
         // Bonus por trabajo en equipo basado en roles
         TeamRole role = playerRoles.get(player);
         if (role != null) {
             int bonus = calculateRoleBonus(role, event);
-            teamScores.put(team, teamScores.getOrDefault(team, 0) + bonus);
+            addTeamScore(team, bonus);
         }
     }
     
@@ -352,11 +386,11 @@ public class GameModeManager {
      */
     private void updateSurvivalScore(Player player, String event, int value) {
         // En Survival los puntos son acumulativos y determinan la supervivencia
-        individualScores.put(player, individualScores.getOrDefault(player, 0) + value);
+        addIndividualScore(player, value);
         
         // Bonificación por supervivencia de ola
         if (event.equals("wave_survived")) {
-            individualScores.put(player, individualScores.getOrDefault(player, 0) + (currentWave * 10));
+            addIndividualScore(player, currentWave * 10);
         }
     }
     
@@ -365,10 +399,10 @@ public class GameModeManager {
      */
     private void updateArenaScore(Player player, String event, int value) {
         // Arena se centra en eliminación rápida
-        individualScores.put(player, individualScores.getOrDefault(player, 0) + value);
+        addIndividualScore(player, value);
         
         if (event.equals("kill")) {
-            individualScores.put(player, individualScores.getOrDefault(player, 0) + 20);
+            addIndividualScore(player, 20);
         }
     }
     
@@ -378,11 +412,11 @@ public class GameModeManager {
     private void updateKingScore(Player player, String event, int value) {
         if (player == kingPlayer) {
             // El rey gana puntos por sobrevivir
-            individualScores.put(player, individualScores.getOrDefault(player, 0) + value);
+            addIndividualScore(player, value);
         } else {
             // Otros jugadores ganan más puntos atacando al rey
             if (event.equals("king_damage")) {
-                individualScores.put(player, individualScores.getOrDefault(player, 0) + (value * 3));
+                addIndividualScore(player, value * 3);
             }
         }
     }
@@ -414,13 +448,13 @@ public class GameModeManager {
     public boolean checkWinCondition() {
         switch (currentMode) {
             case CLASSIC:
-                return individualScores.values().stream().anyMatch(score -> score >= 1000);
+                return individualLeaderboard.getScoreAt(1) >= 1000;
             case TEAMS:
-                return teamScores.values().stream().anyMatch(score -> score >= 500);
+                return teamLeaderboard.getScoreAt(1) >= 500;
             case SURVIVAL:
                 return currentWave >= 10; // 10 olas completadas
             case ARENA:
-                return individualScores.values().stream().anyMatch(score -> score >= 50);
+                return individualLeaderboard.getScoreAt(1) >= 50;
             case KING:
                 return kingPlayer != null && individualScores.getOrDefault(kingPlayer, 0) >= 200;
         }
@@ -433,15 +467,11 @@ public class GameModeManager {
     public String getCurrentWinner() {
         switch (currentMode) {
             case CLASSIC, ARENA, SURVIVAL:
-                return individualScores.entrySet().stream()
-                    .max(Map.Entry.comparingByValue())
-                    .map(entry -> entry.getKey().getName())
-                    .orElse("Nadie");
+                Player leader = individualLeaderboard.getKeyAt(1);
+                return leader != null ? leader.getName() : "Nadie";
             case TEAMS:
-                return teamScores.entrySet().stream()
-                    .max(Map.Entry.comparingByValue())
-                    .map(Map.Entry::getKey)
-                    .orElse("Empate");
+                String leadingTeam = teamLeaderboard.getKeyAt(1);
+                return leadingTeam != null ? leadingTeam : "Empate";
             case KING:
                 return kingPlayer != null ? kingPlayer.getName() : "Sin rey";
         }
@@ -454,11 +484,14 @@ public class GameModeManager {
     private void resetModeSpecificData() {
         individualScores.clear();
         teamScores.clear();
+        individualLeaderboard.clear();
+        teamLeaderboard.clear();
         playerRoles.clear();
         currentWave = 0;
         kingPlayer = null;
         waveStartTime = 0;
         waveInProgress = false;
+        waveSpawner.cancelPending();
     }
     
     /**
@@ -479,15 +512,108 @@ public class GameModeManager {
             case KING:
                 updateKingLogic();
                 break;
+            case TEAMS:
+                updateTeamsTerritoryLogic();
+                break;
+        }
+    }
+    
+    /**
+     * Modo Teams: puntos periódicos por el territorio propio y no disputado
+     */
+    private void updateTeamsTerritoryLogic() {
+        TeamSystem teams = teamSystem;
+        if (teams == null) return;
+        
+        long now = System.currentTimeMillis();
+        if (now - lastTerritoryScore < TERRITORY_SCORE_INTERVAL_MS) return;
+        lastTerritoryScore = now;
+        
+        // El mapa se sustituye si cambian los límites del mundo
+        TeamInfluenceMap territoryMap = teams.getInfluenceMap();
+        if (territoryCells == null || territoryCells.length != territoryMap.getMaxTeams()) {
+            territoryCells = new int[territoryMap.getMaxTeams()];
+        }
+        territoryMap.countOwnedCells(territoryCells);
+        for (String teamName : teamScores.keySet()) {
+            TeamSystem.Team team = teams.getTeamByName(teamName);
+            int index = team != null ? teams.getTerritoryIndex(team.getTeamId()) : TeamInfluenceMap.NO_TEAM;
+            if (index == TeamInfluenceMap.NO_TEAM) continue;
+            
+            int points = territoryCells[index] / TERRITORY_CELLS_PER_POINT;
+            if (points > 0) {
+                addTeamScore(teamName, points);
+            }
         }
     }
     
+    /**
+     * Sistema de equipos cuyo mapa de influencia puntúa el territorio del modo Teams y
+     * guía la patrulla de los bots; crea en él los equipos del modo si faltan
+     */
+    public void setTeamSystem(TeamSystem teamSystem) {
+        this.teamSystem = teamSystem;
+        this.lastTerritoryScore = System.currentTimeMillis();
+        ensureTerritoryTeams();
+    }
+    
+    /**
+     * Equipo de territorio de una entidad, con el mismo reparto por id que bots y roles
+     * @return null si no hay sistema de equipos
+     */
+    public TeamSystem.Team getTerritoryTeam(long entityId) {
+        TeamSystem teams = teamSystem;
+        if (teams == null) return null;
+        
+        ensureTerritoryTeams();
+        return teams.getTeamByName(teamNameFor(entityId));
+    }
+    
+    private void ensureTerritoryTeams() {
+        TeamSystem teams = teamSystem;
+        if (teams == null) return;
+        
+        if (teams.getTeamByName("Equipo_A") == null) {
+            teams.createTeam("Equipo_A", TEAM_A_COLOR);
+        }
+        if (teams.getTeamByName("Equipo_B") == null) {
+            teams.createTeam("Equipo_B", TEAM_B_COLOR);
+        }
+    }
+    
+    /**
+     * Cada bot de oleada patrulla el territorio de su equipo (mismo reparto que los jugadores)
+     * y después pasa al listener externo, que lo añade al mundo
+     */
+    private void onWaveBotSpawned(EnemyBot bot, int waveNumber) {
+        TeamSystem teams = teamSystem;
+        TeamSystem.Team team = teams != null ? teams.getTeamByName(teamNameFor(bot.getId())) : null;
+        if (team != null) {
+            bot.setTerritory(teams, team.getTeamId());
+        }
+        
+        WaveSpawner.SpawnListener listener = botSpawnListener;
+        if (listener != null) {
+            listener.onBotSpawned(bot, waveNumber);
+        }
+    }
+    
+    /**
+     * Recibe los bots de oleada ya preparados (normalmente el motor, para añadirlos al mundo)
+     */
+    public void setBotSpawnListener(WaveSpawner.SpawnListener listener) {
+        this.botSpawnListener = listener;
+    }
+    
     /**
      * Actualiza la lógica específica del modo Survival
      */
     private void updateSurvivalLogic() {
         if (!waveInProgress) return;
         
+        // Apariciones pendientes dentro del presupuesto del tick
+        waveSpawner.update();
+        
         // Verificar si la ola terminó
         long waveDuration = System.currentTimeMillis() - waveStartTime;
         if (waveDuration >= 60000) { // 60 segundos por ola
@@ -508,8 +634,19 @@ public class GameModeManager {
     public GameMode getCurrentMode() { return currentMode; }
     public int getCurrentWave() { return currentWave; }
     public Player getKingPlayer() { return kingPlayer; }
-    public Map<String, Integer> getTeamScores() { return new HashMap<>(teamScores); }
-    public Map<Player, Integer> getIndividualScores() { return new HashMap<>(individualScores); }
+    public Map<String, Integer> getTeamScores() { return Collections.unmodifiableMap(teamScores); }
+    public Map<Player, Integer> getIndividualScores() { return Collections.unmodifiableMap(individualScores); }
+    public Leaderboard<Player> getIndividualLeaderboard() { return individualLeaderboard; }
+    public Leaderboard<String> getTeamLeaderboard() { return teamLeaderboard; }
+    
+    /**
+     * Posición del jugador en la clasificación individual (1 = primero, 0 si no puntúa)
+     */
+    public int getPlayerRank(Player player) {
+        return individualLeaderboard.getRank(player);
+    }
     public Map<Player, TeamRole> getPlayerRoles() { return new HashMap<>(playerRoles); }
     public boolean isWaveInProgress() { return waveInProgress; }
+    public TeamSystem getTeamSystem() { return teamSystem; }
+    public WaveSpawner getWaveSpawner() { return waveSpawner; }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.gaming.enhancedagar.game;
 import android.graphics.Canvas;
 import android.view.SurfaceHolder;
 import android.os.SystemClock;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 import com.gaming.enhancedagar.engine.GameEngine;
@@ -24,7 +25,7 @@ public class GameThread extends Thread {
     // Configuración del thread
     private static final int MAX_FRAME_SKIP = 5;
     private static final double TARGET_FPS = 60.0;
-    private static final double FRAME_TIME = 1000.0 / TARGET_FPS; // ~16.67ms por frame
+    static final int FRAME_HISTORY_SIZE = 120; // ~2 segundos a 60 FPS
     
     // Referencias del sistema
     private final SurfaceHolder surfaceHolder;
@@ -37,6 +38,7 @@ public class GameThread extends Thread {
     private long lastFpsTime = 0;
     private long lastUpdateTime = 0;
     private long deltaTime = 0;
+    private volatile double frameTimeBudget = 1000.0 / TARGET_FPS; // ~16.67ms por frame
     
     // Sincronización y locks
     private final ReentrantLock gameLock = new ReentrantLock();
@@ -54,6 +56,12 @@ public class GameThread extends Thread {
     private long lastRenderTime = 0;
     private long minFrameTime = Long.MAX_VALUE;
     private long maxFrameTime = 0;
+    private final FrameTimeHistory frameHistory;
+    
+    // Ajuste automático de calidad (opcional)
+    private volatile QualityGovernor qualityGovernor;
+    private final QualityGovernor.QualityListener targetFpsListener =
+        (oldTier, newTier, stats) -> setTargetFPS(newTier.targetFps);
     
     /**
      * Constructor del GameThread
@@ -61,9 +69,18 @@ public class GameThread extends Thread {
      * @param gameEngine Referencia al motor del juego
      */
     public GameThread(SurfaceHolder surfaceHolder, GameEngine gameEngine) {
+        this(surfaceHolder, gameEngine, new FrameTimeHistory(FRAME_HISTORY_SIZE));
+    }
+    
+    /**
+     * Constructor que registra los frames en una ventana ya existente
+     * @param frameHistory ventana de la vista propietaria, para no mantener dos copias
+     */
+    public GameThread(SurfaceHolder surfaceHolder, GameEngine gameEngine, FrameTimeHistory frameHistory) {
         super("GameThread");
         this.surfaceHolder = surfaceHolder;
         this.gameEngine = gameEngine;
+        this.frameHistory = frameHistory;
         this.lastFpsTime = System.currentTimeMillis();
         this.lastUpdateTime = SystemClock.uptimeMillis();
     }
@@ -78,6 +95,7 @@ public class GameThread extends Thread {
         
         while (running.get()) {
             frameStartTime = SystemClock.uptimeMillis();
+            long frameStartNanos = System.nanoTime();
             
             try {
                 // Verificar estado del juego
@@ -128,6 +146,7 @@ public class GameThread extends Thread {
             
             // Actualizar estadísticas de timing
             updateFrameStatistics(frameTime);
+            frameHistory.record((System.nanoTime() - frameStartNanos) / 1_000_000f);
             
             // Control de FPS
             controlFrameRate(frameStartTime, frameEndTime);
@@ -186,7 +205,7 @@ public class GameThread extends Thread {
      */
     private void controlFrameRate(long frameStartTime, long frameEndTime) {
         long frameDuration = frameEndTime - frameStartTime;
-        long timeToSleep = (long) (FRAME_TIME - frameDuration);
+        long timeToSleep = (long) (frameTimeBudget - frameDuration);
         
         if (timeToSleep > 0) {
             try {
@@ -209,7 +228,7 @@ public class GameThread extends Thread {
     private void handleFrameSkipping(long frameStartTime, long frameEndTime, int skipCount) {
         long frameDuration = frameEndTime - frameStartTime;
         
-        if (frameDuration < FRAME_TIME && skipCount < MAX_FRAME_SKIP) {
+        if (frameDuration < frameTimeBudget && skipCount < MAX_FRAME_SKIP) {
             // Frame fue rápido, pero estamos satisfechos con el FPS actual
             skipCount++;
         }
@@ -226,6 +245,12 @@ public class GameThread extends Thread {
             fps = frameCount;
             frameCount = 0;
             lastFpsTime = currentTime;
+            
+            // Revisar la calidad una vez por segundo con los percentiles recientes
+            QualityGovernor governor = qualityGovernor;
+            if (governor != null) {
+                governor.evaluate(getPerformanceStats());
+            }
         }
     }
     
@@ -405,13 +430,41 @@ public class GameThread extends Thread {
      * Obtiene estadísticas de rendimiento
      */
     public PerformanceStats getPerformanceStats() {
-        return new PerformanceStats(
-            fps,
-            minFrameTime,
-            maxFrameTime,
-            lastRenderTime,
-            totalGameTime
-        );
+        return frameHistory.toStats(fps, minFrameTime, maxFrameTime, lastRenderTime, totalGameTime);
+    }
+    
+    /**
+     * Establece el FPS objetivo del bucle
+     */
+    public void setTargetFPS(int targetFps) {
+        int clamped = Math.max(10, Math.min(targetFps, 120));
+        this.frameTimeBudget = 1000.0 / clamped;
+    }
+    
+    /**
+     * Obtiene el FPS objetivo actual
+     */
+    public int getTargetFPS() {
+        return (int) Math.round(1000.0 / frameTimeBudget);
+    }
+    
+    /**
+     * Conecta un gobernador de calidad que se evalúa cada segundo
+     */
+    public void setQualityGovernor(QualityGovernor governor) {
+        QualityGovernor previous = this.qualityGovernor;
+        if (previous != null) {
+            previous.removeListener(targetFpsListener);
+        }
+        this.qualityGovernor = governor;
+        if (governor != null) {
+            governor.addListener(targetFpsListener);
+            setTargetFPS(governor.getCurrentTier().targetFps);
+        }
+    }
+    
+    public QualityGovernor getQualityGovernor() {
+        return qualityGovernor;
     }
     
     /**
@@ -452,19 +505,88 @@ public class GameThread extends Thread {
         public final long lastFrameTime;
         public final long totalGameTime;
         
+        // Percentiles de la ventana reciente de frames (ms)
+        public final float p50FrameTime;
+        public final float p95FrameTime;
+        public final float p99FrameTime;
+        public final int sampleCount;
+        
         public PerformanceStats(int fps, long minFrameTime, long maxFrameTime, 
                               long lastFrameTime, long totalGameTime) {
+            this(fps, minFrameTime, maxFrameTime, lastFrameTime, totalGameTime, 0, 0, 0, 0);
+        }
+        
+        public PerformanceStats(int fps, long minFrameTime, long maxFrameTime,
+                              long lastFrameTime, long totalGameTime,
+                              float p50FrameTime, float p95FrameTime, float p99FrameTime,
+                              int sampleCount) {
             this.fps = fps;
             this.minFrameTime = minFrameTime;
             this.maxFrameTime = maxFrameTime;
             this.lastFrameTime = lastFrameTime;
             this.totalGameTime = totalGameTime;
+            this.p50FrameTime = p50FrameTime;
+            this.p95FrameTime = p95FrameTime;
+            this.p99FrameTime = p99FrameTime;
+            this.sampleCount = sampleCount;
         }
         
         @Override
         public String toString() {
-            return String.format("FPS: %d, Min: %dms, Max: %dms, Last: %dms, Total: %dms",
-                fps, minFrameTime, maxFrameTime, lastFrameTime, totalGameTime);
+            return String.format("FPS: %d, Min: %dms, Max: %dms, Last: %dms, Total: %dms, " +
+                "p50: %.1fms, p95: %.1fms, p99: %.1fms",
+                fps, minFrameTime, maxFrameTime, lastFrameTime, totalGameTime,
+                p50FrameTime, p95FrameTime, p99FrameTime);
+        }
+    }
+    
+    /**
+     * Ventana circular de duraciones de frame para calcular percentiles
+     */
+    public static class FrameTimeHistory {
+        private final float[] samples;
+        private final float[] sorted;
+        private int writeIndex = 0;
+        private int count = 0;
+        
+        public FrameTimeHistory(int capacity) {
+            this.samples = new float[capacity];
+            this.sorted = new float[capacity];
+        }
+        
+        /**
+         * Registra la duración de un frame en milisegundos
+         */
+        public synchronized void record(float frameTimeMs) {
+            samples[writeIndex] = frameTimeMs;
+            writeIndex = (writeIndex + 1) % samples.length;
+            if (count < samples.length) {
+                count++;
+            }
+        }
+        
+        /**
+         * Genera estadísticas con los percentiles de la ventana actual
+         */
+        public synchronized PerformanceStats toStats(int fps, long minFrameTime, long maxFrameTime,
+                                                     long lastFrameTime, long totalGameTime) {
+            if (count == 0) {
+                return new PerformanceStats(fps, minFrameTime, maxFrameTime, lastFrameTime, totalGameTime);
+            }
+            System.arraycopy(samples, 0, sorted, 0, count);
+            Arrays.sort(sorted, 0, count);
+            return new PerformanceStats(fps, minFrameTime, maxFrameTime, lastFrameTime, totalGameTime,
+                                        percentile(0.50f), percentile(0.95f), percentile(0.99f), count);
+        }
+        
+        private float percentile(float fraction) {
+            int index = Math.min(count - 1, (int) Math.ceil(fraction * count) - 1);
+            return sorted[Math.max(0, index)];
+        }
+        
+        public synchronized void clear() {
+            writeIndex = 0;
+            count = 0;
         }
     }
 }
\ No newline at end of file
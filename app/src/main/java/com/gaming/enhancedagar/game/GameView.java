@@ -1,12 +1,19 @@
 package com.gaming.enhancedagar.game;
 
 import com.gaming.enhancedagar.engine.GameEngine;
+import com.gaming.enhancedagar.engine.RoleSystem;
+import com.gaming.enhancedagar.engine.TextRenderer;
+import com.gaming.enhancedagar.engine.VisualEffects;
+import com.gaming.enhancedagar.entities.Entity;
+import com.gaming.enhancedagar.entities.Player;
+import com.gaming.enhancedagar.ui.GameHUD;
 import com.gaming.enhancedagar.utils.Vector2D;
 
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.PointF;
 import android.graphics.Rect;
 import android.os.Handler;
 import android.os.Looper;
@@ -64,6 +71,13 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
     private int targetFPS = 60;
     private boolean adaptiveFPS = true;
     
+    // Calidad adaptativa según los percentiles de duración de frame
+    private final QualityGovernor qualityGovernor = new QualityGovernor();
+    private final GameThread.FrameTimeHistory frameHistory = new GameThread.FrameTimeHistory(GameThread.FRAME_HISTORY_SIZE);
+    private long minRenderTime = Long.MAX_VALUE;
+    private long maxRenderTime = 0;
+    private long lastRenderTime = 0;
+    
     // Callbacks System
     private List<GameViewCallback> callbacks = new ArrayList<>();
     
@@ -72,14 +86,27 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
     private Paint fpsPaint;
     private Paint textPaint;
     
+    // Paints del contenido de la partida, creados una vez y reutilizados en cada frame
+    private Paint gridPaint;
+    private Paint playerPaint;
+    private Paint playerNamePaint;
+    private Paint foodPaint;
+    private final float[] foodHsv = {0f, 0.7f, 0.9f};
+    
+    // Texto dinámico del HUD desde el atlas de glifos (sin Strings por frame)
+    private static final String ENTITIES_LABEL = "Entities: ";
+    private static final String STATE_LABEL = "State: ";
+    private TextRenderer hudText;
+    private TextRenderer.TextConfig hudTextConfig;
+    
     // Dimensions
     private int viewWidth = 0;
     private int viewHeight = 0;
     
-    // Touch Handling
-    private float lastTouchX = 0;
-    private float lastTouchY = 0;
-    private boolean isTouching = false;
+    // Entrada encolada: el hilo de UI escribe, el bucle del motor la procesa al inicio de cada tick
+    private volatile InputHandler inputHandler;
+    private final InputLatencyTracer latencyTracer = new InputLatencyTracer();
+    private String latencyText = null;
     
     /**
      * Constructor para contexto
@@ -118,18 +145,46 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
         // Inicializar GameEngine
         gameEngine = new GameEngine();
         
+        // Sistemas de juego sobre la fase ancha del motor
+        setupGameSystems(context);
+        
         // Configurar optimizaciones para Termux
         setupTermuxOptimizations();
         
         // Inicializar recursos de dibujo
-        initializeDrawingResources();
+        initializeDrawingResources(context);
         
         // Configurar callbacks por defecto
         setupDefaultCallbacks();
         
+        // Conectar el gobernador de calidad
+        setupQualityGovernor();
+        
+        // Entrada por defecto: los toques encolados dirigen al jugador del motor
+        setInputHandler(new InputHandler(new EngineInputListener()));
+        
         Log.d(TAG, "GameView inicializado correctamente");
     }
     
+    /**
+     * Crea los sistemas de juego y los conecta al motor, que los actualiza cada tick
+     * y les comparte su fase ancha espacial
+     */
+    private void setupGameSystems(Context context) {
+        VisualEffects systemEffects = new VisualEffects();
+        
+        gameEngine.setCollisionSystem(new CollisionSystem());
+        gameEngine.setDivisionSystem(new DivisionSystem(systemEffects, new RoleSystem(), null));
+        gameEngine.setTeamSystem(new TeamSystem());
+        
+        // El motor le comparte la fase ancha; los objetivos alcanzados ganan o pierden masa
+        SpecialAbilitySystem abilitySystem = new SpecialAbilitySystem(context, systemEffects);
+        abilitySystem.setAreaEffectListener(new AreaEffectApplier());
+        gameEngine.setSpecialAbilitySystem(abilitySystem);
+        
+        gameEngine.setGameModeManager(new GameModeManager());
+    }
+    
     /**
      * Configura optimizaciones específicas para Termux
      */
@@ -160,7 +215,7 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
     /**
      * Inicializa los recursos de dibujo
      */
-    private void initializeDrawingResources() {
+    private void initializeDrawingResources(Context context) {
         // Paint para el fondo
         backgroundPaint = new Paint();
         backgroundPaint.setColor(Color.BLACK);
@@ -176,6 +231,28 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
         textPaint.setColor(Color.WHITE);
         textPaint.setTextSize(32);
         textPaint.setAntiAlias(true);
+        
+        // Paints del contenido de la partida
+        gridPaint = new Paint();
+        gridPaint.setColor(Color.DKGRAY);
+        gridPaint.setStrokeWidth(1);
+        
+        playerPaint = new Paint();
+        playerPaint.setColor(Color.BLUE);
+        playerPaint.setAntiAlias(true);
+        
+        playerNamePaint = new Paint();
+        playerNamePaint.setColor(Color.WHITE);
+        playerNamePaint.setTextSize(16);
+        playerNamePaint.setTextAlign(Paint.Align.CENTER);
+        
+        foodPaint = new Paint();
+        foodPaint.setAntiAlias(true);
+        
+        // Texto del HUD de partida
+        hudText = new TextRenderer(context);
+        hudTextConfig = new TextRenderer.TextConfig(18, Color.WHITE, TextRenderer.FontStyle.REGULAR);
+        hudTextConfig.padding = 0;
     }
     
     /**
@@ -206,6 +283,23 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
         });
     }
     
+    /**
+     * Conecta el gobernador de calidad con el motor y el FPS objetivo
+     */
+    private void setupQualityGovernor() {
+        qualityGovernor.setGameEngine(gameEngine);
+        qualityGovernor.addListener((oldTier, newTier, stats) -> {
+            setTargetFPS(lowMemoryMode ? Math.min(30, newTier.targetFps) : newTier.targetFps);
+            notifyCallbacks(callback -> callback.onQualityTierChanged(oldTier, newTier));
+        });
+        
+        // En modo de baja memoria (Termux) no se pasa de calidad baja
+        if (lowMemoryMode) {
+            qualityGovernor.setTierRange(QualityGovernor.QualityTier.MINIMAL,
+                                         QualityGovernor.QualityTier.LOW);
+        }
+    }
+    
     // === SURFACE HOLDER CALLBACKS ===
     
     @Override
@@ -240,6 +334,9 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
         if (gameEngine != null) {
             Vector2D worldBounds = new Vector2D(width, height);
             gameEngine.setWorldBounds(worldBounds);
+            
+            // Cámara para el nuevo tamaño; el motor le pasa su rejilla de densidad
+            gameEngine.setCameraManager(new CameraManager(width, height, width, height));
         }
         
         // Notificar callbacks
@@ -370,9 +467,10 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
         Log.d(TAG, "Iniciando bucle de renderizado");
         
         long lastTime = System.currentTimeMillis();
-        long targetTime = 1000 / targetFPS;
         
         while (isRendering) {
+            // El gobernador puede cambiar el FPS objetivo entre frames
+            long targetTime = 1000 / targetFPS;
             long currentTime = System.currentTimeMillis();
             long elapsedTime = currentTime - lastTime;
             
@@ -388,8 +486,23 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
             
             lastTime = System.currentTimeMillis();
             
+            // La entrada la aplica el bucle del motor; aquí solo se observa qué toque
+            // ha llegado ya al objetivo del jugador que se va a dibujar
+            InputHandler handler = inputHandler;
+            if (handler != null) {
+                Player player = gameEngine != null ? gameEngine.getPlayer() : null;
+                if (player != null) {
+                    latencyTracer.onTargetObserved(player.getTargetInputSequence());
+                }
+            }
+            
             // Renderizar frame
-            renderFrame();
+            long frameStartNanos = System.nanoTime();
+            boolean presented = renderFrame();
+            recordFrameTime(System.nanoTime() - frameStartNanos);
+            if (presented && handler != null) {
+                latencyTracer.onFramePresented();
+            }
             
             // Actualizar estadísticas de FPS
             updateFPSStats();
@@ -400,12 +513,14 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
     
     /**
      * Renderiza un frame individual
+     * @return true si el frame se publicó en la superficie
      */
-    private void renderFrame() {
+    private boolean renderFrame() {
         if (surfaceHolder == null || !surfaceHolder.getSurface().isValid()) {
-            return;
+            return false;
         }
         
+        boolean presented = false;
         Canvas canvas = null;
         try {
             // Obtener canvas bloqueando la superficie
@@ -437,17 +552,19 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
             if (canvas != null) {
                 try {
                     surfaceHolder.unlockCanvasAndPost(canvas);
+                    presented = true;
                 } catch (Exception e) {
                     Log.e(TAG, "Error al liberar canvas", e);
                 }
             }
         }
+        return presented;
     }
     
     /**
-     * Renderiza el contenido del juego
+     * Renderiza el contenido del juego (visible en el paquete para el banco de render)
      */
-    private void renderGameContent(Canvas canvas) {
+    void renderGameContent(Canvas canvas) {
         try {
             // Renderizar el background del juego
             renderGameBackground(canvas);
@@ -477,10 +594,6 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
      */
     private void renderGameBackground(Canvas canvas) {
         // Gradiente de fondo o patrón de grid
-        Paint gridPaint = new Paint();
-        gridPaint.setColor(Color.DARK_GRAY);
-        gridPaint.setStrokeWidth(1);
-        
         int gridSize = 50;
         for (int x = 0; x < viewWidth; x += gridSize) {
             canvas.drawLine(x, 0, x, viewHeight, gridPaint);
@@ -494,10 +607,6 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
      * Renderiza el jugador
      */
     private void renderPlayer(Canvas canvas, com.gaming.enhancedagar.entities.Player player) {
-        Paint playerPaint = new Paint();
-        playerPaint.setColor(Color.BLUE);
-        playerPaint.setAntiAlias(true);
-        
         // Obtener posición del jugador
         Vector2D pos = player.getPosition();
         double radius = player.getRadius();
@@ -506,11 +615,7 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
             canvas.drawCircle((float) pos.x, (float) pos.y, (float) radius, playerPaint);
             
             // Renderizar nombre del jugador
-            Paint namePaint = new Paint();
-            namePaint.setColor(Color.WHITE);
-            namePaint.setTextSize(16);
-            namePaint.setTextAlign(Paint.Align.CENTER);
-            canvas.drawText(player.getName(), (float) pos.x, (float) pos.y - (float) radius - 10, namePaint);
+            canvas.drawText(player.getName(), (float) pos.x, (float) pos.y - (float) radius - 10, playerNamePaint);
         }
     }
     
@@ -518,9 +623,6 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
      * Renderiza entidades de comida
      */
     private void renderFoodEntities(Canvas canvas) {
-        Paint foodPaint = new Paint();
-        foodPaint.setAntiAlias(true);
-        
         // Placeholder: Renderizar algunos círculos de comida
         int foodCount = Math.min(gameEngine.getFoodCount(), 20); // Limitar para performance
         
@@ -530,9 +632,8 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
             float radius = 5 + (float) (Math.random() * 5);
             
             // Color aleatorio para la comida
-            foodPaint.setColor(Color.HSVToColor(new float[]{
-                (float) (Math.random() * 360), 0.7f, 0.9f
-            }));
+            foodHsv[0] = (float) (Math.random() * 360);
+            foodPaint.setColor(Color.HSVToColor(foodHsv));
             
             canvas.drawCircle(x, y, radius, foodPaint);
         }
@@ -542,19 +643,14 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
      * Renderiza UI del juego
      */
     private void renderGameUI(Canvas canvas) {
-        // Información básica del juego
-        Paint uiPaint = new Paint();
-        uiPaint.setColor(Color.WHITE);
-        uiPaint.setTextSize(18);
-        uiPaint.setAntiAlias(true);
-        
-        String info = String.format("Entities: %d", gameEngine.getActiveEntities().size());
-        canvas.drawText(info, 10, 30, uiPaint);
+        // Información básica del juego: etiqueta y número se componen desde el atlas
+        float labelWidth = hudText.drawText(canvas, ENTITIES_LABEL, 10, 12, hudTextConfig);
+        hudText.drawNumber(canvas, gameEngine.getActiveEntityCount(), 10 + labelWidth, 12, hudTextConfig);
         
         // Estado del juego
         if (gameEngine.getGameState() != null) {
-            String stateText = "State: " + gameEngine.getGameState().getDisplayName();
-            canvas.drawText(stateText, 10, 55, uiPaint);
+            labelWidth = hudText.drawText(canvas, STATE_LABEL, 10, 37, hudTextConfig);
+            hudText.drawText(canvas, gameEngine.getGameState().getDisplayName(), 10 + labelWidth, 37, hudTextConfig);
         }
     }
     
@@ -596,6 +692,11 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
     private void renderFPSOverlay(Canvas canvas) {
         String fpsText = String.format("FPS: %.1f", currentFPS);
         canvas.drawText(fpsText, viewWidth - 150, 30, fpsPaint);
+        
+        String latency = latencyText;
+        if (latency != null) {
+            canvas.drawText(latency, 10, viewHeight - 20, fpsPaint);
+        }
     }
     
     /**
@@ -617,9 +718,46 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
             if (currentFPS < 20) {
                 notifyCallbacks(callback -> callback.onPerformanceWarning("FPS bajo: " + currentFPS));
             }
+            
+            // Percentiles de latencia de entrada para el overlay
+            if (inputHandler != null && latencyTracer.getPresentHistogram().getCount() > 0) {
+                latencyText = latencyTracer.getSummary();
+            }
+            
+            // Revisar el nivel de calidad con la ventana reciente
+            if (adaptiveFPS) {
+                qualityGovernor.evaluate(getPerformanceStats());
+            }
         }
     }
     
+    /**
+     * Registra la duración de trabajo de un frame para los percentiles
+     */
+    private void recordFrameTime(long frameNanos) {
+        long frameMs = frameNanos / 1_000_000;
+        lastRenderTime = frameMs;
+        minRenderTime = Math.min(minRenderTime, frameMs);
+        maxRenderTime = Math.max(maxRenderTime, frameMs);
+        frameHistory.record(frameNanos / 1_000_000f);
+    }
+    
+    /**
+     * Obtiene estadísticas de rendimiento con percentiles de duración de frame
+     */
+    public GameThread.PerformanceStats getPerformanceStats() {
+        return frameHistory.toStats(Math.round(currentFPS), minRenderTime, maxRenderTime,
+                                    lastRenderTime, 0);
+    }
+    
+    /**
+     * Ventana de duraciones de frame de la vista; un GameThread sobre esta vista debe recibirla
+     * en su constructor para que los percentiles salgan de una sola copia
+     */
+    public GameThread.FrameTimeHistory getFrameHistory() {
+        return frameHistory;
+    }
+    
     /**
      * Verifica si está en modo debug
      */
@@ -631,44 +769,71 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
     
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        float x = event.getX();
-        float y = event.getY();
-        
-        switch (event.getAction()) {
-            case MotionEvent.ACTION_DOWN:
-                lastTouchX = x;
-                lastTouchY = y;
-                isTouching = true;
-                
-                // Notificar callbacks
-                notifyCallbacks(callback -> callback.onTouchDown(x, y));
-                break;
-                
-            case MotionEvent.ACTION_MOVE:
-                if (isTouching) {
-                    float deltaX = x - lastTouchX;
-                    float deltaY = y - lastTouchY;
-                    
-                    // Notificar callbacks
-                    notifyCallbacks(callback -> callback.onTouchMove(x, y, deltaX, deltaY));
-                    
-                    lastTouchX = x;
-                    lastTouchY = y;
-                }
-                break;
-                
-            case MotionEvent.ACTION_UP:
-            case MotionEvent.ACTION_CANCEL:
-                isTouching = false;
-                
-                // Notificar callbacks
-                notifyCallbacks(callback -> callback.onTouchUp(x, y));
-                break;
+        // Solo se encola: el bucle del motor procesa la cola y avisa a su listener
+        InputHandler handler = inputHandler;
+        if (handler != null) {
+            handler.enqueueMotionEvent(event);
         }
         
         return true; // Evento procesado
     }
     
+    /**
+     * Lleva los toques procesados en el bucle del motor al jugador, con la secuencia del evento
+     * que los produjo para que el trazador de latencia cierre cada muestra
+     */
+    private class EngineInputListener implements InputHandler.InputListener {
+        @Override
+        public void onTouchDown(PointF position) {
+            steerPlayer(position);
+        }
+        
+        @Override
+        public void onTouchMove(PointF position) {
+            steerPlayer(position);
+        }
+        
+        @Override
+        public void onTouchUp(PointF position) {
+            if (gameEngine != null) {
+                gameEngine.onTouchRelease();
+            }
+        }
+        
+        private void steerPlayer(PointF position) {
+            InputHandler handler = inputHandler;
+            if (gameEngine != null && handler != null) {
+                gameEngine.onTouchEvent(position.x, position.y, handler.getLastProcessedSequence());
+            }
+        }
+        
+        @Override public void onGestureDetected(InputHandler.GestureType gesture, PointF origin, PointF end) {}
+        @Override public void onVirtualInput(int virtualButtonId, boolean pressed) {}
+        @Override public void onCalibrationComplete(float scaleFactor, float offsetX, float offsetY) {}
+    }
+    
+    /**
+     * Aplica a cada objetivo de una habilidad de área su efecto como masa: las ofensivas
+     * la quitan y las de curación la devuelven
+     */
+    private static class AreaEffectApplier implements SpecialAbilitySystem.AreaEffectListener {
+        @Override
+        public void onAreaEffect(Player caster, SpecialAbilitySystem.AbilityType ability, Entity target, float amount) {
+            if (target == null || !target.isAlive() || amount <= 0) return;
+            
+            switch (ability.category) {
+                case OFFENSIVE:
+                    target.changeMass(-amount);
+                    break;
+                case HEALING:
+                    target.changeMass(amount);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+    
     // === CALLBACK SYSTEM ===
     
     /**
@@ -682,9 +847,8 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
         default void onFPSChanged(float fps) {}
         default void onError(Exception error) {}
         default void onPerformanceWarning(String message) {}
-        default void onTouchDown(float x, float y) {}
-        default void onTouchMove(float x, float y, float deltaX, float deltaY) {}
-        default void onTouchUp(float x, float y) {}
+        default void onQualityTierChanged(QualityGovernor.QualityTier oldTier,
+                                          QualityGovernor.QualityTier newTier) {}
     }
     
     /**
@@ -768,6 +932,50 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
      */
     public void setAdaptiveFPS(boolean adaptive) {
         this.adaptiveFPS = adaptive;
+        qualityGovernor.setEnabled(adaptive);
+    }
+    
+    /**
+     * Obtiene el gobernador de calidad para conectar más sistemas o escuchar cambios
+     */
+    public QualityGovernor getQualityGovernor() {
+        return qualityGovernor;
+    }
+    
+    /**
+     * Sustituye el InputHandler por defecto (que dirige al jugador del motor)
+     * Recibe los eventos táctiles en la cola y los procesa el hilo de juego del motor
+     */
+    public void setInputHandler(InputHandler inputHandler) {
+        if (inputHandler != null) {
+            inputHandler.setLatencyTracer(latencyTracer);
+        }
+        this.inputHandler = inputHandler;
+        if (gameEngine != null) {
+            gameEngine.setInputHandler(inputHandler);
+        }
+    }
+    
+    /**
+     * Trazador de latencia entrada -> frame (histogramas y registro exportable)
+     */
+    public InputLatencyTracer getLatencyTracer() {
+        return latencyTracer;
+    }
+    
+    public InputHandler getInputHandler() {
+        return inputHandler;
+    }
+    
+    /**
+     * Conecta el HUD a la simulación: el mini-mapa se dibuja desde la rejilla de densidad del
+     * motor y el rango se lee de su clasificación por masa
+     */
+    public void attachHud(GameHUD hud) {
+        if (hud != null && gameEngine != null) {
+            hud.setDensityGrid(gameEngine.getDensityGrid());
+            hud.setMassLeaderboard(gameEngine.getMassLeaderboard());
+        }
     }
     
     /**
@@ -777,6 +985,11 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
         this.lowMemoryMode = lowMemory;
         if (lowMemory) {
             setTargetFPS(30);
+            qualityGovernor.setTierRange(QualityGovernor.QualityTier.MINIMAL,
+                                         QualityGovernor.QualityTier.LOW);
+        } else {
+            qualityGovernor.setTierRange(QualityGovernor.QualityTier.MINIMAL,
+                                         QualityGovernor.QualityTier.HIGH);
         }
     }
     
@@ -817,6 +1030,10 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
         }
         
         // Liberar recursos de dibujo
+        if (hudText != null) {
+            hudText.destroy();
+            hudText = null;
+        }
         backgroundPaint = null;
         fpsPaint = null;
         textPaint = null;
@@ -827,10 +1044,11 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
      */
     public String getDebugInfo() {
         return String.format(
-            "GameView{engine=%s, rendering=%s, fps=%.1f, surface=%s, callbacks=%d}",
+            "GameView{engine=%s, rendering=%s, fps=%.1f, quality=%s, surface=%s, callbacks=%d}",
             gameEngine != null ? "initialized" : "null",
             isRendering,
             currentFPS,
+            qualityGovernor.getCurrentTier(),
             isSurfaceReady() ? "ready" : "not ready",
             callbacks.size()
         );
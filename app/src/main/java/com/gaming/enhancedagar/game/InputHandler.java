@@ -12,6 +12,11 @@ import java.util.Map;
 /**
  * Manejador avanzado de inputs para el juego Enhanced Agar
  * Soporta touch, multi-touch, gestures, inputs virtuales y calibración automática
+ *
+ * onTouch() se ejecuta en el hilo de UI y solo copia el evento a una TouchEventQueue;
+ * el bucle de juego llama a processPendingInput() al inicio de cada tick, de modo que
+ * el estado de toques y gestos, los getters y los callbacks del listener pertenecen
+ * únicamente al hilo de juego
  */
 public class InputHandler implements View.OnTouchListener {
     
@@ -37,7 +42,7 @@ public class InputHandler implements View.OnTouchListener {
         ROTATE
     }
     
-    // Interface para callbacks de eventos
+    // Interface para callbacks de eventos (hilo de juego; los PointF se reutilizan, copiarlos si se guardan)
     public interface InputListener {
         void onTouchDown(PointF position);
         void onTouchMove(PointF position);
@@ -77,16 +82,18 @@ public class InputHandler implements View.OnTouchListener {
         public int id;
         public PointF position;
         public PointF startPosition;
-        public long startTime;
+        public long startTime;     // Tiempo del evento (ms, reloj uptime)
+        public long lastEventTime;
         public boolean isActive;
         public PointF lastPosition;
         
-        public TouchData(int id, float x, float y) {
+        public TouchData(int id, float x, float y, long eventTime) {
             this.id = id;
             this.position = new PointF(x, y);
             this.startPosition = new PointF(x, y);
             this.lastPosition = new PointF(x, y);
-            this.startTime = System.currentTimeMillis();
+            this.startTime = eventTime;
+            this.lastEventTime = eventTime;
             this.isActive = true;
         }
         
@@ -97,8 +104,7 @@ public class InputHandler implements View.OnTouchListener {
         }
         
         public float getVelocity() {
-            long currentTime = System.currentTimeMillis();
-            long timeDiff = currentTime - startTime;
+            long timeDiff = lastEventTime - startTime;
             if (timeDiff <= 0) return 0;
             
             float distance = getDistanceFromStart();
@@ -149,6 +155,20 @@ public class InputHandler implements View.OnTouchListener {
     // Calibración
     private CalibrationData calibration;
     
+    // Cola entre el hilo de UI y el bucle de juego
+    private final TouchEventQueue eventQueue = new TouchEventQueue();
+    private final TouchEventQueue.Consumer recordConsumer = this::onTouchRecord;
+    private final PointF callbackPoint = new PointF();
+    private long lastProcessedSequence = -1;
+    private long lastEventTimeNanos = 0;
+    private InputLatencyTracer latencyTracer;
+    
+    // Predicción del toque principal hasta la hora de presentación del siguiente frame
+    private final TouchPredictor predictor = new TouchPredictor();
+    private boolean predictionEnabled = true;
+    private int predictedPointerId = -1;
+    private long expectedDisplayTimeNanos = 0;
+    
     // Constructor
     public InputHandler(InputListener listener) {
         this.listener = listener;
@@ -224,44 +244,144 @@ public class InputHandler implements View.OnTouchListener {
     }
     
     /**
-     * Maneja eventos de touch
+     * Maneja eventos de touch (hilo de UI): solo copia el evento a la cola
      */
     @Override
     public boolean onTouch(View v, MotionEvent event) {
+        enqueueMotionEvent(event);
+        return true;
+    }
+    
+    /**
+     * Copia un MotionEvent a la cola como registros primitivos, incluidas las
+     * muestras históricas agrupadas de ACTION_MOVE con su marca de tiempo exacta
+     */
+    public void enqueueMotionEvent(MotionEvent event) {
         int action = event.getActionMasked();
-        int pointerCount = event.getPointerCount();
+        int actionIndex = event.getActionIndex();
+        
+        eventQueue.beginBatch();
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_POINTER_DOWN:
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_POINTER_UP:
+                eventQueue.write(action, event.getPointerId(actionIndex),
+                                 event.getX(actionIndex), event.getY(actionIndex),
+                                 event.getEventTime() * 1_000_000L, 0);
+                break;
+                
+            case MotionEvent.ACTION_MOVE:
+                int pointerCount = event.getPointerCount();
+                int historySize = event.getHistorySize();
+                for (int h = 0; h < historySize; h++) {
+                    long historicalTime = event.getHistoricalEventTime(h) * 1_000_000L;
+                    for (int p = 0; p < pointerCount; p++) {
+                        eventQueue.write(action, event.getPointerId(p),
+                                         event.getHistoricalX(p, h), event.getHistoricalY(p, h),
+                                         historicalTime, TouchEventQueue.FLAG_HISTORICAL);
+                    }
+                }
+                long eventTime = event.getEventTime() * 1_000_000L;
+                for (int p = 0; p < pointerCount; p++) {
+                    eventQueue.write(action, event.getPointerId(p), event.getX(p), event.getY(p),
+                                     eventTime, 0);
+                }
+                break;
+                
+            case MotionEvent.ACTION_CANCEL:
+                eventQueue.write(action, -1, 0f, 0f, event.getEventTime() * 1_000_000L, 0);
+                break;
+                
+            default:
+                break;
+        }
+        eventQueue.publishBatch();
+    }
+    
+    /**
+     * Procesa los eventos pendientes; llamar desde el bucle de juego al inicio de cada tick
+     * @return número de registros procesados
+     */
+    public int processPendingInput() {
+        return processPendingInput(0);
+    }
+    
+    /**
+     * Procesa los eventos pendientes prediciendo el toque principal hasta la hora en que
+     * se mostrará el frame que se va a dibujar (0 = sin predicción)
+     * @param expectedDisplayTimeNanos instante de presentación esperado (reloj uptime en ns)
+     */
+    public int processPendingInput(long expectedDisplayTimeNanos) {
+        this.expectedDisplayTimeNanos = expectedDisplayTimeNanos;
+        return eventQueue.drain(recordConsumer);
+    }
+    
+    /**
+     * Aplica un registro de la cola al estado de toques (hilo de juego)
+     */
+    private void onTouchRecord(long sequence, int action, int pointerId, float x, float y,
+                               long eventTimeNanos, int flags) {
+        lastProcessedSequence = sequence;
+        lastEventTimeNanos = eventTimeNanos;
+        long eventTime = eventTimeNanos / 1_000_000L;
+        
+        // Se traza un registro por MotionEvent (el último del lote, con su tiempo exacto)
+        if (latencyTracer != null && (flags & TouchEventQueue.FLAG_BATCH_END) != 0) {
+            latencyTracer.onInputConsumed(sequence, eventTimeNanos);
+        }
         
         switch (action) {
             case MotionEvent.ACTION_DOWN:
-                return handleActionDown(event);
+                handleActionDown(pointerId, x, y, eventTime);
+                feedPredictor(pointerId, x, y, eventTimeNanos);
+                break;
                 
             case MotionEvent.ACTION_POINTER_DOWN:
-                return handleActionPointerDown(event);
+                handleActionPointerDown(pointerId, x, y, eventTime);
+                break;
                 
             case MotionEvent.ACTION_MOVE:
-                return handleActionMove(event);
+                applyMove(pointerId, x, y, eventTime);
+                feedPredictor(pointerId, x, y, eventTimeNanos);
+                if ((flags & TouchEventQueue.FLAG_BATCH_END) != 0) {
+                    finishMoveBatch();
+                }
+                break;
                 
             case MotionEvent.ACTION_UP:
-                return handleActionUp(event);
+                handleActionUp(pointerId, x, y, eventTime);
+                break;
                 
             case MotionEvent.ACTION_POINTER_UP:
-                return handleActionPointerUp(event);
+                handleActionPointerUp(pointerId);
+                break;
                 
             case MotionEvent.ACTION_CANCEL:
-                return handleActionCancel(event);
+                handleActionCancel();
+                break;
         }
-        
-        return true;
+    }
+    
+    /**
+     * Alimenta el predictor con las muestras del toque principal (incluidas las históricas)
+     */
+    private void feedPredictor(int pointerId, float x, float y, long eventTimeNanos) {
+        if (firstTouch == null || firstTouch.id != pointerId) {
+            return;
+        }
+        if (pointerId != predictedPointerId) {
+            // Nuevo dedo principal: el historial anterior no sirve
+            predictor.reset();
+            predictedPointerId = pointerId;
+        }
+        predictor.addSample(x, y, eventTimeNanos);
     }
     
     /**
      * Maneja ACTION_DOWN (primer toque)
      */
-    private boolean handleActionDown(MotionEvent event) {
-        int pointerId = event.getPointerId(0);
-        float x = event.getX();
-        float y = event.getY();
-        
+    private void handleActionDown(int pointerId, float x, float y, long eventTime) {
         // Verificar si tocó un input virtual
         VirtualInput virtualInput = getVirtualInputAt(x, y);
         if (virtualInput != null) {
@@ -269,11 +389,15 @@ public class InputHandler implements View.OnTouchListener {
             if (listener != null) {
                 listener.onVirtualInput(virtualInput.id, true);
             }
-            return true;
+            return;
         }
         
+        // Nuevo gesto: la predicción empieza de cero
+        predictor.reset();
+        predictedPointerId = -1;
+        
         // Crear nuevo touch data
-        TouchData touch = new TouchData(pointerId, x, y);
+        TouchData touch = new TouchData(pointerId, x, y, eventTime);
         activeTouches.add(touch);
         touchMap.put(pointerId, touch);
         
@@ -281,23 +405,18 @@ public class InputHandler implements View.OnTouchListener {
         currentState = InputState.TOUCHING;
         
         if (listener != null) {
-            listener.onTouchDown(new PointF(x, y));
+            callbackPoint.set(x, y);
+            listener.onTouchDown(callbackPoint);
         }
-        
-        return true;
     }
     
     /**
      * Maneja ACTION_POINTER_DOWN (toques adicionales)
      */
-    private boolean handleActionPointerDown(MotionEvent event) {
-        if (activeTouches.size() >= 2) return true;
-        
-        int pointerId = event.getPointerId(event.getActionIndex());
-        float x = event.getX(event.getActionIndex());
-        float y = event.getY(event.getActionIndex());
+    private void handleActionPointerDown(int pointerId, float x, float y, long eventTime) {
+        if (activeTouches.size() >= 2) return;
         
-        TouchData touch = new TouchData(pointerId, x, y);
+        TouchData touch = new TouchData(pointerId, x, y, eventTime);
         activeTouches.add(touch);
         touchMap.put(pointerId, touch);
         
@@ -306,38 +425,34 @@ public class InputHandler implements View.OnTouchListener {
             initializePinchDetection();
             currentState = InputState.PINCHING;
         }
-        
-        return true;
     }
     
     /**
-     * Maneja ACTION_MOVE (movimiento)
+     * Aplica una muestra de ACTION_MOVE a su puntero
      */
-    private boolean handleActionMove(MotionEvent event) {
-        int pointerCount = event.getPointerCount();
+    private void applyMove(int pointerId, float x, float y, long eventTime) {
+        TouchData touch = touchMap.get(pointerId);
         
-        for (int i = 0; i < pointerCount; i++) {
-            int pointerId = event.getPointerId(i);
-            TouchData touch = touchMap.get(pointerId);
+        if (touch != null && touch.isActive) {
+            touch.lastPosition.set(touch.position.x, touch.position.y);
+            touch.position.set(x, y);
+            touch.lastEventTime = eventTime;
             
-            if (touch != null && touch.isActive) {
-                float x = event.getX(i);
-                float y = event.getY(i);
-                
-                touch.lastPosition.set(touch.position.x, touch.position.y);
-                touch.position.set(x, y);
-                
-                // Verificar si sigue siendo un input virtual
-                VirtualInput virtualInput = getVirtualInputAt(x, y);
-                if (virtualInput != null) {
-                    virtualInput.pressed = true;
-                } else {
-                    // Liberar cualquier input virtual que no esté siendo presionado
-                    releaseUnusedVirtualInputs(x, y);
-                }
+            // Verificar si sigue siendo un input virtual
+            VirtualInput virtualInput = getVirtualInputAt(x, y);
+            if (virtualInput != null) {
+                virtualInput.pressed = true;
+            } else {
+                // Liberar cualquier input virtual que no esté siendo presionado
+                releaseUnusedVirtualInputs(x, y);
             }
         }
-        
+    }
+    
+    /**
+     * Cierra un ACTION_MOVE completo: estado, gestos y notificación una vez por evento
+     */
+    private void finishMoveBatch() {
         // Actualizar estado basado en el movimiento
         updateMovementState();
         
@@ -348,22 +463,26 @@ public class InputHandler implements View.OnTouchListener {
             updateSwipeGesture();
         }
         
-        // Notificar movimiento
+        // Notificar movimiento (posición predicha para el frame que se va a mostrar)
         if (listener != null && firstTouch != null) {
-            listener.onTouchMove(new PointF(firstTouch.position.x, firstTouch.position.y));
+            if (!predictionEnabled || expectedDisplayTimeNanos <= 0
+                    || !predictor.predict(expectedDisplayTimeNanos, callbackPoint)) {
+                callbackPoint.set(firstTouch.position.x, firstTouch.position.y);
+            }
+            listener.onTouchMove(callbackPoint);
         }
-        
-        return true;
     }
     
     /**
      * Maneja ACTION_UP (fin de toque)
      */
-    private boolean handleActionUp(MotionEvent event) {
-        int pointerId = event.getPointerId(0);
+    private void handleActionUp(int pointerId, float x, float y, long eventTime) {
         TouchData touch = touchMap.get(pointerId);
         
         if (touch != null) {
+            touch.position.set(x, y);
+            touch.lastEventTime = eventTime;
+            
             // Verificar gesture final
             detectFinalGesture(touch);
             
@@ -372,34 +491,29 @@ public class InputHandler implements View.OnTouchListener {
             
             // Notificar touch up
             if (listener != null) {
-                listener.onTouchUp(new PointF(touch.position.x, touch.position.y));
+                callbackPoint.set(touch.position.x, touch.position.y);
+                listener.onTouchUp(callbackPoint);
             }
         }
-        
-        return true;
     }
     
     /**
      * Maneja ACTION_POINTER_UP (fin de toque adicional)
      */
-    private boolean handleActionPointerUp(MotionEvent event) {
-        int pointerId = event.getPointerId(event.getActionIndex());
+    private void handleActionPointerUp(int pointerId) {
         removeTouch(pointerId);
         
         if (activeTouches.size() < 2) {
             currentState = InputState.TOUCHING;
         }
-        
-        return true;
     }
     
     /**
      * Maneja ACTION_CANCEL
      */
-    private boolean handleActionCancel(MotionEvent event) {
+    private void handleActionCancel() {
         clearAllTouches();
         currentState = InputState.IDLE;
-        return true;
     }
     
     /**
@@ -467,7 +581,7 @@ public class InputHandler implements View.OnTouchListener {
      * Detecta gesture final al soltar
      */
     private void detectFinalGesture(TouchData touch) {
-        long duration = System.currentTimeMillis() - touch.startTime;
+        long duration = touch.lastEventTime - touch.startTime;
         float distance = touch.getDistanceFromStart();
         
         if (duration < TAP_TIME_THRESHOLD && distance < TAP_THRESHOLD) {
@@ -622,6 +736,70 @@ public class InputHandler implements View.OnTouchListener {
         return firstTouch != null ? new PointF(firstTouch.position.x, firstTouch.position.y) : null;
     }
     
+    /**
+     * Copia la posición del toque principal en out sin crear objetos
+     * @return false si no hay toque activo
+     */
+    public boolean getPrimaryTouchPosition(PointF out) {
+        if (firstTouch == null) return false;
+        out.set(firstTouch.position.x, firstTouch.position.y);
+        return true;
+    }
+    
+    /**
+     * Secuencia del último registro procesado (-1 si aún no hay ninguno); dentro de los
+     * callbacks del listener es la del evento que los provoca, para Player.setTarget(x, y, secuencia)
+     */
+    public long getLastProcessedSequence() {
+        return lastProcessedSequence;
+    }
+    
+    /**
+     * Marca de tiempo del último registro procesado (ns, reloj uptime)
+     */
+    public long getLastEventTimeNanos() {
+        return lastEventTimeNanos;
+    }
+    
+    public TouchEventQueue getEventQueue() {
+        return eventQueue;
+    }
+    
+    /**
+     * Posición predicha del toque principal para el instante dado
+     * @return false si no hay toque activo
+     */
+    public boolean getPredictedPrimaryPosition(long displayTimeNanos, PointF out) {
+        if (firstTouch == null) return false;
+        if (!predictionEnabled || !predictor.predict(displayTimeNanos, out)) {
+            out.set(firstTouch.position.x, firstTouch.position.y);
+        }
+        return true;
+    }
+    
+    public void setPredictionEnabled(boolean enabled) {
+        this.predictionEnabled = enabled;
+    }
+    
+    public boolean isPredictionEnabled() {
+        return predictionEnabled;
+    }
+    
+    /**
+     * Predictor del toque principal, para elegir filtro (1€, Kalman) y ajustar parámetros
+     */
+    public TouchPredictor getPredictor() {
+        return predictor;
+    }
+    
+    public void setListener(InputListener listener) {
+        this.listener = listener;
+    }
+    
+    public void setLatencyTracer(InputLatencyTracer latencyTracer) {
+        this.latencyTracer = latencyTracer;
+    }
+    
     public float getPinchScale() {
         if (firstTouch != null && secondTouch != null && initialPinchDistance > 0) {
             float currentDistance = calculateDistance(firstTouch.position, secondTouch.position);
@@ -634,6 +812,7 @@ public class InputHandler implements View.OnTouchListener {
      * Fuerza la liberación de todos los inputs
      */
     public void forceRelease() {
+        eventQueue.clear();
         clearAllTouches();
         currentState = InputState.IDLE;
     }
@@ -0,0 +1,262 @@
+package com.gaming.enhancedagar.game;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Trazado de latencia entrada -> fotón
+ * Cada registro de la TouchEventQueue conserva su número de secuencia a lo largo del
+ * tick que lo consume, del objetivo del jugador que lo aplica y del primer frame que
+ * lo refleja. Las marcas de tiempo usan un reloj inyectable para poder simular la
+ * superficie sin dispositivo
+ */
+public class InputLatencyTracer {
+    private static final String TAG = "InputLatencyTracer";
+
+    private static final int PENDING_CAPACITY = 256;   // Potencia de dos
+    private static final int LOG_CAPACITY = 1024;
+    private static final long PENDING_TIMEOUT_NANOS = 1_000_000_000L;
+
+    // Eventos consumidos que aún no aparecen en pantalla (en orden de secuencia)
+    private final long[] pendingSequences = new long[PENDING_CAPACITY];
+    private final long[] pendingEventTimes = new long[PENDING_CAPACITY];
+    private final long[] pendingConsumedTimes = new long[PENDING_CAPACITY];
+    private final long[] pendingTargetTimes = new long[PENDING_CAPACITY];
+    private int pendingHead = 0;
+    private int pendingCount = 0;
+    private long lastTargetSequence = -1;
+
+    // Registro exportable de los últimos eventos completados
+    private final long[] logSequences = new long[LOG_CAPACITY];
+    private final long[] logEventTimes = new long[LOG_CAPACITY];
+    private final long[] logConsumedTimes = new long[LOG_CAPACITY];
+    private final long[] logTargetTimes = new long[LOG_CAPACITY];
+    private final long[] logPresentedTimes = new long[LOG_CAPACITY];
+    private int logNext = 0;
+    private int logSize = 0;
+
+    // Histogramas por etapa
+    private final LatencyHistogram consumeHistogram = new LatencyHistogram();
+    private final LatencyHistogram targetHistogram = new LatencyHistogram();
+    private final LatencyHistogram presentHistogram = new LatencyHistogram();
+
+    private long droppedEvents = 0;
+    private long expiredEvents = 0;
+    private LongSupplier clock = System::nanoTime;
+    private boolean enabled = true;
+
+    /**
+     * Histograma de latencias con cubetas fijas de 0,25 ms hasta 250 ms (sin objetos por muestra)
+     */
+    public static class LatencyHistogram {
+        private static final long BUCKET_NANOS = 250_000L;
+        private static final int BUCKETS = 1000;
+
+        private final int[] buckets = new int[BUCKETS + 1]; // Última cubeta: desbordamiento
+        private long count = 0;
+        private long maxNanos = 0;
+
+        public void record(long latencyNanos) {
+            if (latencyNanos < 0) {
+                latencyNanos = 0;
+            }
+            int bucket = (int) Math.min(BUCKETS, latencyNanos / BUCKET_NANOS);
+            buckets[bucket]++;
+            count++;
+            maxNanos = Math.max(maxNanos, latencyNanos);
+        }
+
+        /**
+         * Percentil en milisegundos (límite superior de la cubeta)
+         * @param percentile valor entre 0 y 1
+         */
+        public float getPercentileMs(float percentile) {
+            if (count == 0) {
+                return 0f;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile * count));
+            long seen = 0;
+            for (int i = 0; i <= BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return i == BUCKETS
+                        ? maxNanos / 1_000_000f
+                        : (i + 1) * BUCKET_NANOS / 1_000_000f;
+                }
+            }
+            return maxNanos / 1_000_000f;
+        }
+
+        public long getCount() { return count; }
+        public float getMaxMs() { return maxNanos / 1_000_000f; }
+
+        public void reset() {
+            Arrays.fill(buckets, 0);
+            count = 0;
+            maxNanos = 0;
+        }
+    }
+
+    /**
+     * Reloj en nanosegundos (por defecto System.nanoTime, mismo origen que MotionEvent)
+     */
+    public synchronized void setClock(LongSupplier clock) {
+        this.clock = clock != null ? clock : System::nanoTime;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // === ETAPAS ===
+
+    /**
+     * El tick actual ha consumido el evento con esta secuencia
+     */
+    public synchronized void onInputConsumed(long sequence, long eventTimeNanos) {
+        if (!enabled) return;
+        if (pendingCount == PENDING_CAPACITY) {
+            // Sin espacio: se descarta el más antiguo
+            pendingHead = (pendingHead + 1) & (PENDING_CAPACITY - 1);
+            pendingCount--;
+            droppedEvents++;
+        }
+        int index = (pendingHead + pendingCount) & (PENDING_CAPACITY - 1);
+        pendingSequences[index] = sequence;
+        pendingEventTimes[index] = eventTimeNanos;
+        pendingConsumedTimes[index] = clock.getAsLong();
+        pendingTargetTimes[index] = 0;
+        pendingCount++;
+    }
+
+    /**
+     * El objetivo del jugador refleja ya los eventos hasta esta secuencia
+     * (se llama tras procesar la entrada del tick con Player.getTargetInputSequence())
+     */
+    public synchronized void onTargetObserved(long sequence) {
+        if (!enabled || sequence <= lastTargetSequence) return;
+        lastTargetSequence = sequence;
+        long now = clock.getAsLong();
+        for (int i = 0; i < pendingCount; i++) {
+            int index = (pendingHead + i) & (PENDING_CAPACITY - 1);
+            if (pendingSequences[index] > sequence) break;
+            if (pendingTargetTimes[index] == 0) {
+                pendingTargetTimes[index] = now;
+            }
+        }
+    }
+
+    /**
+     * Se ha presentado un frame dibujado con el objetivo vigente; los eventos hasta esa
+     * secuencia completan su recorrido y se añaden a los histogramas
+     */
+    public synchronized void onFramePresented() {
+        if (!enabled) return;
+        long now = clock.getAsLong();
+        while (pendingCount > 0) {
+            int index = pendingHead;
+            boolean reflected = pendingSequences[index] <= lastTargetSequence;
+            boolean expired = now - pendingConsumedTimes[index] > PENDING_TIMEOUT_NANOS;
+            if (!reflected && !expired) break;
+
+            if (reflected) {
+                long eventTime = pendingEventTimes[index];
+                consumeHistogram.record(pendingConsumedTimes[index] - eventTime);
+                targetHistogram.record(pendingTargetTimes[index] - eventTime);
+                presentHistogram.record(now - eventTime);
+                appendLog(pendingSequences[index], eventTime, pendingConsumedTimes[index],
+                          pendingTargetTimes[index], now);
+            } else {
+                // Eventos que nunca movieron el objetivo (botones virtuales, gestos)
+                expiredEvents++;
+            }
+            pendingHead = (pendingHead + 1) & (PENDING_CAPACITY - 1);
+            pendingCount--;
+        }
+    }
+
+    private void appendLog(long sequence, long eventTime, long consumedTime, long targetTime, long presentedTime) {
+        logSequences[logNext] = sequence;
+        logEventTimes[logNext] = eventTime;
+        logConsumedTimes[logNext] = consumedTime;
+        logTargetTimes[logNext] = targetTime;
+        logPresentedTimes[logNext] = presentedTime;
+        logNext = (logNext + 1) % LOG_CAPACITY;
+        logSize = Math.min(LOG_CAPACITY, logSize + 1);
+    }
+
+    // === INFORMES ===
+
+    /**
+     * Exporta los últimos eventos completados en CSV (tiempos en ns, reloj del trazador)
+     */
+    public synchronized void exportLog(Appendable out) throws IOException {
+        out.append("sequence,event_ns,consumed_ns,target_ns,presented_ns,total_ms\n");
+        int first = (logNext - logSize + LOG_CAPACITY) % LOG_CAPACITY;
+        for (int i = 0; i < logSize; i++) {
+            int index = (first + i) % LOG_CAPACITY;
+            out.append(Long.toString(logSequences[index])).append(',')
+               .append(Long.toString(logEventTimes[index])).append(',')
+               .append(Long.toString(logConsumedTimes[index])).append(',')
+               .append(Long.toString(logTargetTimes[index])).append(',')
+               .append(Long.toString(logPresentedTimes[index])).append(',')
+               .append(String.format(Locale.US, "%.3f",
+                       (logPresentedTimes[index] - logEventTimes[index]) / 1_000_000f))
+               .append('\n');
+        }
+    }
+
+    /**
+     * Línea resumen para el overlay de debug
+     */
+    public synchronized String getSummary() {
+        return String.format(Locale.US, "Latencia p50/p95/p99: %.1f/%.1f/%.1f ms (n=%d)",
+            presentHistogram.getPercentileMs(0.50f),
+            presentHistogram.getPercentileMs(0.95f),
+            presentHistogram.getPercentileMs(0.99f),
+            presentHistogram.getCount());
+    }
+
+    /**
+     * Escribe en el log los percentiles de cada etapa
+     */
+    public synchronized void logSummary() {
+        Log.i(TAG, String.format(Locale.US,
+            "entrada->tick p50=%.1f p95=%.1f p99=%.1f | ->objetivo p50=%.1f p95=%.1f p99=%.1f | " +
+            "->frame p50=%.1f p95=%.1f p99=%.1f ms (n=%d, descartados=%d, sin efecto=%d)",
+            consumeHistogram.getPercentileMs(0.5f), consumeHistogram.getPercentileMs(0.95f),
+            consumeHistogram.getPercentileMs(0.99f),
+            targetHistogram.getPercentileMs(0.5f), targetHistogram.getPercentileMs(0.95f),
+            targetHistogram.getPercentileMs(0.99f),
+            presentHistogram.getPercentileMs(0.5f), presentHistogram.getPercentileMs(0.95f),
+            presentHistogram.getPercentileMs(0.99f),
+            presentHistogram.getCount(), droppedEvents, expiredEvents));
+    }
+
+    public synchronized void reset() {
+        pendingHead = 0;
+        pendingCount = 0;
+        lastTargetSequence = -1;
+        logNext = 0;
+        logSize = 0;
+        consumeHistogram.reset();
+        targetHistogram.reset();
+        presentHistogram.reset();
+        droppedEvents = 0;
+        expiredEvents = 0;
+    }
+
+    public LatencyHistogram getConsumeHistogram() { return consumeHistogram; }
+    public LatencyHistogram getTargetHistogram() { return targetHistogram; }
+    public LatencyHistogram getPresentHistogram() { return presentHistogram; }
+    public long getDroppedEvents() { return droppedEvents; }
+    public long getExpiredEvents() { return expiredEvents; }
+}
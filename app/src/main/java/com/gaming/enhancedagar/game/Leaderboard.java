@@ -0,0 +1,268 @@
+package com.gaming.enhancedagar.game;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Clasificación incremental sobre una skip list indexada
+ * Cada enlace guarda cuántas posiciones salta, así que actualizar una puntuación, pedir
+ * el rango de un participante o el participante de un rango cuesta O(log n) y el top-K
+ * se recorre en O(K) sin copiar nada. Orden: mayor puntuación primero y, a igualdad,
+ * quien la alcanzó antes. Los nodos se reutilizan al cambiar la puntuación.
+ * Los métodos están sincronizados: la simulación escribe y el HUD lee desde otro hilo
+ */
+public class Leaderboard<K> {
+
+    /**
+     * Visitante del top-K
+     */
+    public interface Visitor<K> {
+        void visit(int rank, K key, double score);
+    }
+
+    private static final int MAX_LEVEL = 12;       // Con p = 1/4 basta para millones de entradas
+    private static final int LEVEL_PROBABILITY = 4;
+
+    private static final class Node<K> {
+        K key;
+        double score;
+        long order;
+        final Node<K>[] next;
+        final int[] width;   // Posiciones que avanza cada enlace
+
+        @SuppressWarnings("unchecked")
+        Node(int levels) {
+            next = (Node<K>[]) new Node<?>[levels];
+            width = new int[levels];
+        }
+    }
+
+    private final Node<K> head = new Node<>(MAX_LEVEL);
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private final Random random = new Random();
+    private int level = 1;
+    private int size = 0;
+    private long nextOrder = 0;
+    private int version = 0;
+
+    // Buffers de búsqueda reutilizados
+    @SuppressWarnings("unchecked")
+    private final Node<K>[] update = (Node<K>[]) new Node<?>[MAX_LEVEL];
+    private final int[] traversed = new int[MAX_LEVEL];
+
+    // === ACTUALIZACIÓN ===
+
+    /**
+     * Fija la puntuación de un participante (lo añade si no estaba)
+     */
+    public synchronized void setScore(K key, double score) {
+        Node<K> node = nodes.get(key);
+        if (node != null) {
+            if (node.score == score) {
+                return;
+            }
+            unlink(node);
+        } else {
+            node = new Node<>(randomLevel());
+            node.key = key;
+            nodes.put(key, node);
+        }
+        node.score = score;
+        node.order = nextOrder++;
+        link(node);
+        version++;
+    }
+
+    /**
+     * Suma a la puntuación actual (0 si no estaba)
+     * @return nueva puntuación
+     */
+    public synchronized double addScore(K key, double delta) {
+        Node<K> node = nodes.get(key);
+        double score = (node != null ? node.score : 0) + delta;
+        setScore(key, score);
+        return score;
+    }
+
+    public synchronized void remove(K key) {
+        Node<K> node = nodes.remove(key);
+        if (node != null) {
+            unlink(node);
+            version++;
+        }
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+            head.width[i] = 0;
+        }
+        nodes.clear();
+        level = 1;
+        size = 0;
+        version++;
+    }
+
+    // === CONSULTAS ===
+
+    /**
+     * Rango (1 = primero) de un participante, o 0 si no está
+     */
+    public synchronized int getRank(K key) {
+        Node<K> node = nodes.get(key);
+        if (node == null) {
+            return 0;
+        }
+        Node<K> x = head;
+        int rank = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && (x.next[i] == node || precedes(x.next[i], node))) {
+                rank += x.width[i];
+                x = x.next[i];
+            }
+            if (x == node) {
+                return rank;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Participante en el rango dado (1 = primero), o null si no existe
+     */
+    public synchronized K getKeyAt(int rank) {
+        Node<K> node = nodeAt(rank);
+        return node != null ? node.key : null;
+    }
+
+    /**
+     * Puntuación en el rango dado, o NaN si no existe
+     */
+    public synchronized double getScoreAt(int rank) {
+        Node<K> node = nodeAt(rank);
+        return node != null ? node.score : Double.NaN;
+    }
+
+    /**
+     * Puntuación de un participante (0 si no está)
+     */
+    public synchronized double getScore(K key) {
+        Node<K> node = nodes.get(key);
+        return node != null ? node.score : 0;
+    }
+
+    /**
+     * Recorre los k primeros en orden sin copiar la clasificación
+     */
+    public synchronized void forEachTop(int k, Visitor<K> visitor) {
+        Node<K> x = head.next[0];
+        for (int rank = 1; rank <= k && x != null; rank++) {
+            visitor.visit(rank, x.key, x.score);
+            x = x.next[0];
+        }
+    }
+
+    public synchronized boolean contains(K key) { return nodes.containsKey(key); }
+    public synchronized int size() { return size; }
+
+    /**
+     * Se incrementa con cada cambio de puntuación, alta o baja
+     */
+    public synchronized int getVersion() { return version; }
+
+    // === SKIP LIST ===
+
+    /**
+     * a va antes que b en la clasificación
+     */
+    private static <K> boolean precedes(Node<K> a, Node<K> b) {
+        return a.score > b.score || (a.score == b.score && a.order < b.order);
+    }
+
+    private Node<K> nodeAt(int rank) {
+        if (rank < 1 || rank > size) {
+            return null;
+        }
+        Node<K> x = head;
+        int position = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && position + x.width[i] <= rank) {
+                position += x.width[i];
+                x = x.next[i];
+            }
+            if (position == rank) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    private void link(Node<K> node) {
+        Node<K> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            traversed[i] = i == level - 1 ? 0 : traversed[i + 1];
+            while (x.next[i] != null && precedes(x.next[i], node)) {
+                traversed[i] += x.width[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int levels = node.next.length;
+        if (levels > level) {
+            for (int i = level; i < levels; i++) {
+                traversed[i] = 0;
+                update[i] = head;
+                head.width[i] = size;
+            }
+            level = levels;
+        }
+
+        for (int i = 0; i < levels; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.width[i] = update[i].width[i] - (traversed[0] - traversed[i]);
+            update[i].width[i] = traversed[0] - traversed[i] + 1;
+        }
+        // Los enlaces superiores que pasan por encima del nodo avanzan una posición más
+        for (int i = levels; i < level; i++) {
+            update[i].width[i]++;
+        }
+        size++;
+    }
+
+    private void unlink(Node<K> node) {
+        Node<K> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && precedes(x.next[i], node)) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].width[i] += node.width[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].width[i]--;
+            }
+        }
+        for (int i = 0; i < node.next.length; i++) {
+            node.next[i] = null;
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+    }
+
+    private int randomLevel() {
+        int levels = 1;
+        while (levels < MAX_LEVEL && random.nextInt(LEVEL_PROBABILITY) == 0) {
+            levels++;
+        }
+        return levels;
+    }
+}
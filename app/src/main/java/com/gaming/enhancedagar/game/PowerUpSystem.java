@@ -13,10 +13,15 @@ import android.graphics.PointF;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 
 /**
  * Sistema completo de power-ups para EnhancedAgar
  * Implementa power-ups temporales únicos con efectos visuales e interacciones
+ *
+ * La expiración y el spawn funcionan por eventos: las expiraciones están en un montículo
+ * ordenado por tick de fin y cada tipo guarda el instante de su próximo intento de spawn,
+ * así un tick sin eventos vencidos no recorre jugadores ni tipos
  */
 public class PowerUpSystem {
     
@@ -90,40 +95,63 @@ public class PowerUpSystem {
         public final PowerUpConfig config;
         public final long startTime;
         public final Player player;
-        private int remainingDuration;
+        private final LongSupplier clock; // Tick del sistema (null = contador propio)
+        private long ownTicks;
+        private final long endTick;
         private boolean isActive;
+        int heapIndex = -1; // Posición en el montículo de expiraciones
         
         public ActivePowerUp(PowerUpConfig config, Player player, int duration) {
+            this(config, player, duration, null, 0);
+        }
+        
+        ActivePowerUp(PowerUpConfig config, Player player, int duration, LongSupplier clock, long startTick) {
             this.config = config;
             this.player = player;
             this.startTime = System.currentTimeMillis();
-            this.remainingDuration = duration;
+            this.clock = clock;
+            this.endTick = startTick + duration;
             this.isActive = true;
         }
         
+        private long currentTick() {
+            return clock != null ? clock.getAsLong() : ownTicks;
+        }
+        
+        /**
+         * Solo para power-ups sueltos: los del sistema avanzan con su reloj de ticks
+         */
         public void update() {
-            if (remainingDuration > 0) {
-                remainingDuration--;
-            } else {
+            if (clock == null) {
+                ownTicks++;
+            }
+            if (getRemainingTicks() <= 0) {
                 isActive = false;
             }
         }
         
         public void forceDeactivate() {
             isActive = false;
-            remainingDuration = 0;
+        }
+        
+        public long getRemainingTicks() {
+            return isActive ? Math.max(0, endTick - currentTick()) : 0;
+        }
+        
+        public long getEndTick() {
+            return endTick;
         }
         
         public float getTimeRemaining() {
-            return remainingDuration / 60.0f; // Convertir a segundos (60 FPS)
+            return getRemainingTicks() / 60.0f; // Convertir a segundos (60 FPS)
         }
         
         public float getProgress() {
-            return 1.0f - (float) remainingDuration / config.duration;
+            return 1.0f - (float) getRemainingTicks() / config.duration;
         }
         
         public boolean isExpired() {
-            return !isActive || remainingDuration <= 0;
+            return !isActive || getRemainingTicks() <= 0;
         }
         
         public boolean isActive() {
@@ -138,6 +166,7 @@ public class PowerUpSystem {
         private boolean collected;
         private long spawnTime;
         private double rotation;
+        int spawnSample = SpawnSampler.NO_SAMPLE; // Hueco reservado en el muestreador
         
         public MapPowerUp(PowerUpConfig config, Point position) {
             this.config = config;
@@ -167,10 +196,36 @@ public class PowerUpSystem {
     // Estado del sistema
     private final List<MapPowerUp> activeMapPowerUps;
     private final Map<Player, List<ActivePowerUp>> playerPowerUps;
-    private final Map<PowerUpType, Integer> lastSpawnTime;
+    private final long[] lastSpawnTime; // Por ordinal de PowerUpType, en ms
     private final Random random;
     private final RectF gameBounds;
     
+    // Reloj de ticks: una llamada a update() = un tick
+    private long currentTick = 0;
+    private final LongSupplier tickClock = () -> currentTick;
+    
+    // Montículo mínimo de power-ups activos ordenado por tick de fin
+    private ActivePowerUp[] expiryHeap = new ActivePowerUp[32];
+    private int expiryCount = 0;
+    
+    // Próximo intento de spawn por tipo (ms) y mínimo global
+    private static final PowerUpType[] TYPES = PowerUpType.values();
+    private static final long TICK_MILLIS = 1000 / 60;
+    private final long[] nextSpawnAttempt = new long[TYPES.length];
+    private final boolean[] spawnRollPassed = new boolean[TYPES.length]; // Sorteo ya ganado, falta el momento
+    private final boolean[] waitingForRoom = new boolean[TYPES.length]; // Mapa lleno: espera a una recogida
+    private long nextSpawnDue = 0;
+    
+    // Contadores mantenidos en cada alta y baja
+    private int liveMapPowerUps = 0;
+    
+    // Colocación con separación mínima entre power-ups
+    private static final int SPAWN_MARGIN = 50;
+    private static final float SPAWN_MIN_DISTANCE = 100f;
+    private final SpawnSampler spawnSampler;
+    private final float[] spawnPoint = new float[2];
+    private int activePlayerPowerUps = 0;
+    
     // Configuraciones predefinidas de power-ups
     private static final Map<PowerUpType, PowerUpConfig> BASE_CONFIGS;
     
@@ -211,128 +266,147 @@ public class PowerUpSystem {
     public PowerUpSystem(RectF gameBounds) {
         this.activeMapPowerUps = new ArrayList<>();
         this.playerPowerUps = new HashMap<>();
-        this.lastSpawnTime = new HashMap<>();
+        this.lastSpawnTime = new long[TYPES.length];
         this.random = new Random();
         this.gameBounds = gameBounds;
-        
-        // Inicializar cooldowns de spawn
-        for (PowerUpType type : PowerUpType.values()) {
-            lastSpawnTime.put(type, 0);
-        }
+        this.spawnSampler = new SpawnSampler(gameBounds.left + SPAWN_MARGIN, gameBounds.top + SPAWN_MARGIN,
+                                             gameBounds.width() - 2 * SPAWN_MARGIN,
+                                             gameBounds.height() - 2 * SPAWN_MARGIN,
+                                             SPAWN_MIN_DISTANCE, 1, 1, random);
+    }
+    
+    /**
+     * Evita spawnear power-ups encima de células grandes de la fase ancha compartida
+     */
+    public void setSpawnExclusionGrid(SpatialGrid grid, float minRadius, float margin) {
+        spawnSampler.setExclusionGrid(grid,
+                                      (1 << SpatialGrid.CATEGORY_PLAYER) | (1 << SpatialGrid.CATEGORY_BOT),
+                                      minRadius, margin);
     }
     
     /**
      * Actualiza todo el sistema de power-ups
      */
     public void update() {
-        // Actualizar power-ups en el mapa
-        for (MapPowerUp powerUp : activeMapPowerUps) {
-            if (!powerUp.isCollected()) {
-                powerUp.update();
-            }
+        currentTick++;
+        
+        // Actualizar power-ups en el mapa (solo los vivos siguen en la lista)
+        for (int i = 0; i < activeMapPowerUps.size(); i++) {
+            activeMapPowerUps.get(i).update();
         }
         
-        // Actualizar power-ups de jugadores
-        for (List<ActivePowerUp> powerUps : playerPowerUps.values()) {
-            for (ActivePowerUp powerUp : powerUps) {
-                powerUp.update();
-                if (powerUp.isExpired()) {
-                    applyPowerUpEndEffects(powerUp);
-                }
-            }
-            // Remover power-ups expirados
-            powerUps.removeIf(ActivePowerUp::isExpired);
+        // Expirar solo los power-ups vencidos
+        while (expiryCount > 0 && expiryHeap[0].getEndTick() <= currentTick) {
+            ActivePowerUp powerUp = expiryHeap[0];
+            removeFromExpiryHeap(powerUp);
+            powerUp.forceDeactivate();
+            applyPowerUpEndEffects(powerUp);
+            detachFromPlayer(powerUp);
         }
         
         // Spawn automático de power-ups
-        spawnRandomPowerUps();
+        long now = System.currentTimeMillis();
+        if (now >= nextSpawnDue) {
+            spawnRandomPowerUps(now);
+        }
     }
     
     /**
-     * Genera power-ups aleatorios en el mapa
+     * Procesa los intentos de spawn vencidos y programa el siguiente de cada tipo
      */
-    private void spawnRandomPowerUps() {
-        for (PowerUpType type : PowerUpType.values()) {
-            if (shouldSpawnPowerUp(type)) {
-                spawnPowerUp(type);
-                lastSpawnTime.put(type, (int) System.currentTimeMillis());
+    private void spawnRandomPowerUps(long now) {
+        long nextDue = Long.MAX_VALUE;
+        for (int t = 0; t < TYPES.length; t++) {
+            if (waitingForRoom[t]) continue;
+            if (nextSpawnAttempt[t] <= now) {
+                processSpawnAttempt(TYPES[t], now);
+            }
+            if (!waitingForRoom[t]) {
+                nextDue = Math.min(nextDue, nextSpawnAttempt[t]);
             }
         }
+        nextSpawnDue = nextDue;
     }
     
     /**
-     * Determina si debe spawnear un power-up del tipo especificado
+     * Intento de spawn de un tipo cuyo cooldown ya ha pasado
+     * Equivale a sortear la rareza en cada tick: el número de ticks fallidos sigue una
+     * distribución geométrica, así que se muestrea una vez y se programa el spawn directamente
      */
-    private boolean shouldSpawnPowerUp(PowerUpType type) {
+    private void processSpawnAttempt(PowerUpType type, long now) {
+        int t = type.ordinal();
         PowerUpConfig config = BASE_CONFIGS.get(type);
-        int lastSpawn = lastSpawnTime.get(type);
-        long currentTime = System.currentTimeMillis();
-        
-        // Verificar cooldown de spawn
-        long timeSinceLastSpawn = currentTime - lastSpawn;
-        long minSpawnInterval = getMinSpawnInterval(config.rarity);
         
-        if (timeSinceLastSpawn < minSpawnInterval) {
-            return false;
+        // Verificar límite de power-ups en mapa
+        if (liveMapPowerUps >= getMaxPowerUpsInMap()) {
+            waitingForRoom[t] = true;
+            return;
         }
         
-        // Verificar límite de power-ups en mapa
-        long maxPowerUpsInMap = getMaxPowerUpsInMap();
-        if (activeMapPowerUps.stream().filter(p -> !p.isCollected()).count() >= maxPowerUpsInMap) {
-            return false;
+        if (!spawnRollPassed[t]) {
+            long failedTicks = sampleFailedTicks(config.rarity.getSpawnRate());
+            if (failedTicks > 0) {
+                spawnRollPassed[t] = true;
+                nextSpawnAttempt[t] = now + failedTicks * TICK_MILLIS;
+                return;
+            }
         }
         
-        // Probabilidad basada en rareza
-        return random.nextFloat() < config.rarity.getSpawnRate();
+        spawnRollPassed[t] = false;
+        spawnPowerUp(type);
+        lastSpawnTime[t] = now;
+        nextSpawnAttempt[t] = now + getMinSpawnInterval(config.rarity);
     }
     
     /**
-     * Spawnea un power-up del tipo especificado
+     * Ticks que fallaría el sorteo por tick con probabilidad p antes del primer acierto
      */
-    private void spawnPowerUp(PowerUpType type) {
-        PowerUpConfig config = BASE_CONFIGS.get(type);
-        Point position = findValidSpawnPosition();
-        
-        if (position != null) {
-            activeMapPowerUps.add(new MapPowerUp(config, position));
+    private long sampleFailedTicks(float probability) {
+        if (probability >= 1f) {
+            return 0;
+        }
+        if (probability <= 0f) {
+            return Long.MAX_VALUE / (2 * TICK_MILLIS);
         }
+        double u = random.nextDouble();
+        return (long) Math.floor(Math.log(1.0 - u) / Math.log(1.0 - probability));
     }
     
     /**
-     * Encuentra una posición válida para spawnear
+     * Un power-up ha dejado el mapa: los tipos bloqueados por el límite vuelven a intentarlo
      */
-    private Point findValidSpawnPosition() {
-        int maxAttempts = 10;
-        int margin = 50;
-        
-        for (int i = 0; i < maxAttempts; i++) {
-            int x = random.nextInt((int) (gameBounds.right - gameBounds.left) - 2 * margin) + margin;
-            int y = random.nextInt((int) (gameBounds.bottom - gameBounds.top) - 2 * margin) + margin;
-            Point pos = new Point(x, y);
-            
-            // Verificar que no esté demasiado cerca de otros power-ups
-            if (isValidPosition(pos)) {
-                return pos;
+    private void onMapPowerUpRemoved() {
+        liveMapPowerUps--;
+        for (int t = 0; t < TYPES.length; t++) {
+            if (waitingForRoom[t]) {
+                waitingForRoom[t] = false;
+                nextSpawnDue = Math.min(nextSpawnDue, nextSpawnAttempt[t]);
             }
         }
-        return null;
     }
     
     /**
-     * Verifica si una posición es válida para spawnear
+     * Spawnea un power-up del tipo especificado
      */
-    private boolean isValidPosition(Point position) {
-        int minDistance = 100;
+    private void spawnPowerUp(PowerUpType type) {
+        PowerUpConfig config = BASE_CONFIGS.get(type);
+        int sample = findValidSpawnPosition(spawnPoint);
         
-        for (MapPowerUp powerUp : activeMapPowerUps) {
-            if (!powerUp.isCollected()) {
-                double distance = position.distance(powerUp.position);
-                if (distance < minDistance) {
-                    return false;
-                }
-            }
+        if (sample != SpawnSampler.NO_SAMPLE) {
+            MapPowerUp powerUp = new MapPowerUp(config, new Point((int) spawnPoint[0], (int) spawnPoint[1]));
+            powerUp.spawnSample = sample;
+            activeMapPowerUps.add(powerUp);
+            liveMapPowerUps++;
         }
-        return true;
+    }
+    
+    /**
+     * Encuentra una posición válida para spawnear (disco de Poisson: separación mínima
+     * garantizada sin recorrer los power-ups del mapa)
+     * @return hueco reservado, o NO_SAMPLE si no hay sitio
+     */
+    private int findValidSpawnPosition(float[] out) {
+        return spawnSampler.sample(out);
     }
     
     /**
@@ -352,7 +426,7 @@ public class PowerUpSystem {
     /**
      * Obtiene el número máximo de power-ups en el mapa
      */
-    private long getMaxPowerUpsInMap() {
+    private int getMaxPowerUpsInMap() {
         return 15; // Límite fijo por simplicidad
     }
     
@@ -360,9 +434,16 @@ public class PowerUpSystem {
      * Intenta recoger un power-up para un jugador
      */
     public boolean tryCollectPowerUp(Player player, Point pickupPoint) {
-        for (MapPowerUp powerUp : activeMapPowerUps) {
+        for (int i = 0; i < activeMapPowerUps.size(); i++) {
+            MapPowerUp powerUp = activeMapPowerUps.get(i);
             if (!powerUp.isCollected() && isInPickupRange(player, pickupPoint, powerUp)) {
                 powerUp.collect();
+                // Fuera de la lista en el acto: borrado por intercambio con el último
+                int last = activeMapPowerUps.size() - 1;
+                activeMapPowerUps.set(i, activeMapPowerUps.get(last));
+                activeMapPowerUps.remove(last);
+                spawnSampler.remove(powerUp.spawnSample);
+                onMapPowerUpRemoved();
                 return activatePowerUp(player, powerUp.config);
             }
         }
@@ -385,8 +466,17 @@ public class PowerUpSystem {
         List<ActivePowerUp> playerPowerUps = getPlayerPowerUps(player);
         
         if (config.exclusivePerType) {
-            // Remover power-ups del mismo tipo
-            playerPowerUps.removeIf(p -> p.config.type == config.type);
+            // Remover power-ups del mismo tipo (deshaciendo su efecto)
+            for (int i = playerPowerUps.size() - 1; i >= 0; i--) {
+                ActivePowerUp existing = playerPowerUps.get(i);
+                if (existing.config.type == config.type) {
+                    removeFromExpiryHeap(existing);
+                    existing.forceDeactivate();
+                    applyPowerUpEndEffects(existing);
+                    playerPowerUps.remove(i);
+                    activePlayerPowerUps--;
+                }
+            }
         }
         
         // Verificar cooldowns personales
@@ -395,8 +485,11 @@ public class PowerUpSystem {
         }
         
         // Crear y activar el nuevo power-up
-        ActivePowerUp activePowerUp = new ActivePowerUp(config, player, config.duration);
+        ActivePowerUp activePowerUp = new ActivePowerUp(config, player, config.duration,
+                                                        tickClock, currentTick);
         playerPowerUps.add(activePowerUp);
+        activePlayerPowerUps++;
+        addToExpiryHeap(activePowerUp);
         
         // Aplicar efectos inmediatamente
         applyPowerUpStartEffects(activePowerUp);
@@ -473,6 +566,75 @@ public class PowerUpSystem {
         }
     }
     
+    // === MONTÍCULO DE EXPIRACIONES ===
+    
+    private void addToExpiryHeap(ActivePowerUp powerUp) {
+        if (expiryCount == expiryHeap.length) {
+            expiryHeap = Arrays.copyOf(expiryHeap, expiryCount * 2);
+        }
+        powerUp.heapIndex = expiryCount;
+        expiryHeap[expiryCount++] = powerUp;
+        siftUp(powerUp.heapIndex);
+    }
+    
+    private void removeFromExpiryHeap(ActivePowerUp powerUp) {
+        int index = powerUp.heapIndex;
+        if (index < 0) {
+            return;
+        }
+        powerUp.heapIndex = -1;
+        ActivePowerUp last = expiryHeap[--expiryCount];
+        expiryHeap[expiryCount] = null;
+        if (index < expiryCount) {
+            expiryHeap[index] = last;
+            last.heapIndex = index;
+            siftDown(index);
+            siftUp(last.heapIndex);
+        }
+    }
+    
+    private void siftUp(int index) {
+        ActivePowerUp item = expiryHeap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            ActivePowerUp parentItem = expiryHeap[parent];
+            if (parentItem.getEndTick() <= item.getEndTick()) break;
+            expiryHeap[index] = parentItem;
+            parentItem.heapIndex = index;
+            index = parent;
+        }
+        expiryHeap[index] = item;
+        item.heapIndex = index;
+    }
+    
+    private void siftDown(int index) {
+        ActivePowerUp item = expiryHeap[index];
+        int half = expiryCount >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < expiryCount && expiryHeap[right].getEndTick() < expiryHeap[child].getEndTick()) {
+                child = right;
+            }
+            if (item.getEndTick() <= expiryHeap[child].getEndTick()) break;
+            expiryHeap[index] = expiryHeap[child];
+            expiryHeap[index].heapIndex = index;
+            index = child;
+        }
+        expiryHeap[index] = item;
+        item.heapIndex = index;
+    }
+    
+    /**
+     * Quita un power-up expirado de la lista de su jugador
+     */
+    private void detachFromPlayer(ActivePowerUp powerUp) {
+        List<ActivePowerUp> powerUps = playerPowerUps.get(powerUp.player);
+        if (powerUps != null && powerUps.remove(powerUp)) {
+            activePlayerPowerUps--;
+        }
+    }
+    
     /**
      * Obtiene los power-ups activos de un jugador
      */
@@ -491,6 +653,7 @@ public class PowerUpSystem {
      * Limpia power-ups recogidos del mapa
      */
     public void cleanCollectedPowerUps() {
+        // Los recogidos ya salen de la lista al recogerse; se mantiene por compatibilidad
         activeMapPowerUps.removeIf(MapPowerUp::isCollected);
     }
     
@@ -815,8 +978,11 @@ public class PowerUpSystem {
         
         // Aplicar efectos inversos
         for (ActivePowerUp powerUp : powerUps) {
+            removeFromExpiryHeap(powerUp);
+            powerUp.forceDeactivate();
             applyPowerUpEndEffects(powerUp);
         }
+        activePlayerPowerUps -= powerUps.size();
         
         playerPowerUps.remove(player);
     }
@@ -827,7 +993,11 @@ public class PowerUpSystem {
     public void forceSpawnPowerUp(PowerUpType type, Point position) {
         PowerUpConfig config = BASE_CONFIGS.get(type);
         if (config != null) {
-            activeMapPowerUps.add(new MapPowerUp(config, position));
+            MapPowerUp powerUp = new MapPowerUp(config, position);
+            // Reserva el hueco si está libre; un spawn forzado no se rechaza por cercanía
+            powerUp.spawnSample = spawnSampler.insert(position.x, position.y);
+            activeMapPowerUps.add(powerUp);
+            liveMapPowerUps++;
         }
     }
     
@@ -836,17 +1006,32 @@ public class PowerUpSystem {
      */
     public PowerUpSystemStats getStats() {
         return new PowerUpSystemStats(
-            activeMapPowerUps.size(),
+            liveMapPowerUps,
             playerPowerUps.size(),
-            getTotalActivePlayerPowerUps(),
+            activePlayerPowerUps,
             getPowerUpDistribution()
         );
     }
     
-    private int getTotalActivePlayerPowerUps() {
-        return playerPowerUps.values().stream()
-                .mapToInt(List::size)
-                .sum();
+    /**
+     * Último spawn automático de un tipo (ms, 0 si aún no ha salido)
+     */
+    public long getLastSpawnTime(PowerUpType type) {
+        return lastSpawnTime[type.ordinal()];
+    }
+    
+    /**
+     * Power-ups sin recoger en el mapa (O(1))
+     */
+    public int getLiveMapPowerUpCount() {
+        return liveMapPowerUps;
+    }
+    
+    /**
+     * Power-ups activos entre todos los jugadores (O(1))
+     */
+    public int getActivePlayerPowerUpCount() {
+        return activePlayerPowerUps;
     }
     
     private Map<PowerUpType, Integer> getPowerUpDistribution() {
@@ -0,0 +1,290 @@
+package com.gaming.enhancedagar.game;
+
+import android.util.Log;
+
+import com.gaming.enhancedagar.engine.BackgroundRenderer;
+import com.gaming.enhancedagar.engine.GameEngine;
+import com.gaming.enhancedagar.engine.ParticleSystem;
+import com.gaming.enhancedagar.engine.VisualEffects;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Gobernador de calidad adaptativa
+ * Lee los percentiles de duración de frame de GameThread.PerformanceStats y sube o baja
+ * niveles de calidad con histéresis, aplicando cada nivel a los sistemas conectados
+ */
+public class QualityGovernor {
+
+    private static final String TAG = "QualityGovernor";
+
+    // Niveles de calidad, de menor a mayor coste
+    public enum QualityTier {
+        MINIMAL(ParticleSystem.DetailProfile.LOW, false, 1, 600f, 2, 30),
+        LOW(ParticleSystem.DetailProfile.LOW, false, 2, 1000f, 1, 45),
+        MEDIUM(ParticleSystem.DetailProfile.MEDIUM, true, 3, 1600f, 0, 60),
+        HIGH(ParticleSystem.DetailProfile.HIGH, true, 4, 0f, 0, 60);
+
+        public final ParticleSystem.DetailProfile particleProfile;
+        public final boolean blurEffects;
+        public final int backgroundLayers;
+        public final float aiLodRadius; // 0 = IA completa en todo el mapa
+        public final int detailLevelBias;
+        public final int targetFps;
+
+        QualityTier(ParticleSystem.DetailProfile particleProfile, boolean blurEffects,
+                    int backgroundLayers, float aiLodRadius, int detailLevelBias, int targetFps) {
+            this.particleProfile = particleProfile;
+            this.blurEffects = blurEffects;
+            this.backgroundLayers = backgroundLayers;
+            this.aiLodRadius = aiLodRadius;
+            this.detailLevelBias = detailLevelBias;
+            this.targetFps = targetFps;
+        }
+
+        /**
+         * Presupuesto de tiempo por frame en milisegundos
+         */
+        public float getFrameBudgetMs() {
+            return 1000f / targetFps;
+        }
+    }
+
+    /**
+     * Evento de cambio de nivel para telemetría
+     */
+    public interface QualityListener {
+        void onQualityTierChanged(QualityTier oldTier, QualityTier newTier,
+                                  GameThread.PerformanceStats stats);
+    }
+
+    // Umbrales de histéresis sobre el p95 relativo al presupuesto del frame
+    private static final float DOWNGRADE_RATIO = 1.15f;
+    private static final float UPGRADE_RATIO = 0.65f;
+    private static final int DOWNGRADE_EVALUATIONS = 2;
+    private static final int UPGRADE_EVALUATIONS = 5;
+    private static final int COOLDOWN_EVALUATIONS = 3;
+    private static final int MIN_SAMPLES = 30;
+
+    // Estado
+    private volatile QualityTier currentTier;
+    private QualityTier minTier = QualityTier.MINIMAL;
+    private QualityTier maxTier = QualityTier.HIGH;
+    private boolean enabled = true;
+    private int overBudgetStreak = 0;
+    private int underBudgetStreak = 0;
+    private int cooldown = 0;
+
+    // Telemetría
+    private int downgradeCount = 0;
+    private int upgradeCount = 0;
+    private float lastP95 = 0;
+
+    private final List<QualityListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Sistemas a los que se aplica cada nivel (todos opcionales)
+    private ParticleSystem particleSystem;
+    private VisualEffects visualEffects;
+    private BackgroundRenderer backgroundRenderer;
+    private CoordinateSystem coordinateSystem;
+    private GameEngine gameEngine;
+
+    public QualityGovernor() {
+        this(QualityTier.HIGH);
+    }
+
+    public QualityGovernor(QualityTier initialTier) {
+        this.currentTier = initialTier;
+    }
+
+    /**
+     * Evalúa las estadísticas recientes y cambia de nivel si procede
+     * @return true si el nivel ha cambiado
+     */
+    public synchronized boolean evaluate(GameThread.PerformanceStats stats) {
+        if (!enabled || stats == null || stats.sampleCount < MIN_SAMPLES) {
+            return false;
+        }
+        lastP95 = stats.p95FrameTime;
+
+        // Tras un cambio se espera a que la ventana se llene con frames del nuevo nivel
+        if (cooldown > 0) {
+            cooldown--;
+            return false;
+        }
+
+        QualityTier tier = currentTier;
+        if (stats.p95FrameTime > tier.getFrameBudgetMs() * DOWNGRADE_RATIO) {
+            underBudgetStreak = 0;
+            if (++overBudgetStreak >= DOWNGRADE_EVALUATIONS && tier.ordinal() > minTier.ordinal()) {
+                downgradeCount++;
+                return changeTier(QualityTier.values()[tier.ordinal() - 1], stats);
+            }
+            return false;
+        }
+
+        overBudgetStreak = 0;
+        if (tier.ordinal() >= maxTier.ordinal()) {
+            underBudgetStreak = 0;
+            return false;
+        }
+
+        // Para subir hay que tener margen con el presupuesto del nivel superior
+        QualityTier next = QualityTier.values()[tier.ordinal() + 1];
+        if (stats.p95FrameTime < next.getFrameBudgetMs() * UPGRADE_RATIO) {
+            if (++underBudgetStreak >= UPGRADE_EVALUATIONS) {
+                upgradeCount++;
+                return changeTier(next, stats);
+            }
+        } else {
+            underBudgetStreak = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Fuerza un nivel concreto (p.ej. desde ajustes)
+     */
+    public synchronized void setTier(QualityTier tier) {
+        if (tier != currentTier) {
+            changeTier(tier, null);
+        } else {
+            applyTier(tier);
+        }
+    }
+
+    private boolean changeTier(QualityTier newTier, GameThread.PerformanceStats stats) {
+        QualityTier oldTier = currentTier;
+        currentTier = newTier;
+        overBudgetStreak = 0;
+        underBudgetStreak = 0;
+        cooldown = COOLDOWN_EVALUATIONS;
+
+        applyTier(newTier);
+        Log.i(TAG, "Calidad " + oldTier + " -> " + newTier
+                + (stats != null ? String.format(" (p95 %.1fms)", stats.p95FrameTime) : ""));
+
+        for (QualityListener listener : listeners) {
+            try {
+                listener.onQualityTierChanged(oldTier, newTier, stats);
+            } catch (Exception e) {
+                Log.e(TAG, "Error notificando cambio de calidad", e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Aplica los parámetros del nivel a los sistemas conectados
+     */
+    private void applyTier(QualityTier tier) {
+        if (particleSystem != null) {
+            particleSystem.setProfile(tier.particleProfile);
+        }
+        if (visualEffects != null) {
+            visualEffects.setBlurEnabled(tier.blurEffects);
+        }
+        if (backgroundRenderer != null) {
+            int layerCount = backgroundRenderer.getParallaxLayerCount();
+            for (int layer = 0; layer < layerCount; layer++) {
+                backgroundRenderer.setParallaxLayerActive(layer, layer < tier.backgroundLayers);
+            }
+        }
+        if (coordinateSystem != null) {
+            coordinateSystem.setDetailLevelBias(tier.detailLevelBias);
+        }
+        if (gameEngine != null) {
+            gameEngine.setAiLodRadius(tier.aiLodRadius);
+        }
+    }
+
+    // === CONEXIÓN DE SISTEMAS ===
+
+    public synchronized void setParticleSystem(ParticleSystem particleSystem) {
+        this.particleSystem = particleSystem;
+        applyTier(currentTier);
+    }
+
+    public synchronized void setVisualEffects(VisualEffects visualEffects) {
+        this.visualEffects = visualEffects;
+        applyTier(currentTier);
+    }
+
+    public synchronized void setBackgroundRenderer(BackgroundRenderer backgroundRenderer) {
+        this.backgroundRenderer = backgroundRenderer;
+        applyTier(currentTier);
+    }
+
+    public synchronized void setCoordinateSystem(CoordinateSystem coordinateSystem) {
+        this.coordinateSystem = coordinateSystem;
+        applyTier(currentTier);
+    }
+
+    public synchronized void setGameEngine(GameEngine gameEngine) {
+        this.gameEngine = gameEngine;
+        applyTier(currentTier);
+    }
+
+    // === LISTENERS ===
+
+    public void addListener(QualityListener listener) {
+        if (listener != null && !listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(QualityListener listener) {
+        listeners.remove(listener);
+    }
+
+    // === CONFIGURACIÓN ===
+
+    /**
+     * Limita el rango de niveles que puede elegir el gobernador
+     */
+    public synchronized void setTierRange(QualityTier min, QualityTier max) {
+        if (min.ordinal() > max.ordinal()) {
+            throw new IllegalArgumentException("El nivel mínimo no puede superar al máximo");
+        }
+        this.minTier = min;
+        this.maxTier = max;
+        if (currentTier.ordinal() < min.ordinal()) {
+            changeTier(min, null);
+        } else if (currentTier.ordinal() > max.ordinal()) {
+            changeTier(max, null);
+        }
+    }
+
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        overBudgetStreak = 0;
+        underBudgetStreak = 0;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public QualityTier getCurrentTier() {
+        return currentTier;
+    }
+
+    public int getDowngradeCount() {
+        return downgradeCount;
+    }
+
+    public int getUpgradeCount() {
+        return upgradeCount;
+    }
+
+    public float getLastP95() {
+        return lastP95;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QualityGovernor{tier=%s, p95=%.1fms, down=%d, up=%d}",
+                currentTier, lastP95, downgradeCount, upgradeCount);
+    }
+}
@@ -0,0 +1,313 @@
+package com.gaming.enhancedagar.game;
+
+import java.util.Arrays;
+
+/**
+ * Fase ancha espacial compartida entre sistemas
+ * Hash espacial de celdas uniformes sin límites de mundo: cada elemento recibe un handle
+ * entero y vive en una lista enlazada intrusiva de su cubeta, así que alta, baja y
+ * movimiento cuestan O(1) y las consultas solo visitan las celdas del rango.
+ * Las consultas escriben handles en un int[] del llamador, sin crear objetos
+ */
+public class SpatialGrid {
+
+    // Categorías de elementos (las consultas filtran con máscaras 1 << categoría)
+    public static final int CATEGORY_PLAYER = 0;
+    public static final int CATEGORY_BOT = 1;
+    public static final int CATEGORY_FOOD = 2;
+    public static final int CATEGORY_FRAGMENT = 3;
+    public static final int CATEGORY_POWER_UP = 4;
+    public static final int MASK_ALL = -1;
+
+    public static final int NO_HANDLE = -1;
+    public static final float DEFAULT_CELL_SIZE = 128f;
+    public static final int DEFAULT_BUCKETS = 4096;
+
+    private final float cellSize;
+    private final float inverseCellSize;
+    private final int bucketMask;
+    private final int[] bucketHeads;
+
+    // Elementos en arrays paralelos indexados por handle
+    private Object[] items;
+    private int[] tags;
+    private int[] categories;
+    private float[] xs;
+    private float[] ys;
+    private float[] radii;
+    private int[] buckets;
+    private int[] next;
+    private int[] prev;
+    private int[] queryStamps;
+    private int handleHighWater = 0;
+    private int[] freeHandles;
+    private int freeCount = 0;
+    private int size = 0;
+
+    // Radio máximo registrado: amplía el rango de celdas de las consultas
+    private float maxRadius = 0f;
+    private int queryStamp = 0;
+    private int version = 0;
+
+    public SpatialGrid() {
+        this(DEFAULT_CELL_SIZE, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * @param cellSize lado de celda en unidades del mundo (del orden del radio típico de consulta)
+     * @param bucketCount número de cubetas del hash (se redondea a potencia de dos)
+     */
+    public SpatialGrid(float cellSize, int bucketCount) {
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1f / cellSize;
+        int size = Integer.highestOneBit(Math.max(2, bucketCount - 1)) << 1;
+        this.bucketMask = size - 1;
+        this.bucketHeads = new int[size];
+        Arrays.fill(bucketHeads, NO_HANDLE);
+
+        int capacity = 256;
+        items = new Object[capacity];
+        tags = new int[capacity];
+        categories = new int[capacity];
+        xs = new float[capacity];
+        ys = new float[capacity];
+        radii = new float[capacity];
+        buckets = new int[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        queryStamps = new int[capacity];
+        freeHandles = new int[capacity];
+    }
+
+    // === ALTA, BAJA Y MOVIMIENTO ===
+
+    /**
+     * Registra un elemento
+     * @param item objeto asociado (normalmente la entidad)
+     * @param tag entero libre para el sistema propietario (p. ej. su propio id)
+     * @return handle para move() y remove()
+     */
+    public int insert(Object item, int tag, int category, float x, float y, float radius) {
+        int handle = allocateHandle();
+        items[handle] = item;
+        tags[handle] = tag;
+        categories[handle] = category;
+        xs[handle] = x;
+        ys[handle] = y;
+        radii[handle] = radius;
+        queryStamps[handle] = 0;
+        link(handle, bucketOf(x, y));
+        maxRadius = Math.max(maxRadius, radius);
+        size++;
+        version++;
+        return handle;
+    }
+
+    /**
+     * Actualiza la posición; solo toca las listas si el elemento cambia de celda
+     */
+    public void move(int handle, float x, float y) {
+        xs[handle] = x;
+        ys[handle] = y;
+        int bucket = bucketOf(x, y);
+        if (bucket != buckets[handle]) {
+            unlink(handle);
+            link(handle, bucket);
+        }
+    }
+
+    /**
+     * Actualiza posición y radio
+     */
+    public void move(int handle, float x, float y, float radius) {
+        radii[handle] = radius;
+        maxRadius = Math.max(maxRadius, radius);
+        move(handle, x, y);
+    }
+
+    /**
+     * Da de baja un elemento; el handle queda libre para reutilizarse
+     */
+    public void remove(int handle) {
+        if (handle < 0 || handle >= handleHighWater || items[handle] == null) {
+            return;
+        }
+        unlink(handle);
+        items[handle] = null;
+        freeHandles[freeCount++] = handle;
+        size--;
+        version++;
+    }
+
+    /**
+     * Vacía la rejilla
+     */
+    public void clear() {
+        Arrays.fill(bucketHeads, NO_HANDLE);
+        Arrays.fill(items, 0, handleHighWater, null);
+        handleHighWater = 0;
+        freeCount = 0;
+        size = 0;
+        maxRadius = 0f;
+        version++;
+    }
+
+    // === CONSULTAS ===
+
+    /**
+     * Elementos cuyo círculo se solapa con el círculo dado
+     * @param categoryMask máscara de categorías aceptadas (MASK_ALL para todas)
+     * @param out handles encontrados
+     * @return número de handles escritos (como mucho out.length)
+     */
+    public int queryCircle(float x, float y, float radius, int categoryMask, int[] out) {
+        float reach = radius + maxRadius;
+        int firstColumn = cellOf(x - reach);
+        int lastColumn = cellOf(x + reach);
+        int firstRow = cellOf(y - reach);
+        int lastRow = cellOf(y + reach);
+        int stamp = nextQueryStamp();
+        int count = 0;
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                for (int h = bucketHeads[hash(column, row)]; h != NO_HANDLE; h = next[h]) {
+                    // Varias celdas pueden compartir cubeta: cada handle se visita una vez
+                    if (queryStamps[h] == stamp) continue;
+                    queryStamps[h] = stamp;
+                    if ((categoryMask & (1 << categories[h])) == 0) continue;
+
+                    float dx = xs[h] - x;
+                    float dy = ys[h] - y;
+                    float limit = radius + radii[h];
+                    if (dx * dx + dy * dy <= limit * limit) {
+                        if (count == out.length) {
+                            return count;
+                        }
+                        out[count++] = h;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Elementos cuyo círculo se solapa con el rectángulo dado
+     */
+    public int queryRect(float left, float top, float right, float bottom, int categoryMask, int[] out) {
+        int firstColumn = cellOf(left - maxRadius);
+        int lastColumn = cellOf(right + maxRadius);
+        int firstRow = cellOf(top - maxRadius);
+        int lastRow = cellOf(bottom + maxRadius);
+        int stamp = nextQueryStamp();
+        int count = 0;
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                for (int h = bucketHeads[hash(column, row)]; h != NO_HANDLE; h = next[h]) {
+                    if (queryStamps[h] == stamp) continue;
+                    queryStamps[h] = stamp;
+                    if ((categoryMask & (1 << categories[h])) == 0) continue;
+
+                    // Punto del rectángulo más cercano al centro
+                    float nearestX = Math.max(left, Math.min(right, xs[h]));
+                    float nearestY = Math.max(top, Math.min(bottom, ys[h]));
+                    float dx = xs[h] - nearestX;
+                    float dy = ys[h] - nearestY;
+                    if (dx * dx + dy * dy <= radii[h] * radii[h]) {
+                        if (count == out.length) {
+                            return count;
+                        }
+                        out[count++] = h;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    // === INTERNOS ===
+
+    private int cellOf(float coordinate) {
+        return (int) Math.floor(coordinate * inverseCellSize);
+    }
+
+    private int bucketOf(float x, float y) {
+        return hash(cellOf(x), cellOf(y));
+    }
+
+    private int hash(int column, int row) {
+        return (column * 73856093 ^ row * 19349663) & bucketMask;
+    }
+
+    private void link(int handle, int bucket) {
+        int head = bucketHeads[bucket];
+        buckets[handle] = bucket;
+        prev[handle] = NO_HANDLE;
+        next[handle] = head;
+        if (head != NO_HANDLE) {
+            prev[head] = handle;
+        }
+        bucketHeads[bucket] = handle;
+    }
+
+    private void unlink(int handle) {
+        int before = prev[handle];
+        int after = next[handle];
+        if (before != NO_HANDLE) {
+            next[before] = after;
+        } else {
+            bucketHeads[buckets[handle]] = after;
+        }
+        if (after != NO_HANDLE) {
+            prev[after] = before;
+        }
+    }
+
+    private int nextQueryStamp() {
+        if (++queryStamp == Integer.MAX_VALUE) {
+            Arrays.fill(queryStamps, 0);
+            queryStamp = 1;
+        }
+        return queryStamp;
+    }
+
+    private int allocateHandle() {
+        if (freeCount > 0) {
+            return freeHandles[--freeCount];
+        }
+        if (handleHighWater == items.length) {
+            int capacity = items.length * 2;
+            items = Arrays.copyOf(items, capacity);
+            tags = Arrays.copyOf(tags, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            radii = Arrays.copyOf(radii, capacity);
+            buckets = Arrays.copyOf(buckets, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            queryStamps = Arrays.copyOf(queryStamps, capacity);
+            freeHandles = Arrays.copyOf(freeHandles, capacity);
+        }
+        return handleHighWater++;
+    }
+
+    // === ACCESO POR HANDLE ===
+
+    public Object getItem(int handle) { return items[handle]; }
+    public int getTag(int handle) { return tags[handle]; }
+    public int getCategory(int handle) { return categories[handle]; }
+    public float getX(int handle) { return xs[handle]; }
+    public float getY(int handle) { return ys[handle]; }
+    public float getRadius(int handle) { return radii[handle]; }
+
+    public int size() { return size; }
+    public float getCellSize() { return cellSize; }
+
+    /**
+     * Se incrementa con cada alta o baja (no con los movimientos)
+     */
+    public int getVersion() { return version; }
+}
@@ -0,0 +1,393 @@
+package com.gaming.enhancedagar.game;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Colocación de spawns con muestreo de disco de Poisson
+ * Rejilla de fondo con celdas de lado minDistance/√2 (como mucho una muestra por celda):
+ * comprobar la separación de un candidato solo mira las 5x5 celdas vecinas, y los
+ * candidatos se toman de celdas libres elegidas al azar, así que casi siempre se aceptan
+ * al primer intento. El coste por muestra es O(k) y no depende de cuántas haya ya.
+ *
+ * Admite objetivos de densidad por región (se rellena primero la región con más déficit)
+ * y radios de exclusión alrededor de células grandes, explícitos o tomados de la fase ancha
+ */
+public class SpawnSampler {
+
+    public static final int NO_SAMPLE = -1;
+    public static final int DEFAULT_ATTEMPTS = 12;
+
+    // Geometría
+    private final float left;
+    private final float top;
+    private final float width;
+    private final float height;
+    private final float minDistance;
+    private final float minDistanceSquared;
+    private final float cellSize;
+    private final float inverseCellSize;
+    private final int columns;
+    private final int rows;
+
+    // Muestra que ocupa cada celda (NO_SAMPLE si está libre)
+    private final int[] cellSample;
+
+    // Muestras en arrays paralelos indexados por id
+    private float[] sampleX = new float[256];
+    private float[] sampleY = new float[256];
+    private int[] sampleCell = new int[256];
+    private int sampleHighWater = 0;
+    private int[] freeSamples = new int[256];
+    private int freeSampleCount = 0;
+    private int sampleCount = 0;
+
+    // Regiones de densidad: cada una guarda sus celdas libres en un conjunto indexado
+    private final int regionColumns;
+    private final int regionRows;
+    private final int[] regionOfCell;
+    private final int[][] regionFreeCells;
+    private final int[] regionFreeCount;
+    private final int[] cellFreeIndex; // Posición de la celda en el conjunto de su región
+    private final int[] regionSamples;
+    private final int[] regionTargets;
+
+    // Exclusiones explícitas (círculos) y fase ancha opcional
+    private float[] exclusionX = new float[16];
+    private float[] exclusionY = new float[16];
+    private float[] exclusionRadius = new float[16];
+    private int exclusionCount = 0;
+    private SpatialGrid exclusionGrid;
+    private int exclusionMask;
+    private float exclusionMinRadius;
+    private float exclusionMargin;
+    private final int[] exclusionQuery = new int[32];
+
+    private final Random random;
+    private int maxAttempts = DEFAULT_ATTEMPTS;
+
+    public SpawnSampler(float left, float top, float width, float height, float minDistance) {
+        this(left, top, width, height, minDistance, 1, 1, new Random());
+    }
+
+    /**
+     * @param minDistance separación mínima entre muestras
+     * @param regionColumns columnas de regiones de densidad
+     * @param regionRows filas de regiones de densidad
+     */
+    public SpawnSampler(float left, float top, float width, float height, float minDistance,
+                        int regionColumns, int regionRows, Random random) {
+        this.left = left;
+        this.top = top;
+        this.width = width;
+        this.height = height;
+        this.minDistance = minDistance;
+        this.minDistanceSquared = minDistance * minDistance;
+        this.cellSize = minDistance / (float) Math.sqrt(2);
+        this.inverseCellSize = 1f / cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(width * inverseCellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height * inverseCellSize));
+        this.random = random;
+
+        int cells = columns * rows;
+        this.cellSample = new int[cells];
+        Arrays.fill(cellSample, NO_SAMPLE);
+
+        this.regionColumns = Math.max(1, Math.min(regionColumns, columns));
+        this.regionRows = Math.max(1, Math.min(regionRows, rows));
+        int regions = this.regionColumns * this.regionRows;
+        this.regionOfCell = new int[cells];
+        this.cellFreeIndex = new int[cells];
+        this.regionFreeCount = new int[regions];
+        this.regionSamples = new int[regions];
+        this.regionTargets = new int[regions];
+        Arrays.fill(regionTargets, Integer.MAX_VALUE);
+
+        // Reparto de celdas entre regiones
+        for (int row = 0; row < rows; row++) {
+            int regionRow = row * this.regionRows / rows;
+            for (int column = 0; column < columns; column++) {
+                int regionColumn = column * this.regionColumns / columns;
+                int region = regionRow * this.regionColumns + regionColumn;
+                regionOfCell[row * columns + column] = region;
+                regionFreeCount[region]++;
+            }
+        }
+        this.regionFreeCells = new int[regions][];
+        for (int r = 0; r < regions; r++) {
+            regionFreeCells[r] = new int[regionFreeCount[r]];
+            regionFreeCount[r] = 0;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            addFreeCell(cell);
+        }
+    }
+
+    // === MUESTREO ===
+
+    /**
+     * Coloca una muestra nueva en la región con más déficit respecto a su objetivo
+     * @param out recibe la posición (x, y) en out[0], out[1]
+     * @return id de la muestra, o NO_SAMPLE si no hay hueco válido
+     */
+    public int sample(float[] out) {
+        int region = pickRegion();
+        return region < 0 ? NO_SAMPLE : sampleInRegion(region, out);
+    }
+
+    /**
+     * Coloca una muestra nueva en una región concreta
+     */
+    public int sampleInRegion(int region, float[] out) {
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            int free = regionFreeCount[region];
+            if (free == 0) {
+                return NO_SAMPLE;
+            }
+            // Celda libre al azar y punto uniforme dentro de ella
+            int cell = regionFreeCells[region][random.nextInt(free)];
+            int column = cell % columns;
+            int row = cell / columns;
+            float x = left + (column + random.nextFloat()) * cellSize;
+            float y = top + (row + random.nextFloat()) * cellSize;
+            if (x >= left + width || y >= top + height) {
+                continue; // Última fila/columna parcial
+            }
+            if (isValid(x, y, column, row)) {
+                out[0] = x;
+                out[1] = y;
+                return commit(x, y, cell);
+            }
+        }
+        return NO_SAMPLE;
+    }
+
+    /**
+     * Comprueba si un punto puede recibir una muestra (separación y exclusiones)
+     */
+    public boolean canPlace(float x, float y) {
+        if (x < left || y < top || x >= left + width || y >= top + height) {
+            return false;
+        }
+        int column = (int) ((x - left) * inverseCellSize);
+        int row = (int) ((y - top) * inverseCellSize);
+        return cellSample[row * columns + column] == NO_SAMPLE && isValid(x, y, column, row);
+    }
+
+    /**
+     * Registra una muestra en una posición elegida por el llamador (p. ej. spawn forzado)
+     * @return id, o NO_SAMPLE si la celda ya está ocupada o fuera de límites
+     */
+    public int insert(float x, float y) {
+        if (x < left || y < top || x >= left + width || y >= top + height) {
+            return NO_SAMPLE;
+        }
+        int cell = (int) ((y - top) * inverseCellSize) * columns + (int) ((x - left) * inverseCellSize);
+        if (cellSample[cell] != NO_SAMPLE) {
+            return NO_SAMPLE;
+        }
+        return commit(x, y, cell);
+    }
+
+    /**
+     * Libera la muestra (el objeto que ocupaba el hueco ha desaparecido)
+     */
+    public void remove(int sampleId) {
+        if (sampleId < 0 || sampleId >= sampleHighWater) {
+            return;
+        }
+        int cell = sampleCell[sampleId];
+        if (cell < 0 || cellSample[cell] != sampleId) {
+            return;
+        }
+        cellSample[cell] = NO_SAMPLE;
+        sampleCell[sampleId] = -1;
+        regionSamples[regionOfCell[cell]]--;
+        addFreeCell(cell);
+        freeSamples[freeSampleCount++] = sampleId;
+        sampleCount--;
+    }
+
+    /**
+     * Libera todas las muestras
+     */
+    public void clear() {
+        for (int id = 0; id < sampleHighWater; id++) {
+            remove(id);
+        }
+        sampleHighWater = 0;
+        freeSampleCount = 0;
+    }
+
+    // === DENSIDAD POR REGIÓN ===
+
+    /**
+     * Número máximo de muestras deseado en una región
+     */
+    public void setRegionTarget(int region, int target) {
+        regionTargets[region] = Math.max(0, target);
+    }
+
+    /**
+     * Reparte un total entre regiones de forma proporcional a los pesos dados
+     */
+    public void setRegionTargets(int total, float[] weights) {
+        float sum = 0;
+        for (float weight : weights) {
+            sum += Math.max(0, weight);
+        }
+        for (int r = 0; r < regionTargets.length; r++) {
+            float weight = r < weights.length ? Math.max(0, weights[r]) : 0;
+            regionTargets[r] = sum > 0 ? Math.round(total * weight / sum) : 0;
+        }
+    }
+
+    /**
+     * Región con más déficit (objetivo - muestras) que aún tiene celdas libres
+     * Los empates se resuelven con muestreo de reservorio: cada región empatada sale con
+     * la misma probabilidad, sin depender de su posición
+     */
+    private int pickRegion() {
+        int best = -1;
+        long bestDeficit = 0;
+        int ties = 0;
+        for (int r = 0; r < regionTargets.length; r++) {
+            if (regionFreeCount[r] == 0) continue;
+            long deficit = (long) regionTargets[r] - regionSamples[r];
+            if (deficit > bestDeficit) {
+                best = r;
+                bestDeficit = deficit;
+                ties = 1;
+            } else if (deficit == bestDeficit && best >= 0 && random.nextInt(++ties) == 0) {
+                best = r;
+            }
+        }
+        return best;
+    }
+
+    // === EXCLUSIONES ===
+
+    /**
+     * Zona prohibida temporal (p. ej. alrededor de una célula grande)
+     */
+    public void addExclusion(float x, float y, float radius) {
+        if (exclusionCount == exclusionX.length) {
+            int capacity = exclusionCount * 2;
+            exclusionX = Arrays.copyOf(exclusionX, capacity);
+            exclusionY = Arrays.copyOf(exclusionY, capacity);
+            exclusionRadius = Arrays.copyOf(exclusionRadius, capacity);
+        }
+        exclusionX[exclusionCount] = x;
+        exclusionY[exclusionCount] = y;
+        exclusionRadius[exclusionCount] = radius;
+        exclusionCount++;
+    }
+
+    public void clearExclusions() {
+        exclusionCount = 0;
+    }
+
+    /**
+     * Excluye automáticamente los alrededores de los elementos de la fase ancha con radio
+     * mayor o igual que minRadius, dejando un margen extra
+     */
+    public void setExclusionGrid(SpatialGrid grid, int categoryMask, float minRadius, float margin) {
+        this.exclusionGrid = grid;
+        this.exclusionMask = categoryMask;
+        this.exclusionMinRadius = minRadius;
+        this.exclusionMargin = margin;
+    }
+
+    // === INTERNOS ===
+
+    private boolean isValid(float x, float y, int column, int row) {
+        // Separación: con celdas de lado r/√2 basta con el vecindario 5x5
+        int firstColumn = Math.max(0, column - 2);
+        int lastColumn = Math.min(columns - 1, column + 2);
+        int firstRow = Math.max(0, row - 2);
+        int lastRow = Math.min(rows - 1, row + 2);
+        for (int r = firstRow; r <= lastRow; r++) {
+            int base = r * columns;
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                int other = cellSample[base + c];
+                if (other != NO_SAMPLE) {
+                    float dx = sampleX[other] - x;
+                    float dy = sampleY[other] - y;
+                    if (dx * dx + dy * dy < minDistanceSquared) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < exclusionCount; i++) {
+            float dx = exclusionX[i] - x;
+            float dy = exclusionY[i] - y;
+            float radius = exclusionRadius[i];
+            if (dx * dx + dy * dy < radius * radius) {
+                return false;
+            }
+        }
+
+        if (exclusionGrid != null) {
+            int found = exclusionGrid.queryCircle(x, y, exclusionMargin, exclusionMask, exclusionQuery);
+            for (int i = 0; i < found; i++) {
+                if (exclusionGrid.getRadius(exclusionQuery[i]) >= exclusionMinRadius) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private int commit(float x, float y, int cell) {
+        int id;
+        if (freeSampleCount > 0) {
+            id = freeSamples[--freeSampleCount];
+        } else {
+            if (sampleHighWater == sampleX.length) {
+                int capacity = sampleX.length * 2;
+                sampleX = Arrays.copyOf(sampleX, capacity);
+                sampleY = Arrays.copyOf(sampleY, capacity);
+                sampleCell = Arrays.copyOf(sampleCell, capacity);
+                freeSamples = Arrays.copyOf(freeSamples, capacity);
+            }
+            id = sampleHighWater++;
+        }
+        sampleX[id] = x;
+        sampleY[id] = y;
+        sampleCell[id] = cell;
+        cellSample[cell] = id;
+        regionSamples[regionOfCell[cell]]++;
+        removeFreeCell(cell);
+        sampleCount++;
+        return id;
+    }
+
+    private void addFreeCell(int cell) {
+        int region = regionOfCell[cell];
+        int index = regionFreeCount[region]++;
+        regionFreeCells[region][index] = cell;
+        cellFreeIndex[cell] = index;
+    }
+
+    private void removeFreeCell(int cell) {
+        int region = regionOfCell[cell];
+        int index = cellFreeIndex[cell];
+        int lastCell = regionFreeCells[region][--regionFreeCount[region]];
+        regionFreeCells[region][index] = lastCell;
+        cellFreeIndex[lastCell] = index;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    public int size() { return sampleCount; }
+    public float getMinDistance() { return minDistance; }
+    public int getRegionCount() { return regionTargets.length; }
+    public int getRegionSamples(int region) { return regionSamples[region]; }
+    public int getRegionTarget(int region) { return regionTargets[region]; }
+    public float getSampleX(int sampleId) { return sampleX[sampleId]; }
+    public float getSampleY(int sampleId) { return sampleY[sampleId]; }
+}
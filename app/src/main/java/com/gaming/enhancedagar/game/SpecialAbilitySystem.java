@@ -16,6 +16,7 @@ import com.gaming.enhancedagar.entities.Entity;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Sistema completo de habilidades especiales para Enhanced Agar
@@ -37,23 +38,79 @@ public class SpecialAbilitySystem {
     private static final float MIN_ENERGY_MULTIPLIER = 0.7f;
     private static final float COMBO_WINDOW_TIME = 2.5f; // Ventana de tiempo para combos
     private static final float POWER_SCALING_FACTOR = 0.1f; // Escalado por tamaño
+    private static final long COMBO_WINDOW_MS = (long) (COMBO_WINDOW_TIME * 1000);
+    private static final float SHADOW_STRIKE_HALF_ANGLE = (float) Math.toRadians(30);
+    
+    // Las habilidades se indexan por ordinal: una máscara int cubre todas
+    private static final AbilityType[] ABILITY_TYPES = AbilityType.values();
+    private static final int ABILITY_COUNT = ABILITY_TYPES.length;
     
     // Referencia al contexto de la aplicación
     private final Context context;
     
-    // Mapa de habilidades activas por jugador
+    // Mapa de habilidades activas por jugador (solo para buscar por jugador)
     private final Map<Player, ActiveAbilities> activeAbilities;
     
+    // Mismos estados en un array copiado al añadir jugadores: update() y render() lo
+    // recorren por índice sin crear iteradores
+    private volatile ActiveAbilities[] abilityStates = new ActiveAbilities[0];
+    
+    // Hora del último update(); las consultas del HUD comparan contra ella
+    private volatile long currentTime = System.currentTimeMillis();
+    
     // Efectos visuales del sistema
     private final VisualEffects visualEffects;
     
-    // Pool de sonidos para efectos sonoros
+    // Pool de sonidos para efectos sonoros (0 = sin sonido)
     private final SoundPool soundPool;
-    private final Map<AbilityType, Integer> soundIds;
+    private final int[] soundIds;
     
-    // Gestor de combos
+    // Gestor de combos; su estado solo se toca en update(), en el hilo de juego
     private final ComboManager comboManager;
     
+    // Usos aceptados por useAbility() y salidas de jugadores pendientes de update():
+    // efectos, objetivos de área y combos se resuelven siempre en el hilo de juego
+    private final Queue<CastRecord> pendingCasts = new ConcurrentLinkedQueue<>();
+    private final Queue<Player> pendingRemovals = new ConcurrentLinkedQueue<>();
+    
+    // Objetivos de las habilidades de área, resueltos sobre la fase ancha en el hilo de juego
+    private final AreaEffectResolver areaResolver;
+    private AreaEffectListener areaEffectListener;
+    
+    // Decide quién es aliado del lanzador para curaciones; sin él solo se cura el lanzador
+    private static final AreaEffectResolver.TargetFilter NO_ALLIES = (source, target) -> false;
+    private volatile AreaEffectResolver.TargetFilter allyFilter = NO_ALLIES;
+    
+    /**
+     * Recibe cada objetivo alcanzado por una habilidad de área
+     * amount ya incluye escalado por tamaño y caída con la distancia; para el aura es por tick
+     */
+    public interface AreaEffectListener {
+        void onAreaEffect(Player caster, AbilityType ability, Entity target, float amount);
+    }
+    
+    /**
+     * Uso de habilidad ya validado y cobrado, a la espera del hilo de juego
+     */
+    private static final class CastRecord {
+        final Player player;
+        final AbilityType abilityType;
+        final float targetX;
+        final float targetY;
+        final float effect;
+        final long timestamp;
+        
+        CastRecord(Player player, AbilityType abilityType, float targetX, float targetY,
+                   float effect, long timestamp) {
+            this.player = player;
+            this.abilityType = abilityType;
+            this.targetX = targetX;
+            this.targetY = targetY;
+            this.effect = effect;
+            this.timestamp = timestamp;
+        }
+    }
+    
     /**
      * Constructor del sistema de habilidades especiales
      */
@@ -62,8 +119,9 @@ public class SpecialAbilitySystem {
         this.visualEffects = visualEffects;
         this.activeAbilities = new ConcurrentHashMap<>();
         this.soundPool = new SoundPool.Builder().setMaxStreams(10).build();
-        this.soundIds = new HashMap<>();
+        this.soundIds = new int[ABILITY_COUNT];
         this.comboManager = new ComboManager();
+        this.areaResolver = new AreaEffectResolver();
         
         loadSounds();
         initializeAbilityDefinitions();
@@ -192,139 +250,308 @@ public class SpecialAbilitySystem {
     }
     
     /**
-     * Habilidades activas de un jugador
+     * Estado de habilidades de un jugador
+     * Las habilidades activas son bits de una máscara por ordinal y los tiempos viven en
+     * arrays paralelos, así que consultar o expirar no busca en mapas ni reserva memoria.
+     * update() corre en el hilo de juego y useAbility() puede llegar desde el de UI: las
+     * escrituras de energía, máscara y tiempos se hacen con el monitor del propio estado
      */
     public static class ActiveAbilities {
-        public final Map<AbilityType, ActiveAbility> abilities;
+        public final Player player;
         public float currentEnergy;
         public float maxEnergy;
         
-        public ActiveAbilities() {
-            this.abilities = new HashMap<>();
+        // Bit (1 << ordinal) encendido mientras la habilidad está activa
+        int activeMask;
+        
+        // Tiempos en milisegundos indexados por ordinal
+        final long[] startTimes = new long[ABILITY_COUNT];
+        final long[] activeUntil = new long[ABILITY_COUNT];
+        final long[] cooldownUntil = new long[ABILITY_COUNT];
+        
+        // Valores escalados del último uso
+        final float[] durations = new float[ABILITY_COUNT];
+        final float[] energyCosts = new float[ABILITY_COUNT];
+        final float[] effects = new float[ABILITY_COUNT];
+        
+        public ActiveAbilities(Player player) {
+            this.player = player;
             this.currentEnergy = 100.0f;
             this.maxEnergy = 100.0f;
         }
         
+        /**
+         * Registra un uso: activa la habilidad y arranca su cooldown
+         */
+        void activate(AbilityType type, long now, float duration, float cooldown,
+                      float energyCost, float effect) {
+            int index = type.ordinal();
+            startTimes[index] = now;
+            activeUntil[index] = now + (long) (duration * 1000);
+            cooldownUntil[index] = now + (long) (cooldown * 1000);
+            durations[index] = duration;
+            energyCosts[index] = energyCost;
+            effects[index] = effect;
+            activeMask |= 1 << index;
+        }
+        
+        /**
+         * Apaga los bits de las habilidades cuya duración terminó
+         */
+        void expire(long now) {
+            int mask = activeMask;
+            while (mask != 0) {
+                int index = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                if (now >= activeUntil[index]) {
+                    activeMask &= ~(1 << index);
+                }
+            }
+        }
+        
         public boolean hasAbility(AbilityType type) {
-            return abilities.containsKey(type) && !abilities.get(type).isExpired(System.currentTimeMillis());
+            return (activeMask & (1 << type.ordinal())) != 0;
+        }
+        
+        public boolean hasAbility(AbilityType type, long now) {
+            return hasAbility(type) && now < activeUntil[type.ordinal()];
         }
         
-        public ActiveAbility getAbility(AbilityType type) {
-            return abilities.get(type);
+        public boolean isOnCooldown(AbilityType type, long now) {
+            return now < cooldownUntil[type.ordinal()];
+        }
+        
+        /**
+         * Segundos de cooldown restantes
+         */
+        public float getCooldownRemaining(AbilityType type, long now) {
+            return Math.max(0, cooldownUntil[type.ordinal()] - now) / 1000.0f;
+        }
+        
+        public int getActiveMask() {
+            return activeMask;
+        }
+        
+        /**
+         * Copia del estado de una habilidad activa, o null si no lo está
+         * Reserva un objeto: para UI puntual, no para el bucle de juego
+         */
+        public synchronized ActiveAbility getAbility(AbilityType type, long now) {
+            if (!hasAbility(type)) return null;
+            
+            int index = type.ordinal();
+            return new ActiveAbility(type, startTimes[index], durations[index],
+                                     getCooldownRemaining(type, now), energyCosts[index], effects[index]);
         }
     }
     
     /**
      * Gestor de combos de habilidades
+     * Las secuencias se compilan al arrancar en un autómata (trie con enlaces de fallo,
+     * estilo Aho-Corasick) con la transición de cada estado por ordinal de habilidad;
+     * cada uso avanza el estado del jugador con una consulta de array
      */
     public static class ComboManager {
-        private final Map<Player, List<ComboStep>> playerCombos;
-        private final Map<String, ComboDefinition> comboDefinitions;
+        private final Map<Player, ComboState> playerCombos;
+        private final List<ComboDefinition> comboDefinitions;
+        
+        // Autómata compilado
+        private int[] transitions;      // estado * ABILITY_COUNT + ordinal -> estado
+        private int[] completedCombo;   // Combo más largo que termina en el estado, o -1
+        private int[] stateDepth;       // Pasos de combo que representa cada estado
+        private int maxComboLength;
         
         public ComboManager() {
-            this.playerCombos = new HashMap<>();
-            this.comboDefinitions = new HashMap<>();
+            // Solo se escribe desde el hilo de juego; el HUD puede leer el progreso
+            this.playerCombos = new ConcurrentHashMap<>();
+            this.comboDefinitions = new ArrayList<>();
             initializeComboDefinitions();
+            compileCombos();
         }
         
         public void addAbilityUse(Player player, AbilityType ability, long timestamp) {
-            playerCombos.computeIfAbsent(player, k -> new ArrayList<>())
-                       .add(new ComboStep(ability, timestamp));
-            
-            // Limpiar pasos antiguos
-            List<ComboStep> steps = playerCombos.get(player);
-            steps.removeIf(step -> (timestamp - step.timestamp) / 1000.0f > COMBO_WINDOW_TIME);
-            
-            // Verificar si se completó un combo
-            checkForCombo(player, steps);
-        }
-        
-        private void checkForCombo(Player player, List<ComboStep> steps) {
-            if (steps.size() < 2) return;
-            
-            // Crear secuencia de habilidades usadas
-            List<AbilityType> sequence = steps.stream()
-                    .sorted(Comparator.comparingLong(step -> step.timestamp))
-                    .map(step -> step.ability)
-                    .toList();
-            
-            // Verificar contra definiciones de combos
-            for (ComboDefinition combo : comboDefinitions.values()) {
-                if (matchesComboSequence(sequence, combo.sequence)) {
-                    Log.d(TAG, "Combo executed: " + combo.name + " by " + player.getPlayerName());
-                    executeCombo(player, combo);
-                    break;
-                }
+            ComboState combo = playerCombos.get(player);
+            if (combo == null) {
+                combo = new ComboState(maxComboLength);
+                playerCombos.put(player, combo);
             }
-        }
-        
-        private boolean matchesComboSequence(List<AbilityType> sequence, List<AbilityType> comboSequence) {
-            if (sequence.size() < comboSequence.size()) return false;
             
-            int end = sequence.size();
-            int start = end - comboSequence.size();
+            // Una pausa mayor que la ventana rompe cualquier secuencia en curso
+            if (combo.steps > 0 && timestamp - combo.lastStepTime() > COMBO_WINDOW_MS) {
+                combo.reset();
+            }
+            combo.state = transitions[combo.state * ABILITY_COUNT + ability.ordinal()];
+            combo.record(timestamp);
             
-            for (int i = 0; i < comboSequence.size(); i++) {
-                if (sequence.get(start + i) != comboSequence.get(i)) {
-                    return false;
+            // Verificar si se completó un combo
+            int completed = completedCombo[combo.state];
+            if (completed >= 0) {
+                ComboDefinition definition = comboDefinitions.get(completed);
+                // Toda la secuencia debe caber en la ventana, no solo el último paso
+                if (timestamp - combo.stepTime(definition.sequence.length - 1) <= COMBO_WINDOW_MS) {
+                    Log.d(TAG, "Combo executed: " + definition.name + " by " + player.getPlayerName());
+                    executeCombo(player, combo, definition);
                 }
             }
-            return true;
         }
         
-        private void executeCombo(Player player, ComboDefinition combo) {
+        private void executeCombo(Player player, ComboState combo, ComboDefinition definition) {
             // Implementar ejecución de combo
-            combo.onExecute.accept(player);
+            definition.onExecute.accept(player);
             
             // Limpiar el combo después de ejecutarlo
-            playerCombos.remove(player);
+            combo.reset();
+        }
+        
+        /**
+         * Pasos de combo encadenados por el jugador (0 si no hay ninguno en curso)
+         */
+        public int getComboProgress(Player player) {
+            ComboState combo = playerCombos.get(player);
+            return combo != null ? combo.depth() : 0;
         }
         
         private void initializeComboDefinitions() {
             // Combo: MAGE NOVA + TANK SHIELD = PROTECTIVE_NOVA
-            comboDefinitions.put("NOVA_SHIELD", new ComboDefinition(
+            comboDefinitions.add(new ComboDefinition(
                 "Nova Protectora",
-                Arrays.asList(AbilityType.NOVA, AbilityType.SHIELD),
+                new AbilityType[] { AbilityType.NOVA, AbilityType.SHIELD },
                 player -> {
                     // Ejecutar nova protectora
                 }
             ));
             
             // Combo: SUPPORT HEAL + MAGE SPELL_BOOST = HEALING_WHIRLWIND
-            comboDefinitions.put("HEAL_SPELL", new ComboDefinition(
+            comboDefinitions.add(new ComboDefinition(
                 "Torbellino Sanador",
-                Arrays.asList(AbilityType.HEAL, AbilityType.SPELL_BOOST),
+                new AbilityType[] { AbilityType.HEAL, AbilityType.SPELL_BOOST },
                 player -> {
                     // Ejecutar torbellino sanador
                 }
             ));
             
             // Combo: ASSASSIN STEALTH + TANK SHIELD = SHADOW_SHIELD
-            comboDefinitions.put("STEALTH_SHIELD", new ComboDefinition(
+            comboDefinitions.add(new ComboDefinition(
                 "Escudo de Sombra",
-                Arrays.asList(AbilityType.STEALTH, AbilityType.SHIELD),
+                new AbilityType[] { AbilityType.STEALTH, AbilityType.SHIELD },
                 player -> {
                     // Ejecutar escudo de sombra
                 }
             ));
         }
         
-        private static class ComboStep {
-            final AbilityType ability;
-            final long timestamp;
+        /**
+         * Construye el trie de secuencias y lo completa en un autómata determinista
+         */
+        private void compileCombos() {
+            int capacity = 1;
+            for (ComboDefinition definition : comboDefinitions) {
+                capacity += definition.sequence.length;
+                maxComboLength = Math.max(maxComboLength, definition.sequence.length);
+            }
+            
+            int[] trie = new int[capacity * ABILITY_COUNT];
+            int[] completed = new int[capacity];
+            int[] depth = new int[capacity];
+            Arrays.fill(trie, -1);
+            Arrays.fill(completed, -1);
+            int states = 1;
+            
+            for (int c = 0; c < comboDefinitions.size(); c++) {
+                int state = 0;
+                for (AbilityType ability : comboDefinitions.get(c).sequence) {
+                    int slot = state * ABILITY_COUNT + ability.ordinal();
+                    if (trie[slot] < 0) {
+                        trie[slot] = states;
+                        depth[states] = depth[state] + 1;
+                        states++;
+                    }
+                    state = trie[slot];
+                }
+                completed[state] = c;
+            }
+            
+            // Recorrido en anchura: el enlace de fallo de un estado es el sufijo más largo
+            // que también es prefijo de algún combo, y las transiciones ausentes lo heredan
+            int[] fail = new int[states];
+            int[] queue = new int[states];
+            int head = 0, tail = 0;
+            transitions = new int[states * ABILITY_COUNT];
+            for (int a = 0; a < ABILITY_COUNT; a++) {
+                int next = trie[a];
+                transitions[a] = Math.max(0, next);
+                if (next > 0) {
+                    queue[tail++] = next;
+                }
+            }
+            while (head < tail) {
+                int state = queue[head++];
+                if (completed[state] < 0) {
+                    completed[state] = completed[fail[state]];
+                }
+                for (int a = 0; a < ABILITY_COUNT; a++) {
+                    int next = trie[state * ABILITY_COUNT + a];
+                    int fallback = transitions[fail[state] * ABILITY_COUNT + a];
+                    if (next < 0) {
+                        transitions[state * ABILITY_COUNT + a] = fallback;
+                    } else {
+                        transitions[state * ABILITY_COUNT + a] = next;
+                        fail[next] = fallback;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            
+            completedCombo = Arrays.copyOf(completed, states);
+            stateDepth = Arrays.copyOf(depth, states);
+        }
+        
+        /**
+         * Progreso de combo de un jugador: estado del autómata y hora de los últimos pasos
+         */
+        private class ComboState {
+            int state;
+            int steps;
+            final long[] times;   // Anillo con las horas de los últimos pasos
+            int head;
+            
+            ComboState(int capacity) {
+                this.times = new long[Math.max(1, capacity)];
+            }
+            
+            void record(long timestamp) {
+                head = (head + 1) % times.length;
+                times[head] = timestamp;
+                steps++;
+            }
+            
+            long lastStepTime() {
+                return times[head];
+            }
+            
+            /**
+             * Hora del paso dado hacia atrás (0 = el último)
+             */
+            long stepTime(int back) {
+                return times[(head - back + times.length) % times.length];
+            }
+            
+            int depth() {
+                return stateDepth[state];
+            }
             
-            ComboStep(AbilityType ability, long timestamp) {
-                this.ability = ability;
-                this.timestamp = timestamp;
+            void reset() {
+                state = 0;
+                steps = 0;
             }
         }
         
         private static class ComboDefinition {
             final String name;
-            final List<AbilityType> sequence;
+            final AbilityType[] sequence;
             final java.util.function.Consumer<Player> onExecute;
             
-            ComboDefinition(String name, List<AbilityType> sequence, 
+            ComboDefinition(String name, AbilityType[] sequence, 
                           java.util.function.Consumer<Player> onExecute) {
                 this.name = name;
                 this.sequence = sequence;
@@ -334,63 +561,65 @@ public class SpecialAbilitySystem {
     }
     
     /**
-     * Mapa de definiciones de habilidades
+     * Definiciones de habilidades indexadas por ordinal (null si no tiene definición)
      */
-    private final Map<AbilityType, AbilityDefinition> abilityDefinitions;
+    private final AbilityDefinition[] abilityDefinitions = new AbilityDefinition[ABILITY_COUNT];
+    
+    private void define(AbilityDefinition definition) {
+        abilityDefinitions[definition.type.ordinal()] = definition;
+    }
     
     /**
      * Inicializa las definiciones de habilidades
      */
     private void initializeAbilityDefinitions() {
-        abilityDefinitions = new HashMap<>();
-        
         // Habilidades TANK
-        abilityDefinitions.put(AbilityType.SHIELD, new AbilityDefinition(
+        define(new AbilityDefinition(
             AbilityType.SHIELD, "Escudo", "Protección temporal que absorbe daño",
             25.0f, 15.0f, 8.0f, 0.0f, 150.0f, AbilityCategory.DEFENSIVE,
             false, false
         ));
         
-        abilityDefinitions.put(AbilityType.FORTIFICATION, new AbilityDefinition(
+        define(new AbilityDefinition(
             AbilityType.FORTIFICATION, "Fortificación", "Aumenta defensa y resistencia",
             40.0f, 20.0f, 12.0f, 50.0f, 2.0f, AbilityCategory.BUFF,
             false, true
         ));
         
         // Habilidades ASSASSIN
-        abilityDefinitions.put(AbilityType.STEALTH, new AbilityDefinition(
+        define(new AbilityDefinition(
             AbilityType.STEALTH, "Sigilo", "Invisibilidad temporal con aumento de velocidad",
             30.0f, 18.0f, 5.0f, 0.0f, 1.8f, AbilityCategory.UTILITY,
             false, false
         ));
         
-        abilityDefinitions.put(AbilityType.SHADOW_STRIKE, new AbilityDefinition(
+        define(new AbilityDefinition(
             AbilityType.SHADOW_STRIKE, "Golpe Sombra", "Ataque crítico que ignora defensa",
             35.0f, 12.0f, 0.0f, 30.0f, 2.5f, AbilityCategory.OFFENSIVE,
             true, false
         ));
         
         // Habilidades MAGE
-        abilityDefinitions.put(AbilityType.NOVA, new AbilityDefinition(
+        define(new AbilityDefinition(
             AbilityType.NOVA, "Nova Arcana", "Explosión mágica que daña enemigos cercanos",
             50.0f, 25.0f, 0.0f, 80.0f, 1.8f, AbilityCategory.OFFENSIVE,
             false, true
         ));
         
-        abilityDefinitions.put(AbilityType.SPELL_BOOST, new AbilityDefinition(
+        define(new AbilityDefinition(
             AbilityType.SPELL_BOOST, "Impulso Mágico", "Aumenta daño mágico temporalmente",
             20.0f, 30.0f, 10.0f, 0.0f, 1.5f, AbilityCategory.BUFF,
             false, false
         ));
         
         // Habilidades SUPPORT
-        abilityDefinitions.put(AbilityType.HEAL, new AbilityDefinition(
+        define(new AbilityDefinition(
             AbilityType.HEAL, "Curación", "Restaura vida a ti y aliados cercanos",
             45.0f, 8.0f, 3.0f, 60.0f, 80.0f, AbilityCategory.HEALING,
             false, true
         ));
         
-        abilityDefinitions.put(AbilityType.REGENERATION_AURA, new AbilityDefinition(
+        define(new AbilityDefinition(
             AbilityType.REGENERATION_AURA, "Aura Regeneradora", "Aura que regenera vida continuamente",
             60.0f, 45.0f, 15.0f, 100.0f, 5.0f, AbilityCategory.HEALING,
             false, true
@@ -403,11 +632,11 @@ public class SpecialAbilitySystem {
     private void loadSounds() {
         // Cargar sonidos de habilidades (requiere archivos de audio en res/raw/)
         try {
-            soundIds.put(AbilityType.SHIELD, soundPool.load(context, R.raw.shield_sound, 1));
-            soundIds.put(AbilityType.NOVA, soundPool.load(context, R.raw.nova_sound, 1));
-            soundIds.put(AbilityType.HEAL, soundPool.load(context, R.raw.heal_sound, 1));
-            soundIds.put(AbilityType.STEALTH, soundPool.load(context, R.raw.stealth_sound, 1));
-            soundIds.put(AbilityType.SHADOW_STRIKE, soundPool.load(context, R.raw.shadow_strike_sound, 1));
+            soundIds[AbilityType.SHIELD.ordinal()] = soundPool.load(context, R.raw.shield_sound, 1);
+            soundIds[AbilityType.NOVA.ordinal()] = soundPool.load(context, R.raw.nova_sound, 1);
+            soundIds[AbilityType.HEAL.ordinal()] = soundPool.load(context, R.raw.heal_sound, 1);
+            soundIds[AbilityType.STEALTH.ordinal()] = soundPool.load(context, R.raw.stealth_sound, 1);
+            soundIds[AbilityType.SHADOW_STRIKE.ordinal()] = soundPool.load(context, R.raw.shadow_strike_sound, 1);
         } catch (Exception e) {
             Log.w(TAG, "No se pudieron cargar algunos sonidos: " + e.getMessage());
         }
@@ -417,22 +646,31 @@ public class SpecialAbilitySystem {
      * Actualiza el sistema de habilidades
      */
     public void update(float deltaTime) {
-        long currentTime = System.currentTimeMillis();
+        long now = System.currentTimeMillis();
+        currentTime = now;
         
-        // Actualizar energía y remover habilidades expiradas
-        for (Player player : activeAbilities.keySet()) {
-            ActiveAbilities playerAbilities = activeAbilities.get(player);
+        processPendingCasts();
+        
+        // Actualizar energía y apagar habilidades expiradas
+        ActiveAbilities[] states = abilityStates;
+        for (int i = 0; i < states.length; i++) {
+            ActiveAbilities playerAbilities = states[i];
             
-            // Regenerar energía
-            playerAbilities.currentEnergy = Math.min(
-                playerAbilities.maxEnergy,
-                playerAbilities.currentEnergy + ENERGY_REGEN_RATE * deltaTime
-            );
+            synchronized (playerAbilities) {
+                // Regenerar energía
+                playerAbilities.currentEnergy = Math.min(
+                    playerAbilities.maxEnergy,
+                    playerAbilities.currentEnergy + ENERGY_REGEN_RATE * deltaTime
+                );
+                
+                playerAbilities.expire(now);
+            }
             
-            // Remover habilidades expiradas
-            playerAbilities.abilities.entrySet().removeIf(entry ->
-                entry.getValue().isExpired(currentTime)
-            );
+            // El aura regeneradora cura en cada tick mientras está activa
+            if (playerAbilities.hasAbility(AbilityType.REGENERATION_AURA)) {
+                int index = AbilityType.REGENERATION_AURA.ordinal();
+                pulseRegenerationAura(playerAbilities.player, playerAbilities.effects[index] * deltaTime);
+            }
         }
         
         // Actualizar efectos visuales
@@ -441,51 +679,112 @@ public class SpecialAbilitySystem {
     
     /**
      * Intenta usar una habilidad
+     * Valida y cobra en el hilo que llama; los efectos se aplican en el próximo update()
      */
     public boolean useAbility(Player player, AbilityType abilityType, float targetX, float targetY) {
-        ActiveAbilities playerAbilities = activeAbilities.computeIfAbsent(player, k -> new ActiveAbilities());
-        AbilityDefinition definition = abilityDefinitions.get(abilityType);
+        ActiveAbilities playerAbilities = getOrCreateState(player);
+        AbilityDefinition definition = abilityDefinitions[abilityType.ordinal()];
+        long now = System.currentTimeMillis();
+        currentTime = now;
         
         if (definition == null) {
             Log.w(TAG, "Habilidad no encontrada: " + abilityType);
             return false;
         }
         
-        // Verificar si el jugador tiene suficiente energía
-        float energyCost = calculateEnergyCost(player, definition);
-        if (playerAbilities.currentEnergy < energyCost) {
-            Log.d(TAG, "Energía insuficiente para usar " + abilityType.displayName);
-            return false;
-        }
-        
-        // Verificar cooldown
-        if (isOnCooldown(player, abilityType)) {
-            Log.d(TAG, abilityType.displayName + " en cooldown");
-            return false;
-        }
-        
         // Verificar compatibilidad con el rol del jugador
         if (!isCompatibleWithRole(player, abilityType)) {
             Log.d(TAG, "Habilidad incompatible con el rol del jugador");
             return false;
         }
         
-        // Ejecutar la habilidad
-        executeAbility(player, abilityType, definition, targetX, targetY, energyCost);
+        // Comprobar y gastar la energía en un solo paso frente a la regeneración de update()
+        float energyCost = calculateEnergyCost(player, definition);
+        float scaledEffect;
+        synchronized (playerAbilities) {
+            if (playerAbilities.currentEnergy < energyCost) {
+                Log.d(TAG, "Energía insuficiente para usar " + abilityType.displayName);
+                return false;
+            }
+            
+            if (playerAbilities.isOnCooldown(abilityType, now)) {
+                Log.d(TAG, abilityType.displayName + " en cooldown");
+                return false;
+            }
+            
+            scaledEffect = activateAbility(player, playerAbilities, definition, now, energyCost);
+        }
         
-        // Registrar uso para combos
-        comboManager.addAbilityUse(player, abilityType, System.currentTimeMillis());
+        // Efectos, objetivos y combos se resuelven en el hilo de juego, en el próximo update()
+        pendingCasts.add(new CastRecord(player, abilityType, targetX, targetY, scaledEffect, now));
         
         return true;
     }
     
     /**
-     * Ejecuta una habilidad
+     * Aplica los usos encolados y olvida a los jugadores que salieron
+     * Corre en update(): la fase ancha, el resolvedor de área, los oyentes que cambian masa
+     * y ComboManager solo se tocan desde el hilo de juego
      */
-    private void executeAbility(Player player, AbilityType abilityType, AbilityDefinition definition,
-                              float targetX, float targetY, float energyCost) {
-        ActiveAbilities playerAbilities = activeAbilities.get(player);
+    private void processPendingCasts() {
+        CastRecord cast;
+        while ((cast = pendingCasts.poll()) != null) {
+            // Un uso que llega tras removePlayer() no debe aplicarse ni resucitar el combo
+            if (!activeAbilities.containsKey(cast.player)) continue;
+            
+            applyAbilityEffects(cast.player, cast.abilityType, cast.targetX, cast.targetY, cast.effect);
+            playAbilityEffects(cast.player, cast.abilityType);
+            Log.d(TAG, "Habilidad ejecutada: " + cast.abilityType.displayName + 
+                      " por " + cast.player.getPlayerName());
+            comboManager.addAbilityUse(cast.player, cast.abilityType, cast.timestamp);
+        }
+        
+        Player removed;
+        while ((removed = pendingRemovals.poll()) != null) {
+            comboManager.playerCombos.remove(removed);
+        }
+    }
+    
+    /**
+     * Estado del jugador, creándolo y publicándolo en el array la primera vez
+     */
+    private synchronized ActiveAbilities getOrCreateState(Player player) {
+        ActiveAbilities state = activeAbilities.get(player);
+        if (state == null) {
+            state = new ActiveAbilities(player);
+            activeAbilities.put(player, state);
+            ActiveAbilities[] states = Arrays.copyOf(abilityStates, abilityStates.length + 1);
+            states[states.length - 1] = state;
+            abilityStates = states;
+        }
+        return state;
+    }
+    
+    /**
+     * Olvida el estado de un jugador que sale de la partida
+     */
+    public synchronized void removePlayer(Player player) {
+        ActiveAbilities state = activeAbilities.remove(player);
+        if (state == null) return;
         
+        ActiveAbilities[] states = abilityStates;
+        ActiveAbilities[] remaining = new ActiveAbilities[states.length - 1];
+        int count = 0;
+        for (ActiveAbilities candidate : states) {
+            if (candidate != state) {
+                remaining[count++] = candidate;
+            }
+        }
+        abilityStates = remaining;
+        pendingRemovals.add(player);
+    }
+    
+    /**
+     * Gasta la energía y activa la habilidad; se llama con el monitor del estado tomado
+     * @return efecto escalado por tamaño
+     */
+    private float activateAbility(Player player, ActiveAbilities playerAbilities,
+                                  AbilityDefinition definition, long now, float energyCost) {
         // Reducir energía
         playerAbilities.currentEnergy -= energyCost;
         
@@ -494,27 +793,10 @@ public class SpecialAbilitySystem {
         float scaledDuration = definition.baseDuration * getPowerMultiplier(player);
         float scaledCooldown = definition.baseCooldown * getCooldownMultiplier(player);
         
-        // Crear habilidad activa
-        ActiveAbility activeAbility = new ActiveAbility(
-            abilityType,
-            System.currentTimeMillis(),
-            scaledDuration,
-            scaledCooldown,
-            energyCost,
-            scaledEffect
-        );
-        
-        // Agregar a habilidades activas
-        playerAbilities.abilities.put(abilityType, activeAbility);
-        
-        // Aplicar efectos específicos según el tipo de habilidad
-        applyAbilityEffects(player, abilityType, targetX, targetY, scaledEffect);
-        
-        // Reproducir efectos visuales y sonoros
-        playAbilityEffects(player, abilityType);
-        
-        Log.d(TAG, "Habilidad ejecutada: " + abilityType.displayName + 
-                  " por " + player.getPlayerName());
+        // Activar la habilidad y arrancar su cooldown
+        playerAbilities.activate(definition.type, now, scaledDuration, scaledCooldown,
+                                 energyCost, scaledEffect);
+        return scaledEffect;
     }
     
     /**
@@ -566,27 +848,50 @@ public class SpecialAbilitySystem {
     }
     
     /**
-     * Verifica si una habilidad está en cooldown
+     * Verifica si una habilidad está en cooldown (respecto al último update)
      */
     public boolean isOnCooldown(Player player, AbilityType abilityType) {
         ActiveAbilities playerAbilities = activeAbilities.get(player);
-        if (playerAbilities == null) return false;
-        
-        ActiveAbility ability = playerAbilities.getAbility(abilityType);
-        return ability != null && ability.cooldownRemaining > 0;
+        return playerAbilities != null && playerAbilities.isOnCooldown(abilityType, currentTime);
     }
     
     /**
-     * Obtiene el cooldown restante de una habilidad
+     * Obtiene el cooldown restante de una habilidad en segundos
      */
     public float getCooldownRemaining(Player player, AbilityType abilityType) {
         ActiveAbilities playerAbilities = activeAbilities.get(player);
         if (playerAbilities == null) return 0;
         
-        ActiveAbility ability = playerAbilities.getAbility(abilityType);
-        if (ability == null) return 0;
-        
-        return ability.cooldownRemaining;
+        return playerAbilities.getCooldownRemaining(abilityType, currentTime);
+    }
+    
+    /**
+     * Máscara de habilidades activas del jugador: bit (1 << ordinal) por habilidad
+     */
+    public int getActiveAbilityMask(Player player) {
+        ActiveAbilities playerAbilities = activeAbilities.get(player);
+        return playerAbilities != null ? playerAbilities.activeMask : 0;
+    }
+    
+    /**
+     * Copia del estado de una habilidad activa, con el mismo reloj que los cooldowns
+     */
+    public ActiveAbility getActiveAbility(Player player, AbilityType abilityType) {
+        ActiveAbilities playerAbilities = activeAbilities.get(player);
+        return playerAbilities != null ? playerAbilities.getAbility(abilityType, currentTime) : null;
+    }
+    
+    public boolean isAbilityActive(Player player, AbilityType abilityType) {
+        return (getActiveAbilityMask(player) & (1 << abilityType.ordinal())) != 0;
+    }
+    
+    public float getCurrentEnergy(Player player) {
+        ActiveAbilities playerAbilities = activeAbilities.get(player);
+        return playerAbilities != null ? playerAbilities.currentEnergy : 0;
+    }
+    
+    public int getComboProgress(Player player) {
+        return comboManager.getComboProgress(player);
     }
     
     /**
@@ -664,8 +969,8 @@ public class SpecialAbilitySystem {
         visualEffects.playAbilityEffect(abilityType, player.getX(), player.getY());
         
         // Efectos sonoros
-        Integer soundId = soundIds.get(abilityType);
-        if (soundId != null) {
+        int soundId = soundIds[abilityType.ordinal()];
+        if (soundId != 0) {
             soundPool.play(soundId, 1.0f, 1.0f, 1, 0, 1.0f);
         }
     }
@@ -683,13 +988,22 @@ public class SpecialAbilitySystem {
     }
     
     private void applyNovaEffect(Player player, float x, float y, float effect) {
-        // Implementar explosión mágica
-        Log.d(TAG, "Aplicando nova a " + player.getPlayerName() + " en (" + x + ", " + y + ") con efecto " + effect);
+        // Explosión mágica alrededor del lanzador: jugadores y bots en el alcance
+        int hits = areaResolver.resolveCircle(player.getX(), player.getY(),
+                                              getAreaRange(player, AbilityType.NOVA),
+                                              AreaEffectResolver.MASK_COMBATANTS, player);
+        dispatchAreaEffect(player, AbilityType.NOVA, effect);
+        Log.d(TAG, "Aplicando nova a " + player.getPlayerName() + " con efecto " + effect + " sobre " + hits + " objetivos");
     }
     
     private void applyHealEffect(Player player, float x, float y, float effect) {
-        // Implementar curación
-        Log.d(TAG, "Aplicando curación a " + player.getPlayerName() + " con efecto " + effect);
+        // Curación al lanzador y, con caída por distancia, a los jugadores cercanos
+        notifyAreaEffect(player, AbilityType.HEAL, player, effect);
+        int hits = areaResolver.resolveCircle(player.getX(), player.getY(),
+                                              getAreaRange(player, AbilityType.HEAL),
+                                              1 << SpatialGrid.CATEGORY_PLAYER, player, allyFilter);
+        dispatchAreaEffect(player, AbilityType.HEAL, effect);
+        Log.d(TAG, "Aplicando curación a " + player.getPlayerName() + " con efecto " + effect + " sobre " + hits + " aliados");
     }
     
     private void applyFortificationEffect(Player player, float effect) {
@@ -698,7 +1012,14 @@ public class SpecialAbilitySystem {
     }
     
     private void applyShadowStrikeEffect(Player player, float x, float y, float effect) {
-        // Implementar golpe sombra
+        // Golpe sombra: el objetivo más cercano dentro del cono hacia el punto indicado
+        areaResolver.resolveCone(player.getX(), player.getY(), x - player.getX(), y - player.getY(),
+                                 SHADOW_STRIKE_HALF_ANGLE, getAreaRange(player, AbilityType.SHADOW_STRIKE),
+                                 AreaEffectResolver.MASK_COMBATANTS, player);
+        int nearest = areaResolver.getNearestIndex();
+        if (nearest != AreaEffectResolver.NO_TARGET) {
+            notifyAreaEffect(player, AbilityType.SHADOW_STRIKE, areaResolver.getTarget(nearest), effect);
+        }
         Log.d(TAG, "Aplicando golpe sombra desde " + player.getPlayerName() + " hacia (" + x + ", " + y + ") con efecto " + effect);
     }
     
@@ -708,21 +1029,61 @@ public class SpecialAbilitySystem {
     }
     
     private void applyRegenerationAuraEffect(Player player, float effect) {
-        // Implementar aura regeneradora
+        // La curación continua se aplica en update() mientras el bit del aura siga activo
         Log.d(TAG, "Aplicando aura regeneradora a " + player.getPlayerName() + " con efecto " + effect);
     }
     
+    private void pulseRegenerationAura(Player player, float amount) {
+        notifyAreaEffect(player, AbilityType.REGENERATION_AURA, player, amount);
+        areaResolver.resolveCircle(player.getX(), player.getY(),
+                                   getAreaRange(player, AbilityType.REGENERATION_AURA),
+                                   1 << SpatialGrid.CATEGORY_PLAYER, player, allyFilter);
+        dispatchAreaEffect(player, AbilityType.REGENERATION_AURA, amount);
+    }
+    
+    /**
+     * Alcance de una habilidad de área: borde del lanzador más el rango escalado por tamaño
+     */
+    private float getAreaRange(Player player, AbilityType abilityType) {
+        return player.getRadius() + abilityDefinitions[abilityType.ordinal()].baseRange * getPowerMultiplier(player);
+    }
+    
+    /**
+     * Entrega en lote los objetivos de la última resolución, con el efecto ponderado por distancia
+     */
+    private void dispatchAreaEffect(Player caster, AbilityType abilityType, float effect) {
+        AreaEffectListener listener = areaEffectListener;
+        if (listener == null) return;
+        
+        int count = areaResolver.getTargetCount();
+        for (int i = 0; i < count; i++) {
+            listener.onAreaEffect(caster, abilityType, areaResolver.getTarget(i), effect * areaResolver.getWeight(i));
+        }
+    }
+    
+    private void notifyAreaEffect(Player caster, AbilityType abilityType, Entity target, float amount) {
+        AreaEffectListener listener = areaEffectListener;
+        if (listener != null) {
+            listener.onAreaEffect(caster, abilityType, target, amount);
+        }
+    }
+    
     /**
      * Renderiza las habilidades activas en pantalla
      */
     public void render(Canvas canvas, Paint paint) {
-        for (Player player : activeAbilities.keySet()) {
-            ActiveAbilities playerAbilities = activeAbilities.get(player);
+        long now = System.currentTimeMillis();
+        ActiveAbilities[] states = abilityStates;
+        for (int i = 0; i < states.length; i++) {
+            ActiveAbilities playerAbilities = states[i];
             
             // Renderizar efectos de habilidades activas
-            for (ActiveAbility ability : playerAbilities.abilities.values()) {
-                if (!ability.isExpired(System.currentTimeMillis())) {
-                    renderAbilityEffect(canvas, paint, player, ability);
+            int mask = playerAbilities.activeMask;
+            while (mask != 0) {
+                int index = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                if (now < playerAbilities.activeUntil[index]) {
+                    renderAbilityEffect(canvas, paint, playerAbilities, ABILITY_TYPES[index], now);
                 }
             }
         }
@@ -731,19 +1092,23 @@ public class SpecialAbilitySystem {
     /**
      * Renderiza el efecto de una habilidad específica
      */
-    private void renderAbilityEffect(Canvas canvas, Paint paint, Player player, ActiveAbility ability) {
-        switch (ability.type) {
+    private void renderAbilityEffect(Canvas canvas, Paint paint, ActiveAbilities state,
+                                     AbilityType type, long now) {
+        Player player = state.player;
+        switch (type) {
             case SHIELD:
-                renderShieldEffect(canvas, paint, player, ability);
+                renderShieldEffect(canvas, paint, player);
                 break;
             case STEALTH:
-                renderStealthEffect(canvas, paint, player, ability);
+                renderStealthEffect(canvas, paint, player);
                 break;
             case NOVA:
-                renderNovaEffect(canvas, paint, player, ability);
+                int index = type.ordinal();
+                float elapsed = (now - state.startTimes[index]) / 1000.0f;
+                renderNovaEffect(canvas, paint, player, elapsed / state.durations[index]);
                 break;
             case HEAL:
-                renderHealEffect(canvas, paint, player, ability);
+                renderHealEffect(canvas, paint, player);
                 break;
             // Agregar más efectos de renderizado...
         }
@@ -751,7 +1116,7 @@ public class SpecialAbilitySystem {
     
     // Métodos de renderizado específicos
     
-    private void renderShieldEffect(Canvas canvas, Paint paint, Player player, ActiveAbility ability) {
+    private void renderShieldEffect(Canvas canvas, Paint paint, Player player) {
         paint.setStyle(Paint.Style.STROKE);
         paint.setColor(0x804CAF50); // Verde translúcido
         paint.setStrokeWidth(5.0f);
@@ -760,16 +1125,13 @@ public class SpecialAbilitySystem {
         canvas.drawCircle(player.getX(), player.getY(), radius, paint);
     }
     
-    private void renderStealthEffect(Canvas canvas, Paint paint, Player player, ActiveAbility ability) {
+    private void renderStealthEffect(Canvas canvas, Paint paint, Player player) {
         // Efecto de invisibilidad: renderizar con transparencia
         paint.setAlpha(50); // Semi-transparente
     }
     
-    private void renderNovaEffect(Canvas canvas, Paint paint, Player player, ActiveAbility ability) {
+    private void renderNovaEffect(Canvas canvas, Paint paint, Player player, float progress) {
         // Efecto de explosión mágica
-        float elapsed = (System.currentTimeMillis() - ability.startTime) / 1000.0f;
-        float progress = elapsed / ability.duration;
-        
         paint.setStyle(Paint.Style.FILL);
         paint.setColor(0x60FF4500); // Naranja translúcido
         paint.setAlpha((int)(255 * (1.0f - progress)));
@@ -778,7 +1140,7 @@ public class SpecialAbilitySystem {
         canvas.drawCircle(player.getX(), player.getY(), radius, paint);
     }
     
-    private void renderHealEffect(Canvas canvas, Paint paint, Player player, ActiveAbility ability) {
+    private void renderHealEffect(Canvas canvas, Paint paint, Player player) {
         // Efecto de curación: partículas verdes
         paint.setStyle(Paint.Style.FILL);
         paint.setColor(0x804CAF50); // Verde translúcido
@@ -791,10 +1153,9 @@ public class SpecialAbilitySystem {
      * Obtiene información de habilidades para UI
      */
     public String getAbilityInfo(Player player, AbilityType abilityType) {
-        AbilityDefinition definition = abilityDefinitions.get(abilityType);
+        AbilityDefinition definition = abilityDefinitions[abilityType.ordinal()];
         if (definition == null) return "Habilidad no encontrada";
         
-        ActiveAbilities playerAbilities = activeAbilities.get(player);
         boolean onCooldown = isOnCooldown(player, abilityType);
         float cooldownRemaining = getCooldownRemaining(player, abilityType);
         float energyCost = calculateEnergyCost(player, definition);
@@ -812,12 +1173,38 @@ public class SpecialAbilitySystem {
         return info.toString();
     }
     
+    /**
+     * Usa la fase ancha compartida del motor para resolver las habilidades de área
+     */
+    public void setSpatialGrid(SpatialGrid grid) {
+        areaResolver.setSpatialGrid(grid);
+    }
+    
+    public void setAreaEffectListener(AreaEffectListener listener) {
+        this.areaEffectListener = listener;
+    }
+    
+    /**
+     * Aliados del lanzador que alcanzan la curación y el aura; se consulta en el hilo de juego
+     * @param allyFilter null para curar solo al lanzador
+     */
+    public void setAllyFilter(AreaEffectResolver.TargetFilter allyFilter) {
+        this.allyFilter = allyFilter != null ? allyFilter : NO_ALLIES;
+    }
+    
+    public AreaEffectResolver getAreaResolver() {
+        return areaResolver;
+    }
+    
     /**
      * Limpia recursos del sistema
      */
-    public void cleanup() {
+    public synchronized void cleanup() {
         soundPool.release();
         activeAbilities.clear();
+        abilityStates = new ActiveAbilities[0];
+        pendingCasts.clear();
+        pendingRemovals.clear();
         comboManager.playerCombos.clear();
     }
 }
\ No newline at end of file
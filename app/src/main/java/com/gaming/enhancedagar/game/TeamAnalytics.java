@@ -0,0 +1,285 @@
+package com.gaming.enhancedagar.game;
+
+import android.graphics.PointF;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Análisis espacial de todos los equipos en una sola pasada por tick
+ * Sincroniza los jugadores activos con una SpatialGrid y obtiene de una vez vecinos de
+ * formación, centroides, dispersión (compacidad) y fuerza. El coste es
+ * lineal en jugadores (cada consulta de vecinos solo visita celdas cercanas) y los resultados
+ * viven en arrays primitivos reutilizados entre ticks
+ */
+public class TeamAnalytics {
+
+    private static final int INITIAL_NEIGHBOR_QUERY = 64;
+
+    private SpatialGrid grid;
+    private float formationRadius;
+
+    // Marca de la pasada actual: distingue resultados vigentes de los de ticks anteriores
+    private int pass = 0;
+
+    // Jugadores con handle en la rejilla (para dar de baja a los que dejan de estar activos)
+    private TeamSystem.TeamPlayer[] tracked = new TeamSystem.TeamPlayer[64];
+    private int trackedCount = 0;
+
+    // Resultados por jugador, indexados por TeamPlayer.analyticsIndex
+    private int playerCount = 0;
+    private int[] neighborCounts = new int[64];
+
+    // Resultados por equipo, indexados por Team.analyticsIndex
+    private int teamCount = 0;
+    private int totalTeamPlayers = 0;
+    private TeamSystem.Team[] analyzedTeams = new TeamSystem.Team[8];
+    private double[] weightedX = new double[8];
+    private double[] weightedY = new double[8];
+    private float[] centroidX = new float[8];
+    private float[] centroidY = new float[8];
+    private float[] activeMass = new float[8];
+    private float[] strength = new float[8];
+    private float[] spread = new float[8];
+    private int[] healthSum = new int[8];
+    private int[] activeCount = new int[8];
+    private int[] roleMask = new int[8];
+
+    // Crece al llenarse para que una formación densa no trunque el recuento de vecinos
+    private int[] queryBuffer = new int[INITIAL_NEIGHBOR_QUERY];
+
+    public TeamAnalytics(float formationRadius) {
+        this.formationRadius = formationRadius;
+        this.grid = new SpatialGrid(formationRadius, 1024);
+    }
+
+    // === PASADA POR TICK ===
+
+    /**
+     * Recalcula todos los resultados
+     * @param teams equipos en orden estable (su posición es el índice de análisis)
+     */
+    public void run(List<TeamSystem.Team> teams) {
+        if (++pass == Integer.MAX_VALUE) {
+            pass = 1;
+        }
+        teamCount = teams.size();
+        ensureTeamCapacity(teamCount);
+        playerCount = 0;
+        totalTeamPlayers = 0;
+
+        // 1) Agregados por equipo y posiciones en la rejilla
+        for (int t = 0; t < teamCount; t++) {
+            TeamSystem.Team team = teams.get(t);
+            team.analyticsIndex = t;
+            analyzedTeams[t] = team;
+            resetTeam(t);
+
+            List<TeamSystem.TeamPlayer> members = team.getPlayers();
+            totalTeamPlayers += members.size();
+            for (int i = 0; i < members.size(); i++) {
+                TeamSystem.TeamPlayer player = members.get(i);
+                if (!player.isActive()) {
+                    continue;
+                }
+                registerPlayer(player);
+
+                PointF position = player.getPosition();
+                float mass = player.getMass();
+                weightedX[t] += position.x * mass;
+                weightedY[t] += position.y * mass;
+                activeMass[t] += mass;
+                strength[t] += mass * player.getRole().getMassMultiplier();
+                healthSum[t] += player.getHealth();
+                activeCount[t]++;
+                roleMask[t] |= 1 << player.getRole().ordinal();
+
+                if (player.gridHandle == SpatialGrid.NO_HANDLE) {
+                    player.gridHandle = grid.insert(player, t, SpatialGrid.CATEGORY_PLAYER, position.x, position.y, 0f);
+                    track(player);
+                } else {
+                    grid.move(player.gridHandle, position.x, position.y);
+                }
+            }
+
+            if (activeMass[t] > 0f) {
+                centroidX[t] = (float) (weightedX[t] / activeMass[t]);
+                centroidY[t] = (float) (weightedY[t] / activeMass[t]);
+            }
+        }
+
+        releaseStalePlayers();
+
+        // 2) Vecinos de formación y dispersión (necesitan rejilla y centroides al día)
+        for (int t = 0; t < teamCount; t++) {
+            TeamSystem.Team team = analyzedTeams[t];
+            List<TeamSystem.TeamPlayer> members = team.getPlayers();
+            for (int i = 0; i < members.size(); i++) {
+                TeamSystem.TeamPlayer player = members.get(i);
+                if (!player.isActive()) {
+                    continue;
+                }
+                PointF position = player.getPosition();
+                neighborCounts[player.analyticsIndex] = countFormationNeighbors(player, team, position);
+
+                float dx = position.x - centroidX[t];
+                float dy = position.y - centroidY[t];
+                spread[t] = Math.max(spread[t], (float) Math.sqrt(dx * dx + dy * dy));
+            }
+        }
+    }
+
+    private void resetTeam(int t) {
+        weightedX[t] = 0;
+        weightedY[t] = 0;
+        centroidX[t] = 0f;
+        centroidY[t] = 0f;
+        activeMass[t] = 0f;
+        strength[t] = 0f;
+        spread[t] = 0f;
+        healthSum[t] = 0;
+        activeCount[t] = 0;
+        roleMask[t] = 0;
+    }
+
+    private void registerPlayer(TeamSystem.TeamPlayer player) {
+        if (playerCount == neighborCounts.length) {
+            neighborCounts = Arrays.copyOf(neighborCounts, playerCount * 2);
+        }
+        player.analyticsIndex = playerCount;
+        player.analyticsStamp = pass;
+        neighborCounts[playerCount++] = 0;
+    }
+
+    private int countFormationNeighbors(TeamSystem.TeamPlayer player, TeamSystem.Team team, PointF position) {
+        int found = grid.queryCircle(position.x, position.y, formationRadius,
+            1 << SpatialGrid.CATEGORY_PLAYER, queryBuffer);
+        while (found == queryBuffer.length) {
+            queryBuffer = new int[queryBuffer.length * 2];
+            found = grid.queryCircle(position.x, position.y, formationRadius,
+                1 << SpatialGrid.CATEGORY_PLAYER, queryBuffer);
+        }
+        int neighbors = 0;
+        for (int i = 0; i < found; i++) {
+            Object item = grid.getItem(queryBuffer[i]);
+            // La rejilla puede ser compartida: solo cuentan compañeros analizados en esta pasada
+            if (item == player || !(item instanceof TeamSystem.TeamPlayer)) continue;
+            TeamSystem.TeamPlayer other = (TeamSystem.TeamPlayer) item;
+            if (other.analyticsStamp == pass && other.getTeam() == team) {
+                neighbors++;
+            }
+        }
+        return neighbors;
+    }
+
+    // === REJILLA ===
+
+    private void track(TeamSystem.TeamPlayer player) {
+        if (trackedCount == tracked.length) {
+            tracked = Arrays.copyOf(tracked, trackedCount * 2);
+        }
+        tracked[trackedCount++] = player;
+    }
+
+    /**
+     * Da de baja a los jugadores que no han pasado por esta pasada (inactivos o sin equipo)
+     */
+    private void releaseStalePlayers() {
+        for (int i = trackedCount - 1; i >= 0; i--) {
+            TeamSystem.TeamPlayer player = tracked[i];
+            if (player.analyticsStamp == pass) continue;
+            grid.remove(player.gridHandle);
+            player.gridHandle = SpatialGrid.NO_HANDLE;
+            player.analyticsIndex = -1;
+            tracked[i] = tracked[--trackedCount];
+            tracked[trackedCount] = null;
+        }
+    }
+
+    /**
+     * Usa otra rejilla (p. ej. la fase ancha del motor); los jugadores se registran en la siguiente pasada
+     */
+    public void setGrid(SpatialGrid grid) {
+        for (int i = 0; i < trackedCount; i++) {
+            this.grid.remove(tracked[i].gridHandle);
+            tracked[i].gridHandle = SpatialGrid.NO_HANDLE;
+            tracked[i] = null;
+        }
+        trackedCount = 0;
+        this.grid = grid != null ? grid : new SpatialGrid(formationRadius, 1024);
+    }
+
+    private void ensureTeamCapacity(int count) {
+        if (count <= analyzedTeams.length) {
+            return;
+        }
+        int capacity = Math.max(count, analyzedTeams.length * 2);
+        analyzedTeams = Arrays.copyOf(analyzedTeams, capacity);
+        weightedX = Arrays.copyOf(weightedX, capacity);
+        weightedY = Arrays.copyOf(weightedY, capacity);
+        centroidX = Arrays.copyOf(centroidX, capacity);
+        centroidY = Arrays.copyOf(centroidY, capacity);
+        activeMass = Arrays.copyOf(activeMass, capacity);
+        strength = Arrays.copyOf(strength, capacity);
+        spread = Arrays.copyOf(spread, capacity);
+        healthSum = Arrays.copyOf(healthSum, capacity);
+        activeCount = Arrays.copyOf(activeCount, capacity);
+        roleMask = Arrays.copyOf(roleMask, capacity);
+    }
+
+    // === CONFIGURACIÓN ===
+
+    public void setFormationRadius(float formationRadius) {
+        this.formationRadius = Math.max(1f, formationRadius);
+    }
+
+    // === CONSULTAS ===
+
+    /**
+     * Índice del equipo en la última pasada, o -1 si no se analizó
+     */
+    public int indexOf(TeamSystem.Team team) {
+        int index = team.analyticsIndex;
+        return index >= 0 && index < teamCount && analyzedTeams[index] == team ? index : -1;
+    }
+
+    /**
+     * Compañeros dentro del radio de formación en la última pasada
+     */
+    public int getNeighborCount(TeamSystem.TeamPlayer player) {
+        return player.analyticsStamp == pass && player.analyticsIndex >= 0
+            ? neighborCounts[player.analyticsIndex] : 0;
+    }
+
+    public float getCentroidX(int team) { return centroidX[team]; }
+    public float getCentroidY(int team) { return centroidY[team]; }
+    public float getActiveMass(int team) { return activeMass[team]; }
+    public float getStrength(int team) { return strength[team]; }
+    public int getActiveCount(int team) { return activeCount[team]; }
+    public int getRoleMask(int team) { return roleMask[team]; }
+    public int getRoleCount(int team) { return Integer.bitCount(roleMask[team]); }
+
+    public boolean hasRole(int team, TeamSystem.TeamRole role) {
+        return (roleMask[team] & (1 << role.ordinal())) != 0;
+    }
+
+    /**
+     * Distancia máxima de un miembro activo al centroide
+     */
+    public float getSpread(int team) { return spread[team]; }
+
+    /**
+     * Compacto: al menos dos miembros activos y todos a menos de medio radio de formación del centroide
+     */
+    public boolean isCompact(int team) {
+        return activeCount[team] >= 2 && spread[team] <= formationRadius / 2;
+    }
+
+    public float getAverageHealth(int team) {
+        return activeCount[team] > 0 ? (float) healthSum[team] / activeCount[team] : 0f;
+    }
+
+    public int getTeamCount() { return teamCount; }
+    public int getTotalTeamPlayers() { return totalTeamPlayers; }
+    public SpatialGrid getGrid() { return grid; }
+}
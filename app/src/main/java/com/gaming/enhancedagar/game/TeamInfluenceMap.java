@@ -0,0 +1,228 @@
+package com.gaming.enhancedagar.game;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de influencia territorial por equipo sobre una rejilla gruesa del mundo
+ * Cada tick los jugadores depositan influencia alrededor de su posición y todo el mapa
+ * decae exponencialmente. El decaimiento no recorre celdas: los depósitos se guardan
+ * multiplicados por una escala global que crece con el tiempo (el valor real es
+ * almacenado / escala) y solo se renormaliza cuando la escala se acerca al límite del float.
+ * Como todos los equipos decaen igual, el dueño y el segundo de cada celda solo cambian al
+ * depositar y se consultan en O(1).
+ * Con celdas de 100 unidades, un mundo de 10000x10000 y 4 equipos ocupa unos 180 KB
+ */
+public class TeamInfluenceMap {
+
+    public static final int NO_TEAM = -1;
+    public static final float DEFAULT_CELL_SIZE = 100f;
+    public static final float DEFAULT_RADIUS = 300f;
+
+    private static final float LN2 = 0.6931472f;
+    private static final float RENORMALIZE_SCALE = 1e18f;
+
+    // Geometría
+    private final float worldLeft;
+    private final float worldTop;
+    private final float cellSize;
+    private final float inverseCellSize;
+    private final int columns;
+    private final int rows;
+
+    // Influencia almacenada por equipo y celda (fila * columnas + columna), multiplicada por la escala
+    private final float[][] influence;
+    private final byte[] owner;
+    private final byte[] runnerUp;
+    private final int maxTeams;
+
+    private float scale = 1f;
+    private float halfLife = 3f;             // Segundos hasta perder la mitad de la influencia
+    private float radius = DEFAULT_RADIUS;
+    private float minInfluence = 0.5f;       // Por debajo la celda es neutral
+    private float contestedRatio = 0.6f;     // Segundo >= 60% del primero: zona disputada
+
+    public TeamInfluenceMap(float worldLeft, float worldTop, float worldWidth, float worldHeight,
+                            float cellSize, int maxTeams) {
+        this.worldLeft = worldLeft;
+        this.worldTop = worldTop;
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1f / cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(worldWidth / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(worldHeight / cellSize));
+        this.maxTeams = Math.min(maxTeams, Byte.MAX_VALUE);
+        this.influence = new float[this.maxTeams][columns * rows];
+        this.owner = new byte[columns * rows];
+        this.runnerUp = new byte[columns * rows];
+        clear();
+    }
+
+    // === ACTUALIZACIÓN ===
+
+    /**
+     * Avanza el decaimiento de todo el mapa en O(1)
+     */
+    public void decay(float deltaTime) {
+        if (deltaTime <= 0f) {
+            return;
+        }
+        scale *= (float) Math.exp(LN2 * deltaTime / halfLife);
+        if (scale > RENORMALIZE_SCALE) {
+            renormalize();
+        }
+    }
+
+    /**
+     * Deposita influencia de un equipo alrededor de un punto, con caída lineal hasta el radio
+     * @param amount influencia en el centro (p. ej. masa relativa por segundos de presencia)
+     */
+    public void deposit(int team, float x, float y, float amount) {
+        if (team < 0 || team >= maxTeams || amount <= 0f) {
+            return;
+        }
+        int firstColumn = columnOf(x - radius);
+        int lastColumn = columnOf(x + radius);
+        int firstRow = rowOf(y - radius);
+        int lastRow = rowOf(y + radius);
+        float inverseRadius = 1f / radius;
+        float scaled = amount * scale;
+        float[] values = influence[team];
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            float dy = worldTop + (row + 0.5f) * cellSize - y;
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                float dx = worldLeft + (column + 0.5f) * cellSize - x;
+                float falloff = 1f - (float) Math.sqrt(dx * dx + dy * dy) * inverseRadius;
+                if (falloff <= 0f) continue;
+
+                int cell = row * columns + column;
+                values[cell] += scaled * falloff;
+                updateRanking(cell, team);
+            }
+        }
+    }
+
+    /**
+     * Reordena dueño y segundo de una celda tras un depósito del equipo dado
+     */
+    private void updateRanking(int cell, int team) {
+        int first = owner[cell];
+        if (first == team) {
+            return;
+        }
+        float value = influence[team][cell];
+        if (first == NO_TEAM || value > influence[first][cell]) {
+            owner[cell] = (byte) team;
+            runnerUp[cell] = (byte) first;
+            return;
+        }
+        int second = runnerUp[cell];
+        if (second == NO_TEAM || second == team || value > influence[second][cell]) {
+            runnerUp[cell] = (byte) team;
+        }
+    }
+
+    private void renormalize() {
+        float inverse = 1f / scale;
+        for (float[] values : influence) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] *= inverse;
+            }
+        }
+        scale = 1f;
+    }
+
+    /**
+     * Borra toda la influencia
+     */
+    public void clear() {
+        for (float[] values : influence) {
+            Arrays.fill(values, 0f);
+        }
+        Arrays.fill(owner, (byte) NO_TEAM);
+        Arrays.fill(runnerUp, (byte) NO_TEAM);
+        scale = 1f;
+    }
+
+    // === CONSULTAS O(1) ===
+
+    /**
+     * Equipo dueño de la posición, o NO_TEAM si la influencia no llega al mínimo
+     */
+    public int getOwner(float x, float y) {
+        return getOwnerOfCell(cellIndex(x, y));
+    }
+
+    public int getOwnerOfCell(int cell) {
+        int first = owner[cell];
+        if (first == NO_TEAM || influence[first][cell] < minInfluence * scale) {
+            return NO_TEAM;
+        }
+        return first;
+    }
+
+    /**
+     * Zona disputada: el segundo equipo tiene al menos contestedRatio de la influencia del dueño
+     */
+    public boolean isContested(float x, float y) {
+        return isCellContested(cellIndex(x, y));
+    }
+
+    public boolean isCellContested(int cell) {
+        int first = getOwnerOfCell(cell);
+        int second = runnerUp[cell];
+        if (first == NO_TEAM || second == NO_TEAM) {
+            return false;
+        }
+        return influence[second][cell] >= influence[first][cell] * contestedRatio;
+    }
+
+    /**
+     * Influencia real (ya decaída) de un equipo en la posición
+     */
+    public float getInfluence(int team, float x, float y) {
+        if (team < 0 || team >= maxTeams) {
+            return 0f;
+        }
+        return influence[team][cellIndex(x, y)] / scale;
+    }
+
+    /**
+     * Cuenta en una sola pasada las celdas de cada equipo que no están disputadas
+     * Recorre todo el mapa: pensado para puntuaciones periódicas, no para cada tick
+     * @param counts salida indexada por equipo (al menos getMaxTeams() posiciones)
+     */
+    public void countOwnedCells(int[] counts) {
+        Arrays.fill(counts, 0, maxTeams, 0);
+        for (int cell = 0; cell < owner.length; cell++) {
+            int team = getOwnerOfCell(cell);
+            if (team != NO_TEAM && !isCellContested(cell)) {
+                counts[team]++;
+            }
+        }
+    }
+
+    public int cellIndex(float x, float y) {
+        return rowOf(y) * columns + columnOf(x);
+    }
+
+    private int columnOf(float x) {
+        return Math.max(0, Math.min(columns - 1, (int) ((x - worldLeft) * inverseCellSize)));
+    }
+
+    private int rowOf(float y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - worldTop) * inverseCellSize)));
+    }
+
+    // === CONFIGURACIÓN ===
+
+    public void setHalfLife(float seconds) { this.halfLife = Math.max(0.05f, seconds); }
+    public void setRadius(float radius) { this.radius = Math.max(cellSize * 0.5f, radius); }
+    public void setMinInfluence(float minInfluence) { this.minInfluence = Math.max(0f, minInfluence); }
+    public void setContestedRatio(float ratio) { this.contestedRatio = Math.max(0f, Math.min(1f, ratio)); }
+
+    public int getColumns() { return columns; }
+    public int getRows() { return rows; }
+    public int getCellCount() { return columns * rows; }
+    public float getCellSize() { return cellSize; }
+    public int getMaxTeams() { return maxTeams; }
+}
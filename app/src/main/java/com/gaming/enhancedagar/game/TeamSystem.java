@@ -129,6 +129,16 @@ public class TeamSystem {
         public long getTimestamp() { return timestamp; }
     }
     
+    private static final TeamBuff[] BUFFS = TeamBuff.values();
+    
+    // Muestras de los historiales de posición y su intervalo (8 x 250 ms = 2 s)
+    private static final int POSITION_HISTORY_SIZE = 8;
+    private static final long POSITION_HISTORY_INTERVAL_MS = 250;
+    
+    // Mapa de influencia: recuento de celdas propias como mucho una vez por segundo
+    private static final long TERRITORY_COUNT_INTERVAL_MS = 1000;
+    private static final float MAX_INFLUENCE_STEP = 0.25f;
+    
     // Jugador en equipo
     public static class TeamPlayer {
         private final int playerId;
@@ -140,7 +150,22 @@ public class TeamSystem {
         private boolean isActive;
         private int health;
         private float speed;
-        private Map<TeamBuff, Integer> buffLevels;
+        private final int[] buffLevels;
+        
+        // Estado de TeamAnalytics (índice denso, marca de pasada y handle en la rejilla)
+        int analyticsIndex = -1;
+        int analyticsStamp = 0;
+        int gridHandle = SpatialGrid.NO_HANDLE;
+        
+        // Aportación vigente a las sumas del equipo (se resta tal cual al moverse o salir)
+        private float contributedX, contributedY, contributedMass;
+        
+        // Historial de posiciones en anillo (la muestra 0 es la más reciente)
+        private final float[] historyX = new float[POSITION_HISTORY_SIZE];
+        private final float[] historyY = new float[POSITION_HISTORY_SIZE];
+        private final long[] historyTime = new long[POSITION_HISTORY_SIZE];
+        private int historyHead = 0;
+        private int historyCount = 0;
         
         public TeamPlayer(int playerId, String playerName) {
             this.playerId = playerId;
@@ -152,12 +177,25 @@ public class TeamSystem {
             this.isActive = false;
             this.health = 100;
             this.speed = 1.0f;
-            this.buffLevels = new ConcurrentHashMap<>();
+            this.buffLevels = new int[BUFFS.length];
         }
         
         public void setRole(TeamRole role) { this.role = role; }
-        public void setPosition(PointF position) { this.position = position; }
-        public void setMass(float mass) { this.mass = mass; }
+        public void setPosition(PointF position) { setPosition(position.x, position.y); }
+        
+        /**
+         * Mover al jugador; la posición se copia y el equipo actualiza su centro en O(1)
+         */
+        public void setPosition(float x, float y) {
+            position.set(x, y);
+            if (team != null) team.onPlayerChanged(this);
+        }
+        
+        public void setMass(float mass) {
+            this.mass = mass;
+            if (team != null) team.onPlayerChanged(this);
+        }
+        
         public void setTeam(Team team) { this.team = team; }
         public void setActive(boolean active) { isActive = active; }
         public void setHealth(int health) { this.health = health; }
@@ -172,40 +210,73 @@ public class TeamSystem {
         public float getSpeed() { return speed; }
         public int getPlayerId() { return playerId; }
         public String getPlayerName() { return playerName; }
-        public Map<TeamBuff, Integer> getBuffLevels() { return buffLevels; }
+        public int getBuffLevel(TeamBuff buff) { return buffLevels[buff.ordinal()]; }
+        
+        /**
+         * Copia de los buffs con nivel mayor que cero
+         */
+        public Map<TeamBuff, Integer> getBuffLevels() {
+            Map<TeamBuff, Integer> levels = new EnumMap<>(TeamBuff.class);
+            for (TeamBuff buff : BUFFS) {
+                if (buffLevels[buff.ordinal()] > 0) {
+                    levels.put(buff, buffLevels[buff.ordinal()]);
+                }
+            }
+            return levels;
+        }
+        
+        /**
+         * Guardar una muestra de posición en el historial
+         */
+        public void recordPosition(float x, float y, long time) {
+            historyHead = (historyHead + 1) % POSITION_HISTORY_SIZE;
+            historyX[historyHead] = x;
+            historyY[historyHead] = y;
+            historyTime[historyHead] = time;
+            historyCount = Math.min(historyCount + 1, POSITION_HISTORY_SIZE);
+        }
+        
+        public int getHistorySize() { return historyCount; }
+        
+        /**
+         * @param age 0 para la muestra más reciente, getHistorySize() - 1 para la más antigua
+         */
+        public float getHistoryX(int age) { return historyX[historySlot(age)]; }
+        public float getHistoryY(int age) { return historyY[historySlot(age)]; }
+        public long getHistoryTime(int age) { return historyTime[historySlot(age)]; }
+        
+        private int historySlot(int age) {
+            return (historyHead - age + POSITION_HISTORY_SIZE) % POSITION_HISTORY_SIZE;
+        }
         
         public void addBuffLevel(TeamBuff buff) {
-            buffLevels.put(buff, buffLevels.getOrDefault(buff, 0) + 1);
+            buffLevels[buff.ordinal()]++;
+        }
+        
+        public void setBuffLevel(TeamBuff buff, int level) {
+            buffLevels[buff.ordinal()] = Math.max(0, level);
         }
         
         public void removeBuff(TeamBuff buff) {
-            buffLevels.remove(buff);
+            buffLevels[buff.ordinal()] = 0;
         }
         
         public float getEffectiveMass() {
-            float effectiveMass = mass * role.getMassMultiplier();
-            
-            // Aplicar buffs
-            for (Map.Entry<TeamBuff, Integer> entry : buffLevels.entrySet()) {
-                TeamBuff buff = entry.getKey();
-                int level = entry.getValue();
-                effectiveMass *= Math.pow(buff.getMultiplier(), level);
-            }
-            
-            return effectiveMass;
+            return mass * role.getMassMultiplier() * getBuffMultiplier();
         }
         
         public float getEffectiveSpeed() {
-            float effectiveSpeed = speed * role.getSpeedMultiplier();
-            
-            // Aplicar buffs
-            for (Map.Entry<TeamBuff, Integer> entry : buffLevels.entrySet()) {
-                TeamBuff buff = entry.getKey();
-                int level = entry.getValue();
-                effectiveSpeed *= Math.pow(buff.getMultiplier(), level);
+            return speed * role.getSpeedMultiplier() * getBuffMultiplier();
+        }
+        
+        private float getBuffMultiplier() {
+            float multiplier = 1f;
+            for (int i = 0; i < BUFFS.length; i++) {
+                if (buffLevels[i] > 0) {
+                    multiplier *= (float) Math.pow(BUFFS[i].getMultiplier(), buffLevels[i]);
+                }
             }
-            
-            return effectiveSpeed;
+            return multiplier;
         }
     }
     
@@ -220,10 +291,23 @@ public class TeamSystem {
         private int territoryControl;
         private Map<TeamObjective, Integer> objectiveProgress;
         private PointF teamCenter;
-        private float teamMass;
         private int teamEnergy;
         private List<TeamMessage> messages;
-        private Map<TeamPlayer, PointF> lastKnownPositions;
+        
+        // Sumas ponderadas por masa: el centro y la masa se leen en O(1)
+        private double weightedX;
+        private double weightedY;
+        private double totalMass;
+        
+        // Historial del centro en anillo, muestreado por TeamSystem
+        private final float[] centerHistoryX = new float[POSITION_HISTORY_SIZE];
+        private final float[] centerHistoryY = new float[POSITION_HISTORY_SIZE];
+        private final long[] centerHistoryTime = new long[POSITION_HISTORY_SIZE];
+        private int centerHistoryHead = 0;
+        private int centerHistoryCount = 0;
+        
+        // Índice en la última pasada de TeamAnalytics
+        int analyticsIndex = -1;
         
         public Team(int teamId, String teamName, int teamColor) {
             this.teamId = teamId;
@@ -235,22 +319,34 @@ public class TeamSystem {
             this.territoryControl = 0;
             this.objectiveProgress = new ConcurrentHashMap<>();
             this.teamCenter = new PointF(0, 0);
-            this.teamMass = 0f;
             this.teamEnergy = 100;
             this.messages = new ArrayList<>();
-            this.lastKnownPositions = new ConcurrentHashMap<>();
         }
         
         public void addPlayer(TeamPlayer player) {
             players.add(player);
             player.setTeam(this);
-            calculateTeamStats();
+            contribute(player);
         }
         
         public void removePlayer(TeamPlayer player) {
-            players.remove(player);
+            if (players.remove(player)) {
+                retract(player);
+            }
             player.setTeam(null);
-            calculateTeamStats();
+        }
+        
+        /**
+         * Sacar a todos los jugadores del equipo
+         */
+        public void clearPlayers() {
+            for (int i = 0; i < players.size(); i++) {
+                players.get(i).setTeam(null);
+            }
+            players.clear();
+            weightedX = 0;
+            weightedY = 0;
+            totalMass = 0;
         }
         
         public void setState(TeamState state) { this.state = state; }
@@ -266,30 +362,93 @@ public class TeamSystem {
         public int getScore() { return score; }
         public int getTerritoryControl() { return territoryControl; }
         public Map<TeamObjective, Integer> getObjectiveProgress() { return objectiveProgress; }
-        public PointF getTeamCenter() { return teamCenter; }
-        public float getTeamMass() { return teamMass; }
+        public float getTeamMass() { return (float) totalMass; }
         public int getTeamEnergy() { return teamEnergy; }
         public List<TeamMessage> getMessages() { return messages; }
-        public Map<TeamPlayer, PointF> getLastKnownPositions() { return lastKnownPositions; }
         
-        private void calculateTeamStats() {
-            // Calcular centro del equipo
-            if (players.isEmpty()) {
+        /**
+         * Centro ponderado por masa de todos los miembros
+         */
+        public PointF getTeamCenter() {
+            if (totalMass > 0) {
+                teamCenter.set((float) (weightedX / totalMass), (float) (weightedY / totalMass));
+            } else {
                 teamCenter.set(0, 0);
-                teamMass = 0;
-                return;
             }
-            
-            double totalX = 0, totalY = 0, totalMass = 0;
-            
+            return teamCenter;
+        }
+        
+        /**
+         * Última posición registrada de cada miembro (copia)
+         */
+        public Map<TeamPlayer, PointF> getLastKnownPositions() {
+            Map<TeamPlayer, PointF> positions = new HashMap<>();
             for (TeamPlayer player : players) {
-                totalX += player.getPosition().x * player.getMass();
-                totalY += player.getPosition().y * player.getMass();
-                totalMass += player.getMass();
+                if (player.getHistorySize() > 0) {
+                    positions.put(player, new PointF(player.getHistoryX(0), player.getHistoryY(0)));
+                }
             }
-            
-            teamCenter.set((float)(totalX / totalMass), (float)(totalY / totalMass));
-            teamMass = (float) totalMass;
+            return positions;
+        }
+        
+        void onPlayerChanged(TeamPlayer player) {
+            retract(player);
+            contribute(player);
+        }
+        
+        private void contribute(TeamPlayer player) {
+            player.contributedX = player.position.x;
+            player.contributedY = player.position.y;
+            player.contributedMass = player.mass;
+            weightedX += (double) player.contributedX * player.contributedMass;
+            weightedY += (double) player.contributedY * player.contributedMass;
+            totalMass += player.contributedMass;
+        }
+        
+        private void retract(TeamPlayer player) {
+            if (players.isEmpty()) {
+                // Sin miembros las sumas vuelven a cero exacto (sin deriva de redondeo)
+                weightedX = 0;
+                weightedY = 0;
+                totalMass = 0;
+                return;
+            }
+            weightedX -= (double) player.contributedX * player.contributedMass;
+            weightedY -= (double) player.contributedY * player.contributedMass;
+            totalMass -= player.contributedMass;
+        }
+        
+        /**
+         * Guardar el centro actual en el historial
+         */
+        public void recordCenter(long time) {
+            PointF center = getTeamCenter();
+            centerHistoryHead = (centerHistoryHead + 1) % POSITION_HISTORY_SIZE;
+            centerHistoryX[centerHistoryHead] = center.x;
+            centerHistoryY[centerHistoryHead] = center.y;
+            centerHistoryTime[centerHistoryHead] = time;
+            centerHistoryCount = Math.min(centerHistoryCount + 1, POSITION_HISTORY_SIZE);
+        }
+        
+        /**
+         * Velocidad media del centro a lo largo del historial (unidades por segundo)
+         * @return false si aún no hay dos muestras
+         */
+        public boolean getCenterVelocity(PointF out) {
+            if (centerHistoryCount < 2) {
+                out.set(0, 0);
+                return false;
+            }
+            int oldest = (centerHistoryHead - centerHistoryCount + 1 + POSITION_HISTORY_SIZE) % POSITION_HISTORY_SIZE;
+            long elapsed = centerHistoryTime[centerHistoryHead] - centerHistoryTime[oldest];
+            if (elapsed <= 0) {
+                out.set(0, 0);
+                return false;
+            }
+            float seconds = elapsed / 1000f;
+            out.set((centerHistoryX[centerHistoryHead] - centerHistoryX[oldest]) / seconds,
+                    (centerHistoryY[centerHistoryHead] - centerHistoryY[oldest]) / seconds);
+            return true;
         }
         
         public void updateObjectiveProgress(TeamObjective objective, int progress) {
@@ -303,7 +462,7 @@ public class TeamSystem {
         }
         
         public void updateLastKnownPosition(TeamPlayer player, PointF position) {
-            lastKnownPositions.put(player, position);
+            player.recordPosition(position.x, position.y, System.currentTimeMillis());
         }
     }
     
@@ -346,19 +505,31 @@ public class TeamSystem {
     // Variables principales del sistema
     private final Map<Integer, Team> teams;
     private final Map<Integer, TeamPlayer> players;
+    private final List<Team> teamList;
+    private final TeamAnalytics analytics;
     private final TeamConfig config;
     private final Random random;
     private int nextTeamId;
     private int nextPlayerId;
+    private long lastHistorySample = Long.MIN_VALUE;
+    private final PointF strategyVector = new PointF();
+    private TeamInfluenceMap influenceMap;
+    private long lastInfluenceUpdate = 0;
+    private long lastTerritoryCount = Long.MIN_VALUE;
+    private int[] ownedCells;
     
     // Constructor
     public TeamSystem(TeamConfig config) {
         this.teams = new ConcurrentHashMap<>();
         this.players = new ConcurrentHashMap<>();
+        this.teamList = new ArrayList<>();
+        this.analytics = new TeamAnalytics(config.getFormationRadius());
         this.config = config;
         this.random = new Random();
         this.nextTeamId = 1;
         this.nextPlayerId = 1;
+        setWorldBounds((float) CoordinateSystem.WORLD_MIN_X, (float) CoordinateSystem.WORLD_MIN_Y,
+                       (float) CoordinateSystem.WORLD_WIDTH, (float) CoordinateSystem.WORLD_HEIGHT);
     }
     
     public TeamSystem() {
@@ -377,6 +548,7 @@ public class TeamSystem {
         
         Team team = new Team(nextTeamId++, teamName, teamColor);
         teams.put(team.getTeamId(), team);
+        teamList.add(team);
         return team;
     }
     
@@ -389,6 +561,17 @@ public class TeamSystem {
         return player;
     }
     
+    /**
+     * Quitar jugador del sistema y de su equipo; el análisis suelta su handle en la siguiente pasada
+     */
+    public void removePlayer(TeamPlayer player) {
+        players.remove(player.getPlayerId());
+        Team team = player.getTeam();
+        if (team != null) {
+            team.removePlayer(player);
+        }
+    }
+    
     /**
      * Asignar jugador a equipo con distribución equitativa de roles
      */
@@ -432,72 +615,96 @@ public class TeamSystem {
     }
     
     /**
-     * Calcular y aplicar buffs de equipo por proximidad
+     * Pasada espacial del tick: vecinos, centroides, compacidad y territorio de todos los equipos
+     * Los buffs, objetivos y estrategias del mismo tick leen sus resultados
      */
-    public void updateTeamBuffs() {
-        for (Team team : teams.values()) {
-            updateFormationBuffs(team);
-            updateRoleSynergyBuffs(team);
-        }
+    public void updateTeamAnalytics() {
+        long now = System.currentTimeMillis();
+        analytics.run(teamList);
+        sampleHistory(now);
+        updateInfluenceMap(now);
     }
     
     /**
-     * Actualizar buffs de formación
+     * Decaer el mapa de influencia y depositar la presencia de cada jugador activo
      */
-    private void updateFormationBuffs(Team team) {
-        List<TeamPlayer> activePlayers = team.getPlayers().stream()
-            .filter(TeamPlayer::isActive)
-            .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+    private void updateInfluenceMap(long now) {
+        float deltaTime = lastInfluenceUpdate == 0 ? 0f
+            : Math.min(MAX_INFLUENCE_STEP, (now - lastInfluenceUpdate) / 1000f);
+        lastInfluenceUpdate = now;
+        if (deltaTime <= 0f) {
+            return;
+        }
+        influenceMap.decay(deltaTime);
         
-        // Calcular distancias entre jugadores
-        for (int i = 0; i < activePlayers.size(); i++) {
-            for (int j = i + 1; j < activePlayers.size(); j++) {
-                TeamPlayer player1 = activePlayers.get(i);
-                TeamPlayer player2 = activePlayers.get(j);
-                
-                double distance = player1.getPosition().distance(player2.getPosition());
+        for (int t = 0; t < teamList.size(); t++) {
+            List<TeamPlayer> members = teamList.get(t).getPlayers();
+            for (int i = 0; i < members.size(); i++) {
+                TeamPlayer player = members.get(i);
+                if (!player.isActive()) continue;
                 
-                if (distance <= config.getFormationRadius()) {
-                    // Aplicar buff de formación
-                    player1.addBuffLevel(TeamBuff.FORMATION_BONUS);
-                    player2.addBuffLevel(TeamBuff.FORMATION_BONUS);
+                // Un jugador de masa 100 aporta 1 por segundo en su centro
+                PointF position = player.getPosition();
+                influenceMap.deposit(t, position.x, position.y, deltaTime * player.getMass() / 100f);
+            }
+        }
+    }
+    
+    /**
+     * Guardar centros y posiciones en los historiales, como mucho una vez por intervalo
+     */
+    private void sampleHistory(long now) {
+        if (now - lastHistorySample < POSITION_HISTORY_INTERVAL_MS) {
+            return;
+        }
+        lastHistorySample = now;
+        
+        for (int t = 0; t < teamList.size(); t++) {
+            Team team = teamList.get(t);
+            team.recordCenter(now);
+            List<TeamPlayer> members = team.getPlayers();
+            for (int i = 0; i < members.size(); i++) {
+                TeamPlayer player = members.get(i);
+                if (player.isActive()) {
+                    player.recordPosition(player.getPosition().x, player.getPosition().y, now);
                 }
             }
         }
     }
     
     /**
-     * Actualizar buffs de sinergia de roles
+     * Calcular y aplicar buffs de equipo por proximidad
+     * Los niveles se recalculan cada tick a partir del análisis (no se acumulan entre ticks)
      */
-    private void updateRoleSynergyBuffs(Team team) {
-        Set<TeamRole> presentRoles = team.getPlayers().stream()
-            .filter(TeamPlayer::isActive)
-            .map(TeamPlayer::getRole)
-            .collect(Collectors.toSet());
-        
-        // Verificar combinaciones sinérgicas
-        boolean hasScout = presentRoles.contains(TeamRole.SCOUT);
-        boolean hasTank = presentRoles.contains(TeamRole.TANK);
-        boolean hasSupport = presentRoles.contains(TeamRole.SUPPORT);
-        boolean hasAssassin = presentRoles.contains(TeamRole.ASSASSIN);
-        boolean hasController = presentRoles.contains(TeamRole.CONTROLLER);
-        
-        for (TeamPlayer player : team.getPlayers()) {
+    public void updateTeamBuffs() {
+        updateTeamAnalytics();
+        for (int t = 0; t < teamList.size(); t++) {
+            Team team = teamList.get(t);
+            applyTeamBuffs(team, analytics.indexOf(team));
+        }
+    }
+    
+    /**
+     * Aplicar buffs de formación y de sinergia de roles
+     */
+    private void applyTeamBuffs(Team team, int index) {
+        // Combinaciones sinérgicas sobre la máscara de roles activos
+        boolean diverse = analytics.getRoleCount(index) >= 3;
+        boolean tankAndSupport = analytics.hasRole(index, TeamRole.TANK)
+            && analytics.hasRole(index, TeamRole.SUPPORT);
+        boolean scoutAndAssassin = analytics.hasRole(index, TeamRole.SCOUT)
+            && analytics.hasRole(index, TeamRole.ASSASSIN);
+        
+        List<TeamPlayer> members = team.getPlayers();
+        for (int i = 0; i < members.size(); i++) {
+            TeamPlayer player = members.get(i);
             if (!player.isActive()) continue;
             
-            // Buff por diversidad de roles
-            if (presentRoles.size() >= 3) {
-                player.addBuffLevel(TeamBuff.ROLE_SYNERGY);
-            }
-            
-            // Buff específico por combinación de roles
-            if (hasTank && hasSupport) {
-                player.addBuffLevel(TeamBuff.TERRITORY_CONTROL);
-            }
-            
-            if (hasScout && hasAssassin) {
-                player.addBuffLevel(TeamBuff.COORDINATED_ATTACK);
-            }
+            // Un nivel de formación por compañero dentro del radio
+            player.setBuffLevel(TeamBuff.FORMATION_BONUS, analytics.getNeighborCount(player));
+            player.setBuffLevel(TeamBuff.ROLE_SYNERGY, diverse ? 1 : 0);
+            player.setBuffLevel(TeamBuff.TERRITORY_CONTROL, tankAndSupport ? 1 : 0);
+            player.setBuffLevel(TeamBuff.COORDINATED_ATTACK, scoutAndAssassin ? 1 : 0);
         }
     }
     
@@ -515,15 +722,16 @@ public class TeamSystem {
      * Actualizar control territorial
      */
     private void updateTerritoryControl(Team team) {
-        // Calcular territorio controlado basado en la posición del centro del equipo
-        float territoryRadius = 300f;
-        int baseControl = calculateTerritorySize(team.getTeamCenter(), territoryRadius);
+        // Territorio: celdas propias y no disputadas del mapa de influencia (área / 100)
+        int index = analyzedIndex(team);
+        float cellSize = influenceMap.getCellSize();
+        int baseControl = (int) (getOwnedCellCount(team) * cellSize * cellSize / 100);
         
         team.setTerritoryControl(baseControl);
         team.updateObjectiveProgress(TeamObjective.TERRITORY_CONTROL, baseControl);
         
         // Bonificación por formación compacta
-        if (isTeamCompact(team)) {
+        if (analytics.isCompact(index)) {
             team.updateObjectiveProgress(TeamObjective.TERRITORY_CONTROL, baseControl / 2);
         }
     }
@@ -532,7 +740,7 @@ public class TeamSystem {
      * Actualizar objetivo de eliminación
      */
     private void updateEliminationObjective(Team team) {
-        int totalOpponents = players.size() - team.getPlayers().size();
+        int totalOpponents = analytics.getTotalTeamPlayers() - team.getPlayers().size();
         int eliminatedOpponents = 0; // Se calcularía basado en jugadores eliminados
         
         team.updateObjectiveProgress(TeamObjective.ELIMINATION, eliminatedOpponents * 10);
@@ -544,10 +752,20 @@ public class TeamSystem {
     public void sendTeamMessage(TeamPlayer sender, String message, int color) {
         if (sender.getTeam() == null) return;
         
+        sendTeamMessage(sender, message, color, sender.getPosition().x, sender.getPosition().y);
+    }
+    
+    /**
+     * Enviar mensaje anclado a un punto del mapa
+     */
+    private void sendTeamMessage(TeamPlayer sender, String message, int color, float x, float y) {
+        if (sender.getTeam() == null) return;
+        
+        // La posición del jugador cambia en el sitio: el mensaje guarda su propia copia
         TeamMessage teamMessage = new TeamMessage(
             message, 
             color, 
-            sender.getPosition(), 
+            new PointF(x, y), 
             config.getMessageDuration()
         );
         
@@ -571,16 +789,10 @@ public class TeamSystem {
      * Determinar estado del equipo basado en condiciones del juego
      */
     private TeamState determineTeamState(Team team) {
-        float avgHealth = team.getPlayers().stream()
-            .filter(TeamPlayer::isActive)
-            .mapToInt(TeamPlayer::getHealth)
-            .average()
-            .orElse(0.0);
-        
-        float teamStrength = calculateTeamStrength(team);
-        int opponentCount = teams.values().stream()
-            .mapToInt(t -> t.getPlayers().size())
-            .sum() - team.getPlayers().size();
+        int index = analyzedIndex(team);
+        float avgHealth = analytics.getAverageHealth(index);
+        float teamStrength = analytics.getStrength(index);
+        int opponentCount = analytics.getTotalTeamPlayers() - team.getPlayers().size();
         
         if (avgHealth < 30) {
             return TeamState.RETREATING;
@@ -614,6 +826,12 @@ public class TeamSystem {
     }
     
     private void updateOffensiveStrategy(Team team) {
+        // Punto de avance: el centro proyectado un segundo según su desplazamiento reciente
+        PointF center = team.getTeamCenter();
+        team.getCenterVelocity(strategyVector);
+        float advanceX = center.x + strategyVector.x;
+        float advanceY = center.y + strategyVector.y;
+        
         for (TeamPlayer player : team.getPlayers()) {
             if (!player.isActive()) continue;
             
@@ -628,16 +846,24 @@ public class TeamSystem {
                     break;
                 case TANK:
                     // Los tanques avanzan como vanguardia
-                    sendTeamMessage(player, "¡Avanzando!", Color.GRAY);
+                    sendTeamMessage(player, "¡Avanzando!", Color.GRAY, advanceX, advanceY);
                     break;
             }
         }
     }
     
     private void updateDefensiveStrategy(Team team) {
+        PointF center = team.getTeamCenter();
+        
         for (TeamPlayer player : team.getPlayers()) {
             if (!player.isActive()) continue;
             
+            // Quien se ha ido alejando del centro durante el historial vuelve a la formación
+            if (isDriftingAway(player, center)) {
+                sendTeamMessage(player, "¡Reagrupando!", player.getRole().getColor(), center.x, center.y);
+                continue;
+            }
+            
             switch (player.getRole()) {
                 case SUPPORT:
                     // Los soportes se enfocan en curación y soporte
@@ -655,6 +881,22 @@ public class TeamSystem {
         }
     }
     
+    /**
+     * Compara la distancia al centro de la muestra más antigua del historial con la actual
+     */
+    private boolean isDriftingAway(TeamPlayer player, PointF center) {
+        int samples = player.getHistorySize();
+        if (samples < 2) return false;
+        
+        float oldDx = player.getHistoryX(samples - 1) - center.x;
+        float oldDy = player.getHistoryY(samples - 1) - center.y;
+        float newDx = player.getPosition().x - center.x;
+        float newDy = player.getPosition().y - center.y;
+        float oldDistance = (float) Math.sqrt(oldDx * oldDx + oldDy * oldDy);
+        float newDistance = (float) Math.sqrt(newDx * newDx + newDy * newDy);
+        return newDistance > config.getFormationRadius() && newDistance > oldDistance + config.getFormationRadius() / 2;
+    }
+    
     private void updateRetreatStrategy(Team team) {
         for (TeamPlayer player : team.getPlayers()) {
             if (!player.isActive()) continue;
@@ -681,7 +923,7 @@ public class TeamSystem {
         
         // Remover jugadores de equipos actuales
         for (Team team : teams.values()) {
-            team.getPlayers().clear();
+            team.clearPlayers();
         }
         
         // Reasignar jugadores equilibradamente
@@ -715,35 +957,40 @@ public class TeamSystem {
     
     // Métodos auxiliares
     
-    private float calculateTeamStrength(Team team) {
-        return team.getPlayers().stream()
-            .filter(TeamPlayer::isActive)
-            .mapToDouble(player -> player.getMass() * player.getRole().getMassMultiplier())
-            .sum();
+    /**
+     * Celdas propias del equipo en el mapa de influencia (recuento cacheado)
+     */
+    public int getOwnedCellCount(Team team) {
+        int index = getTeamIndex(team);
+        if (index < 0 || index >= influenceMap.getMaxTeams()) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastTerritoryCount >= TERRITORY_COUNT_INTERVAL_MS) {
+            lastTerritoryCount = now;
+            influenceMap.countOwnedCells(ownedCells);
+        }
+        return ownedCells[index];
     }
     
-    private boolean isTeamCompact(Team team) {
-        List<TeamPlayer> activePlayers = team.getPlayers().stream()
-            .filter(TeamPlayer::isActive)
-            .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
-        
-        if (activePlayers.size() < 2) return false;
-        
-        PointF center = team.getTeamCenter();
-        float maxDistance = 0;
-        
-        for (TeamPlayer player : activePlayers) {
-            float distance = (float) center.distance(player.getPosition());
-            maxDistance = Math.max(maxDistance, distance);
+    /**
+     * Índice del equipo en el análisis; si aún no figura (equipo nuevo) se lanza una pasada
+     */
+    private int analyzedIndex(Team team) {
+        int index = analytics.indexOf(team);
+        if (index < 0) {
+            updateTeamAnalytics();
+            index = analytics.indexOf(team);
         }
-        
-        return maxDistance <= config.getFormationRadius() / 2;
+        return index;
     }
     
-    private int calculateTerritorySize(PointF center, float radius) {
-        // Lógica simplificada para calcular territorio controlado
-        // En un juego real, esto sería más complejo
-        return (int)(radius * radius / 100);
+    private float calculateTeamStrength(Team team) {
+        return analytics.getStrength(analyzedIndex(team));
+    }
+    
+    private boolean isTeamCompact(Team team) {
+        return analytics.isCompact(analyzedIndex(team));
     }
     
     // Métodos públicos de consulta
@@ -751,6 +998,62 @@ public class TeamSystem {
     public Map<Integer, Team> getTeams() { return teams; }
     public Map<Integer, TeamPlayer> getPlayers() { return players; }
     public TeamConfig getConfig() { return config; }
+    public TeamAnalytics getAnalytics() { return analytics; }
+    public TeamInfluenceMap getInfluenceMap() { return influenceMap; }
+    
+    /**
+     * Índice del equipo en el mapa de influencia (orden de creación), o -1
+     */
+    public int getTeamIndex(Team team) {
+        return teamList.indexOf(team);
+    }
+    
+    public Team getTeamByIndex(int index) {
+        return index >= 0 && index < teamList.size() ? teamList.get(index) : null;
+    }
+    
+    /**
+     * Índice en el mapa de influencia del equipo con ese id, o TeamInfluenceMap.NO_TEAM
+     * Quien guarda un equipo debe guardar su id y resolver el índice aquí, no fijarlo
+     */
+    public int getTerritoryIndex(int teamId) {
+        Team team = teams.get(teamId);
+        int index = team != null ? getTeamIndex(team) : -1;
+        return index >= 0 && index < influenceMap.getMaxTeams() ? index : TeamInfluenceMap.NO_TEAM;
+    }
+    
+    /**
+     * Dos miembros comparten equipo (false si falta alguno o no tiene equipo)
+     */
+    public static boolean areTeammates(TeamPlayer a, TeamPlayer b) {
+        return a != null && b != null && a.getTeam() != null && a.getTeam() == b.getTeam();
+    }
+    
+    public Team getTeamByName(String teamName) {
+        for (int i = 0; i < teamList.size(); i++) {
+            if (teamList.get(i).getTeamName().equals(teamName)) {
+                return teamList.get(i);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Área del mundo cubierta por el mapa de influencia; la influencia acumulada se pierde
+     */
+    public void setWorldBounds(float left, float top, float width, float height) {
+        influenceMap = new TeamInfluenceMap(left, top, width, height,
+            TeamInfluenceMap.DEFAULT_CELL_SIZE, config.getMaxTeams());
+        ownedCells = new int[influenceMap.getMaxTeams()];
+        lastTerritoryCount = Long.MIN_VALUE;
+    }
+    
+    /**
+     * Rejilla donde se registran los jugadores para el análisis (p. ej. la fase ancha del motor)
+     */
+    public void setSpatialGrid(SpatialGrid grid) {
+        analytics.setGrid(grid);
+    }
     
     /**
      * Obtener jugadores de un equipo por rol
@@ -781,13 +1084,8 @@ public class TeamSystem {
     }
     
     private float calculateRoleSynergy(Team team) {
-        Set<TeamRole> presentRoles = team.getPlayers().stream()
-            .filter(TeamPlayer::isActive)
-            .map(TeamPlayer::getRole)
-            .collect(Collectors.toSet());
-        
         // Bonus por diversidad de roles
-        float diversityBonus = 1.0f + (presentRoles.size() * 0.1f);
+        float diversityBonus = 1.0f + (analytics.getRoleCount(analyzedIndex(team)) * 0.1f);
         return Math.min(diversityBonus, 1.5f); // Máximo 50% de bonus
     }
     
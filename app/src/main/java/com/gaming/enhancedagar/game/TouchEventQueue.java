@@ -0,0 +1,176 @@
+package com.gaming.enhancedagar.game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola de eventos táctiles entre el hilo de UI (productor) y el bucle de juego (consumidor)
+ * Buffer circular preasignado de registros primitivos, sin bloqueos ni objetos por evento.
+ * Solo admite un productor y un consumidor
+ */
+public class TouchEventQueue {
+
+    // Flags de registro
+    public static final int FLAG_BATCH_END = 1;  // Último registro de un MotionEvent
+    public static final int FLAG_HISTORICAL = 2; // Muestra histórica agrupada por el sistema
+
+    public static final int DEFAULT_CAPACITY = 512;
+
+    /**
+     * Receptor de registros al vaciar la cola (se invoca en el hilo consumidor)
+     */
+    public interface Consumer {
+        void onTouchRecord(long sequence, int action, int pointerId, float x, float y,
+                           long eventTimeNanos, int flags);
+    }
+
+    private final int capacity;
+    private final int mask;
+
+    // Registros en arrays paralelos
+    private final int[] actions;
+    private final int[] pointerIds;
+    private final float[] xs;
+    private final float[] ys;
+    private final long[] eventTimes;
+    private final int[] flags;
+
+    // head: siguiente registro a leer (solo lo escribe el consumidor)
+    // tail: siguiente registro a escribir (solo lo escribe el productor)
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    // Estado privado del productor: lote en construcción aún no publicado
+    private long pendingTail;
+    private long cachedHead;
+    private boolean batchOverflow;
+    private int batchRecords;
+
+    private volatile long droppedRecords = 0;
+
+    public TouchEventQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity número de registros (se redondea a potencia de dos)
+     */
+    public TouchEventQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.actions = new int[size];
+        this.pointerIds = new int[size];
+        this.xs = new float[size];
+        this.ys = new float[size];
+        this.eventTimes = new long[size];
+        this.flags = new int[size];
+    }
+
+    // === PRODUCTOR ===
+
+    /**
+     * Empieza un lote; los registros no son visibles hasta publishBatch()
+     */
+    public void beginBatch() {
+        pendingTail = tail.get();
+        batchOverflow = false;
+        batchRecords = 0;
+    }
+
+    /**
+     * Añade un registro al lote en curso
+     * @return false si la cola está llena (el lote completo se descartará)
+     */
+    public boolean write(int action, int pointerId, float x, float y, long eventTimeNanos, int recordFlags) {
+        batchRecords++;
+        if (batchOverflow) {
+            return false;
+        }
+        if (pendingTail - cachedHead >= capacity) {
+            cachedHead = head.get();
+            if (pendingTail - cachedHead >= capacity) {
+                batchOverflow = true;
+                return false;
+            }
+        }
+        int index = (int) (pendingTail & mask);
+        actions[index] = action;
+        pointerIds[index] = pointerId;
+        xs[index] = x;
+        ys[index] = y;
+        eventTimes[index] = eventTimeNanos;
+        flags[index] = recordFlags;
+        pendingTail++;
+        return true;
+    }
+
+    /**
+     * Publica el lote en curso de forma atómica para el consumidor
+     * @return false si se descartó por falta de espacio
+     */
+    public boolean publishBatch() {
+        long published = tail.get();
+        if (batchOverflow) {
+            droppedRecords += batchRecords;
+            pendingTail = published;
+            return false;
+        }
+        if (pendingTail > published) {
+            int last = (int) ((pendingTail - 1) & mask);
+            flags[last] |= FLAG_BATCH_END;
+            // Escritura con orden de liberación: los registros quedan visibles antes que el índice
+            tail.lazySet(pendingTail);
+        }
+        return true;
+    }
+
+    // === CONSUMIDOR ===
+
+    /**
+     * Entrega al consumidor todos los registros publicados hasta ahora
+     * @return número de registros entregados
+     */
+    public int drain(Consumer consumer) {
+        long start = head.get();
+        long end = tail.get();
+        for (long sequence = start; sequence < end; sequence++) {
+            int index = (int) (sequence & mask);
+            consumer.onTouchRecord(sequence, actions[index], pointerIds[index], xs[index], ys[index],
+                                   eventTimes[index], flags[index]);
+        }
+        if (end > start) {
+            // Libera las posiciones para el productor
+            head.lazySet(end);
+        }
+        return (int) (end - start);
+    }
+
+    /**
+     * Descarta los registros pendientes (solo desde el hilo consumidor)
+     */
+    public void clear() {
+        head.lazySet(tail.get());
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Registros perdidos por cola llena desde la creación
+     */
+    public long getDroppedRecords() {
+        return droppedRecords;
+    }
+
+    /**
+     * Número de secuencia que recibirá el próximo registro publicado
+     */
+    public long getPublishedSequence() {
+        return tail.get();
+    }
+}
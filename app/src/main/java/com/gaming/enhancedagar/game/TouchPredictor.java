@@ -0,0 +1,218 @@
+package com.gaming.enhancedagar.game;
+
+import android.graphics.PointF;
+
+/**
+ * Predicción de la posición del dedo
+ * Filtra las muestras táctiles (con su marca de tiempo exacta) y extrapola la posición
+ * al instante en que se mostrará el siguiente frame, para ocultar parte de la latencia
+ * impuesta por la frecuencia de refresco sin subir la frecuencia de simulación
+ */
+public class TouchPredictor {
+
+    // Filtros disponibles
+    public enum FilterType {
+        NONE,      // Muestra cruda, sin predicción
+        ONE_EURO,  // Filtro 1€: poco retardo en movimiento rápido, sin temblor en reposo
+        KALMAN     // Kalman de velocidad constante
+    }
+
+    private static final double NANOS_TO_SECONDS = 1e-9;
+
+    private FilterType filterType = FilterType.ONE_EURO;
+    private long maxPredictionNanos = 50_000_000L; // No extrapolar más de 50 ms
+
+    // Parámetros del filtro 1€
+    private float minCutoff = 1.5f;   // Hz
+    private float beta = 0.05f;
+    private float derivativeCutoff = 1.0f;
+
+    // Parámetros del Kalman (ruido de aceleración y de medida en píxeles)
+    private float processNoise = 4000f;
+    private float measurementNoise = 4f;
+
+    private final OneEuroAxis oneEuroX = new OneEuroAxis();
+    private final OneEuroAxis oneEuroY = new OneEuroAxis();
+    private final KalmanAxis kalmanX = new KalmanAxis();
+    private final KalmanAxis kalmanY = new KalmanAxis();
+
+    private boolean hasSample = false;
+    private long lastSampleTime = 0;
+    private float rawX, rawY;
+
+    /**
+     * Eje del filtro 1€: posición filtrada y derivada filtrada
+     */
+    private static class OneEuroAxis {
+        double value;
+        double derivative;
+        double lastSample;
+
+        void reset(double initial) {
+            value = initial;
+            derivative = 0;
+            lastSample = initial;
+        }
+
+        void filter(double sample, double dt, float minCutoff, float beta, float derivativeCutoff) {
+            // Derivada sobre muestras crudas: la extrapolación no hereda el retardo del filtro
+            double rawDerivative = (sample - lastSample) / dt;
+            lastSample = sample;
+            derivative += alpha(derivativeCutoff, dt) * (rawDerivative - derivative);
+            double cutoff = minCutoff + beta * Math.abs(derivative);
+            value += alpha(cutoff, dt) * (sample - value);
+        }
+
+        static double alpha(double cutoff, double dt) {
+            double tau = 1.0 / (2 * Math.PI * cutoff);
+            return 1.0 / (1.0 + tau / dt);
+        }
+    }
+
+    /**
+     * Eje del Kalman de velocidad constante: estado (posición, velocidad) y covarianza 2x2
+     */
+    private static class KalmanAxis {
+        double position, velocity;
+        double p00, p01, p10, p11;
+
+        void reset(double initial, float measurementNoise) {
+            position = initial;
+            velocity = 0;
+            p00 = measurementNoise;
+            p01 = p10 = 0;
+            p11 = 1e6; // Velocidad inicial desconocida
+        }
+
+        void filter(double sample, double dt, float processNoise, float measurementNoise) {
+            // Predicción
+            position += velocity * dt;
+            double dt2 = dt * dt;
+            double n00 = p00 + dt * (p10 + p01) + dt2 * p11 + processNoise * dt2 * dt2 / 4;
+            double n01 = p01 + dt * p11 + processNoise * dt2 * dt / 2;
+            double n10 = p10 + dt * p11 + processNoise * dt2 * dt / 2;
+            double n11 = p11 + processNoise * dt2;
+
+            // Corrección con la medida de posición
+            double s = n00 + measurementNoise;
+            double k0 = n00 / s;
+            double k1 = n10 / s;
+            double residual = sample - position;
+            position += k0 * residual;
+            velocity += k1 * residual;
+
+            p00 = (1 - k0) * n00;
+            p01 = (1 - k0) * n01;
+            p10 = n10 - k1 * n00;
+            p11 = n11 - k1 * n01;
+        }
+    }
+
+    /**
+     * Añade una muestra táctil
+     * @param timeNanos marca de tiempo del evento (reloj uptime en ns)
+     */
+    public void addSample(float x, float y, long timeNanos) {
+        rawX = x;
+        rawY = y;
+        if (!hasSample) {
+            oneEuroX.reset(x);
+            oneEuroY.reset(y);
+            kalmanX.reset(x, measurementNoise);
+            kalmanY.reset(y, measurementNoise);
+            lastSampleTime = timeNanos;
+            hasSample = true;
+            return;
+        }
+
+        long elapsed = timeNanos - lastSampleTime;
+        if (elapsed <= 0) {
+            return; // Muestra duplicada o desordenada
+        }
+        lastSampleTime = timeNanos;
+        double dt = elapsed * NANOS_TO_SECONDS;
+
+        switch (filterType) {
+            case ONE_EURO:
+                oneEuroX.filter(x, dt, minCutoff, beta, derivativeCutoff);
+                oneEuroY.filter(y, dt, minCutoff, beta, derivativeCutoff);
+                break;
+            case KALMAN:
+                kalmanX.filter(x, dt, processNoise, measurementNoise);
+                kalmanY.filter(y, dt, processNoise, measurementNoise);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Posición estimada para el instante dado (normalmente la hora de presentación del siguiente frame)
+     * @return false si aún no hay muestras
+     */
+    public boolean predict(long displayTimeNanos, PointF out) {
+        if (!hasSample) {
+            return false;
+        }
+        long ahead = Math.max(0, Math.min(maxPredictionNanos, displayTimeNanos - lastSampleTime));
+        double dt = ahead * NANOS_TO_SECONDS;
+
+        switch (filterType) {
+            case ONE_EURO:
+                out.x = (float) (oneEuroX.value + oneEuroX.derivative * dt);
+                out.y = (float) (oneEuroY.value + oneEuroY.derivative * dt);
+                break;
+            case KALMAN:
+                out.x = (float) (kalmanX.position + kalmanX.velocity * dt);
+                out.y = (float) (kalmanY.position + kalmanY.velocity * dt);
+                break;
+            default:
+                out.x = rawX;
+                out.y = rawY;
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Olvida el historial (nuevo toque o cambio de dedo principal)
+     */
+    public void reset() {
+        hasSample = false;
+    }
+
+    // === CONFIGURACIÓN ===
+
+    public void setFilterType(FilterType filterType) {
+        this.filterType = filterType != null ? filterType : FilterType.NONE;
+        reset();
+    }
+
+    /**
+     * @param minCutoff frecuencia de corte mínima en Hz (menor = menos temblor en reposo)
+     * @param beta aumento del corte con la velocidad (mayor = menos retardo al moverse rápido)
+     * @param derivativeCutoff frecuencia de corte de la derivada en Hz
+     */
+    public void setOneEuroParameters(float minCutoff, float beta, float derivativeCutoff) {
+        this.minCutoff = Math.max(0.01f, minCutoff);
+        this.beta = Math.max(0f, beta);
+        this.derivativeCutoff = Math.max(0.01f, derivativeCutoff);
+    }
+
+    /**
+     * @param processNoise varianza de la aceleración del dedo (px²/s⁴)
+     * @param measurementNoise varianza de la posición medida (px²)
+     */
+    public void setKalmanParameters(float processNoise, float measurementNoise) {
+        this.processNoise = Math.max(0f, processNoise);
+        this.measurementNoise = Math.max(0.001f, measurementNoise);
+    }
+
+    public void setMaxPredictionNanos(long maxPredictionNanos) {
+        this.maxPredictionNanos = Math.max(0, maxPredictionNanos);
+    }
+
+    public FilterType getFilterType() { return filterType; }
+    public boolean hasSample() { return hasSample; }
+    public long getLastSampleTime() { return lastSampleTime; }
+}
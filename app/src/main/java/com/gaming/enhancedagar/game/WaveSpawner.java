@@ -0,0 +1,207 @@
+package com.gaming.enhancedagar.game;
+
+import com.gaming.enhancedagar.entities.EnemyBot;
+import com.gaming.enhancedagar.entities.Entity;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generador de oleadas del modo Survival
+ * Reparte la aparición de los bots de una oleada entre varios ticks con un presupuesto de
+ * tiempo por tick y reutiliza los EnemyBot muertos desde un pool precalentado, de modo que
+ * una oleada grande no concentra en un frame la creación de listas, mapas y registros
+ */
+public class WaveSpawner implements Entity.EntityListener {
+
+    /**
+     * Recibe cada bot listo para añadirse al mundo
+     */
+    public interface SpawnListener {
+        void onBotSpawned(EnemyBot bot, int waveNumber);
+    }
+
+    public static final long DEFAULT_BUDGET_NANOS = 1_000_000L;   // 1 ms por tick
+    public static final int DEFAULT_MAX_SPAWNS_PER_TICK = 4;
+
+    private static final EnemyBot.BotRole[] ROLES = EnemyBot.BotRole.values();
+
+    private final ArrayDeque<EnemyBot> pool = new ArrayDeque<>();
+    // Bots muertos: vuelven al pool cuando el motor los ha retirado del mundo
+    private final List<EnemyBot> pendingRecycle = new ArrayList<>();
+    private final Random random = new Random();
+    private SpawnListener listener;
+
+    // Oleada en curso
+    private int waveNumber = 0;
+    private int pendingSpawns = 0;
+    private int aliveBots = 0;
+    private int spawnedThisWave = 0;
+
+    // Zona de aparición
+    private float areaLeft = 0f;
+    private float areaTop = 0f;
+    private float areaWidth = 1920f;
+    private float areaHeight = 1080f;
+
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+    private int maxSpawnsPerTick = DEFAULT_MAX_SPAWNS_PER_TICK;
+
+    // Estadísticas
+    private int botsCreated = 0;
+    private int botsReused = 0;
+
+    /**
+     * Crea bots de reserva; pensado para pantallas de carga o el cambio de modo
+     */
+    public void prewarm(int count) {
+        while (pool.size() < count) {
+            EnemyBot bot = createBot(EnemyBot.BotRole.WANDERER);
+            bot.setActive(false);
+            pool.push(bot);
+        }
+    }
+
+    /**
+     * Programa una oleada; los bots aparecen durante los siguientes update()
+     */
+    public void startWave(int waveNumber, int enemyCount) {
+        this.waveNumber = waveNumber;
+        this.pendingSpawns += Math.max(0, enemyCount);
+        this.spawnedThisWave = 0;
+    }
+
+    /**
+     * Hace aparecer bots pendientes hasta agotar el presupuesto del tick
+     * @return bots que han aparecido en este tick
+     */
+    public int update() {
+        recycleDeadBots();
+        if (pendingSpawns == 0) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        int spawned = 0;
+        // Siempre al menos uno por tick para que la oleada avance aunque el presupuesto sea mínimo
+        while (pendingSpawns > 0 && spawned < maxSpawnsPerTick) {
+            spawnOne();
+            spawned++;
+            if (System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+        }
+        return spawned;
+    }
+
+    private void spawnOne() {
+        EnemyBot.BotRole role = chooseRole(waveNumber);
+        float x = areaLeft + random.nextFloat() * areaWidth;
+        float y = areaTop + random.nextFloat() * areaHeight;
+
+        EnemyBot bot = pool.poll();
+        if (bot != null) {
+            bot.reset(role, x, y);
+            botsReused++;
+        } else {
+            bot = createBot(role);
+            bot.setPosition(x, y);
+        }
+
+        pendingSpawns--;
+        spawnedThisWave++;
+        aliveBots++;
+        if (listener != null) {
+            listener.onBotSpawned(bot, waveNumber);
+        }
+    }
+
+    private EnemyBot createBot(EnemyBot.BotRole role) {
+        EnemyBot bot = new EnemyBot(role, 0f, 0f);
+        bot.addListener(this);
+        botsCreated++;
+        return bot;
+    }
+
+    /**
+     * Mezcla de roles según la oleada: la primera solo trae vagabundos, híbridos y
+     * exploradores y cada oleada siguiente añade un rol más duro (guardián, asesino, tanque)
+     */
+    private EnemyBot.BotRole chooseRole(int wave) {
+        int available = Math.min(ROLES.length, 2 + Math.max(1, wave));
+        return ROLES[ROLES.length - 1 - random.nextInt(available)];
+    }
+
+    @Override
+    public void onEntityEvent(Entity entity, String eventType, Object data) {
+        if ("death".equals(eventType) && entity instanceof EnemyBot) {
+            aliveBots = Math.max(0, aliveBots - 1);
+            pendingRecycle.add((EnemyBot) entity);
+        }
+    }
+
+    /**
+     * Devuelve de inmediato un bot al pool (el llamador ya lo ha retirado del mundo)
+     */
+    public void recycle(EnemyBot bot) {
+        // Si murió ya se descontó en onEntityEvent
+        boolean countedAtDeath = pendingRecycle.remove(bot);
+        if (!countedAtDeath && bot.isAlive()) {
+            aliveBots = Math.max(0, aliveBots - 1);
+        }
+        bot.setActive(false);
+        pool.push(bot);
+    }
+
+    /**
+     * Pasa al pool los bots muertos que ya no tienen dueño (el motor los retiró); los demás
+     * esperan al siguiente tick
+     */
+    private void recycleDeadBots() {
+        int kept = 0;
+        for (int i = 0; i < pendingRecycle.size(); i++) {
+            EnemyBot bot = pendingRecycle.get(i);
+            if (bot.getRegistry() != null) {
+                pendingRecycle.set(kept++, bot);
+                continue;
+            }
+            bot.setActive(false);
+            pool.push(bot);
+        }
+        pendingRecycle.subList(kept, pendingRecycle.size()).clear();
+    }
+
+    /**
+     * Cancela lo pendiente de la oleada actual (los bots ya en juego siguen vivos)
+     */
+    public void cancelPending() {
+        pendingSpawns = 0;
+    }
+
+    // === CONFIGURACIÓN ===
+
+    public void setSpawnListener(SpawnListener listener) { this.listener = listener; }
+
+    public void setSpawnArea(float left, float top, float width, float height) {
+        this.areaLeft = left;
+        this.areaTop = top;
+        this.areaWidth = Math.max(0f, width);
+        this.areaHeight = Math.max(0f, height);
+    }
+
+    public void setBudgetNanos(long budgetNanos) { this.budgetNanos = Math.max(0, budgetNanos); }
+    public void setMaxSpawnsPerTick(int maxSpawnsPerTick) { this.maxSpawnsPerTick = Math.max(1, maxSpawnsPerTick); }
+
+    // === CONSULTAS ===
+
+    public int getWaveNumber() { return waveNumber; }
+    public int getPendingSpawns() { return pendingSpawns; }
+    public int getAliveBots() { return aliveBots; }
+    public int getSpawnedThisWave() { return spawnedThisWave; }
+    public int getPoolSize() { return pool.size(); }
+    public int getBotsCreated() { return botsCreated; }
+    public int getBotsReused() { return botsReused; }
+    public boolean isSpawning() { return pendingSpawns > 0; }
+}
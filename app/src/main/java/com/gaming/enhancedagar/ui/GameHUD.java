@@ -13,9 +13,12 @@ import android.view.ViewGroup;
 import android.widget.*;
 import androidx.core.content.ContextCompat;
 
+import com.gaming.enhancedagar.entities.Entity;
 import com.gaming.enhancedagar.entities.Player;
 import com.gaming.enhancedagar.game.GameState;
 import com.gaming.enhancedagar.game.CameraManager;
+import com.gaming.enhancedagar.game.DensityGrid;
+import com.gaming.enhancedagar.game.Leaderboard;
 
 import java.util.*;
 import java.util.List;
@@ -33,6 +36,8 @@ public class GameHUD extends LinearLayout {
     private static final int MINIMAP_SIZE = 150;
     private static final int NOTIFICATION_DURATION = 3000;
     private static final int MAX_NOTIFICATIONS = 5;
+    private static final int DEFAULT_MINIMAP_REFRESH_HZ = 4;
+    private static final int BOT_COLOR = 0xFFE67E22;
     
     // Colores del tema (formato Android: 0xAARRGGBB)
     private static final int PRIMARY_COLOR = 0xFF2C3E50;
@@ -47,6 +52,8 @@ public class GameHUD extends LinearLayout {
     private Player currentPlayer;
     private GameState gameState;
     private CameraManager cameraManager;
+    private DensityGrid densityGrid;
+    private Leaderboard<Entity> massLeaderboard;
     
     // Componentes UI
     private LinearLayout playerInfoPanel;
@@ -74,7 +81,7 @@ public class GameHUD extends LinearLayout {
     
     // Sistema de notificaciones
     private final Queue<Notification> notificationQueue = new ConcurrentLinkedQueue<>();
-    private final Map<String, Timer> activeTimers = new HashMap<>();
+    private volatile boolean notificationsDirty = false;
     
     // Estadísticas del juego
     private TextView killsLabel;
@@ -82,8 +89,28 @@ public class GameHUD extends LinearLayout {
     private TextView timeAliveLabel;
     private TextView scoreLabel;
     
+    // Mini-mapa
+    private MinimapView minimapView;
+    private int minimapRefreshIntervalMs = 1000 / DEFAULT_MINIMAP_REFRESH_HZ;
+    
     // Lista de jugadores
     private ListView playersList;
+    private ArrayAdapter<String> playersAdapter;
+    private final List<Player> sortedPlayers = new ArrayList<>();
+    
+    // Últimos valores mostrados: las vistas solo se invalidan cuando cambian
+    private String lastPlayerName;
+    private int lastMassTenths = Integer.MIN_VALUE;
+    private int lastSpeedTenths = Integer.MIN_VALUE;
+    private int lastRank = -1;
+    private int lastHealth = -1, lastMaxHealth = -1;
+    private int lastEnergy = -1, lastMaxEnergy = -1;
+    private int lastExperience = -1, lastMaxExperience = -1;
+    private int lastKills = -1;
+    private int lastDeaths = -1;
+    private long lastScore = Long.MIN_VALUE;
+    private long lastTimeAlive = -1;
+    private int lastPlayersListSignature = 0;
     
     // Handler para tareas en UI thread
     private Handler uiHandler;
@@ -128,6 +155,52 @@ public class GameHUD extends LinearLayout {
         setupLayout();
         setupEventListeners();
         startUpdateTimer();
+        startMinimapRefresh();
+    }
+    
+    /**
+     * Asigna la rejilla de densidad de la simulación que alimenta el mini-mapa
+     * El mini-mapa solo lee las instantáneas que el motor publica a su frecuencia de refresco
+     */
+    public void setDensityGrid(DensityGrid densityGrid) {
+        this.densityGrid = densityGrid;
+        if (densityGrid != null) {
+            densityGrid.setSnapshotInterval(minimapRefreshIntervalMs);
+        }
+    }
+    
+    /**
+     * Asigna la clasificación por masa que mantiene el motor; el rango se consulta en O(log n)
+     */
+    public void setMassLeaderboard(Leaderboard<Entity> massLeaderboard) {
+        this.massLeaderboard = massLeaderboard;
+    }
+    
+    /**
+     * Configura la frecuencia de refresco del mini-mapa
+     */
+    public void setMinimapRefreshRate(int hz) {
+        this.minimapRefreshIntervalMs = 1000 / Math.max(1, hz);
+        DensityGrid grid = densityGrid;
+        if (grid != null) {
+            grid.setSnapshotInterval(minimapRefreshIntervalMs);
+        }
+    }
+    
+    /**
+     * Refresca el mini-mapa a su propia frecuencia, independiente del resto del HUD
+     */
+    private void startMinimapRefresh() {
+        Runnable refreshRunnable = new Runnable() {
+            @Override
+            public void run() {
+                if (isVisible && !isPaused && minimapView != null) {
+                    minimapView.refreshIfChanged();
+                }
+                uiHandler.postDelayed(this, minimapRefreshIntervalMs);
+            }
+        };
+        uiHandler.post(refreshRunnable);
     }
     
     /**
@@ -255,7 +328,7 @@ public class GameHUD extends LinearLayout {
     private void initializeMinimapPanel() {
         minimapPanel = createPanel("Mini-Mapa");
         
-        MinimapView minimapView = new MinimapView(getContext());
+        minimapView = new MinimapView(getContext());
         LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
             dpToPx(MINIMAP_SIZE), dpToPx(MINIMAP_SIZE));
         minimapView.setLayoutParams(params);
@@ -371,13 +444,9 @@ public class GameHUD extends LinearLayout {
         Runnable updateRunnable = new Runnable() {
             @Override
             public void run() {
+                // Ya estamos en el UI thread: actualizar sin volver a encolar
                 if (isVisible && !isPaused) {
-                    uiHandler.post(new Runnable() {
-                        @Override
-                        public void run() {
-                            updateHUD();
-                        }
-                    });
+                    updateHUD();
                 }
                 // Programar la siguiente ejecución en 100ms
                 uiHandler.postDelayed(this, 100);
@@ -403,24 +472,59 @@ public class GameHUD extends LinearLayout {
      * Actualiza la información del jugador
      */
     private void updatePlayerInfo() {
-        // Actualizar valores básicos
-        playerNameLabel.setText(currentPlayer.getName());
-        playerSizeLabel.setText(String.format("%.1f", currentPlayer.getMass()));
-        playerSpeedLabel.setText(String.format("%.1f", currentPlayer.getSpeed()));
+        // Actualizar valores básicos solo si cambia lo que se muestra
+        String name = currentPlayer.getName();
+        if (!Objects.equals(name, lastPlayerName)) {
+            lastPlayerName = name;
+            playerNameLabel.setText(name);
+        }
+        
+        int massTenths = (int) Math.round(currentPlayer.getMass() * 10);
+        if (massTenths != lastMassTenths) {
+            lastMassTenths = massTenths;
+            playerSizeLabel.setText(String.format("%.1f", massTenths / 10.0));
+        }
+        
+        int speedTenths = (int) Math.round(currentPlayer.getSpeed() * 10);
+        if (speedTenths != lastSpeedTenths) {
+            lastSpeedTenths = speedTenths;
+            playerSpeedLabel.setText(String.format("%.1f", speedTenths / 10.0));
+        }
         
         // Actualizar barras de progreso
-        healthBar.setValue((int) currentPlayer.getHealth());
-        healthBar.setMaximum((int) currentPlayer.getMaxHealth());
+        int health = (int) currentPlayer.getHealth();
+        int maxHealth = (int) currentPlayer.getMaxHealth();
+        if (health != lastHealth || maxHealth != lastMaxHealth) {
+            lastHealth = health;
+            lastMaxHealth = maxHealth;
+            healthBar.setValue(health);
+            healthBar.setMaximum(maxHealth);
+        }
         
-        energyBar.setValue((int) currentPlayer.getEnergy());
-        energyBar.setMaximum((int) currentPlayer.getMaxEnergy());
+        int energy = (int) currentPlayer.getEnergy();
+        int maxEnergy = (int) currentPlayer.getMaxEnergy();
+        if (energy != lastEnergy || maxEnergy != lastMaxEnergy) {
+            lastEnergy = energy;
+            lastMaxEnergy = maxEnergy;
+            energyBar.setValue(energy);
+            energyBar.setMaximum(maxEnergy);
+        }
         
-        experienceBar.setValue((int) currentPlayer.getExperience());
-        experienceBar.setMaximum((int) currentPlayer.getMaxExperience());
+        int experience = (int) currentPlayer.getExperience();
+        int maxExperience = (int) currentPlayer.getMaxExperience();
+        if (experience != lastExperience || maxExperience != lastMaxExperience) {
+            lastExperience = experience;
+            lastMaxExperience = maxExperience;
+            experienceBar.setValue(experience);
+            experienceBar.setMaximum(maxExperience);
+        }
         
         // Actualizar rango
         int rank = calculatePlayerRank();
-        playerRankLabel.setText("#" + rank);
+        if (rank != lastRank) {
+            lastRank = rank;
+            playerRankLabel.setText("#" + rank);
+        }
     }
     
     /**
@@ -429,13 +533,30 @@ public class GameHUD extends LinearLayout {
     private void updateStats() {
         if (gameState == null) return;
         
-        killsLabel.setText(String.valueOf(gameState.getKillCount()));
-        deathsLabel.setText(String.valueOf(gameState.getDeathCount()));
-        scoreLabel.setText(String.valueOf(gameState.getScore()));
+        int kills = gameState.getKillCount();
+        if (kills != lastKills) {
+            lastKills = kills;
+            killsLabel.setText(String.valueOf(kills));
+        }
         
-        // Actualizar tiempo vivo
+        int deaths = gameState.getDeathCount();
+        if (deaths != lastDeaths) {
+            lastDeaths = deaths;
+            deathsLabel.setText(String.valueOf(deaths));
+        }
+        
+        long score = gameState.getScore();
+        if (score != lastScore) {
+            lastScore = score;
+            scoreLabel.setText(String.valueOf(score));
+        }
+        
+        // Actualizar tiempo vivo (cambia una vez por segundo)
         long timeAlive = (System.currentTimeMillis() - gameStartTime) / 1000;
-        timeAliveLabel.setText(formatTime(timeAlive));
+        if (timeAlive != lastTimeAlive) {
+            lastTimeAlive = timeAlive;
+            timeAliveLabel.setText(formatTime(timeAlive));
+        }
     }
     
     /**
@@ -444,26 +565,40 @@ public class GameHUD extends LinearLayout {
     private void updatePlayersList() {
         if (gameState == null || gameState.getActivePlayers() == null) return;
         
-        List<String> playerNames = new ArrayList<>();
+        // Firma independiente del orden: si no cambia, la lista mostrada tampoco
+        int signature = 0;
+        for (Player player : gameState.getActivePlayers()) {
+            int entry = Objects.hashCode(player.getName()) * 31 + (int) Math.round(player.getMass() * 10);
+            signature += entry * 0x9E3779B1;
+        }
+        if (playersAdapter != null && signature == lastPlayersListSignature) {
+            return;
+        }
+        lastPlayersListSignature = signature;
         
         // Ordenar jugadores por masa
-        List<Player> sortedPlayers = new ArrayList<>(gameState.getActivePlayers());
+        sortedPlayers.clear();
+        sortedPlayers.addAll(gameState.getActivePlayers());
         sortedPlayers.sort((p1, p2) -> Double.compare(p2.getMass(), p1.getMass()));
         
-        // Agregar a la lista
+        if (playersAdapter == null) {
+            playersAdapter = new ArrayAdapter<>(getContext(), 
+                android.R.layout.simple_list_item_1, new ArrayList<>());
+            playersList.setAdapter(playersAdapter);
+        }
+        
+        // Reutilizar el adapter en lugar de crear uno nuevo
+        playersAdapter.setNotifyOnChange(false);
+        playersAdapter.clear();
         for (Player player : sortedPlayers) {
             String playerInfo = String.format("%s - %.1f", 
                     player.getName(), player.getMass());
             if (player.equals(currentPlayer)) {
                 playerInfo += " (Tú)";
             }
-            playerNames.add(playerInfo);
+            playersAdapter.add(playerInfo);
         }
-        
-        // Usar ArrayAdapter para Android
-        ArrayAdapter<String> adapter = new ArrayAdapter<>(getContext(), 
-            android.R.layout.simple_list_item_1, playerNames);
-        playersList.setAdapter(adapter);
+        playersAdapter.notifyDataSetChanged();
     }
     
     /**
@@ -471,8 +606,16 @@ public class GameHUD extends LinearLayout {
      */
     private void updateNotifications() {
         // Remover notificaciones expiradas
-        notificationQueue.removeIf(notification -> 
-                System.currentTimeMillis() > notification.getEndTime());
+        long now = System.currentTimeMillis();
+        if (notificationQueue.removeIf(notification -> now > notification.getEndTime())) {
+            notificationsDirty = true;
+        }
+        
+        // Reconstruir el panel solo si la cola ha cambiado
+        if (!notificationsDirty) {
+            return;
+        }
+        notificationsDirty = false;
         
         // Actualizar panel de notificaciones
         notificationsPanel.removeAllViews();
@@ -490,18 +633,14 @@ public class GameHUD extends LinearLayout {
     }
     
     /**
-     * Calcula el rango del jugador actual
+     * Rango por masa del jugador actual, leído de la clasificación del motor
      */
     private int calculatePlayerRank() {
-        if (gameState == null || gameState.getActivePlayers() == null) return 1;
+        Leaderboard<Entity> ranking = massLeaderboard;
+        if (ranking == null || currentPlayer == null) return 1;
         
-        int rank = 1;
-        for (Player player : gameState.getActivePlayers()) {
-            if (player.getMass() > currentPlayer.getMass()) {
-                rank++;
-            }
-        }
-        return rank;
+        int rank = ranking.getRank(currentPlayer);
+        return rank > 0 ? rank : 1;
     }
     
     /**
@@ -524,23 +663,18 @@ public class GameHUD extends LinearLayout {
         Notification notification = new Notification(message, type, 
                 System.currentTimeMillis() + NOTIFICATION_DURATION);
         notificationQueue.add(notification);
+        notificationsDirty = true;
         
-        // Handler para remover notificación automáticamente
-        Timer timer = new Timer();
-        timer.schedule(new TimerTask() {
+        // Remover notificación automáticamente en el UI thread (sin hilos Timer)
+        uiHandler.postDelayed(new Runnable() {
             @Override
             public void run() {
-                notificationQueue.remove(notification);
-                uiHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        updateNotifications();
-                    }
-                });
+                if (notificationQueue.remove(notification)) {
+                    notificationsDirty = true;
+                    updateNotifications();
+                }
             }
         }, NOTIFICATION_DURATION);
-        
-        activeTimers.put(message, timer);
     }
     
     /**
@@ -769,10 +903,26 @@ public class GameHUD extends LinearLayout {
     }
     
     
-    // Clase personalizada para el mini-mapa
+    // Clase personalizada para el mini-mapa, dibujada desde la rejilla de densidad
     private class MinimapView extends View {
+        private static final float MARGIN = 10;
+        
         private Paint paint;
         private Paint borderPaint;
+        private Paint viewportPaint;
+        private Paint densityPaint;
+        
+        // Bitmap de una celda por píxel: una sola subida por refresco
+        private Bitmap densityBitmap;
+        private int[] densityPixels;
+        private int lastGridVersion = -1;
+        
+        // Geometría de la última instantánea dibujada
+        private boolean hasGridGeometry = false;
+        private float gridLeft, gridTop, gridWidth, gridHeight;
+        private float lastViewLeft, lastViewTop, lastViewRight, lastViewBottom;
+        private final Rect densitySrc = new Rect();
+        private final RectF densityDst = new RectF();
         
         public MinimapView(Context context) {
             super(context);
@@ -784,6 +934,39 @@ public class GameHUD extends LinearLayout {
             borderPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
             borderPaint.setStyle(Paint.Style.STROKE);
             borderPaint.setStrokeWidth(2);
+            
+            viewportPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            viewportPaint.setStyle(Paint.Style.STROKE);
+            viewportPaint.setStrokeWidth(1);
+            viewportPaint.setColor(SECONDARY_COLOR);
+            
+            // Sin filtrado: cada celda se ve como un bloque nítido
+            densityPaint = new Paint();
+            densityPaint.setFilterBitmap(false);
+        }
+        
+        /**
+         * Invalida la vista solo si la rejilla o el viewport han cambiado
+         */
+        void refreshIfChanged() {
+            DensityGrid.Snapshot snapshot = densityGrid != null ? densityGrid.getPublishedSnapshot() : null;
+            boolean changed = snapshot != null && snapshot.getVersion() != lastGridVersion;
+            
+            if (cameraManager != null) {
+                RectF viewport = cameraManager.getViewBounds();
+                if (viewport != null && (viewport.left != lastViewLeft || viewport.top != lastViewTop
+                        || viewport.right != lastViewRight || viewport.bottom != lastViewBottom)) {
+                    lastViewLeft = viewport.left;
+                    lastViewTop = viewport.top;
+                    lastViewRight = viewport.right;
+                    lastViewBottom = viewport.bottom;
+                    changed = true;
+                }
+            }
+            
+            if (changed) {
+                invalidate();
+            }
         }
         
         @Override
@@ -798,62 +981,118 @@ public class GameHUD extends LinearLayout {
             borderPaint.setColor(SECONDARY_COLOR);
             canvas.drawRect(0, 0, getWidth() - 1, getHeight() - 1, borderPaint);
             
-            if (gameState != null && cameraManager != null) {
+            if (densityGrid != null) {
+                drawDensity(canvas);
+            }
+            if (hasGridGeometry || (cameraManager != null && cameraManager.getWorldBounds() != null)) {
                 drawMiniMapContent(canvas);
             }
         }
         
-        private void drawMiniMapContent(Canvas canvas) {
-            // Dibujar jugadores en el mini-mapa
-            if (gameState.getActivePlayers() != null) {
-                for (Player player : gameState.getActivePlayers()) {
-                    PointF playerPos = worldToMinimap(player.getX(), player.getY());
-                    
-                    if (player.equals(currentPlayer)) {
-                        paint.setColor(SUCCESS_COLOR);
-                        canvas.drawRect(playerPos.x - 3, playerPos.y - 3, 6, 6, paint);
-                    } else {
-                        paint.setColor(DANGER_COLOR);
-                        canvas.drawRect(playerPos.x - 2, playerPos.y - 2, 4, 4, paint);
-                    }
+        private void drawDensity(Canvas canvas) {
+            // Volcar la instantánea al bitmap solo si es más nueva que la del último dibujo
+            DensityGrid.Snapshot snapshot = densityGrid.getPublishedSnapshot();
+            if (snapshot != null && (snapshot.getVersion() != lastGridVersion || densityBitmap == null)
+                    && snapshot.acquire()) {
+                try {
+                    lastGridVersion = snapshot.getVersion();
+                    uploadDensityBitmap(snapshot);
+                } finally {
+                    snapshot.release();
                 }
             }
+            if (densityBitmap == null) {
+                return;
+            }
             
-            // Dibujar comida en el mini-mapa (solo algunos puntos)
-            if (gameState.getFood() != null && gameState.getFood().size() > 0) {
-                paint.setColor(WARNING_COLOR);
-                for (int i = 0; i < Math.min(50, gameState.getFood().size()); i += 10) {
-                    // Dibujar algunos puntos de comida representativos
-                }
+            densityDst.set(MARGIN, MARGIN, getWidth() - MARGIN, getHeight() - MARGIN);
+            canvas.drawBitmap(densityBitmap, densitySrc, densityDst, densityPaint);
+        }
+        
+        /**
+         * Jugador actual y viewport; sin rejilla se sitúan con los límites del mundo de la cámara
+         */
+        private void drawMiniMapContent(Canvas canvas) {
+            // Jugador actual
+            if (currentPlayer != null) {
+                paint.setColor(SUCCESS_COLOR);
+                float x = worldToMinimapX(currentPlayer.getX());
+                float y = worldToMinimapY(currentPlayer.getY());
+                canvas.drawRect(x - 3, y - 3, x + 3, y + 3, paint);
             }
             
             // Dibujar viewport del jugador
-            if (cameraManager != null) {
-                paint.setColor(SECONDARY_COLOR);
-                Paint viewportPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-                viewportPaint.setStyle(Paint.Style.STROKE);
-                viewportPaint.setStrokeWidth(1);
-                viewportPaint.setColor(SECONDARY_COLOR);
-                
-                RectF viewport = cameraManager.getViewportBounds();
-                PointF topLeft = worldToMinimap(viewport.left, viewport.top);
-                PointF bottomRight = worldToMinimap(viewport.right, viewport.bottom);
-                
-                canvas.drawRect(topLeft.x, topLeft.y, 
-                        bottomRight.x, bottomRight.y, viewportPaint);
+            if (cameraManager != null && cameraManager.getViewBounds() != null) {
+                RectF viewport = cameraManager.getViewBounds();
+                canvas.drawRect(worldToMinimapX(viewport.left), worldToMinimapY(viewport.top),
+                        worldToMinimapX(viewport.right), worldToMinimapY(viewport.bottom), viewportPaint);
             }
         }
         
-        private PointF worldToMinimap(double worldX, double worldY) {
-            if (gameState == null || cameraManager == null) {
-                return new PointF(0, 0);
+        /**
+         * Convierte los contadores de la instantánea en píxeles y los sube al bitmap
+         */
+        private void uploadDensityBitmap(DensityGrid.Snapshot snapshot) {
+            int resolution = snapshot.getResolution();
+            if (densityBitmap == null || densityBitmap.getWidth() != resolution) {
+                densityBitmap = Bitmap.createBitmap(resolution, resolution, Bitmap.Config.ARGB_8888);
+                densityPixels = new int[resolution * resolution];
+                densitySrc.set(0, 0, resolution, resolution);
             }
             
-            // Convertir coordenadas del mundo a coordenadas del mini-mapa
-            float mapX = (float) ((worldX / gameState.getWorldWidth()) * (MINIMAP_SIZE - 20)) + 10;
-            float mapY = (float) ((worldY / gameState.getWorldHeight()) * (MINIMAP_SIZE - 20)) + 10;
+            int[] food = snapshot.getCounts(DensityGrid.CATEGORY_FOOD);
+            int[] bots = snapshot.getCounts(DensityGrid.CATEGORY_BOT);
+            int[] players = snapshot.getCounts(DensityGrid.CATEGORY_PLAYER);
+            gridLeft = snapshot.getWorldLeft();
+            gridTop = snapshot.getWorldTop();
+            gridWidth = snapshot.getWorldWidth();
+            gridHeight = snapshot.getWorldHeight();
+            hasGridGeometry = true;
             
-            return new PointF(mapX, mapY);
+            // Prioridad: jugadores, después bots y por último comida
+            for (int cell = 0; cell < densityPixels.length; cell++) {
+                if (players[cell] > 0) {
+                    densityPixels[cell] = withDensityAlpha(DANGER_COLOR, players[cell]);
+                } else if (bots[cell] > 0) {
+                    densityPixels[cell] = withDensityAlpha(BOT_COLOR, bots[cell]);
+                } else if (food[cell] > 0) {
+                    densityPixels[cell] = withDensityAlpha(WARNING_COLOR, food[cell]);
+                } else {
+                    densityPixels[cell] = Color.TRANSPARENT;
+                }
+            }
+            
+            densityBitmap.setPixels(densityPixels, 0, resolution, 0, 0, resolution, resolution);
+        }
+        
+        /**
+         * Más entidades en la celda = color más opaco
+         */
+        private int withDensityAlpha(int color, int count) {
+            int alpha = Math.min(255, 80 + count * 35);
+            return (alpha << 24) | (color & 0x00FFFFFF);
+        }
+        
+        private float worldToMinimapX(float worldX) {
+            float normalized;
+            if (hasGridGeometry) {
+                normalized = (worldX - gridLeft) / gridWidth;
+            } else {
+                RectF world = cameraManager.getWorldBounds();
+                normalized = (worldX - world.left) / world.width();
+            }
+            return MARGIN + normalized * (getWidth() - MARGIN * 2);
+        }
+        
+        private float worldToMinimapY(float worldY) {
+            float normalized;
+            if (hasGridGeometry) {
+                normalized = (worldY - gridTop) / gridHeight;
+            } else {
+                RectF world = cameraManager.getWorldBounds();
+                normalized = (worldY - world.top) / world.height();
+            }
+            return MARGIN + normalized * (getHeight() - MARGIN * 2);
         }
     }
     
@@ -887,11 +1126,8 @@ public class GameHUD extends LinearLayout {
     
     // Método para limpiar recursos
     public void cleanup() {
-        for (Timer timer : activeTimers.values()) {
-            timer.cancel();
-        }
-        activeTimers.clear();
         notificationQueue.clear();
+        notificationsDirty = true;
         
         // Limpiar handler
         if (uiHandler != null) {
@@ -43,6 +43,22 @@ public class UIManager {
     private UIState currentState;
     private Paint statePaint;
     
+    // Paints reutilizables para el renderizado de overlays
+    private Paint notificationPaint;
+    private Paint notificationTextPaint;
+    private Paint tooltipPaint;
+    private Paint tooltipTextPaint;
+    private Paint loadingPaint;
+    
+    // Capa estática cacheada con notificaciones y tooltips
+    private Bitmap overlayCache;
+    private Canvas overlayCanvas;
+    private final RectF overlayBounds = new RectF();
+    private final RectF elementBounds = new RectF();
+    private final Rect overlaySrcRect = new Rect();
+    private volatile boolean overlayDirty = true;
+    private int overlayRebuilds = 0;
+    
     // Sistema de dimensiones responsivas
     private float density;
     private int screenWidth, screenHeight;
@@ -89,6 +105,31 @@ public class UIManager {
         statePaint.setAntiAlias(true);
         statePaint.setStyle(Paint.Style.FILL);
         statePaint.setTextSize(getScaledSize(16)); // Tamaño base escalable
+        
+        notificationPaint = new Paint();
+        notificationPaint.setAntiAlias(true);
+        notificationPaint.setStyle(Paint.Style.FILL);
+        
+        notificationTextPaint = new Paint();
+        notificationTextPaint.setColor(Color.WHITE);
+        notificationTextPaint.setTextSize(getScaledSize(14));
+        notificationTextPaint.setAntiAlias(true);
+        notificationTextPaint.setTextAlign(Paint.Align.LEFT);
+        
+        tooltipPaint = new Paint();
+        tooltipPaint.setAntiAlias(true);
+        tooltipPaint.setStyle(Paint.Style.FILL);
+        tooltipPaint.setColor(Color.argb(220, 0, 0, 0)); // Negro semi-transparente
+        
+        tooltipTextPaint = new Paint();
+        tooltipTextPaint.setColor(Color.WHITE);
+        tooltipTextPaint.setTextSize(getScaledSize(12));
+        tooltipTextPaint.setAntiAlias(true);
+        
+        loadingPaint = new Paint();
+        loadingPaint.setColor(Color.WHITE);
+        loadingPaint.setStrokeWidth(getScaledSize(4));
+        loadingPaint.setAntiAlias(true);
     }
     
     /**
@@ -119,6 +160,7 @@ public class UIManager {
         try {
             Notification notification = new Notification(id, message, type, duration);
             activeNotifications.put(id, notification);
+            markOverlayDirty();
             
             // Programar auto-destrucción
             if (duration > 0) {
@@ -167,6 +209,7 @@ public class UIManager {
     public void dismissNotification(String id) {
         Notification notification = activeNotifications.remove(id);
         if (notification != null) {
+            markOverlayDirty();
             Log.d(TAG, "Notificación descartada: " + id);
         }
     }
@@ -176,6 +219,7 @@ public class UIManager {
      */
     public void dismissAllNotifications() {
         activeNotifications.clear();
+        markOverlayDirty();
         Log.d(TAG, "Todas las notificaciones descartadas");
     }
     
@@ -258,6 +302,7 @@ public class UIManager {
         try {
             Tooltip tooltip = new Tooltip(id, text, x, y, position);
             activeTooltips.put(id, tooltip);
+            markOverlayDirty();
             
             // Auto-ocultar después de 3 segundos
             new Handler(Looper.getMainLooper()).postDelayed(() -> {
@@ -274,7 +319,9 @@ public class UIManager {
      * Oculta un tooltip
      */
     public void hideTooltip(String id) {
-        activeTooltips.remove(id);
+        if (activeTooltips.remove(id) != null) {
+            markOverlayDirty();
+        }
         Log.d(TAG, "Tooltip ocultado: " + id);
     }
     
@@ -283,6 +330,7 @@ public class UIManager {
      */
     public void hideAllTooltips() {
         activeTooltips.clear();
+        markOverlayDirty();
         Log.d(TAG, "Todos los tooltips ocultados");
     }
     
@@ -408,6 +456,13 @@ public class UIManager {
         return uiElements.get(id);
     }
     
+    /**
+     * Obtiene cuántas veces se ha reconstruido la capa de overlays
+     */
+    public int getOverlayRebuildCount() {
+        return overlayRebuilds;
+    }
+    
     // ==================== COMPATIBILIDAD RESPONSIVA ====================
     
     /**
@@ -447,6 +502,13 @@ public class UIManager {
     
     // ==================== RENDERIZADO ====================
     
+    /**
+     * Marca la capa de overlays para reconstruirla en el próximo frame
+     */
+    private void markOverlayDirty() {
+        overlayDirty = true;
+    }
+    
     /**
      * Renderiza todos los elementos UI
      */
@@ -454,11 +516,16 @@ public class UIManager {
         if (canvas == null) return;
         
         try {
-            // Renderizar notificaciones
-            renderNotifications(canvas);
+            // Notificaciones y tooltips solo se redibujan cuando cambian
+            if (overlayDirty) {
+                rebuildOverlayCache();
+            }
             
-            // Renderizar tooltips
-            renderTooltips(canvas);
+            if (overlayCache != null && !overlayBounds.isEmpty()) {
+                overlaySrcRect.set(0, 0, (int) Math.ceil(overlayBounds.width()),
+                                   (int) Math.ceil(overlayBounds.height()));
+                canvas.drawBitmap(overlayCache, overlaySrcRect, overlayBounds, null);
+            }
             
             // Renderizar estado actual
             renderUIState(canvas);
@@ -468,6 +535,53 @@ public class UIManager {
         }
     }
     
+    /**
+     * Reconstruye el bitmap de overlays ajustado a la región que ocupan
+     */
+    private void rebuildOverlayCache() {
+        // Limpiar la marca antes de leer: un cambio concurrente forzará otra reconstrucción
+        overlayDirty = false;
+        overlayRebuilds++;
+        
+        overlayBounds.setEmpty();
+        float yOffset = getScaledSize(50);
+        for (int i = 0; i < activeNotifications.size(); i++) {
+            getNotificationBounds(yOffset, elementBounds);
+            overlayBounds.union(elementBounds);
+            yOffset += getScaledSize(60);
+        }
+        for (Tooltip tooltip : activeTooltips.values()) {
+            getTooltipBounds(tooltip, elementBounds);
+            overlayBounds.union(elementBounds);
+        }
+        
+        if (overlayBounds.isEmpty()) {
+            return;
+        }
+        
+        overlayBounds.set((float) Math.floor(overlayBounds.left), (float) Math.floor(overlayBounds.top),
+                          (float) Math.ceil(overlayBounds.right), (float) Math.ceil(overlayBounds.bottom));
+        int width = (int) overlayBounds.width();
+        int height = (int) overlayBounds.height();
+        
+        // Reutilizar el bitmap si la nueva región cabe en él
+        if (overlayCache == null || overlayCache.getWidth() < width || overlayCache.getHeight() < height) {
+            if (overlayCache != null) {
+                overlayCache.recycle();
+            }
+            overlayCache = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            overlayCanvas = new Canvas(overlayCache);
+        } else {
+            overlayCache.eraseColor(Color.TRANSPARENT);
+        }
+        
+        overlayCanvas.save();
+        overlayCanvas.translate(-overlayBounds.left, -overlayBounds.top);
+        renderNotifications(overlayCanvas);
+        renderTooltips(overlayCanvas);
+        overlayCanvas.restore();
+    }
+    
     /**
      * Renderiza las notificaciones
      */
@@ -480,34 +594,30 @@ public class UIManager {
         }
     }
     
+    /**
+     * Calcula el rectángulo de una notificación
+     */
+    private void getNotificationBounds(float yOffset, RectF out) {
+        float x = getScaledWidth(10); // Centrado con 10% de margen
+        out.set(x, yOffset, x + getScaledWidth(80), yOffset + getScaledSize(50));
+    }
+    
     /**
      * Renderiza una notificación individual
      */
     private void renderNotification(Canvas canvas, Notification notification, float yOffset) {
-        Paint paint = new Paint();
-        paint.setAntiAlias(true);
-        paint.setStyle(Paint.Style.FILL);
-        
         // Color según tipo
-        int color = getNotificationColor(notification.type);
-        paint.setColor(color);
+        notificationPaint.setColor(getNotificationColor(notification.type));
         
-        float width = getScaledWidth(80); // 80% del ancho de pantalla
-        float height = getScaledSize(50);
-        float x = getScaledWidth(10); // Centrado con 10% de margen
+        getNotificationBounds(yOffset, elementBounds);
         float radius = getScaledSize(8);
         
         // Dibujar fondo redondeado
-        canvas.drawRoundRect(x, yOffset, x + width, yOffset + height, radius, radius, paint);
+        canvas.drawRoundRect(elementBounds, radius, radius, notificationPaint);
         
         // Dibujar texto
-        Paint textPaint = new Paint();
-        textPaint.setColor(Color.WHITE);
-        textPaint.setTextSize(getScaledSize(14));
-        textPaint.setAntiAlias(true);
-        textPaint.setTextAlign(Paint.Align.LEFT);
-        
-        canvas.drawText(notification.message, x + getScaledSize(16), yOffset + height/2 + getScaledSize(5), textPaint);
+        canvas.drawText(notification.message, elementBounds.left + getScaledSize(16),
+                        elementBounds.centerY() + getScaledSize(5), notificationTextPaint);
     }
     
     /**
@@ -520,15 +630,10 @@ public class UIManager {
     }
     
     /**
-     * Renderiza un tooltip individual
+     * Calcula el rectángulo de un tooltip según su posición
      */
-    private void renderTooltip(Canvas canvas, Tooltip tooltip) {
-        Paint paint = new Paint();
-        paint.setAntiAlias(true);
-        paint.setStyle(Paint.Style.FILL);
-        paint.setColor(Color.argb(220, 0, 0, 0)); // Negro semi-transparente
-        
-        float textWidth = paint.measureText(tooltip.text);
+    private void getTooltipBounds(Tooltip tooltip, RectF out) {
+        float textWidth = tooltipTextPaint.measureText(tooltip.text);
         float padding = getScaledSize(8);
         float width = textWidth + (padding * 2);
         float height = getScaledSize(30);
@@ -553,16 +658,22 @@ public class UIManager {
                 break;
         }
         
+        out.set(x, y, x + width, y + height);
+    }
+    
+    /**
+     * Renderiza un tooltip individual
+     */
+    private void renderTooltip(Canvas canvas, Tooltip tooltip) {
+        getTooltipBounds(tooltip, elementBounds);
+        float radius = getScaledSize(4);
+        
         // Dibujar fondo
-        canvas.drawRoundRect(x, y, x + width, y + height, getScaledSize(4), paint);
+        canvas.drawRoundRect(elementBounds, radius, radius, tooltipPaint);
         
         // Dibujar texto
-        Paint textPaint = new Paint();
-        textPaint.setColor(Color.WHITE);
-        textPaint.setTextSize(getScaledSize(12));
-        textPaint.setAntiAlias(true);
-        
-        canvas.drawText(tooltip.text, x + padding, y + height/2 + getScaledSize(4), textPaint);
+        canvas.drawText(tooltip.text, elementBounds.left + getScaledSize(8),
+                        elementBounds.centerY() + getScaledSize(4), tooltipTextPaint);
     }
     
     /**
@@ -571,14 +682,10 @@ public class UIManager {
     private void renderUIState(Canvas canvas) {
         if (currentState == null) return;
         
-        Paint paint = new Paint();
-        paint.setAntiAlias(true);
-        paint.setStyle(Paint.Style.FILL);
-        
         switch (currentState) {
             case LOADING:
-                paint.setColor(Color.argb(100, 0, 0, 0)); // Overlay oscuro
-                canvas.drawRect(0, 0, screenWidth, screenHeight, paint);
+                statePaint.setColor(Color.argb(100, 0, 0, 0)); // Overlay oscuro
+                canvas.drawRect(0, 0, screenWidth, screenHeight, statePaint);
                 
                 // Dibujar spinner o indicador de carga
                 drawLoadingIndicator(canvas);
@@ -603,11 +710,8 @@ public class UIManager {
      * Dibuja indicador de carga
      */
     private void drawLoadingIndicator(Canvas canvas) {
-        Paint paint = new Paint();
-        paint.setColor(Color.WHITE);
+        Paint paint = loadingPaint;
         paint.setStyle(Paint.Style.STROKE);
-        paint.setStrokeWidth(getScaledSize(4));
-        paint.setAntiAlias(true);
         
         float centerX = screenWidth / 2f;
         float centerY = screenHeight / 2f;
@@ -646,6 +750,13 @@ public class UIManager {
         uiElements.clear();
         animations.clear();
         
+        if (overlayCache != null) {
+            overlayCache.recycle();
+            overlayCache = null;
+            overlayCanvas = null;
+        }
+        overlayBounds.setEmpty();
+        
         Log.d(TAG, "UIManager limpiado");
     }
     
@@ -0,0 +1,392 @@
+package com.gaming.enhancedagar.engine;
+
+import android.graphics.*;
+
+import java.util.IdentityHashMap;
+
+/**
+ * Canvas que no dibuja: cuenta llamadas de dibujo, objetos Paint/Path/Shader nuevos y
+ * profundidad de save/clip por frame, para medir el coste del código de render real.
+ * Un objeto cuenta como "nuevo" si no apareció en el frame inmediatamente anterior (solo
+ * se recuerda ese frame), de modo que los objetos creados dentro del bucle de render se
+ * detectan en cada frame. Todo el recuento vive en los overrides, así que funciona igual en la
+ * JVM (android.jar con valores por defecto) que en el dispositivo; la única excepción son los
+ * Shader, que se leen del Paint y en la JVM siempre son null
+ */
+public class RecordingCanvas extends Canvas {
+
+    // Contadores del frame actual
+    private int drawCalls;
+    private int bitmapDraws;
+    private int textDraws;
+    private int pathDraws;
+    private int clipCalls;
+    private int transformCalls;
+    private int newPaints;
+    private int newPaths;
+    private int newShaders;
+    private int saveDepth;
+    private int maxSaveDepth;
+    private int frameCount;
+
+    // Objetos vistos en frames anteriores y en el actual
+    private IdentityHashMap<Object, Boolean> knownObjects = new IdentityHashMap<>();
+    private IdentityHashMap<Object, Boolean> frameObjects = new IdentityHashMap<>();
+
+    private int width;
+    private int height;
+
+    public RecordingCanvas(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Empieza a contar un frame nuevo
+     */
+    public void beginFrame() {
+        drawCalls = 0;
+        bitmapDraws = 0;
+        textDraws = 0;
+        pathDraws = 0;
+        clipCalls = 0;
+        transformCalls = 0;
+        newPaints = 0;
+        newPaths = 0;
+        newShaders = 0;
+        saveDepth = 0;
+        maxSaveDepth = 0;
+    }
+
+    /**
+     * Cierra el frame: los objetos que sigan vivos dejan de contar como nuevos
+     */
+    public void endFrame() {
+        // Solo se recuerdan los objetos del último frame para que la memoria no crezca
+        IdentityHashMap<Object, Boolean> swap = knownObjects;
+        knownObjects = frameObjects;
+        frameObjects = swap;
+        frameObjects.clear();
+        frameCount++;
+    }
+
+    /**
+     * Olvida los objetos conocidos (el siguiente frame contará todo como nuevo)
+     */
+    public void resetTracking() {
+        knownObjects.clear();
+        frameObjects.clear();
+        frameCount = 0;
+    }
+
+    // === SEGUIMIENTO DE OBJETOS ===
+
+    private void trackPaint(Paint paint) {
+        if (paint == null) {
+            return;
+        }
+        if (track(paint)) {
+            newPaints++;
+        }
+        Shader shader = paint.getShader();
+        if (shader != null && track(shader)) {
+            newShaders++;
+        }
+    }
+
+    private void trackPath(Path path) {
+        if (path != null && track(path)) {
+            newPaths++;
+        }
+    }
+
+    /**
+     * @return true si el objeto no se había visto en el frame anterior ni en este
+     */
+    private boolean track(Object object) {
+        if (frameObjects.put(object, Boolean.TRUE) != null) {
+            return false;
+        }
+        return !knownObjects.containsKey(object);
+    }
+
+    private void recordDraw(Paint paint) {
+        drawCalls++;
+        trackPaint(paint);
+    }
+
+    // === ESTADO ===
+
+    @Override
+    public int save() {
+        saveDepth++;
+        maxSaveDepth = Math.max(maxSaveDepth, saveDepth);
+        return saveDepth;
+    }
+
+    @Override
+    public int saveLayer(RectF bounds, Paint paint) {
+        trackPaint(paint);
+        drawCalls++; // Una capa extra cuesta como un dibujo a pantalla completa
+        return save();
+    }
+
+    @Override
+    public int saveLayerAlpha(RectF bounds, int alpha) {
+        drawCalls++;
+        return save();
+    }
+
+    @Override
+    public void restore() {
+        if (saveDepth > 0) {
+            saveDepth--;
+        }
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+        saveDepth = Math.max(0, Math.min(saveDepth, saveCount - 1));
+    }
+
+    @Override
+    public int getSaveCount() {
+        return saveDepth + 1;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    // === TRANSFORMACIONES Y CLIPS ===
+
+    @Override
+    public void translate(float dx, float dy) {
+        transformCalls++;
+    }
+
+    @Override
+    public void scale(float sx, float sy) {
+        transformCalls++;
+    }
+
+    @Override
+    public void rotate(float degrees) {
+        transformCalls++;
+    }
+
+    @Override
+    public void skew(float sx, float sy) {
+        transformCalls++;
+    }
+
+    @Override
+    public void concat(Matrix matrix) {
+        transformCalls++;
+    }
+
+    @Override
+    public void setMatrix(Matrix matrix) {
+        transformCalls++;
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom) {
+        clipCalls++;
+        return true;
+    }
+
+    @Override
+    public boolean clipRect(RectF rect) {
+        clipCalls++;
+        return true;
+    }
+
+    @Override
+    public boolean clipRect(Rect rect) {
+        clipCalls++;
+        return true;
+    }
+
+    @Override
+    public boolean clipPath(Path path) {
+        clipCalls++;
+        trackPath(path);
+        return true;
+    }
+
+    // === DIBUJO ===
+
+    @Override
+    public void drawColor(int color) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawARGB(int a, int r, int g, int b) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawRGB(int r, int g, int b) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawPaint(Paint paint) {
+        recordDraw(paint);
+    }
+
+    @Override
+    public void drawPoint(float x, float y, Paint paint) {
+        recordDraw(paint);
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        recordDraw(paint);
+    }
+
+    @Override
+    public void drawLines(float[] pts, Paint paint) {
+        recordDraw(paint);
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        recordDraw(paint);
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+        recordDraw(paint);
+    }
+
+    @Override
+    public void drawRect(Rect rect, Paint paint) {
+        recordDraw(paint);
+    }
+
+    @Override
+    public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        recordDraw(paint);
+    }
+
+    @Override
+    public void drawRoundRect(float left, float top, float right, float bottom,
+                              float rx, float ry, Paint paint) {
+        recordDraw(paint);
+    }
+
+    @Override
+    public void drawOval(RectF oval, Paint paint) {
+        recordDraw(paint);
+    }
+
+    @Override
+    public void drawOval(float left, float top, float right, float bottom, Paint paint) {
+        recordDraw(paint);
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        recordDraw(paint);
+    }
+
+    @Override
+    public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+        recordDraw(paint);
+    }
+
+    @Override
+    public void drawArc(float left, float top, float right, float bottom, float startAngle,
+                        float sweepAngle, boolean useCenter, Paint paint) {
+        recordDraw(paint);
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        recordDraw(paint);
+        pathDraws++;
+        trackPath(path);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        recordDraw(paint);
+        bitmapDraws++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        recordDraw(paint);
+        bitmapDraws++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        recordDraw(paint);
+        bitmapDraws++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+        recordDraw(paint);
+        bitmapDraws++;
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+        recordDraw(paint);
+        textDraws++;
+    }
+
+    @Override
+    public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+        recordDraw(paint);
+        textDraws++;
+    }
+
+    @Override
+    public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+        recordDraw(paint);
+        textDraws++;
+    }
+
+    @Override
+    public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+        recordDraw(paint);
+        textDraws++;
+    }
+
+    // === RESULTADOS DEL FRAME ===
+
+    public int getDrawCalls() { return drawCalls; }
+    public int getBitmapDraws() { return bitmapDraws; }
+    public int getTextDraws() { return textDraws; }
+    public int getPathDraws() { return pathDraws; }
+    public int getClipCalls() { return clipCalls; }
+    public int getTransformCalls() { return transformCalls; }
+    public int getNewPaints() { return newPaints; }
+    public int getNewPaths() { return newPaths; }
+    public int getNewShaders() { return newShaders; }
+    public int getMaxSaveDepth() { return maxSaveDepth; }
+
+    /**
+     * Profundidad de save() sin cerrar al final del frame (debería ser 0)
+     */
+    public int getUnbalancedSaves() { return saveDepth; }
+
+    /**
+     * Objetos de dibujo nuevos en el frame (Paint + Path + Shader)
+     */
+    public int getAllocations() { return newPaints + newPaths + newShaders; }
+
+    public int getFrameCount() { return frameCount; }
+}
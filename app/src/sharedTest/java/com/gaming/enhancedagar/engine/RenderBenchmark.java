@@ -0,0 +1,334 @@
+package com.gaming.enhancedagar.engine;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.RectF;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Banco de pruebas de rendimiento del render
+ * Reproduce escenas guionizadas sobre un RecordingCanvas y compara llamadas de dibujo,
+ * objetos creados y profundidad de save por frame con un presupuesto; cualquier
+ * regresión por encima del presupuesto hace fallar la escena.
+ * No depende del dispositivo: en los tests JVM corre sobre android.jar con valores por
+ * defecto, donde solo cuenta lo que registra el RecordingCanvas
+ */
+public class RenderBenchmark {
+    public static final int DEFAULT_WARMUP_FRAMES = 30;
+    public static final int DEFAULT_MEASURED_FRAMES = 300;
+    private static final float FRAME_DELTA = 1f / 60f;
+
+    /**
+     * Escena guionizada: prepara su estado y dibuja un frame concreto
+     */
+    public interface Scene {
+        String getName();
+        void setUp();
+        void renderFrame(Canvas canvas, int frameIndex);
+    }
+
+    /**
+     * Límites por frame que una escena no debe superar
+     */
+    public static class Budget {
+        public final int maxDrawCalls;
+        public final float maxAllocationsPerFrame;
+        public final int maxSaveDepth;
+
+        public Budget(int maxDrawCalls, float maxAllocationsPerFrame, int maxSaveDepth) {
+            this.maxDrawCalls = maxDrawCalls;
+            this.maxAllocationsPerFrame = maxAllocationsPerFrame;
+            this.maxSaveDepth = maxSaveDepth;
+        }
+    }
+
+    /**
+     * Resultado medido de una escena
+     */
+    public static class Result {
+        public final String sceneName;
+        public final int frames;
+        public final float avgDrawCalls;
+        public final int maxDrawCalls;
+        public final float avgAllocations;
+        public final int maxAllocations;
+        public final int maxSaveDepth;
+        public final int unbalancedSaveFrames;
+        public final float avgFrameMs;
+        public final List<String> violations = new ArrayList<>();
+
+        Result(String sceneName, int frames, float avgDrawCalls, int maxDrawCalls,
+               float avgAllocations, int maxAllocations, int maxSaveDepth,
+               int unbalancedSaveFrames, float avgFrameMs) {
+            this.sceneName = sceneName;
+            this.frames = frames;
+            this.avgDrawCalls = avgDrawCalls;
+            this.maxDrawCalls = maxDrawCalls;
+            this.avgAllocations = avgAllocations;
+            this.maxAllocations = maxAllocations;
+            this.maxSaveDepth = maxSaveDepth;
+            this.unbalancedSaveFrames = unbalancedSaveFrames;
+            this.avgFrameMs = avgFrameMs;
+        }
+
+        public boolean passed() {
+            return violations.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                "%s: %s, frames=%d, draws avg=%.1f max=%d, allocs avg=%.1f max=%d, save=%d, %.3fms/frame%s",
+                sceneName, passed() ? "OK" : "FALLO", frames, avgDrawCalls, maxDrawCalls,
+                avgAllocations, maxAllocations, maxSaveDepth, avgFrameMs,
+                passed() ? "" : " " + violations);
+        }
+    }
+
+    private static class Entry {
+        final Scene scene;
+        final Budget budget;
+
+        Entry(Scene scene, Budget budget) {
+            this.scene = scene;
+            this.budget = budget;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final RecordingCanvas canvas;
+    private int warmupFrames = DEFAULT_WARMUP_FRAMES;
+    private int measuredFrames = DEFAULT_MEASURED_FRAMES;
+
+    public RenderBenchmark(int width, int height) {
+        this.canvas = new RecordingCanvas(width, height);
+    }
+
+    public void addScene(Scene scene, Budget budget) {
+        entries.add(new Entry(scene, budget));
+    }
+
+    public void setFrameCounts(int warmupFrames, int measuredFrames) {
+        this.warmupFrames = Math.max(0, warmupFrames);
+        this.measuredFrames = Math.max(1, measuredFrames);
+    }
+
+    /**
+     * Ejecuta una escena; los frames de calentamiento no cuentan (caches, pools, atlas)
+     */
+    public Result run(Scene scene, Budget budget) {
+        scene.setUp();
+        canvas.resetTracking();
+
+        for (int frame = 0; frame < warmupFrames; frame++) {
+            canvas.beginFrame();
+            scene.renderFrame(canvas, frame);
+            canvas.endFrame();
+        }
+
+        long totalDraws = 0;
+        long totalAllocations = 0;
+        long totalNanos = 0;
+        int maxDraws = 0;
+        int maxAllocations = 0;
+        int maxSaveDepth = 0;
+        int unbalancedFrames = 0;
+
+        for (int i = 0; i < measuredFrames; i++) {
+            int frame = warmupFrames + i;
+            canvas.beginFrame();
+            long start = System.nanoTime();
+            scene.renderFrame(canvas, frame);
+            totalNanos += System.nanoTime() - start;
+
+            int draws = canvas.getDrawCalls();
+            int allocations = canvas.getAllocations();
+            totalDraws += draws;
+            totalAllocations += allocations;
+            maxDraws = Math.max(maxDraws, draws);
+            maxAllocations = Math.max(maxAllocations, allocations);
+            maxSaveDepth = Math.max(maxSaveDepth, canvas.getMaxSaveDepth());
+            if (canvas.getUnbalancedSaves() != 0) {
+                unbalancedFrames++;
+            }
+            canvas.endFrame();
+        }
+
+        Result result = new Result(scene.getName(), measuredFrames,
+                                   (float) totalDraws / measuredFrames, maxDraws,
+                                   (float) totalAllocations / measuredFrames, maxAllocations,
+                                   maxSaveDepth, unbalancedFrames,
+                                   totalNanos / 1_000_000f / measuredFrames);
+        checkBudget(result, budget);
+        return result;
+    }
+
+    private static void checkBudget(Result result, Budget budget) {
+        if (budget == null) {
+            return;
+        }
+        if (result.maxDrawCalls > budget.maxDrawCalls) {
+            result.violations.add("draw calls " + result.maxDrawCalls + " > " + budget.maxDrawCalls);
+        }
+        if (result.avgAllocations > budget.maxAllocationsPerFrame) {
+            result.violations.add(String.format(Locale.US, "objetos/frame %.1f > %.1f",
+                                                result.avgAllocations, budget.maxAllocationsPerFrame));
+        }
+        if (result.maxSaveDepth > budget.maxSaveDepth) {
+            result.violations.add("save depth " + result.maxSaveDepth + " > " + budget.maxSaveDepth);
+        }
+        if (result.unbalancedSaveFrames > 0) {
+            result.violations.add(result.unbalancedSaveFrames + " frames con save() sin restore()");
+        }
+    }
+
+    /**
+     * Ejecuta todas las escenas registradas
+     */
+    public List<Result> runAll() {
+        List<Result> results = new ArrayList<>();
+        for (Entry entry : entries) {
+            results.add(run(entry.scene, entry.budget));
+        }
+        return results;
+    }
+
+    /**
+     * Ejecuta todas las escenas, imprime los resultados y devuelve si todas pasaron
+     * (salida estándar para que se vea igual en la JVM y en el dispositivo)
+     */
+    public boolean runAllAndReport() {
+        boolean passed = true;
+        for (Result result : runAll()) {
+            if (result.passed()) {
+                System.out.println(result);
+            } else {
+                System.err.println(result);
+                passed = false;
+            }
+        }
+        return passed;
+    }
+
+    // === ESCENAS PREDEFINIDAS ===
+
+    /**
+     * Explosiones y chispas periódicas con el perfil de partículas alto
+     */
+    public static class ParticleBurstScene implements Scene {
+        private ParticleSystem particles;
+        private final Random random = new Random(42);
+
+        @Override
+        public String getName() {
+            return "particulas-explosiones";
+        }
+
+        @Override
+        public void setUp() {
+            particles = new ParticleSystem(ParticleSystem.DetailProfile.HIGH);
+            random.setSeed(42);
+        }
+
+        @Override
+        public void renderFrame(Canvas canvas, int frameIndex) {
+            if (frameIndex % 10 == 0) {
+                float x = random.nextFloat() * canvas.getWidth();
+                float y = random.nextFloat() * canvas.getHeight();
+                particles.createExplosion(x, y, 1.0f, null);
+                particles.createSparks(x, y, 20, null);
+                particles.createSmoke(x, y, 8, null);
+            }
+            particles.update(FRAME_DELTA);
+            particles.render(canvas);
+        }
+    }
+
+    /**
+     * Cámara desplazándose sobre el fondo con todas las capas de parallax
+     */
+    public static class BackgroundPanScene implements Scene {
+        private final int width;
+        private final int height;
+        private final RectF viewBounds = new RectF();
+        private BackgroundRenderer background;
+
+        public BackgroundPanScene(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public String getName() {
+            return "fondo-desplazamiento";
+        }
+
+        @Override
+        public void setUp() {
+            background = new BackgroundRenderer();
+        }
+
+        @Override
+        public void renderFrame(Canvas canvas, int frameIndex) {
+            float cameraX = frameIndex * 4f;
+            float cameraY = (float) Math.sin(frameIndex * 0.02) * 300f;
+            viewBounds.set(cameraX - width / 2f, cameraY - height / 2f,
+                           cameraX + width / 2f, cameraY + height / 2f);
+            background.update(FRAME_DELTA, cameraX, cameraY, viewBounds);
+            background.render(canvas, cameraX, cameraY, viewBounds);
+        }
+    }
+
+    /**
+     * Pelea con muchos efectos: auras, glows y sombras a la vez
+     */
+    public static class EffectsFightScene implements Scene {
+        private static final int COMBATANTS = 24;
+        private final int width;
+        private final int height;
+        private final float[] positions = new float[COMBATANTS * 2];
+        private final int[] colors = new int[COMBATANTS];
+        private VisualEffects effects;
+
+        public EffectsFightScene(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public String getName() {
+            return "efectos-pelea";
+        }
+
+        @Override
+        public void setUp() {
+            effects = new VisualEffects(width, height);
+            Random random = new Random(7);
+            for (int i = 0; i < positions.length; i += 2) {
+                positions[i] = random.nextFloat() * width;
+                positions[i + 1] = random.nextFloat() * height;
+            }
+            float[] hsv = {0f, 0.8f, 1f};
+            for (int i = 0; i < COMBATANTS; i++) {
+                hsv[0] = (i * 37) % 360;
+                colors[i] = Color.HSVToColor(hsv);
+            }
+        }
+
+        @Override
+        public void renderFrame(Canvas canvas, int frameIndex) {
+            for (int i = 0; i < COMBATANTS; i++) {
+                float x = positions[i * 2];
+                float y = positions[i * 2 + 1];
+                float radius = 20f + (i % 6) * 12f;
+                effects.drawRealisticShadow(canvas, x, y, radius * 2, radius, 45f, 10f, 0.5f);
+                effects.renderAura(canvas, x, y, radius * 1.4f, colors[i], 1f, 1f);
+            }
+            effects.render(canvas, FRAME_DELTA * 1000f);
+        }
+    }
+}
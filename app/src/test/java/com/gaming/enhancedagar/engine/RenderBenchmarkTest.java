@@ -0,0 +1,41 @@
+package com.gaming.enhancedagar.engine;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Presupuestos de render por escena en la JVM, sin dispositivo. Los techos salen de medir
+ * cada escena (300 frames) y dejan un margen pequeño para la aleatoriedad de estrellas y
+ * partículas; al optimizar una ruta de render hay que bajarlos para fijar la mejora.
+ * Las escenas que dibujan desde sprites o el atlas de glifos necesitan Bitmaps reales y se
+ * miden en RenderBenchmarkDeviceTest
+ */
+public class RenderBenchmarkTest {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+
+    @Test
+    public void particleBurstWithinBudget() {
+        // Medido: ~510 llamadas (máx. ~610) y ~101 objetos por frame; render() crea un Paint
+        // por frame y las partículas con forma crean un Path cada una
+        assertWithinBudget(new RenderBenchmark.ParticleBurstScene(),
+                           new RenderBenchmark.Budget(650, 110f, 1));
+    }
+
+    @Test
+    public void backgroundPanWithinBudget() {
+        // Medido: ~365 llamadas (máx. ~371) y ~361 objetos por frame; cada patrón crea su
+        // Paint en cada frame y los hexágonos un Path cada uno
+        assertWithinBudget(new RenderBenchmark.BackgroundPanScene(WIDTH, HEIGHT),
+                           new RenderBenchmark.Budget(400, 375f, 1));
+    }
+
+    private static void assertWithinBudget(RenderBenchmark.Scene scene, RenderBenchmark.Budget budget) {
+        RenderBenchmark benchmark = new RenderBenchmark(WIDTH, HEIGHT);
+        RenderBenchmark.Result result = benchmark.run(scene, budget);
+        System.out.println(result);
+        assertTrue(result.toString(), result.passed());
+    }
+}
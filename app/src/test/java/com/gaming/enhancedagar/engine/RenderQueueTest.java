@@ -0,0 +1,56 @@
+package com.gaming.enhancedagar.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Orden de las claves de la cola: capa, z y solo después paint
+ */
+public class RenderQueueTest {
+
+    @Test
+    public void overlappingCommandsKeepZOrderAcrossPaints() {
+        // La célula de delante usa el paint registrado primero (id menor)
+        long front = RenderQueue.sortKey(1, 0, 2f, 0);
+        long back = RenderQueue.sortKey(1, 1, 1f, 1);
+        long[] keys = {front, back};
+        Arrays.sort(keys);
+
+        assertEquals(1, RenderQueue.indexOf(keys[0]));
+        assertEquals(0, RenderQueue.indexOf(keys[1]));
+        assertEquals(1, RenderQueue.paintIdOf(keys[0]));
+        assertEquals(0, RenderQueue.paintIdOf(keys[1]));
+    }
+
+    @Test
+    public void layerThenZThenPaintThenInsertion() {
+        long[] keys = {
+            RenderQueue.sortKey(2, 0, -5f, 0),
+            RenderQueue.sortKey(1, 3, 0.5f, 1),
+            RenderQueue.sortKey(1, 2, 0.5f, 2),
+            RenderQueue.sortKey(1, 2, 0.5f, 3),
+            RenderQueue.sortKey(1, 7, -1f, 4),
+            RenderQueue.sortKey(0, 9, 100f, 5)
+        };
+        Arrays.sort(keys);
+
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = RenderQueue.indexOf(keys[i]);
+        }
+        assertEquals(Arrays.toString(new int[] {5, 4, 2, 3, 1, 0}), Arrays.toString(order));
+    }
+
+    @Test
+    public void zOrderIsMonotonicForNegativeAndPositiveValues() {
+        float[] zs = {-1000f, -1f, -0.25f, 0f, 0.25f, 1f, 1000f};
+        for (int i = 1; i < zs.length; i++) {
+            // Paint máximo en la anterior y mínimo en la siguiente: decide la z
+            assertTrue(RenderQueue.sortKey(1, 0x1FFF, zs[i - 1], 0xFFFF) < RenderQueue.sortKey(1, 0, zs[i], 0));
+        }
+    }
+}
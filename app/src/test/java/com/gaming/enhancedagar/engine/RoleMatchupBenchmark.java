@@ -0,0 +1,162 @@
+package com.gaming.enhancedagar.engine;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Microbanco de las consultas de enfrentamiento entre roles
+ * Compara la consulta original (clave de texto concatenada sobre HashMap y conjuntos de
+ * ventajas) con las tablas densas de RoleSystem, por enum y por ordinal, sobre la misma
+ * secuencia de combates. Las sumas de control deben coincidir: las tres rutas son equivalentes.
+ * Se ejecuta en la JVM desde RoleMatchupBenchmarkTest, solo si se pide (RUN_BENCHMARKS=true)
+ */
+public class RoleMatchupBenchmark {
+    public static final int DEFAULT_PAIRS = 4096;
+    public static final int DEFAULT_WARMUP_ROUNDS = 50;
+    public static final int DEFAULT_MEASURED_ROUNDS = 500;
+
+    /**
+     * Tiempos medios por combate de cada ruta
+     */
+    public static class Result {
+        public final double mapNanosPerOp;
+        public final double matrixNanosPerOp;
+        public final double ordinalNanosPerOp;
+        public final boolean checksumsMatch;
+
+        Result(double mapNanosPerOp, double matrixNanosPerOp, double ordinalNanosPerOp, boolean checksumsMatch) {
+            this.mapNanosPerOp = mapNanosPerOp;
+            this.matrixNanosPerOp = matrixNanosPerOp;
+            this.ordinalNanosPerOp = ordinalNanosPerOp;
+            this.checksumsMatch = checksumsMatch;
+        }
+
+        public double getSpeedup() {
+            return matrixNanosPerOp > 0 ? mapNanosPerOp / matrixNanosPerOp : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                "mapa %.1f ns/op, tabla %.1f ns/op, ordinal %.1f ns/op (x%.1f)%s",
+                mapNanosPerOp, matrixNanosPerOp, ordinalNanosPerOp, getSpeedup(),
+                checksumsMatch ? "" : " [SUMAS DISTINTAS]");
+        }
+    }
+
+    private final RoleSystem.RoleType[] attackers;
+    private final RoleSystem.RoleType[] defenders;
+    private final int[] attackerOrdinals;
+    private final int[] defenderOrdinals;
+    private final double[] baseDamages;
+    private int warmupRounds = DEFAULT_WARMUP_ROUNDS;
+    private int measuredRounds = DEFAULT_MEASURED_ROUNDS;
+
+    // Evita que el compilador JIT descarte los bucles medidos
+    private volatile double sink;
+
+    public RoleMatchupBenchmark() {
+        this(DEFAULT_PAIRS, 42L);
+    }
+
+    public RoleMatchupBenchmark(int pairs, long seed) {
+        RoleSystem.RoleType[] roles = RoleSystem.RoleType.values();
+        Random random = new Random(seed);
+        attackers = new RoleSystem.RoleType[pairs];
+        defenders = new RoleSystem.RoleType[pairs];
+        attackerOrdinals = new int[pairs];
+        defenderOrdinals = new int[pairs];
+        baseDamages = new double[pairs];
+        for (int i = 0; i < pairs; i++) {
+            attackers[i] = roles[random.nextInt(roles.length)];
+            defenders[i] = roles[random.nextInt(roles.length)];
+            attackerOrdinals[i] = attackers[i].ordinal();
+            defenderOrdinals[i] = defenders[i].ordinal();
+            baseDamages[i] = 10 + random.nextInt(90);
+        }
+    }
+
+    public void setRounds(int warmupRounds, int measuredRounds) {
+        this.warmupRounds = Math.max(0, warmupRounds);
+        this.measuredRounds = Math.max(1, measuredRounds);
+    }
+
+    public Result run() {
+        for (int round = 0; round < warmupRounds; round++) {
+            sink = runMapRound() + runMatrixRound() + runOrdinalRound();
+        }
+
+        double mapSum = 0, matrixSum = 0, ordinalSum = 0;
+        long mapNanos = 0, matrixNanos = 0, ordinalNanos = 0;
+        for (int round = 0; round < measuredRounds; round++) {
+            long start = System.nanoTime();
+            mapSum += runMapRound();
+            long afterMap = System.nanoTime();
+            matrixSum += runMatrixRound();
+            long afterMatrix = System.nanoTime();
+            ordinalSum += runOrdinalRound();
+            long afterOrdinal = System.nanoTime();
+
+            mapNanos += afterMap - start;
+            matrixNanos += afterMatrix - afterMap;
+            ordinalNanos += afterOrdinal - afterMatrix;
+        }
+        sink = mapSum + matrixSum + ordinalSum;
+
+        double operations = (double) measuredRounds * attackers.length;
+        return new Result(mapNanos / operations, matrixNanos / operations, ordinalNanos / operations,
+                          mapSum == matrixSum && matrixSum == ordinalSum);
+    }
+
+    /**
+     * Ejecuta y escribe el resultado en la salida estándar
+     * @return false si las rutas no dan el mismo resultado
+     */
+    public boolean runAndReport() {
+        Result result = run();
+        if (result.checksumsMatch) {
+            System.out.println(result);
+        } else {
+            System.err.println(result);
+        }
+        return result.checksumsMatch;
+    }
+
+    // === RUTAS MEDIDAS (daño final más bonus de ventaja) ===
+
+    private double runMapRound() {
+        double total = 0;
+        for (int i = 0; i < attackers.length; i++) {
+            double damage = baseDamages[i] * RoleSystem.lookupDamageModifier(attackers[i], defenders[i]);
+            if (RoleSystem.lookupAdvantage(attackers[i], defenders[i])) {
+                damage += 1;
+            }
+            total += damage;
+        }
+        return total;
+    }
+
+    private double runMatrixRound() {
+        double total = 0;
+        for (int i = 0; i < attackers.length; i++) {
+            double damage = RoleSystem.calculateFinalDamage(attackers[i], defenders[i], baseDamages[i]);
+            if (RoleSystem.hasAdvantage(attackers[i], defenders[i])) {
+                damage += 1;
+            }
+            total += damage;
+        }
+        return total;
+    }
+
+    private double runOrdinalRound() {
+        double total = 0;
+        for (int i = 0; i < attackers.length; i++) {
+            double damage = RoleSystem.calculateFinalDamage(attackerOrdinals[i], defenderOrdinals[i], baseDamages[i]);
+            if (RoleSystem.hasAdvantage(attackers[i], defenders[i])) {
+                damage += 1;
+            }
+            total += damage;
+        }
+        return total;
+    }
+}
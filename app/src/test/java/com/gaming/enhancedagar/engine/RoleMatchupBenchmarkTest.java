@@ -0,0 +1,22 @@
+package com.gaming.enhancedagar.engine;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+/**
+ * Microbanco de enfrentamientos, opcional porque tarda y sus tiempos dependen de la máquina.
+ * Se activa con la variable de entorno RUN_BENCHMARKS=true (p. ej. RUN_BENCHMARKS=true
+ * ./gradlew testDebugUnitTest --tests '*RoleMatchupBenchmarkTest'); los tiempos salen por la
+ * salida estándar y solo se exige que las tres rutas sumen lo mismo
+ */
+public class RoleMatchupBenchmarkTest {
+
+    @Test
+    public void matchupRoutesAgreeUnderLoad() {
+        assumeTrue("RUN_BENCHMARKS=true para ejecutar el microbanco",
+                   Boolean.parseBoolean(System.getenv("RUN_BENCHMARKS")));
+        assertTrue(new RoleMatchupBenchmark().runAndReport());
+    }
+}
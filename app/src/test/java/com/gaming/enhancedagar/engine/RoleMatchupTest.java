@@ -0,0 +1,66 @@
+package com.gaming.enhancedagar.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+/**
+ * Las tablas densas de RoleSystem, por enum y por ordinal, frente a la consulta original
+ * (clave de texto concatenada sobre HashMap y conjuntos de ventajas y desventajas),
+ * comprobadas para todos los pares de roles
+ */
+public class RoleMatchupTest {
+
+    @Test
+    public void damageModifierMatchesOriginalLookup() {
+        for (RoleSystem.RoleType attacker : RoleSystem.RoleType.values()) {
+            for (RoleSystem.RoleType defender : RoleSystem.RoleType.values()) {
+                String pair = attacker + " contra " + defender;
+                double expected = RoleSystem.lookupDamageModifier(attacker, defender);
+                assertEquals(pair, expected, RoleSystem.getDamageModifier(attacker, defender), 0.0);
+                assertEquals(pair, 50 * expected,
+                             RoleSystem.calculateFinalDamage(attacker, defender, 50), 0.0);
+                assertEquals(pair, 50 * expected,
+                             RoleSystem.calculateFinalDamage(attacker.ordinal(), defender.ordinal(), 50), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void advantageMatchesOriginalSets() {
+        for (RoleSystem.RoleType attacker : RoleSystem.RoleType.values()) {
+            for (RoleSystem.RoleType defender : RoleSystem.RoleType.values()) {
+                assertEquals(attacker + " contra " + defender,
+                             RoleSystem.lookupAdvantage(attacker, defender),
+                             RoleSystem.hasAdvantage(attacker, defender));
+            }
+        }
+    }
+
+    @Test
+    public void disadvantageMatchesOriginalSets() {
+        for (RoleSystem.RoleType attacker : RoleSystem.RoleType.values()) {
+            for (RoleSystem.RoleType defender : RoleSystem.RoleType.values()) {
+                assertEquals(attacker + " contra " + defender,
+                             RoleSystem.lookupDisadvantage(attacker, defender),
+                             RoleSystem.hasDisadvantage(attacker, defender));
+            }
+        }
+    }
+
+    @Test
+    public void matchupMatchesOriginalSets() {
+        for (RoleSystem.RoleType attacker : RoleSystem.RoleType.values()) {
+            for (RoleSystem.RoleType defender : RoleSystem.RoleType.values()) {
+                String pair = attacker + " contra " + defender;
+                boolean advantage = RoleSystem.lookupAdvantage(attacker, defender);
+                boolean disadvantage = RoleSystem.lookupDisadvantage(attacker, defender);
+                // La tabla guarda un solo valor por par: los conjuntos no pueden solaparse
+                assertFalse(pair, advantage && disadvantage);
+                int expected = advantage ? 1 : disadvantage ? -1 : 0;
+                assertEquals(pair, expected, RoleSystem.getMatchup(attacker, defender));
+            }
+        }
+    }
+}
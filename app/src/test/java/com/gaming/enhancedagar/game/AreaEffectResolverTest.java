@@ -0,0 +1,157 @@
+package com.gaming.enhancedagar.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Canvas;
+
+import com.gaming.enhancedagar.entities.Entity;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Contacto círculo-cono frente a una comprobación geométrica directa, crecimiento del
+ * buffer de consulta y filtrado de aliados para las curaciones
+ */
+public class AreaEffectResolverTest {
+
+    @Test
+    public void coneTouchesTargetsOnlyReachingItByRadius() {
+        float halfAngle = (float) Math.toRadians(30);
+        // Centro a 40 grados del eje: queda fuera, pero un radio de 10 a distancia 50 lo mete
+        float angle = (float) Math.toRadians(40);
+        float dx = 50f * (float) Math.cos(angle);
+        float dy = 50f * (float) Math.sin(angle);
+        assertTrue(touches(dx, dy, 10f, 1f, 0f, halfAngle));
+        assertFalse(touches(dx, dy, 5f, 1f, 0f, halfAngle));
+
+        // Detrás del vértice no hay contacto; con semiapertura más beta >= PI siempre lo hay
+        assertFalse(touches(-50f, 0f, 10f, 1f, 0f, halfAngle));
+        assertTrue(touches(-50f, 0f, 10f, 1f, 0f, (float) Math.toRadians(170)));
+    }
+
+    @Test
+    public void coneMatchesDirectGeometry() {
+        Random random = new Random(7);
+        int compared = 0;
+        for (int i = 0; i < 20000; i++) {
+            float distance = 1f + random.nextFloat() * 200f;
+            float targetRadius = random.nextFloat() * distance * 0.95f;
+            double centerAngle = random.nextDouble() * Math.PI * 2;
+            float dx = distance * (float) Math.cos(centerAngle);
+            float dy = distance * (float) Math.sin(centerAngle);
+            double axisAngle = random.nextDouble() * Math.PI * 2;
+            float axisX = (float) Math.cos(axisAngle);
+            float axisY = (float) Math.sin(axisAngle);
+            float halfAngle = 0.05f + random.nextFloat() * 3f;
+
+            // Dentro si el centro cae en la apertura o algún borde del cono pasa a menos del radio
+            double offAxis = Math.abs(Math.atan2(dx * axisY - dy * axisX, dx * axisX + dy * axisY));
+            double edgeGap = Math.min(distanceToRay(dx, dy, axisAngle + halfAngle),
+                                      distanceToRay(dx, dy, axisAngle - halfAngle));
+            double margin = Math.max(halfAngle - offAxis, (targetRadius - edgeGap) / distance);
+            // Se omiten los casi-tangentes que el redondeo en float puede decidir a cualquier lado
+            if (Math.abs(margin) < 1e-3) continue;
+
+            assertEquals("caso " + i, margin > 0, touches(dx, dy, targetRadius, axisX, axisY, halfAngle));
+            compared++;
+        }
+        assertTrue(compared > 19000);
+    }
+
+    @Test
+    public void queryBufferGrowsUntilAllCandidatesFit() {
+        SpatialGrid grid = new SpatialGrid();
+        int items = 100;
+        for (int i = 0; i < items; i++) {
+            grid.insert("item" + i, i, SpatialGrid.CATEGORY_BOT, i % 10, i / 10, 1f);
+        }
+        AreaEffectResolver resolver = new AreaEffectResolver(grid);
+
+        assertEquals(items, resolver.query(5f, 5f, 50f, SpatialGrid.MASK_ALL));
+        assertTrue(resolver.getQueryBuffer().length > items);
+        Set<Integer> handles = new HashSet<>();
+        for (int i = 0; i < items; i++) {
+            handles.add(resolver.getQueryBuffer()[i]);
+        }
+        assertEquals(items, handles.size());
+
+        // La rejilla compartida guarda elementos de otros sistemas: no son objetivos
+        assertEquals(0, resolver.resolveCircle(5f, 5f, 50f, SpatialGrid.MASK_ALL, null));
+        assertEquals(AreaEffectResolver.NO_TARGET, resolver.getNearestIndex());
+        assertEquals(0, resolver.query(5f, 5f, 50f, 1 << SpatialGrid.CATEGORY_FOOD));
+    }
+
+    @Test
+    public void nullGridFallsBackToEmptyGrid() {
+        AreaEffectResolver resolver = new AreaEffectResolver(new SpatialGrid());
+        resolver.setSpatialGrid(null);
+        assertNotNull(resolver.getSpatialGrid());
+        assertEquals(0, resolver.resolveCone(0f, 0f, 1f, 0f, 0.5f, 100f, SpatialGrid.MASK_ALL, null));
+    }
+
+    @Test
+    public void allyFilterSkipsEnemiesInsideRadius() {
+        TeamSystem.Team red = new TeamSystem.Team(1, "Rojo", 0xFFFF0000);
+        TeamSystem.Team blue = new TeamSystem.Team(2, "Azul", 0xFF0000FF);
+        Map<Entity, TeamSystem.TeamPlayer> members = new HashMap<>();
+        SpatialGrid grid = new SpatialGrid();
+        Entity caster = teamMember(grid, members, red, 0f, 0f);
+        Entity ally = teamMember(grid, members, red, 20f, 0f);
+        Entity enemy = teamMember(grid, members, blue, 0f, 10f);
+        Entity loner = teamMember(grid, members, null, -10f, 0f);
+        AreaEffectResolver resolver = new AreaEffectResolver(grid);
+        int players = 1 << SpatialGrid.CATEGORY_PLAYER;
+
+        // Sin filtro todos los jugadores del radio son objetivo
+        assertEquals(3, resolver.resolveCircle(0f, 0f, 50f, players, caster));
+
+        // Mismo predicado que usa el motor: el enemigo, aun más cerca, no recibe la curación
+        AreaEffectResolver.TargetFilter allies = (source, target) ->
+                TeamSystem.areTeammates(members.get(source), members.get(target));
+        assertEquals(1, resolver.resolveCircle(0f, 0f, 50f, players, caster, allies));
+        assertSame(ally, resolver.getTarget(0));
+        assertEquals(0, resolver.getNearestIndex());
+        assertFalse(allies.accept(caster, enemy));
+        assertFalse(allies.accept(caster, loner));
+    }
+
+    private static Entity teamMember(SpatialGrid grid, Map<Entity, TeamSystem.TeamPlayer> members,
+                                     TeamSystem.Team team, float x, float y) {
+        Entity entity = new Entity(x, y, 4f, 4f) {
+            @Override public void update(float deltaTime) {}
+            @Override public void draw(Canvas canvas) {}
+        };
+        TeamSystem.TeamPlayer member = new TeamSystem.TeamPlayer((int) entity.getId(), "p" + entity.getId());
+        if (team != null) {
+            team.addPlayer(member);
+        }
+        members.put(entity, member);
+        grid.insert(entity, (int) entity.getId(), SpatialGrid.CATEGORY_PLAYER, x, y, 2f);
+        return entity;
+    }
+
+    private static boolean touches(float dx, float dy, float targetRadius, float axisX, float axisY,
+                                   float halfAngle) {
+        float distance = (float) Math.sqrt(dx * dx + dy * dy);
+        return AreaEffectResolver.touchesCone(dx, dy, distance, targetRadius, axisX, axisY,
+                                              (float) Math.cos(halfAngle), (float) Math.sin(halfAngle),
+                                              halfAngle);
+    }
+
+    private static double distanceToRay(double x, double y, double rayAngle) {
+        double ux = Math.cos(rayAngle);
+        double uy = Math.sin(rayAngle);
+        double t = Math.max(0, x * ux + y * uy);
+        return Math.hypot(x - t * ux, y - t * uy);
+    }
+}
@@ -0,0 +1,148 @@
+package com.gaming.enhancedagar.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Contadores incrementales de la rejilla frente a un recuento completo de las posiciones
+ */
+public class DensityGridTest {
+
+    private static final int RESOLUTION = 16;
+
+    @Test
+    public void incrementalCountsMatchFullRecount() {
+        DensityGrid grid = new DensityGrid(-100f, 50f, 1600f, 800f, RESOLUTION);
+        Random random = new Random(31);
+        int entities = 300;
+        int[] categories = new int[entities];
+        float[] xs = new float[entities];
+        float[] ys = new float[entities];
+        int[] cells = new int[entities];
+        boolean[] alive = new boolean[entities];
+
+        for (int i = 0; i < entities; i++) {
+            categories[i] = random.nextInt(DensityGrid.CATEGORY_COUNT);
+            xs[i] = -100f + random.nextFloat() * 1600f;
+            ys[i] = 50f + random.nextFloat() * 800f;
+            cells[i] = grid.add(categories[i], xs[i], ys[i]);
+            alive[i] = true;
+        }
+
+        for (int step = 0; step < 5000; step++) {
+            int i = random.nextInt(entities);
+            if (!alive[i]) {
+                cells[i] = grid.add(categories[i], xs[i], ys[i]);
+                alive[i] = true;
+            } else if (random.nextInt(10) == 0) {
+                grid.remove(categories[i], cells[i]);
+                alive[i] = false;
+            } else {
+                // Puede salir del mundo: la celda se limita al borde
+                xs[i] += random.nextFloat() * 120f - 60f;
+                ys[i] += random.nextFloat() * 120f - 60f;
+                cells[i] = grid.move(categories[i], cells[i], xs[i], ys[i]);
+            }
+        }
+
+        int[][] expected = new int[DensityGrid.CATEGORY_COUNT][RESOLUTION * RESOLUTION];
+        int[] totals = new int[DensityGrid.CATEGORY_COUNT];
+        for (int i = 0; i < entities; i++) {
+            if (!alive[i]) continue;
+            int cell = grid.cellIndex(xs[i], ys[i]);
+            assertEquals(cell, cells[i]);
+            expected[categories[i]][cell]++;
+            totals[categories[i]]++;
+        }
+        for (int category = 0; category < DensityGrid.CATEGORY_COUNT; category++) {
+            assertEquals(totals[category], grid.getTotal(category));
+            for (int cell = 0; cell < RESOLUTION * RESOLUTION; cell++) {
+                assertEquals(expected[category][cell], grid.getCount(category, cell));
+            }
+            assertEquals(totals[category], grid.sumCells(category, 0, 0, RESOLUTION - 1, RESOLUTION - 1));
+        }
+    }
+
+    @Test
+    public void cellsClampToBordersAndSumRanges() {
+        DensityGrid grid = new DensityGrid(0f, 0f, 1000f, 1000f, 10);
+        assertEquals(0, grid.cellIndex(-50f, -50f));
+        assertEquals(99, grid.cellIndex(5000f, 5000f));
+        assertEquals(9, grid.columnOf(1000f));
+        assertEquals(3, grid.rowOf(350f));
+
+        grid.add(DensityGrid.CATEGORY_FOOD, 50f, 50f);
+        grid.add(DensityGrid.CATEGORY_FOOD, 150f, 50f);
+        grid.add(DensityGrid.CATEGORY_FOOD, 950f, 950f);
+        grid.add(DensityGrid.CATEGORY_BOT, 150f, 50f);
+
+        assertEquals(2, grid.sumCells(DensityGrid.CATEGORY_FOOD, 0, 0, 1, 0));
+        assertEquals(1, grid.sumCells(DensityGrid.CATEGORY_BOT, 0, 0, 9, 9));
+        assertEquals(0, grid.sumCells(DensityGrid.CATEGORY_PLAYER, 0, 0, 9, 9));
+    }
+
+    @Test
+    public void removeIgnoresUnregisteredAndBoundsResetCounts() {
+        DensityGrid grid = new DensityGrid(0f, 0f, 1000f, 1000f, 10);
+        int cell = grid.add(DensityGrid.CATEGORY_PLAYER, 500f, 500f);
+        int version = grid.getVersion();
+
+        grid.remove(DensityGrid.CATEGORY_PLAYER, -1);
+        grid.remove(DensityGrid.CATEGORY_FOOD, cell);
+        assertEquals(version, grid.getVersion());
+        assertEquals(1, grid.getTotal(DensityGrid.CATEGORY_PLAYER));
+
+        // Sin cambio de celda no hay cambio de versión
+        assertEquals(cell, grid.move(DensityGrid.CATEGORY_PLAYER, cell, 510f, 510f));
+        assertEquals(version, grid.getVersion());
+
+        grid.setWorldBounds(0f, 0f, 2000f, 2000f);
+        assertEquals(0, grid.getTotal(DensityGrid.CATEGORY_PLAYER));
+        assertEquals(200f, grid.getCellWidth(), 0f);
+        assertTrue(grid.getVersion() > version);
+    }
+
+    @Test
+    public void snapshotsFollowIntervalAndSkipBuffersInUse() {
+        DensityGrid grid = new DensityGrid(0f, 0f, 1000f, 1000f, 10);
+        grid.setSnapshotInterval(100);
+        assertNull(grid.getPublishedSnapshot());
+
+        int cell = grid.add(DensityGrid.CATEGORY_BOT, 150f, 250f);
+        assertTrue(grid.publishSnapshot(0));
+        DensityGrid.Snapshot first = grid.getPublishedSnapshot();
+        assertEquals(1, first.getCounts(DensityGrid.CATEGORY_BOT)[cell]);
+        assertEquals(grid.getVersion(), first.getVersion());
+        assertEquals(1000f, first.getWorldWidth(), 0f);
+
+        // Los cambios posteriores no tocan la instantánea publicada
+        grid.add(DensityGrid.CATEGORY_BOT, 150f, 250f);
+        assertEquals(1, first.getCounts(DensityGrid.CATEGORY_BOT)[cell]);
+        assertFalse(grid.publishSnapshot(50));
+
+        assertTrue(grid.publishSnapshot(100));
+        DensityGrid.Snapshot second = grid.getPublishedSnapshot();
+        assertNotSame(first, second);
+        assertEquals(2, second.getCounts(DensityGrid.CATEGORY_BOT)[cell]);
+
+        // Sin cambios no se copia; con un lector en el buffer libre se espera a que lo suelte
+        assertFalse(grid.publishSnapshot(300));
+        grid.add(DensityGrid.CATEGORY_FOOD, 10f, 10f);
+        assertTrue(first.acquire());
+        assertFalse(grid.publishSnapshot(300));
+        assertSame(second, grid.getPublishedSnapshot());
+        assertEquals(1, first.getCounts(DensityGrid.CATEGORY_BOT)[cell]);
+        first.release();
+        assertTrue(grid.publishSnapshot(301));
+        assertSame(first, grid.getPublishedSnapshot());
+        assertEquals(1, first.getCounts(DensityGrid.CATEGORY_FOOD)[0]);
+    }
+}
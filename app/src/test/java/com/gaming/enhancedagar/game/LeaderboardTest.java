@@ -0,0 +1,138 @@
+package com.gaming.enhancedagar.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Rango, selección por rango y actualización de la skip list frente a una lista ordenada
+ * (mayor puntuación primero y, a igualdad, quien la alcanzó antes)
+ */
+public class LeaderboardTest {
+
+    private static final class Entry {
+        final int key;
+        double score;
+        long order;
+
+        Entry(int key) {
+            this.key = key;
+        }
+    }
+
+    @Test
+    public void matchesSortedListUnderRandomUpdates() {
+        Random random = new Random(7);
+        Leaderboard<Integer> leaderboard = new Leaderboard<>();
+        List<Entry> reference = new ArrayList<>();
+        long order = 0;
+
+        for (int step = 0; step < 3000; step++) {
+            int key = random.nextInt(200);
+            Entry entry = find(reference, key);
+            int operation = random.nextInt(10);
+
+            if (operation == 0 && entry != null) {
+                leaderboard.remove(key);
+                reference.remove(entry);
+            } else {
+                // Pocas puntuaciones distintas para forzar empates
+                double score = random.nextInt(50);
+                if (operation < 4 && entry != null) {
+                    score = entry.score + random.nextInt(5);
+                    assertEquals(score, leaderboard.addScore(key, score - entry.score), 0.0);
+                } else {
+                    leaderboard.setScore(key, score);
+                }
+                if (entry == null) {
+                    entry = new Entry(key);
+                    entry.order = order++;
+                    reference.add(entry);
+                } else if (entry.score != score) {
+                    entry.order = order++;
+                }
+                entry.score = score;
+            }
+
+            if (step % 100 == 0) {
+                assertMatches(reference, leaderboard);
+            }
+        }
+        assertMatches(reference, leaderboard);
+    }
+
+    @Test
+    public void equalScoreKeepsEarlierFirst() {
+        Leaderboard<String> leaderboard = new Leaderboard<>();
+        leaderboard.setScore("a", 10);
+        leaderboard.setScore("b", 10);
+        leaderboard.setScore("c", 20);
+
+        assertEquals(1, leaderboard.getRank("c"));
+        assertEquals(2, leaderboard.getRank("a"));
+        assertEquals(3, leaderboard.getRank("b"));
+
+        // Repetir la misma puntuación no cambia el orden de llegada
+        leaderboard.setScore("a", 10);
+        assertEquals(2, leaderboard.getRank("a"));
+    }
+
+    @Test
+    public void missingEntriesAndClear() {
+        Leaderboard<String> leaderboard = new Leaderboard<>();
+        assertEquals(0, leaderboard.getRank("x"));
+        assertNull(leaderboard.getKeyAt(1));
+        assertTrue(Double.isNaN(leaderboard.getScoreAt(1)));
+
+        leaderboard.setScore("x", 5);
+        int version = leaderboard.getVersion();
+        leaderboard.clear();
+
+        assertEquals(0, leaderboard.size());
+        assertFalse(leaderboard.contains("x"));
+        assertTrue(leaderboard.getVersion() > version);
+    }
+
+    @Test
+    public void forEachTopVisitsInRankOrder() {
+        Leaderboard<String> leaderboard = new Leaderboard<>();
+        leaderboard.setScore("a", 1);
+        leaderboard.setScore("b", 3);
+        leaderboard.setScore("c", 2);
+
+        StringBuilder visited = new StringBuilder();
+        leaderboard.forEachTop(2, (rank, key, score) -> visited.append(rank).append(key));
+        assertEquals("1b2c", visited.toString());
+    }
+
+    private static Entry find(List<Entry> entries, int key) {
+        for (Entry entry : entries) {
+            if (entry.key == key) return entry;
+        }
+        return null;
+    }
+
+    private static void assertMatches(List<Entry> reference, Leaderboard<Integer> leaderboard) {
+        List<Entry> sorted = new ArrayList<>(reference);
+        sorted.sort((a, b) -> a.score != b.score ? Double.compare(b.score, a.score)
+                                                 : Long.compare(a.order, b.order));
+
+        assertEquals(sorted.size(), leaderboard.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            Entry entry = sorted.get(i);
+            int rank = i + 1;
+            assertEquals(rank, leaderboard.getRank(entry.key));
+            assertEquals(Integer.valueOf(entry.key), leaderboard.getKeyAt(rank));
+            assertEquals(entry.score, leaderboard.getScoreAt(rank), 0.0);
+            assertEquals(entry.score, leaderboard.getScore(entry.key), 0.0);
+        }
+        assertNull(leaderboard.getKeyAt(sorted.size() + 1));
+    }
+}
@@ -0,0 +1,152 @@
+package com.gaming.enhancedagar.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Consultas de la fase ancha frente a una búsqueda exhaustiva tras altas, bajas y movimientos
+ */
+public class SpatialGridTest {
+
+    private static final class Item {
+        int handle;
+        int category;
+        float x;
+        float y;
+        float radius;
+    }
+
+    @Test
+    public void queriesMatchBruteForce() {
+        Random random = new Random(11);
+        // Pocas cubetas para forzar colisiones de hash entre celdas
+        SpatialGrid grid = new SpatialGrid(64f, 64);
+        List<Item> live = new ArrayList<>();
+        int[] out = new int[1024];
+
+        for (int step = 0; step < 2000; step++) {
+            int operation = random.nextInt(10);
+            if (operation < 4 || live.isEmpty()) {
+                Item item = new Item();
+                item.category = random.nextInt(5);
+                item.x = random.nextFloat() * 2000f - 500f;
+                item.y = random.nextFloat() * 2000f - 500f;
+                item.radius = random.nextFloat() * 40f;
+                item.handle = grid.insert(item, step, item.category, item.x, item.y, item.radius);
+                live.add(item);
+            } else if (operation < 6) {
+                Item item = live.remove(random.nextInt(live.size()));
+                grid.remove(item.handle);
+            } else {
+                Item item = live.get(random.nextInt(live.size()));
+                item.x += random.nextFloat() * 200f - 100f;
+                item.y += random.nextFloat() * 200f - 100f;
+                if (random.nextBoolean()) {
+                    item.radius = random.nextFloat() * 60f;
+                    grid.move(item.handle, item.x, item.y, item.radius);
+                } else {
+                    grid.move(item.handle, item.x, item.y);
+                }
+            }
+
+            if (step % 50 == 0) {
+                assertEquals(live.size(), grid.size());
+                float x = random.nextFloat() * 2000f - 500f;
+                float y = random.nextFloat() * 2000f - 500f;
+                float radius = random.nextFloat() * 150f;
+                int mask = random.nextBoolean() ? SpatialGrid.MASK_ALL : 1 << random.nextInt(5);
+
+                int found = grid.queryCircle(x, y, radius, mask, out);
+                assertSameHandles(expectedCircle(live, x, y, radius, mask), out, found);
+
+                found = grid.queryRect(x, y, x + radius * 2f, y + radius, mask, out);
+                assertSameHandles(expectedRect(live, x, y, x + radius * 2f, y + radius, mask), out, found);
+            }
+        }
+    }
+
+    @Test
+    public void queryStopsAtBufferLength() {
+        SpatialGrid grid = new SpatialGrid();
+        for (int i = 0; i < 10; i++) {
+            grid.insert("item" + i, i, SpatialGrid.CATEGORY_FOOD, i, 0f, 1f);
+        }
+        int[] out = new int[4];
+        assertEquals(4, grid.queryCircle(0f, 0f, 100f, SpatialGrid.MASK_ALL, out));
+    }
+
+    @Test
+    public void removedHandleIsReusedAndAccessorsReflectNewItem() {
+        SpatialGrid grid = new SpatialGrid();
+        int first = grid.insert("a", 1, SpatialGrid.CATEGORY_BOT, 10f, 20f, 5f);
+        int version = grid.getVersion();
+        grid.remove(first);
+        grid.remove(first); // Una segunda baja no hace nada
+        assertEquals(0, grid.size());
+        assertNull(grid.getItem(first));
+
+        int second = grid.insert("b", 2, SpatialGrid.CATEGORY_FOOD, 30f, 40f, 6f);
+        assertEquals(first, second);
+        assertSame("b", grid.getItem(second));
+        assertEquals(2, grid.getTag(second));
+        assertEquals(SpatialGrid.CATEGORY_FOOD, grid.getCategory(second));
+        assertEquals(30f, grid.getX(second), 0f);
+        assertEquals(40f, grid.getY(second), 0f);
+        assertEquals(6f, grid.getRadius(second), 0f);
+        assertEquals(version + 2, grid.getVersion());
+
+        grid.clear();
+        assertEquals(0, grid.size());
+        assertEquals(0, grid.queryCircle(30f, 40f, 10f, SpatialGrid.MASK_ALL, new int[4]));
+    }
+
+    private static int[] expectedCircle(List<Item> live, float x, float y, float radius, int mask) {
+        List<Integer> handles = new ArrayList<>();
+        for (Item item : live) {
+            if ((mask & (1 << item.category)) == 0) continue;
+            float dx = item.x - x;
+            float dy = item.y - y;
+            float limit = radius + item.radius;
+            if (dx * dx + dy * dy <= limit * limit) {
+                handles.add(item.handle);
+            }
+        }
+        return toSortedArray(handles);
+    }
+
+    private static int[] expectedRect(List<Item> live, float left, float top, float right, float bottom, int mask) {
+        List<Integer> handles = new ArrayList<>();
+        for (Item item : live) {
+            if ((mask & (1 << item.category)) == 0) continue;
+            float dx = item.x - Math.max(left, Math.min(right, item.x));
+            float dy = item.y - Math.max(top, Math.min(bottom, item.y));
+            if (dx * dx + dy * dy <= item.radius * item.radius) {
+                handles.add(item.handle);
+            }
+        }
+        return toSortedArray(handles);
+    }
+
+    private static int[] toSortedArray(List<Integer> handles) {
+        int[] result = new int[handles.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = handles.get(i);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static void assertSameHandles(int[] expected, int[] out, int found) {
+        int[] actual = Arrays.copyOf(out, found);
+        Arrays.sort(actual);
+        assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+    }
+}
@@ -0,0 +1,143 @@
+package com.gaming.enhancedagar.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Separación mínima, exclusiones, objetivos por región y reparto de empates del muestreador
+ */
+public class SpawnSamplerTest {
+
+    private static final float WIDTH = 600f;
+    private static final float HEIGHT = 400f;
+    private static final float MIN_DISTANCE = 25f;
+
+    @Test
+    public void samplesKeepMinimumDistanceInsideBounds() {
+        SpawnSampler sampler = new SpawnSampler(100f, 50f, WIDTH, HEIGHT, MIN_DISTANCE, 2, 2, new Random(3));
+        List<float[]> points = fill(sampler, 2000);
+
+        assertEquals(points.size(), sampler.size());
+        assertTrue(points.size() > 100);
+        for (int i = 0; i < points.size(); i++) {
+            float[] a = points.get(i);
+            assertTrue(a[0] >= 100f && a[0] < 100f + WIDTH);
+            assertTrue(a[1] >= 50f && a[1] < 50f + HEIGHT);
+            for (int j = i + 1; j < points.size(); j++) {
+                float[] b = points.get(j);
+                float dx = a[0] - b[0];
+                float dy = a[1] - b[1];
+                assertTrue(dx * dx + dy * dy >= MIN_DISTANCE * MIN_DISTANCE);
+            }
+        }
+    }
+
+    @Test
+    public void exclusionsAreRespected() {
+        SpawnSampler sampler = new SpawnSampler(0f, 0f, WIDTH, HEIGHT, MIN_DISTANCE, 1, 1, new Random(5));
+        sampler.addExclusion(300f, 200f, 120f);
+
+        SpatialGrid grid = new SpatialGrid();
+        grid.insert("big", 0, SpatialGrid.CATEGORY_PLAYER, 80f, 80f, 50f);
+        grid.insert("small", 0, SpatialGrid.CATEGORY_PLAYER, 500f, 300f, 5f);
+        sampler.setExclusionGrid(grid, SpatialGrid.MASK_ALL, 40f, 30f);
+
+        for (float[] point : fill(sampler, 2000)) {
+            assertFalse(distance(point, 300f, 200f) < 120f);
+            // Margen de 30 más el radio de la célula grande
+            assertFalse(distance(point, 80f, 80f) <= 80f);
+        }
+        assertFalse(sampler.canPlace(300f, 200f));
+        assertTrue(sampler.size() > 0);
+    }
+
+    @Test
+    public void regionTargetsCapEachRegion() {
+        SpawnSampler sampler = new SpawnSampler(0f, 0f, WIDTH, HEIGHT, MIN_DISTANCE, 2, 2, new Random(9));
+        sampler.setRegionTargets(20, new float[] {1f, 1f, 2f, 0f});
+
+        fill(sampler, 200);
+
+        assertEquals(5, sampler.getRegionSamples(0));
+        assertEquals(5, sampler.getRegionSamples(1));
+        assertEquals(10, sampler.getRegionSamples(2));
+        assertEquals(0, sampler.getRegionSamples(3));
+        assertEquals(SpawnSampler.NO_SAMPLE, sampler.sample(new float[2]));
+    }
+
+    @Test
+    public void tiedRegionsArePickedUniformly() {
+        int regions = 4;
+        int trials = 4000;
+        int[] firstPicks = new int[regions];
+        float[] point = new float[2];
+        Random seeds = new Random(17);
+
+        for (int trial = 0; trial < trials; trial++) {
+            SpawnSampler sampler = new SpawnSampler(0f, 0f, WIDTH, HEIGHT, MIN_DISTANCE, 2, 2,
+                                                    new Random(seeds.nextLong()));
+            // Sin objetivos todas las regiones empatan: la primera muestra decide el reparto
+            sampler.sample(point);
+            for (int r = 0; r < regions; r++) {
+                if (sampler.getRegionSamples(r) == 1) {
+                    firstPicks[r]++;
+                }
+            }
+        }
+
+        for (int r = 0; r < regions; r++) {
+            float share = firstPicks[r] / (float) trials;
+            assertTrue("región " + r + ": " + share, share > 0.21f && share < 0.29f);
+        }
+    }
+
+    @Test
+    public void insertAndRemoveTrackOccupiedCells() {
+        SpawnSampler sampler = new SpawnSampler(0f, 0f, WIDTH, HEIGHT, MIN_DISTANCE);
+        int id = sampler.insert(100f, 100f);
+        assertNotEquals(SpawnSampler.NO_SAMPLE, id);
+        assertEquals(100f, sampler.getSampleX(id), 0f);
+        assertEquals(100f, sampler.getSampleY(id), 0f);
+
+        // Misma celda u otra fuera de límites
+        assertEquals(SpawnSampler.NO_SAMPLE, sampler.insert(100.5f, 100.5f));
+        assertEquals(SpawnSampler.NO_SAMPLE, sampler.insert(-1f, 100f));
+        assertEquals(SpawnSampler.NO_SAMPLE, sampler.insert(100f, HEIGHT));
+        assertFalse(sampler.canPlace(110f, 100f));
+
+        sampler.remove(id);
+        sampler.remove(id); // Una segunda baja no hace nada
+        assertEquals(0, sampler.size());
+        assertTrue(sampler.canPlace(110f, 100f));
+
+        fill(sampler, 50);
+        sampler.clear();
+        assertEquals(0, sampler.size());
+        assertEquals(0, sampler.getRegionSamples(0));
+    }
+
+    private static List<float[]> fill(SpawnSampler sampler, int attempts) {
+        List<float[]> points = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            float[] point = new float[2];
+            if (sampler.sample(point) != SpawnSampler.NO_SAMPLE) {
+                points.add(point);
+            }
+        }
+        return points;
+    }
+
+    private static float distance(float[] point, float x, float y) {
+        float dx = point[0] - x;
+        float dy = point[1] - y;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+}
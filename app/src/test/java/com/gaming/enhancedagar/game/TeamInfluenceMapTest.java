@@ -0,0 +1,165 @@
+package com.gaming.enhancedagar.game;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Decaimiento por escala global, dueño y disputa de celdas frente a un mapa ingenuo que
+ * decae celda a celda
+ */
+public class TeamInfluenceMapTest {
+
+    private static final float CELL = 100f;
+    private static final float HALF_LIFE = 3f;
+
+    @Test
+    public void ownerAndContestedFollowDeposits() {
+        TeamInfluenceMap map = new TeamInfluenceMap(0f, 0f, 1000f, 1000f, CELL, 4);
+        int[] counts = new int[map.getMaxTeams()];
+        map.deposit(0, 150f, 150f, 2f);
+
+        assertEquals(0, map.getOwner(150f, 150f));
+        assertEquals(TeamInfluenceMap.NO_TEAM, map.getOwner(950f, 950f));
+        assertFalse(map.isContested(150f, 150f));
+        map.countOwnedCells(counts);
+        assertTrue(counts[0] > 0);
+
+        // Mismo radio y caída: el equipo 1 gana todas las celdas y todas quedan disputadas
+        map.deposit(1, 150f, 150f, 3f);
+        assertEquals(1, map.getOwner(150f, 150f));
+        assertTrue(map.isContested(150f, 150f)); // 2 >= 60% de 3
+
+        map.countOwnedCells(counts);
+        assertArrayEquals(new int[map.getMaxTeams()], counts);
+    }
+
+    @Test
+    public void decayHalvesPerHalfLifeAndDropsOwnership() {
+        TeamInfluenceMap map = new TeamInfluenceMap(0f, 0f, 1000f, 1000f, CELL, 2);
+        map.setHalfLife(HALF_LIFE);
+        map.deposit(0, 150f, 150f, 4f);
+        assertEquals(4f, map.getInfluence(0, 150f, 150f), 1e-4f);
+
+        map.decay(HALF_LIFE);
+        assertEquals(2f, map.getInfluence(0, 150f, 150f), 1e-4f);
+        assertEquals(0, map.getOwner(150f, 150f));
+
+        // Por debajo del mínimo (0.5) la celda vuelve a ser neutral
+        map.decay(HALF_LIFE * 3f);
+        assertEquals(0.25f, map.getInfluence(0, 150f, 150f), 1e-4f);
+        assertEquals(TeamInfluenceMap.NO_TEAM, map.getOwner(150f, 150f));
+    }
+
+    @Test
+    public void renormalizationKeepsValues() {
+        TeamInfluenceMap map = new TeamInfluenceMap(0f, 0f, 1000f, 1000f, CELL, 2);
+        map.setHalfLife(HALF_LIFE);
+        map.deposit(0, 150f, 150f, 1f);
+        // 2^100 supera el límite de escala varias veces
+        for (int i = 0; i < 100; i++) {
+            map.decay(HALF_LIFE);
+        }
+        map.deposit(1, 150f, 150f, 5f);
+
+        assertEquals(5f, map.getInfluence(1, 150f, 150f), 1e-3f);
+        assertEquals(0f, map.getInfluence(0, 150f, 150f), 1e-6f);
+        assertEquals(1, map.getOwner(150f, 150f));
+    }
+
+    @Test
+    public void matchesNaiveMapUnderRandomDepositsAndDecay() {
+        int teams = 3;
+        TeamInfluenceMap map = new TeamInfluenceMap(0f, 0f, 800f, 600f, CELL, teams);
+        map.setHalfLife(HALF_LIFE);
+        map.setRadius(250f);
+        int cells = map.getCellCount();
+        float[][] naive = new float[teams][cells];
+        Random random = new Random(23);
+
+        for (int step = 0; step < 400; step++) {
+            if (random.nextInt(4) == 0) {
+                float deltaTime = random.nextFloat() * 0.5f;
+                map.decay(deltaTime);
+                float factor = (float) Math.exp(-Math.log(2) * deltaTime / HALF_LIFE);
+                for (float[] values : naive) {
+                    for (int cell = 0; cell < cells; cell++) {
+                        values[cell] *= factor;
+                    }
+                }
+            } else {
+                int team = random.nextInt(teams);
+                float x = random.nextFloat() * 800f;
+                float y = random.nextFloat() * 600f;
+                float amount = 0.1f + random.nextFloat() * 2f;
+                map.deposit(team, x, y, amount);
+                depositNaive(naive[team], map, x, y, amount, 250f);
+            }
+        }
+
+        int[] expectedCounts = new int[teams];
+        for (int cell = 0; cell < cells; cell++) {
+            float x = (cell % map.getColumns() + 0.5f) * CELL;
+            float y = (cell / map.getColumns() + 0.5f) * CELL;
+
+            int first = TeamInfluenceMap.NO_TEAM;
+            int second = TeamInfluenceMap.NO_TEAM;
+            for (int team = 0; team < teams; team++) {
+                float value = naive[team][cell];
+                assertEquals(value, map.getInfluence(team, x, y), Math.max(1e-4f, value * 1e-3f));
+                if (value <= 0f) continue;
+                if (first == TeamInfluenceMap.NO_TEAM || value > naive[first][cell]) {
+                    second = first;
+                    first = team;
+                } else if (second == TeamInfluenceMap.NO_TEAM || value > naive[second][cell]) {
+                    second = team;
+                }
+            }
+            // Solo se comparan celdas sin casi-empates que el redondeo pueda invertir
+            if (first == TeamInfluenceMap.NO_TEAM || isNearTie(naive, cell, first, 0.5f)
+                || (second != TeamInfluenceMap.NO_TEAM && isNearTie(naive, cell, first, naive[second][cell]))
+                || (second != TeamInfluenceMap.NO_TEAM && isNearTie(naive, cell, first, naive[second][cell] / 0.6f))) {
+                continue;
+            }
+            int expectedOwner = naive[first][cell] >= 0.5f ? first : TeamInfluenceMap.NO_TEAM;
+            assertEquals(expectedOwner, map.getOwner(x, y));
+            boolean contested = expectedOwner != TeamInfluenceMap.NO_TEAM && second != TeamInfluenceMap.NO_TEAM
+                && naive[second][cell] >= naive[first][cell] * 0.6f;
+            assertEquals(contested, map.isContested(x, y));
+            if (expectedOwner != TeamInfluenceMap.NO_TEAM && !contested) {
+                expectedCounts[expectedOwner]++;
+            }
+        }
+
+        int[] counts = new int[teams];
+        map.countOwnedCells(counts);
+        // Las celdas omitidas por casi-empate pueden sumar a cualquiera: solo cota inferior
+        for (int team = 0; team < teams; team++) {
+            assertTrue(counts[team] >= expectedCounts[team]);
+        }
+        map.clear();
+        map.countOwnedCells(counts);
+        assertArrayEquals(new int[teams], counts);
+    }
+
+    private static void depositNaive(float[] values, TeamInfluenceMap map, float x, float y,
+                                     float amount, float radius) {
+        for (int cell = 0; cell < values.length; cell++) {
+            float dx = (cell % map.getColumns() + 0.5f) * CELL - x;
+            float dy = (cell / map.getColumns() + 0.5f) * CELL - y;
+            float falloff = 1f - (float) Math.sqrt(dx * dx + dy * dy) / radius;
+            if (falloff > 0f) {
+                values[cell] += amount * falloff;
+            }
+        }
+    }
+
+    private static boolean isNearTie(float[][] naive, int cell, int first, float threshold) {
+        return Math.abs(naive[first][cell] - threshold) <= Math.max(1e-4f, threshold * 1e-3f);
+    }
+}
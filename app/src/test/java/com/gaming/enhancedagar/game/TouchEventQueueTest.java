@@ -0,0 +1,119 @@
+package com.gaming.enhancedagar.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lotes atómicos, descarte por cola llena y entrega ordenada entre hilos
+ */
+public class TouchEventQueueTest {
+
+    @Test
+    public void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(8, new TouchEventQueue(5).getCapacity());
+        assertEquals(8, new TouchEventQueue(8).getCapacity());
+        assertEquals(TouchEventQueue.DEFAULT_CAPACITY, new TouchEventQueue().getCapacity());
+    }
+
+    @Test
+    public void batchIsInvisibleUntilPublished() {
+        TouchEventQueue queue = new TouchEventQueue(8);
+        List<long[]> records = new ArrayList<>();
+
+        queue.beginBatch();
+        assertTrue(queue.write(0, 1, 10f, 20f, 100L, TouchEventQueue.FLAG_HISTORICAL));
+        assertTrue(queue.write(2, 1, 11f, 21f, 110L, 0));
+        assertEquals(0, queue.drain(collect(records)));
+
+        assertTrue(queue.publishBatch());
+        assertEquals(2, queue.size());
+        assertEquals(2, queue.getPublishedSequence());
+        assertEquals(2, queue.drain(collect(records)));
+
+        // secuencia, acción, puntero, x, y, tiempo, flags; el último del lote lleva FLAG_BATCH_END
+        assertEquals(0L, records.get(0)[0]);
+        assertEquals(TouchEventQueue.FLAG_HISTORICAL, records.get(0)[6]);
+        assertEquals(1L, records.get(1)[0]);
+        assertEquals(2L, records.get(1)[1]);
+        assertEquals(11L, records.get(1)[3]);
+        assertEquals(110L, records.get(1)[5]);
+        assertEquals(TouchEventQueue.FLAG_BATCH_END, records.get(1)[6]);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void overflowingBatchIsDroppedWhole() {
+        TouchEventQueue queue = new TouchEventQueue(4);
+        writeBatch(queue, 3);
+
+        queue.beginBatch();
+        assertTrue(queue.write(0, 0, 0f, 0f, 0L, 0));
+        assertFalse(queue.write(0, 0, 0f, 0f, 0L, 0));
+        assertFalse(queue.publishBatch());
+        assertEquals(2, queue.getDroppedRecords());
+        assertEquals(3, queue.size());
+
+        // Al liberar espacio vuelve a aceptar lotes
+        queue.clear();
+        assertTrue(writeBatch(queue, 4));
+        assertEquals(4, queue.size());
+        assertEquals(7, queue.getPublishedSequence());
+    }
+
+    @Test
+    public void producerAndConsumerThreadsSeeOrderedRecords() throws InterruptedException {
+        final int batches = 20000;
+        final TouchEventQueue queue = new TouchEventQueue(64);
+        final long[] received = new long[1];
+        final boolean[] ordered = {true};
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < batches; i++) {
+                // Reintentar hasta que el consumidor libere hueco: no se pierde ningún lote
+                do {
+                    queue.beginBatch();
+                    queue.write(0, 0, i, -i, i, 0);
+                    queue.write(1, 0, i, -i, i, 0);
+                } while (!queue.publishBatch());
+            }
+        });
+        producer.start();
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (received[0] < batches * 2L && System.currentTimeMillis() < deadline) {
+            queue.drain((sequence, action, pointerId, x, y, eventTimeNanos, flags) -> {
+                long expectedBatch = received[0] / 2;
+                boolean last = (received[0] & 1) == 1;
+                if (sequence != received[0] || x != expectedBatch || y != -expectedBatch
+                    || action != (last ? 1 : 0)
+                    || ((flags & TouchEventQueue.FLAG_BATCH_END) != 0) != last) {
+                    ordered[0] = false;
+                }
+                received[0]++;
+            });
+        }
+        producer.join();
+
+        assertEquals(batches * 2L, received[0]);
+        assertTrue(ordered[0]);
+    }
+
+    private static boolean writeBatch(TouchEventQueue queue, int records) {
+        queue.beginBatch();
+        for (int i = 0; i < records; i++) {
+            queue.write(0, i, i, i, i, 0);
+        }
+        return queue.publishBatch();
+    }
+
+    private static TouchEventQueue.Consumer collect(List<long[]> records) {
+        return (sequence, action, pointerId, x, y, eventTimeNanos, flags) ->
+            records.add(new long[] {sequence, action, pointerId, (long) x, (long) y, eventTimeNanos, flags});
+    }
+}